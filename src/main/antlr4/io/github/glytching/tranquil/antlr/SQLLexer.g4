@@ -399,6 +399,7 @@ CAST_EXPRESSION
 ASSIGN  : ':=';
 EQUAL  : '=';
 COLON :  ':';
+QUESTION : '?';
 SEMI_COLON :  ';';
 COMMA : ',';
 CONCATENATION_OPERATOR : VERTICAL_BAR VERTICAL_BAR;
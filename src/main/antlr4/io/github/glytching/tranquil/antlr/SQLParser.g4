@@ -583,6 +583,20 @@ nonparenthesized_value_expression_primary
 
 unsigned_value_specification
   : unsigned_literal
+  | parameter_specification
+  ;
+
+/*
+===============================================================================
+  6.5 <parameter specification>
+  A placeholder whose value is bound when the expression is applied, either
+  positional e.g. ? or named e.g. :name
+===============================================================================
+*/
+
+parameter_specification
+  : QUESTION
+  | COLON identifier
   ;
 
 unsigned_numeric_literal
@@ -1,8 +1,13 @@
 package io.github.glytching.tranquil;
 
 import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.context.CompiledQuery;
+import io.github.glytching.tranquil.context.LinesReadContext;
 import io.github.glytching.tranquil.context.ParseContext;
 import io.github.glytching.tranquil.context.ReadContext;
+import io.github.glytching.tranquil.context.ScanReadContext;
+import io.github.glytching.tranquil.context.StreamingReadContext;
+import io.github.glytching.tranquil.context.SubscriptionIndex;
 import io.github.glytching.tranquil.context.TranquilHandler;
 import io.github.glytching.tranquil.mapping.MappingProvider;
 
@@ -28,6 +33,32 @@ public class Tranquil {
     return parse(from).read(select, where);
   }
 
+  /**
+   * Compiles the given {@code select} and {@code where} using the default {@link Configuration}.
+   * The resulting {@link CompiledQuery} can be applied to any number of inputs without resolving
+   * the expressions again. Use {@code Tranquil.using(configuration).compile(select, where)} to
+   * compile with a non standard configuration.
+   *
+   * @param select a select expression
+   * @param where a where expression
+   * @return a compiled query
+   */
+  public static CompiledQuery compile(String select, String where) {
+    return new TranquilHandler().compile(select, where);
+  }
+
+  /**
+   * Indexes the given {@code whereClauses} using the default {@link Configuration}. The resulting
+   * {@link SubscriptionIndex} tests a document against all of the where clauses at once, returning
+   * the ids of those which match.
+   *
+   * @param whereClauses where expressions keyed by subscription id
+   * @return a subscription index
+   */
+  public static SubscriptionIndex index(Map<String, String> whereClauses) {
+    return new TranquilHandler().index(whereClauses);
+  }
+
   /**
    * Creates a {@link ParseContext} for use in parsing a given input. Use this helper if you want to
    * parse with a non standard (@link Configuration).
@@ -88,6 +119,52 @@ public class Tranquil {
     return new TranquilHandler().parse(input);
   }
 
+  /**
+   * Creates a {@link StreamingReadContext} for the given input stream using the default {@link
+   * Configuration}. The input is parsed one document at a time as it is read, rather than up front,
+   * so this is suited to inputs which are too large to hold in memory.
+   *
+   * @param input input
+   * @return a streaming context, this can be read once
+   */
+  public static StreamingReadContext stream(InputStream input) {
+    return new TranquilHandler().stream(input);
+  }
+
+  /**
+   * Creates a {@link LinesReadContext} for the given JSON lines input stream using the default
+   * {@link Configuration}. Each line of the input holds one record and the records are read one at
+   * a time.
+   *
+   * @param input input
+   * @return a lines context, this can be read once
+   */
+  public static LinesReadContext lines(InputStream input) {
+    return new TranquilHandler().lines(input);
+  }
+
+  /**
+   * Creates a {@link LinesReadContext} for the given JSON lines file using the default {@link
+   * Configuration}. Each line of the file holds one record and the records are read one at a time.
+   *
+   * @param input input
+   * @return a lines context, this can be read any number of times
+   */
+  public static LinesReadContext lines(File input) {
+    return new TranquilHandler().lines(input);
+  }
+
+  /**
+   * Creates a {@link ScanReadContext} for the given JSON lines or JSON array file using the default
+   * {@link Configuration}. The file is memory mapped and its records are evaluated in parallel.
+   *
+   * @param input input
+   * @return a scan context, this can be read any number of times
+   */
+  public static ScanReadContext scan(File input) {
+    return new TranquilHandler().scan(input);
+  }
+
   /**
    * Parse the contents of the given file using the default {@link Configuration} and returns a
    * {@link ReadContext} for evaluation
@@ -0,0 +1,18 @@
+package io.github.glytching.tranquil.cache;
+
+/** Declares the eviction policies which a {@link Cache} can use. */
+public enum CachePolicy {
+  /**
+   * Evicts the least recently used entry. Every read reorders the cache so reads and writes are
+   * serialised by a single lock. This is the default policy.
+   */
+  LRU,
+
+  /**
+   * Window TinyLFU: recently added entries go into a small LRU window and only move into the main
+   * cache if they have been used more often than the entry they would displace. A burst of one-off
+   * expressions cannot flush out frequently used expressions, and reads do not take a lock. See
+   * {@link TinyLfuCache}.
+   */
+  TINY_LFU
+}
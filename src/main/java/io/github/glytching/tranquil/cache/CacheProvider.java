@@ -4,10 +4,18 @@ package io.github.glytching.tranquil.cache;
 public class CacheProvider {
   /** the maximum permitted capacity of the cache */
   private final int cacheSize;
+  /** the eviction policy of the cache */
+  private final CachePolicy cachePolicy;
+
   private volatile Cache cache = null;
 
   public CacheProvider(int cacheSize) {
+    this(cacheSize, CachePolicy.LRU);
+  }
+
+  public CacheProvider(int cacheSize, CachePolicy cachePolicy) {
     this.cacheSize = cacheSize;
+    this.cachePolicy = cachePolicy;
   }
 
   /**
@@ -19,7 +27,10 @@ public class CacheProvider {
     if (cache == null) {
       synchronized (this) {
         if (cache == null) {
-          cache = new LRUCache(cacheSize);
+          cache =
+              cachePolicy == CachePolicy.TINY_LFU
+                  ? new TinyLfuCache(cacheSize)
+                  : new LRUCache(cacheSize);
         }
       }
     }
@@ -0,0 +1,97 @@
+package io.github.glytching.tranquil.cache;
+
+/**
+ * A count-min sketch which estimates how often a key has been seen. Each key has four 4-bit
+ * counters, spread over the table by four hash functions, and its frequency is the smallest of
+ * those counters. Once the number of increments reaches ten times the cache's capacity every
+ * counter is halved so that the estimates favour recent activity.
+ *
+ * <p>This is not thread safe, callers are expected to hold the cache's eviction lock.
+ */
+class FrequencySketch {
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAXIMUM_COUNT = 15;
+  private static final int SAMPLE_MULTIPLIER = 10;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  FrequencySketch(int maximumSize) {
+    // each long holds sixteen counters
+    int tableSize = Math.max(8, Integer.highestOneBit(Math.max(1, maximumSize - 1)) << 1);
+    this.table = new long[tableSize];
+    this.tableMask = tableSize - 1;
+    this.sampleSize = Math.max(SAMPLE_MULTIPLIER, SAMPLE_MULTIPLIER * maximumSize);
+  }
+
+  /**
+   * Returns the estimated number of occurrences of the given {@code key}, up to a maximum of 15.
+   *
+   * @param key the key
+   * @return the estimated frequency
+   */
+  int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = MAXIMUM_COUNT;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Increments the counters for the given {@code key}, ageing all counters if the sample size has
+   * been reached.
+   *
+   * @param key the key
+   */
+  void increment(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++size == sampleSize) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((table[index] & mask) != mask) {
+      table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size >>>= 1;
+  }
+
+  private int indexOf(int hash, int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return ((int) h) & tableMask;
+  }
+
+  private static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+}
@@ -3,7 +3,10 @@ package io.github.glytching.tranquil.cache;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-/** A LRU implementation of {@link Cache}. */
+/**
+ * A LRU implementation of {@link Cache}. Reads reorder the underlying access ordered map so every
+ * method is synchronized, this allows a single instance to be shared between threads.
+ */
 public class LRUCache implements Cache {
 
   private static final boolean SORT_BY_ACCESS = true;
@@ -18,18 +21,18 @@ public class LRUCache implements Cache {
   }
 
   @Override
-  public Object get(String key) {
+  public synchronized Object get(String key) {
     return this.delegate.get(key);
   }
 
   @Override
   @SuppressWarnings("unchecked")
-  public <T> T get(Class<T> clazz, String key) {
+  public synchronized <T> T get(Class<T> clazz, String key) {
     return (T) get(key);
   }
 
   @Override
-  public void put(String key, Object value) {
+  public synchronized void put(String key, Object value) {
     if (this.delegate.containsKey(key)) {
       this.delegate.remove(key);
     } else if (this.delegate.size() >= this.maxSize) {
@@ -42,7 +45,7 @@ public class LRUCache implements Cache {
   }
 
   @Override
-  public int size() {
+  public synchronized int size() {
     return delegate.size();
   }
 }
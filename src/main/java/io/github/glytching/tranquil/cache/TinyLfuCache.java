@@ -0,0 +1,264 @@
+package io.github.glytching.tranquil.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent, bounded {@link Cache} which uses the Window TinyLFU eviction policy.
+ *
+ * <ul>
+ *   <li>Reads are lock free. Each read is recorded in a striped, lossy buffer and a full buffer is
+ *       replayed against the eviction policy under a lock. A read which cannot get the lock does
+ *       not wait for it, the buffer is replayed later.
+ *   <li>New entries go into a small LRU <i>window</i> (1% of the capacity). An entry which leaves
+ *       the window only gets into the <i>main</i> region if a {@link FrequencySketch} says it is
+ *       used more often than the entry it would displace. Otherwise it is the entry which is
+ *       evicted.
+ *   <li>The main region is a segmented LRU. Entries start in <i>probation</i> and move to
+ *       <i>protected</i> (80% of the main region) when they are read again.
+ * </ul>
+ *
+ * So a burst of one-off keys passes through the window without displacing frequently used keys.
+ * Misses count towards a key's frequency too, so a key which keeps being requested will be
+ * admitted.
+ */
+public class TinyLfuCache implements Cache {
+
+  private static final double WINDOW_PERCENTAGE = 0.01;
+  private static final double PROTECTED_PERCENTAGE = 0.8;
+  private static final int READ_BUFFER_SIZE = 16;
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+  private final int maximumSize;
+  private final int windowMaximum;
+  private final int protectedMaximum;
+
+  private final ConcurrentHashMap<String, Node> data = new ConcurrentHashMap<>();
+  private final ReadBuffer[] readBuffers;
+
+  // everything below is guarded by the eviction lock
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final FrequencySketch sketch;
+  private final AccessOrder window = new AccessOrder();
+  private final AccessOrder probation = new AccessOrder();
+  private final AccessOrder protectedRegion = new AccessOrder();
+
+  public TinyLfuCache(int maximumSize) {
+    this.maximumSize = Math.max(1, maximumSize);
+    this.windowMaximum = Math.max(1, (int) (this.maximumSize * WINDOW_PERCENTAGE));
+    this.protectedMaximum = (int) ((this.maximumSize - windowMaximum) * PROTECTED_PERCENTAGE);
+    this.sketch = new FrequencySketch(this.maximumSize);
+
+    int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+    this.readBuffers = new ReadBuffer[stripes];
+    for (int i = 0; i < readBuffers.length; i++) {
+      readBuffers[i] = new ReadBuffer();
+    }
+  }
+
+  @Override
+  public Object get(String key) {
+    Node node = data.get(key);
+    ReadBuffer buffer = readBuffer();
+    if (buffer.offer(key)) {
+      tryDrain(buffer);
+    }
+    return node == null ? null : node.value;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Class<T> clazz, String key) {
+    return (T) get(key);
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    evictionLock.lock();
+    try {
+      for (ReadBuffer buffer : readBuffers) {
+        drain(buffer);
+      }
+
+      Node existing = data.get(key);
+      if (existing != null) {
+        existing.value = value;
+        onRead(existing);
+      } else {
+        Node node = new Node(key, value);
+        data.put(key, node);
+        sketch.increment(key);
+        window.add(node);
+        evict();
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    return data.size();
+  }
+
+  private ReadBuffer readBuffer() {
+    int hash = Long.hashCode(Thread.currentThread().getId()) * 0x9E3779B9;
+    return readBuffers[(hash >>> 16) & (readBuffers.length - 1)];
+  }
+
+  private void tryDrain(ReadBuffer buffer) {
+    if (evictionLock.tryLock()) {
+      try {
+        drain(buffer);
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void drain(ReadBuffer buffer) {
+    for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+      String key = buffer.slots.getAndSet(i, null);
+      if (key != null) {
+        sketch.increment(key);
+        Node node = data.get(key);
+        if (node != null) {
+          onRead(node);
+        }
+      }
+    }
+  }
+
+  private void onRead(Node node) {
+    if (node.region == window) {
+      window.moveToTail(node);
+    } else if (node.region == probation) {
+      probation.remove(node);
+      protectedRegion.add(node);
+      if (protectedRegion.size > protectedMaximum) {
+        // demote the least recently used protected entry
+        probation.add(protectedRegion.removeFirst());
+      }
+    } else if (node.region == protectedRegion) {
+      protectedRegion.moveToTail(node);
+    }
+  }
+
+  /**
+   * Moves entries which overflow the window into the main region, evicting whichever of the
+   * candidate and the main region's least recently used entry is used least often.
+   */
+  private void evict() {
+    List<Node> candidates = new ArrayList<>(1);
+    while (window.size > windowMaximum) {
+      candidates.add(window.removeFirst());
+    }
+
+    for (Node candidate : candidates) {
+      if (window.size + probation.size + protectedRegion.size < maximumSize) {
+        probation.add(candidate);
+        continue;
+      }
+
+      AccessOrder victims = probation.head == null ? protectedRegion : probation;
+      Node victim = victims.head;
+      if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+        victims.remove(victim);
+        data.remove(victim.key, victim);
+        probation.add(candidate);
+      } else {
+        data.remove(candidate.key, candidate);
+      }
+    }
+  }
+
+  private static final class Node {
+    private final String key;
+    private volatile Object value;
+
+    // guarded by the eviction lock
+    private AccessOrder region;
+    private Node previous;
+    private Node next;
+
+    Node(String key, Object value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  /** A doubly linked list of nodes, least recently used first. */
+  private static final class AccessOrder {
+    private Node head;
+    private Node tail;
+    private int size;
+
+    void add(Node node) {
+      node.region = this;
+      node.previous = tail;
+      node.next = null;
+      if (tail == null) {
+        head = node;
+      } else {
+        tail.next = node;
+      }
+      tail = node;
+      size++;
+    }
+
+    void remove(Node node) {
+      if (node.previous == null) {
+        head = node.next;
+      } else {
+        node.previous.next = node.next;
+      }
+      if (node.next == null) {
+        tail = node.previous;
+      } else {
+        node.next.previous = node.previous;
+      }
+      node.region = null;
+      node.previous = null;
+      node.next = null;
+      size--;
+    }
+
+    Node removeFirst() {
+      Node first = head;
+      remove(first);
+      return first;
+    }
+
+    void moveToTail(Node node) {
+      if (node != tail) {
+        remove(node);
+        add(node);
+      }
+    }
+  }
+
+  /**
+   * A lossy ring of recently read keys. Concurrent offers may overwrite each other's slots and a
+   * buffer which is not drained in time is simply overwritten. Losing a few reads only affects the
+   * accuracy of the policy.
+   */
+  private static final class ReadBuffer {
+    private final AtomicReferenceArray<String> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    /**
+     * Records a read of the given {@code key}.
+     *
+     * @return true if the buffer has wrapped and should be drained
+     */
+    boolean offer(String key) {
+      int position = cursor.getAndIncrement() & READ_BUFFER_MASK;
+      slots.lazySet(position, key);
+      return position == READ_BUFFER_MASK;
+    }
+  }
+}
@@ -1,10 +1,12 @@
 package io.github.glytching.tranquil.configuration;
 
+import io.github.glytching.tranquil.cache.CachePolicy;
 import io.github.glytching.tranquil.mapping.MappingProvider;
 
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static java.util.Arrays.asList;
 
@@ -15,12 +17,29 @@ public class Configuration {
   private final MappingProvider mappingProvider;
   private final int lruCacheSize;
   private final Set<Option> options;
+  private final Engine engine;
+  private final CachePolicy cachePolicy;
+  private final int tieredCompilationThreshold;
+  private final int parallelThreshold;
+  private final ForkJoinPool parallelPool;
 
   private Configuration(
-      MappingProvider mappingProvider, int lruCacheSize, EnumSet<Option> options) {
+      MappingProvider mappingProvider,
+      int lruCacheSize,
+      EnumSet<Option> options,
+      Engine engine,
+      CachePolicy cachePolicy,
+      int tieredCompilationThreshold,
+      int parallelThreshold,
+      ForkJoinPool parallelPool) {
     this.mappingProvider = mappingProvider;
     this.lruCacheSize = lruCacheSize;
     this.options = Collections.unmodifiableSet(options);
+    this.engine = engine;
+    this.cachePolicy = cachePolicy;
+    this.tieredCompilationThreshold = tieredCompilationThreshold;
+    this.parallelThreshold = parallelThreshold;
+    this.parallelPool = parallelPool;
   }
 
   /**
@@ -34,6 +53,10 @@ public class Configuration {
         .mappingProvider(defaults.mappingProvider())
         .lruCacheSize(100)
         .options(defaults.options())
+        .engine(defaults.engine())
+        .cachePolicy(defaults.cachePolicy())
+        .tieredCompilationThreshold(defaults.tieredCompilationThreshold())
+        .parallelThreshold(defaults.parallelThreshold())
         .build();
   }
 
@@ -78,10 +101,70 @@ public class Configuration {
     return options.contains(option);
   }
 
+  /**
+   * Returns the {@link Engine} used to apply select and where clauses
+   *
+   * @return engine
+   */
+  public Engine engine() {
+    return engine;
+  }
+
+  /**
+   * Returns the eviction policy of the cache of compiled expressions, the size of this cache is
+   * given by {@link #lruCacheSize()}
+   *
+   * @return cachePolicy
+   */
+  public CachePolicy cachePolicy() {
+    return cachePolicy;
+  }
+
+  /**
+   * Returns the number of times an expression is applied before the {@link Engine#TIERED} engine
+   * compiles it, this is ignored by the other engines
+   *
+   * @return tieredCompilationThreshold
+   */
+  public int tieredCompilationThreshold() {
+    return tieredCompilationThreshold;
+  }
+
+  /**
+   * Returns the number of elements at which an input's array attribute is split across the {@link
+   * #parallelPool()} rather than evaluated by the calling thread, 0 if arrays are always evaluated
+   * by the calling thread. This applies to inputs which have been parsed in their entirety, the
+   * results are in element order whatever the threshold.
+   *
+   * <p>Each array is evaluated with one predicator and one projector which are shared by the
+   * threads of the pool. This is safe for every {@link Engine}: the interpreted, compiled and
+   * Groovy forms hold nothing but final state which is assigned when they are created, and the
+   * tiered form promotes itself to its compiled tier via atomic counters and volatile fields.
+   *
+   * @return parallelThreshold
+   */
+  public int parallelThreshold() {
+    return parallelThreshold;
+  }
+
+  /**
+   * Returns the pool on which large arrays are evaluated, see {@link #parallelThreshold()}
+   *
+   * @return parallelPool
+   */
+  public ForkJoinPool parallelPool() {
+    return parallelPool;
+  }
+
   public static class ConfigurationBuilder {
     private MappingProvider mappingProvider;
     private EnumSet<Option> options = EnumSet.noneOf(Option.class);
     private int lruCacheSize;
+    private Engine engine;
+    private CachePolicy cachePolicy;
+    private Integer tieredCompilationThreshold;
+    private Integer parallelThreshold;
+    private ForkJoinPool parallelPool;
 
     public ConfigurationBuilder mappingProvider(MappingProvider provider) {
       this.mappingProvider = provider;
@@ -105,6 +188,31 @@ public class Configuration {
       return this;
     }
 
+    public ConfigurationBuilder engine(Engine engine) {
+      this.engine = engine;
+      return this;
+    }
+
+    public ConfigurationBuilder cachePolicy(CachePolicy cachePolicy) {
+      this.cachePolicy = cachePolicy;
+      return this;
+    }
+
+    public ConfigurationBuilder tieredCompilationThreshold(int threshold) {
+      this.tieredCompilationThreshold = threshold;
+      return this;
+    }
+
+    public ConfigurationBuilder parallelThreshold(int threshold) {
+      this.parallelThreshold = threshold;
+      return this;
+    }
+
+    public ConfigurationBuilder parallelPool(ForkJoinPool pool) {
+      this.parallelPool = pool;
+      return this;
+    }
+
     public Configuration build() {
       final Defaults defaults = getEffectiveDefaults();
       if (mappingProvider == null) {
@@ -113,7 +221,30 @@ public class Configuration {
       if (options.isEmpty() && !defaults.options().isEmpty()) {
         options.addAll(defaults.options());
       }
-      return new Configuration(mappingProvider, lruCacheSize, options);
+      if (engine == null) {
+        engine = defaults.engine();
+      }
+      if (cachePolicy == null) {
+        cachePolicy = defaults.cachePolicy();
+      }
+      if (tieredCompilationThreshold == null) {
+        tieredCompilationThreshold = defaults.tieredCompilationThreshold();
+      }
+      if (parallelThreshold == null) {
+        parallelThreshold = defaults.parallelThreshold();
+      }
+      if (parallelPool == null) {
+        parallelPool = ForkJoinPool.commonPool();
+      }
+      return new Configuration(
+          mappingProvider,
+          lruCacheSize,
+          options,
+          engine,
+          cachePolicy,
+          tieredCompilationThreshold,
+          parallelThreshold,
+          parallelPool);
     }
   }
 }
@@ -1,5 +1,6 @@
 package io.github.glytching.tranquil.configuration;
 
+import io.github.glytching.tranquil.cache.CachePolicy;
 import io.github.glytching.tranquil.mapping.MappingProvider;
 
 import java.util.Set;
@@ -18,4 +19,34 @@ public interface Defaults {
    * @return default mapping provider
    */
   MappingProvider mappingProvider();
+
+  /**
+   * Returns the default {@link Engine}
+   *
+   * @return default engine
+   */
+  Engine engine();
+
+  /**
+   * Returns the default {@link CachePolicy}
+   *
+   * @return default cache policy
+   */
+  CachePolicy cachePolicy();
+
+  /**
+   * Returns the default number of invocations after which the {@link Engine#TIERED} engine compiles
+   * an expression
+   *
+   * @return default tiered compilation threshold
+   */
+  int tieredCompilationThreshold();
+
+  /**
+   * Returns the default number of array elements at which evaluation is split across a pool, 0
+   * disables parallel evaluation
+   *
+   * @return default parallel threshold
+   */
+  int parallelThreshold();
 }
@@ -1,7 +1,9 @@
 package io.github.glytching.tranquil.configuration;
 
+import io.github.glytching.tranquil.cache.CachePolicy;
 import io.github.glytching.tranquil.mapping.JacksonMappingProvider;
 import io.github.glytching.tranquil.mapping.MappingProvider;
+import io.github.glytching.tranquil.ql.tiered.TieredFactory;
 
 import java.util.EnumSet;
 import java.util.Set;
@@ -22,4 +24,25 @@ public class DefaultsImpl implements Defaults {
   public MappingProvider mappingProvider() {
     return new JacksonMappingProvider();
   }
+
+  @Override
+  public Engine engine() {
+    return Engine.GROOVY;
+  }
+
+  @Override
+  public CachePolicy cachePolicy() {
+    return CachePolicy.LRU;
+  }
+
+  @Override
+  public int tieredCompilationThreshold() {
+    return TieredFactory.DEFAULT_COMPILATION_THRESHOLD;
+  }
+
+  @Override
+  public int parallelThreshold() {
+    // parallel evaluation only pays for itself on large arrays, which the caller knows best
+    return 0;
+  }
 }
@@ -0,0 +1,38 @@
+package io.github.glytching.tranquil.configuration;
+
+/** Declares the engines which can be used to apply select and where clauses. */
+public enum Engine {
+  /**
+   * Each distinct expression is translated into a Groovy class which is compiled and then invoked
+   * for each input. This is the default engine.
+   */
+  GROOVY,
+
+  /**
+   * Each distinct expression is parsed into a tree of plain Java evaluators. There is no class
+   * generation so new expressions are ready for use as soon as they have been parsed and there is
+   * no dynamic dispatch when the expression is applied to an input. The interpreter supports the
+   * same clauses as the Groovy engine with the exception of function calls, sub queries and string
+   * concatenation.
+   */
+  INTERPRETER,
+
+  /**
+   * Each distinct expression is compiled into a JVM class which implements the expression with
+   * statically typed code. Creating an expression costs a little more than it does for the {@link
+   * #INTERPRETER} but applying it is faster since the JIT can inline the whole expression. This is
+   * the best choice for long lived expressions which are applied to many inputs. The compiler
+   * supports the same clauses as the {@link #INTERPRETER}.
+   */
+  COMPILER,
+
+  /**
+   * Each distinct expression starts out in the {@link #INTERPRETER} so it is ready for use as soon
+   * as it has been parsed. Once an expression has been applied {@link
+   * Configuration#tieredCompilationThreshold()} times it is handed to the {@link #COMPILER} on a
+   * background thread and the compiled form replaces the interpreted form when it is ready. This
+   * suits workloads which mix short lived and long lived expressions. The tiered engine supports
+   * the same clauses as the {@link #INTERPRETER}.
+   */
+  TIERED
+}
@@ -14,5 +14,16 @@ public enum Option {
    * If an exception is thrown and this option is <code>on</code> then the eventual response will be
    * an empty String.
    */
-  SUPPRESS_EXCEPTIONS
+  SUPPRESS_EXCEPTIONS,
+
+  /**
+   * Replace the literal values in a <code>where</code> clause with parameters before resolving it,
+   * so that <code>name = 'tap'</code> and <code>name = 'sink'</code> share a single parsed (and, if
+   * applicable, compiled) expression. This is worthwhile when the same expression is used with many
+   * different literal values.
+   *
+   * <p>This option is ignored by the {@link Engine#GROOVY} engine since it does not support
+   * parameters.
+   */
+  LIFT_LITERALS
 }
@@ -0,0 +1,128 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.exception.TranquilException;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Reads a batch of independent inputs with one query, see {@link CompiledQuery#readAll(Collection,
+ * Executor, int)}.
+ *
+ * <p>The batch is split into as many contiguous slices as the parallelism allows, the first slice
+ * is read by the calling thread and the rest are read on the executor. Each result is written to
+ * its input's position so the results are in input order whatever the parallelism. Each input is
+ * read on its own so a failure in one input has no bearing on the others; if a failure is not
+ * suppressed by the query then the inputs which follow the failed input are skipped, the inputs
+ * which precede it are still read, and the failure of the earliest input to fail is thrown.
+ */
+final class BatchReader {
+
+  private final Function<Object, String> reader;
+  private final Executor executor;
+  private final int parallelism;
+
+  // the position of the earliest input which has failed so far, the slices which are still running
+  // stop once they pass it but keep reading the inputs which precede it since one of those may fail
+  // too
+  private final AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+
+  /**
+   * Creates a batch reader.
+   *
+   * @param reader reads one input, this is given a {@code String}, a {@code Map}, an {@code
+   *     InputStream} or a {@code byte[]}
+   * @param executor runs the slices of the batch which are read in parallel
+   * @param parallelism the number of slices into which the batch is split, 1 reads the entire batch
+   *     on the calling thread
+   */
+  BatchReader(Function<Object, String> reader, Executor executor, int parallelism) {
+    if (parallelism < 1) {
+      throw new TranquilException(
+          String.format("The parallelism must be at least 1 but was: %s!", parallelism));
+    }
+    this.reader = reader;
+    this.executor = executor;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Reads each of the given {@code sources}.
+   *
+   * @param sources the inputs
+   * @return the result of reading each input, in input order
+   */
+  List<String> read(Collection<?> sources) {
+    Object[] inputs = sources.toArray();
+    for (Object input : inputs) {
+      if (!isReadable(input)) {
+        throw new TranquilException(
+            String.format(
+                "Cannot read an input of type [%s], an input must be a String, a Map, an"
+                    + " InputStream or a byte[]!",
+                input == null ? null : input.getClass().getName()));
+      }
+    }
+    if (inputs.length == 0) {
+      return Collections.emptyList();
+    }
+
+    String[] results = new String[inputs.length];
+    int slices = Math.min(parallelism, inputs.length);
+    int sliceSize = (inputs.length + slices - 1) / slices;
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int from = sliceSize; from < inputs.length; from += sliceSize) {
+      int start = from;
+      int end = Math.min(inputs.length, from + sliceSize);
+      futures.add(CompletableFuture.runAsync(() -> read(inputs, results, start, end), executor));
+    }
+    // if this slice fails then its failure is the earliest, the later slices, which may still be
+    // running, stop at their next input
+    read(inputs, results, 0, sliceSize);
+    // the slices are joined in input order so the first failure to be thrown is the earliest
+    for (CompletableFuture<Void> future : futures) {
+      join(future);
+    }
+    return Arrays.asList(results);
+  }
+
+  private void read(Object[] inputs, String[] results, int start, int end) {
+    for (int i = start; i < end && i < firstFailure.get(); i++) {
+      try {
+        results[i] = reader.apply(inputs[i]);
+      } catch (RuntimeException ex) {
+        firstFailure.accumulateAndGet(i, Math::min);
+        throw ex;
+      }
+    }
+  }
+
+  private static boolean isReadable(Object input) {
+    return input instanceof String
+        || input instanceof Map
+        || input instanceof InputStream
+        || input instanceof byte[];
+  }
+
+  private static void join(CompletableFuture<Void> future) {
+    try {
+      future.join();
+    } catch (CompletionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new TranquilException("Failed to read the input!", cause);
+    }
+  }
+}
@@ -0,0 +1,260 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.exception.MappingException;
+import io.github.glytching.tranquil.ql.interpreter.Evaluator;
+import io.github.glytching.tranquil.ql.interpreter.Interpreter;
+import io.github.glytching.tranquil.ql.model.Projection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Projects a document straight into a new instance of a bean type, rather than into a {@code Map}
+ * which the {@link io.github.glytching.tranquil.mapping.MappingProvider} then converts. Each
+ * projection is written to the bean property whose name is the projection's alias, via that
+ * property's public setter or, failing that, its public field.
+ *
+ * <p>This only applies to types which have a public no-arg constructor and a writable property for
+ * every projection, where each such property is a primitive, a primitive wrapper, a {@code String},
+ * a {@code BigDecimal}, a {@code BigInteger}, an enum or an {@code Object}. Values are converted
+ * where this is lossless, for example the double {@code 10.0} is written to an {@code int} property
+ * as {@code 10}. A null value is not written to a primitive property. If a document has a value
+ * which cannot be converted (for example {@code 10.5} for an {@code int} property) then that
+ * document's projections are passed to a fallback, which typically uses the mapping provider, so
+ * that the provider's conversion rules decide the outcome.
+ *
+ * <p>Properties are matched by name alone, mapping provider annotations such as {@code
+ * JsonProperty} play no part.
+ *
+ * @param <T> the bean type
+ */
+final class BeanProjector<T> {
+
+  // returned by a conversion which is not possible
+  private static final Object INCONVERTIBLE = new Object();
+
+  private final Class<T> type;
+  private final MethodHandle constructor;
+  private final String[] aliases;
+  private final Evaluator[] evaluators;
+  private final MethodHandle[] setters;
+  private final Function<Object, Object>[] converters;
+
+  private BeanProjector(
+      Class<T> type,
+      MethodHandle constructor,
+      String[] aliases,
+      Evaluator[] evaluators,
+      MethodHandle[] setters,
+      Function<Object, Object>[] converters) {
+    this.type = type;
+    this.constructor = constructor;
+    this.aliases = aliases;
+    this.evaluators = evaluators;
+    this.setters = setters;
+    this.converters = converters;
+  }
+
+  /**
+   * Creates a projector for the given {@code projections} and {@code type}.
+   *
+   * @param projections the parsed form of a select clause
+   * @param type the bean type
+   * @param <T> the bean type
+   * @return a projector, or null if the given type is not a bean type or does not have a supported
+   *     property for every projection
+   */
+  @SuppressWarnings("unchecked")
+  static <T> BeanProjector<T> of(List<Projection> projections, Class<T> type) {
+    if (projections.isEmpty()
+        || !Modifier.isPublic(type.getModifiers())
+        || Modifier.isAbstract(type.getModifiers())) {
+      return null;
+    }
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      MethodHandle constructor =
+          lookup
+              .findConstructor(type, MethodType.methodType(void.class))
+              .asType(MethodType.methodType(Object.class));
+
+      int count = projections.size();
+      String[] aliases = new String[count];
+      Evaluator[] evaluators = new Evaluator[count];
+      MethodHandle[] setters = new MethodHandle[count];
+      Function<Object, Object>[] converters =
+          (Function<Object, Object>[]) new Function<?, ?>[count];
+      for (int i = 0; i < count; i++) {
+        aliases[i] = projections.get(i).getAlias();
+        evaluators[i] = Interpreter.toEvaluator(projections.get(i).getOperand());
+        Class<?> propertyType = findProperty(lookup, type, aliases[i], setters, i);
+        converters[i] = propertyType == null ? null : converter(propertyType);
+        if (converters[i] == null) {
+          return null;
+        }
+      }
+      return new BeanProjector<>(type, constructor, aliases, evaluators, setters, converters);
+    } catch (NoSuchMethodException | IllegalAccessException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Projects the given {@code incoming} into a new instance of the bean type.
+   *
+   * @param incoming a document
+   * @param fallback converts the projected values of a document which cannot be written directly
+   * @return the projected bean
+   */
+  T project(Object incoming, Function<Map<String, Object>, T> fallback) {
+    Object[] values = new Object[aliases.length];
+    for (int i = 0; i < aliases.length; i++) {
+      values[i] = evaluators[i].evaluate(incoming);
+    }
+    try {
+      Object bean = constructor.invokeExact();
+      for (int i = 0; i < aliases.length; i++) {
+        Object value = converters[i].apply(values[i]);
+        if (value == INCONVERTIBLE) {
+          Map<String, Object> projected = new LinkedHashMap<>();
+          for (int j = 0; j < aliases.length; j++) {
+            projected.put(aliases[j], values[j]);
+          }
+          return fallback.apply(projected);
+        }
+        if (value != null || !setters[i].type().parameterType(1).isPrimitive()) {
+          setters[i].invoke(bean, value);
+        }
+      }
+      return type.cast(bean);
+    } catch (RuntimeException ex) {
+      throw ex;
+    } catch (Throwable ex) {
+      throw new MappingException(
+          String.format("Failed to write the projected values to [%s]!", type.getName()),
+          ex instanceof Exception ? (Exception) ex : new RuntimeException(ex));
+    }
+  }
+
+  // finds the named property's setter, recording it at the given index, and returns its type
+  private static Class<?> findProperty(
+      MethodHandles.Lookup lookup, Class<?> type, String name, MethodHandle[] setters, int index)
+      throws IllegalAccessException {
+    if (name == null || name.isEmpty()) {
+      return null;
+    }
+    String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    for (Method method : type.getMethods()) {
+      if (method.getName().equals(setterName)
+          && method.getParameterCount() == 1
+          && !Modifier.isStatic(method.getModifiers())
+          && converter(method.getParameterTypes()[0]) != null) {
+        setters[index] = lookup.unreflect(method);
+        return method.getParameterTypes()[0];
+      }
+    }
+    for (Field field : type.getFields()) {
+      if (field.getName().equals(name)
+          && !Modifier.isStatic(field.getModifiers())
+          && !Modifier.isFinal(field.getModifiers())) {
+        setters[index] = lookup.unreflectSetter(field);
+        return field.getType();
+      }
+    }
+    return null;
+  }
+
+  // returns the conversion to the given property type, or null if that type is not supported
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Function<Object, Object> converter(Class<?> type) {
+    if (type == Object.class) {
+      return value -> value;
+    } else if (type == String.class) {
+      return value -> value == null || value instanceof String ? value : INCONVERTIBLE;
+    } else if (type == boolean.class || type == Boolean.class) {
+      return value -> value == null || value instanceof Boolean ? value : INCONVERTIBLE;
+    } else if (type == int.class || type == Integer.class) {
+      return integral(Integer.MIN_VALUE, Integer.MAX_VALUE, Long::intValue);
+    } else if (type == long.class || type == Long.class) {
+      return integral(Long.MIN_VALUE, Long.MAX_VALUE, value -> value);
+    } else if (type == short.class || type == Short.class) {
+      return integral(Short.MIN_VALUE, Short.MAX_VALUE, Long::shortValue);
+    } else if (type == byte.class || type == Byte.class) {
+      return integral(Byte.MIN_VALUE, Byte.MAX_VALUE, Long::byteValue);
+    } else if (type == double.class || type == Double.class) {
+      return numeric(Number::doubleValue);
+    } else if (type == float.class || type == Float.class) {
+      return numeric(Number::floatValue);
+    } else if (type == BigDecimal.class) {
+      return numeric(BeanProjector::toBigDecimal);
+    } else if (type == BigInteger.class) {
+      return numeric(
+          number -> {
+            try {
+              return toBigDecimal(number).toBigIntegerExact();
+            } catch (ArithmeticException ex) {
+              return INCONVERTIBLE;
+            }
+          });
+    } else if (type.isEnum()) {
+      return value -> {
+        if (value == null) {
+          return null;
+        }
+        try {
+          return value instanceof String
+              ? Enum.valueOf((Class) type, (String) value)
+              : INCONVERTIBLE;
+        } catch (IllegalArgumentException ex) {
+          return INCONVERTIBLE;
+        }
+      };
+    }
+    return null;
+  }
+
+  private static Function<Object, Object> numeric(Function<Number, Object> conversion) {
+    return value -> {
+      if (value == null) {
+        return null;
+      }
+      return value instanceof Number ? conversion.apply((Number) value) : INCONVERTIBLE;
+    };
+  }
+
+  private static Function<Object, Object> integral(
+      long min, long max, Function<Long, Object> narrowing) {
+    return numeric(
+        number -> {
+          BigDecimal decimal = toBigDecimal(number);
+          try {
+            long value = decimal.longValueExact();
+            return value < min || value > max ? INCONVERTIBLE : narrowing.apply(value);
+          } catch (ArithmeticException ex) {
+            // a fraction or a value which is out of range
+            return INCONVERTIBLE;
+          }
+        });
+  }
+
+  private static BigDecimal toBigDecimal(Number number) {
+    if (number instanceof BigDecimal) {
+      return (BigDecimal) number;
+    } else if (number instanceof BigInteger) {
+      return new BigDecimal((BigInteger) number);
+    } else if (number instanceof Double || number instanceof Float) {
+      return new BigDecimal(number.toString());
+    }
+    return BigDecimal.valueOf(number.longValue());
+  }
+}
@@ -0,0 +1,183 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.mapping.TypeRef;
+import io.github.glytching.tranquil.ql.Parameters;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * A select and where clause which have been compiled once and can then be applied to any number of
+ * inputs. All of the work which depends only on the expressions (parsing, compiling, resolving
+ * predicators and projectors) is done when the query is created so applying the query to an input
+ * costs only the deserialisation of that input, the evaluation and the serialisation of the result.
+ *
+ * <p>For example: <code>
+ *    CompiledQuery query = Tranquil.compile("name, price", "quantity > 5");
+ *    for (String message : messages) {
+ *      String result = query.read(message);
+ *    }
+ * </code>
+ *
+ * <p>Instances are immutable and are safe for use by multiple threads.
+ */
+public interface CompiledQuery {
+
+  /**
+   * Parses the given {@code source} and applies this query to it.
+   *
+   * @param source a parseable input
+   * @return result the projected and/or predicated results as a string
+   */
+  String read(String source);
+
+  /**
+   * Applies this query to the given {@code source}.
+   *
+   * @param source an input which has already been parsed
+   * @return result the projected and/or predicated results as a string
+   */
+  String read(Map<String, Object> source);
+
+  /**
+   * Parses the given {@code sourceStream}, using UTF-8, and applies this query to it.
+   *
+   * @param sourceStream a parseable input
+   * @return result the projected and/or predicated results as a string
+   */
+  String read(InputStream sourceStream);
+
+  /**
+   * Parses the given {@code sourceStream}, using UTF-8, one document at a time and applies this
+   * query to each document as soon as it has been parsed. Each match is passed to the given {@code
+   * consumer} so neither the input nor the matches are held in memory, see {@link
+   * StreamingReadContext} for the details.
+   *
+   * @param sourceStream a parseable input
+   * @param consumer receives the projected form of each matching document, in input order
+   */
+  void read(InputStream sourceStream, Consumer<Map<String, Object>> consumer);
+
+  /**
+   * Parses the given {@code source} and applies this query to it.
+   *
+   * @param source a parseable input
+   * @param type the type to which the output should be converted
+   * @param <T> the output type
+   * @return result the projected and/or predicated results expressed as an instance of {@code type}
+   */
+  <T> T read(String source, Class<T> type);
+
+  /**
+   * Parses the given {@code source} and applies this query to it.
+   *
+   * @param source a parseable input
+   * @param type a wrapper for the type to which the output should be converted
+   * @param <T> the output type
+   * @return result the projected and/or predicated results expressed as an instance of {@code
+   *     type}'s inner type
+   */
+  <T> T read(String source, TypeRef<T> type);
+
+  /**
+   * Parses the given {@code source}, applies this query to it and expresses each match as an
+   * instance of the given {@code type}, see {@link ReadContext#readEach(String, String, Class)} for
+   * the details.
+   *
+   * @param source a parseable input
+   * @param type the type to which each match should be converted
+   * @param <T> the output type
+   * @return the matches, in input order
+   */
+  <T> List<T> readEach(String source, Class<T> type);
+
+  /**
+   * Applies this query to each of the given {@code sources}, this is equivalent to calling the
+   * matching {@code read} method for each source but the sources are read in parallel. Each source
+   * may be a {@code String}, a {@code Map} (an input which has already been parsed), an {@code
+   * InputStream} or a {@code byte[]}, the latter two holding UTF-8 encoded input. This is suited to
+   * a batch of many small, independent inputs, a single large input is better served by {@link
+   * io.github.glytching.tranquil.configuration.Configuration#parallelThreshold()}.
+   *
+   * <p>Each source is read on its own so a source which cannot be read has no bearing on the
+   * others. If the configuration includes {@link
+   * io.github.glytching.tranquil.configuration.Option#SUPPRESS_EXCEPTIONS} then such a source has
+   * an empty result, just as it would with {@link #read(String)}. Otherwise the sources which have
+   * not yet been started are skipped and the failure of the earliest source to fail is thrown.
+   *
+   * @param sources the inputs
+   * @param executor reads the parallel slices of the batch, this is not used if the {@code
+   *     parallelism} is 1
+   * @param parallelism the maximum number of threads which read the batch, 1 reads the entire batch
+   *     on the calling thread
+   * @return result the projected and/or predicated results of each source as a string, in input
+   *     order
+   */
+  List<String> readAll(Collection<?> sources, Executor executor, int parallelism);
+
+  /**
+   * Parses the given {@code source} and tests it against this query's where clause, the select
+   * clause plays no part in this test.
+   *
+   * @param source a parseable input
+   * @return true if the given {@code source} contains data which matches this query's where clause
+   */
+  boolean exists(String source);
+
+  /**
+   * Tests the given {@code source} against this query's where clause, the select clause plays no
+   * part in this test.
+   *
+   * @param source an input which has already been parsed
+   * @return true if the given {@code source} contains data which matches this query's where clause
+   */
+  boolean exists(Map<String, Object> source);
+
+  /**
+   * Creates a {@link Flow.Processor} which applies this query to each document published to it and
+   * publishes each match, in the order in which the documents were published. The elements of a
+   * document which contains a single array attribute are matched individually. Documents are only
+   * requested from upstream in proportion to downstream demand and they are evaluated in batches,
+   * each batch being split across up to {@code parallelism} threads.
+   *
+   * @param executor evaluates the parallel slices of each batch, this is not used if the {@code
+   *     parallelism} is 1
+   * @param parallelism the maximum number of threads which evaluate a batch, 1 evaluates each batch
+   *     on the thread which delivers the signal (from upstream or downstream) which triggers it
+   * @return a processor which supports a single subscriber
+   */
+  Flow.Processor<Map<String, Object>, Map<String, Object>> processor(
+      Executor executor, int parallelism);
+
+  /**
+   * Creates a {@link Flow.Processor} which parses each chunk of UTF-8 encoded JSON published to it,
+   * applies this query to the documents in that chunk and publishes each match. Each chunk must be
+   * a complete input in its own right, for example one message from a queue. See {@link
+   * #processor(Executor, int)} for the details.
+   *
+   * @param executor evaluates the parallel slices of each batch, this is not used if the {@code
+   *     parallelism} is 1
+   * @param parallelism the maximum number of threads which evaluate a batch
+   * @return a processor which supports a single subscriber
+   */
+  Flow.Processor<byte[], Map<String, Object>> jsonProcessor(Executor executor, int parallelism);
+
+  /**
+   * Binds the given {@code parameters} to this query's {@code ?} and {@code :name} parameters. The
+   * select clause's positional parameters are bound first, followed by the where clause's
+   * positional parameters. The bound query shares this query's parsed (and, if applicable,
+   * compiled) expressions so binding is cheap.
+   *
+   * @param parameters the parameter values
+   * @return a query which applies this query's expressions with the given {@code parameters}
+   * @throws io.github.glytching.tranquil.exception.TranquilException if a value has not been
+   *     supplied for any of this query's parameters or if the engine in use does not support
+   *     parameters
+   */
+  CompiledQuery bind(Parameters parameters);
+}
@@ -0,0 +1,42 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.exception.TranquilException;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+
+/**
+ * Applies the {@link io.github.glytching.tranquil.configuration.Option#SUPPRESS_EXCEPTIONS} rules.
+ */
+final class Executions {
+
+  private Executions() {}
+
+  /**
+   * Invokes the given {@code callable}, if it fails then either return an empty list or rethrow
+   * depending on {@code suppressExceptions}.
+   *
+   * @param callable the work to be done
+   * @param suppressExceptions if true then failures result in an empty list
+   * @param <K> the result type, this must be compatible with a list
+   * @return the result of the given {@code callable}
+   */
+  @SuppressWarnings("unchecked")
+  static <K> K executeWithExceptionHandling(Callable<K> callable, boolean suppressExceptions) {
+    try {
+      return callable.call();
+    } catch (RuntimeException ex) {
+      if (suppressExceptions) {
+        return (K) new ArrayList<>();
+      } else {
+        throw ex;
+      }
+    } catch (Exception ex) {
+      if (suppressExceptions) {
+        return (K) new ArrayList<>();
+      } else {
+        throw new TranquilException(ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,556 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.exception.TranquilException;
+import io.github.glytching.tranquil.exception.TranquilParserException;
+import io.github.glytching.tranquil.ql.interpreter.Operations;
+import io.github.glytching.tranquil.ql.model.Condition;
+import io.github.glytching.tranquil.ql.model.Conjunction;
+import io.github.glytching.tranquil.ql.model.Criterion;
+import io.github.glytching.tranquil.ql.model.FieldReference;
+import io.github.glytching.tranquil.ql.model.Literal;
+import io.github.glytching.tranquil.ql.model.Operand;
+import io.github.glytching.tranquil.ql.parser.WhereClauseModelParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An index of one field's values, see {@link ReadContext#createIndex(String)} and {@link
+ * ReadContext#createSortedIndex(String)}. The indexed rows are either the elements of a parsed
+ * input's single array attribute (for a path such as {@code items.id} or {@code id} where the input
+ * is {@code {"items": [...]}}) or the parsed documents themselves (for a path such as {@code id}
+ * where the input is {@code [{"id": ...}, ...]}).
+ *
+ * <p>An index answers a test of its path against literals with the positions of the rows which may
+ * pass that test. These are always a superset of the rows which do pass it, for example a row whose
+ * value cannot be indexed (such as a list) is a candidate for every test, so a query applied to the
+ * rows found by an index gives the same result as one applied to every row. Rows with a null value
+ * are not held since they cannot pass any test which an index answers. Instances are immutable.
+ */
+abstract class FieldIndex {
+
+  private final String path;
+  // the name of the indexed array attribute, null if the parsed documents are indexed
+  private final String arrayName;
+  private final int rowCount;
+
+  private FieldIndex(String path, String arrayName, int rowCount) {
+    this.path = path;
+    this.arrayName = arrayName;
+    this.rowCount = rowCount;
+  }
+
+  /**
+   * Creates a hash index of the given {@code path} in the given {@code parsed} input. This answers
+   * equality and {@code in} tests.
+   *
+   * @param parsed a parsed input
+   * @param path a dot delimited path, this may be prefixed with the array attribute's name if the
+   *     parsed input contains a single array attribute
+   * @return a hash index of the given {@code path}
+   * @throws TranquilException if the given {@code path} is not made up of property names alone
+   */
+  static FieldIndex hash(List<Map<String, Object>> parsed, String path) {
+    return of(parsed, path, Hashed::new);
+  }
+
+  /**
+   * Creates a sorted index of the given {@code path} in the given {@code parsed} input. This
+   * answers range ({@code <}, {@code <=}, {@code >}, {@code >=} and {@code between}), equality and
+   * {@code in} tests against numbers and strings.
+   *
+   * @param parsed a parsed input
+   * @param path a dot delimited path, this may be prefixed with the array attribute's name if the
+   *     parsed input contains a single array attribute
+   * @return a sorted index of the given {@code path}
+   * @throws TranquilException if the given {@code path} is not made up of property names alone
+   */
+  static FieldIndex sorted(List<Map<String, Object>> parsed, String path) {
+    return of(parsed, path, Sorted::new);
+  }
+
+  /**
+   * Chooses the indexes which narrow the given {@code where} the most. An index can be used for a
+   * test of its path against literals, where that test is either the entire where clause or a
+   * member of its top level {@code and}. If more than one member can be answered then the rows
+   * which each index finds are intersected.
+   *
+   * @param indexes the indexes of a parsed input
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return the chosen indexes and the rows they find, or null if no index can be used
+   */
+  static Lookup lookup(Collection<FieldIndex> indexes, String where) {
+    if (indexes.isEmpty() || where == null || where.isEmpty()) {
+      return null;
+    }
+    Condition condition;
+    try {
+      condition = new WhereClauseModelParser().parse(where);
+    } catch (TranquilException | TranquilParserException ex) {
+      // an invalid where clause is reported when the query is resolved
+      return null;
+    }
+    List<Condition> members =
+        condition instanceof Conjunction
+                && ((Conjunction) condition).getType() == Conjunction.Type.AND
+            ? ((Conjunction) condition).getConditions()
+            : Collections.singletonList(condition);
+
+    // the indexes of one input may index different rows (the array's elements or the documents)
+    // so only the lookups of indexes which share the same rows can be intersected
+    Map<String, Lookup> byRows = new HashMap<>();
+    for (Condition member : members) {
+      if (!isIndexable(member)) {
+        continue;
+      }
+      Criterion criterion = (Criterion) member;
+      String tested = ((FieldReference) criterion.getSubject()).getPath();
+      Map<String, Lookup> chosen = new HashMap<>();
+      for (FieldIndex index : indexes) {
+        int[] found = index.path.equals(tested) ? index.find(criterion) : null;
+        Lookup current = chosen.get(index.arrayName);
+        if (found != null && (current == null || found.length < current.positions.length)) {
+          chosen.put(index.arrayName, new Lookup(index, member, found));
+        }
+      }
+      for (Lookup lookup : chosen.values()) {
+        byRows.merge(lookup.getIndex().arrayName, lookup, Lookup::intersect);
+      }
+    }
+    return byRows.values().stream()
+        .min(Comparator.comparingInt(lookup -> lookup.positions.length))
+        .orElse(null);
+  }
+
+  String getPath() {
+    return path;
+  }
+
+  int getRowCount() {
+    return rowCount;
+  }
+
+  /** Describes the kind of this index e.g. {@code hash}. */
+  abstract String getKind();
+
+  /**
+   * Finds the rows which may pass the given {@code criterion}, a test of this index's path.
+   *
+   * @param criterion a test of this index's path
+   * @return the positions of the rows which may pass the given criterion, in row order, or null if
+   *     this index cannot answer the given criterion
+   */
+  abstract int[] find(Criterion criterion);
+
+  /**
+   * Narrows the given {@code parsed} input to the rows at the given {@code positions}, keeping the
+   * input's shape so that a query gives the same result for the narrowed input as for the whole.
+   *
+   * @param parsed the input from which this index was created
+   * @param positions the positions of the rows to keep, in row order
+   * @return the narrowed input
+   */
+  @SuppressWarnings("unchecked")
+  List<Map<String, Object>> narrow(List<Map<String, Object>> parsed, int[] positions) {
+    List<?> rows = arrayName == null ? parsed : (List<?>) parsed.get(0).get(arrayName);
+    List<Object> narrowed = new ArrayList<>(positions.length);
+    for (int position : positions) {
+      narrowed.add(rows.get(position));
+    }
+    if (arrayName == null) {
+      return (List) narrowed;
+    }
+    Map<String, Object> document = new HashMap<>();
+    document.put(arrayName, narrowed);
+    return Collections.singletonList(document);
+  }
+
+  private static FieldIndex of(
+      List<Map<String, Object>> parsed, String path, IndexFactory factory) {
+    FieldReference reference = toReference(path);
+    String arrayName = getArrayName(parsed);
+    List<?> rows = parsed;
+    if (arrayName != null) {
+      rows = (List<?>) parsed.get(0).get(arrayName);
+      // as with a query, the array attribute's name is stripped from the path
+      if (reference.getSegments().size() > 1
+          && reference.getSegments().get(0).getName().equals(arrayName)) {
+        reference = reference.subPath(1, reference.getSegments().size());
+      }
+    }
+    Object[] values = new Object[rows.size()];
+    for (int position = 0; position < values.length; position++) {
+      values[position] = Operations.resolve(rows.get(position), reference);
+    }
+    return factory.create(path, arrayName, values);
+  }
+
+  // is the given condition a test of a simple path against literals?
+  private static boolean isIndexable(Condition condition) {
+    if (!(condition instanceof Criterion)) {
+      return false;
+    }
+    Criterion criterion = (Criterion) condition;
+    if (!(criterion.getSubject() instanceof FieldReference)) {
+      return false;
+    }
+    for (Operand argument : criterion.getArguments()) {
+      if (!(argument instanceof Literal) || ((Literal) argument).getValue() == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // a query applies its where clause to each element of an input which contains a single array
+  // attribute, whether or not the tested path is prefixed with that attribute's name, so that is
+  // what is indexed
+  private static String getArrayName(List<Map<String, Object>> parsed) {
+    if (parsed.size() == 1 && TranquilQuery.isArray(parsed.get(0))) {
+      return parsed.get(0).keySet().iterator().next();
+    }
+    return null;
+  }
+
+  private static FieldReference toReference(String path) {
+    List<FieldReference.Segment> segments = new ArrayList<>();
+    for (String name : path == null ? new String[0] : path.split("\\.", -1)) {
+      if (name.isEmpty() || name.contains("[") || name.contains("]")) {
+        segments.clear();
+        break;
+      }
+      segments.add(FieldReference.Segment.property(name));
+    }
+    if (segments.isEmpty()) {
+      throw new TranquilException(
+          String.format(
+              "Cannot index [%s], an index path must be a dot delimited list of property names!",
+              path));
+    }
+    return new FieldReference(segments);
+  }
+
+  // the sorted, distinct positions which are in either of the given sorted, distinct positions
+  private static int[] union(int[] left, int[] right) {
+    if (left.length == 0) {
+      return right;
+    }
+    int[] merged = new int[left.length + right.length];
+    int l = 0;
+    int r = 0;
+    int count = 0;
+    while (l < left.length || r < right.length) {
+      int next =
+          r == right.length || (l < left.length && left[l] <= right[r]) ? left[l++] : right[r++];
+      if (count == 0 || merged[count - 1] != next) {
+        merged[count++] = next;
+      }
+    }
+    return Arrays.copyOf(merged, count);
+  }
+
+  // the sorted positions which are in both of the given sorted, distinct positions
+  private static int[] intersection(int[] left, int[] right) {
+    int[] common = new int[Math.min(left.length, right.length)];
+    int l = 0;
+    int r = 0;
+    int count = 0;
+    while (l < left.length && r < right.length) {
+      if (left[l] < right[r]) {
+        l++;
+      } else if (left[l] > right[r]) {
+        r++;
+      } else {
+        common[count++] = left[l];
+        l++;
+        r++;
+      }
+    }
+    return Arrays.copyOf(common, count);
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private interface IndexFactory {
+    FieldIndex create(String path, String arrayName, Object[] values);
+  }
+
+  /**
+   * Holds each row against the lookup key (see {@link Operations#toLookupKey(Object)}) of its
+   * value.
+   */
+  private static final class Hashed extends FieldIndex {
+    private final Map<Object, int[]> positions;
+    // the rows whose value has no lookup key, these are candidates for every test
+    private final int[] unkeyed;
+
+    private Hashed(String path, String arrayName, Object[] values) {
+      super(path, arrayName, values.length);
+      Map<Object, List<Integer>> building = new HashMap<>();
+      List<Integer> unkeyed = new ArrayList<>();
+      for (int position = 0; position < values.length; position++) {
+        if (values[position] != null) {
+          Object key = Operations.toLookupKey(values[position]);
+          if (key == null) {
+            unkeyed.add(position);
+          } else {
+            building.computeIfAbsent(key, k -> new ArrayList<>()).add(position);
+          }
+        }
+      }
+      this.positions = new HashMap<>();
+      for (Map.Entry<Object, List<Integer>> entry : building.entrySet()) {
+        positions.put(entry.getKey(), toArray(entry.getValue()));
+      }
+      this.unkeyed = toArray(unkeyed);
+    }
+
+    @Override
+    String getKind() {
+      return "hash";
+    }
+
+    @Override
+    int[] find(Criterion criterion) {
+      if (criterion.getOperator() != Criterion.Operator.EQUAL
+          && criterion.getOperator() != Criterion.Operator.IN) {
+        return null;
+      }
+      int[] found = unkeyed;
+      for (Operand argument : criterion.getArguments()) {
+        Object key = Operations.toLookupKey(((Literal) argument).getValue());
+        if (key == null) {
+          return null;
+        }
+        int[] matched = positions.get(key);
+        if (matched != null) {
+          found = union(found, matched);
+        }
+      }
+      return found;
+    }
+  }
+
+  /**
+   * Holds the rows with a numeric value ordered by that value as a {@code double}, and the rows
+   * with a string value ordered by that string. Widening to a {@code double} preserves order
+   * (though not distinctness) so a search uses inclusive bounds and may find a few rows which are
+   * then rejected by the query itself.
+   */
+  private static final class Sorted extends FieldIndex {
+    private final double[] numbers;
+    private final int[] numberPositions;
+    // the rows whose value is NaN, which are unordered and so are candidates for every number
+    private final int[] unordered;
+    private final String[] strings;
+    private final int[] stringPositions;
+
+    private Sorted(String path, String arrayName, Object[] values) {
+      super(path, arrayName, values.length);
+      List<Integer> numeric = new ArrayList<>();
+      List<Integer> unordered = new ArrayList<>();
+      List<Integer> strings = new ArrayList<>();
+      for (int position = 0; position < values.length; position++) {
+        Object value = values[position];
+        if (value instanceof Number) {
+          (Double.isNaN(((Number) value).doubleValue()) ? unordered : numeric).add(position);
+        } else if (value instanceof String) {
+          strings.add(position);
+        }
+      }
+
+      this.numberPositions = sort(numeric, p -> ((Number) values[p]).doubleValue());
+      this.numbers = new double[numberPositions.length];
+      for (int i = 0; i < numbers.length; i++) {
+        numbers[i] = ((Number) values[numberPositions[i]]).doubleValue();
+      }
+      this.unordered = toArray(unordered);
+
+      this.stringPositions = sort(strings, p -> (String) values[p]);
+      this.strings = new String[stringPositions.length];
+      for (int i = 0; i < this.strings.length; i++) {
+        this.strings[i] = (String) values[stringPositions[i]];
+      }
+    }
+
+    @Override
+    String getKind() {
+      return "sorted";
+    }
+
+    @Override
+    int[] find(Criterion criterion) {
+      List<Object> arguments = new ArrayList<>();
+      for (Operand argument : criterion.getArguments()) {
+        Object value = ((Literal) argument).getValue();
+        if (!(value instanceof Number) && !(value instanceof String)) {
+          return null;
+        }
+        arguments.add(value);
+      }
+      switch (criterion.getOperator()) {
+        case EQUAL:
+        case IN:
+          {
+            int[] found = new int[0];
+            for (Object argument : arguments) {
+              found = union(found, range(argument, argument));
+            }
+            return found;
+          }
+        case LESS_THAN:
+        case LESS_THAN_OR_EQUAL:
+          return range(null, arguments.get(0));
+        case GREATER_THAN:
+        case GREATER_THAN_OR_EQUAL:
+          return range(arguments.get(0), null);
+        case BETWEEN:
+          // a number can only be ordered against a number and a string against a string
+          return arguments.get(0).getClass() == arguments.get(1).getClass()
+                  || (arguments.get(0) instanceof Number && arguments.get(1) instanceof Number)
+              ? range(arguments.get(0), arguments.get(1))
+              : new int[0];
+        default:
+          return null;
+      }
+    }
+
+    // the rows whose value is within the given inclusive bounds, a null bound is unbounded
+    private int[] range(Object lower, Object upper) {
+      Object bound = lower != null ? lower : upper;
+      int from;
+      int to;
+      int[] positions;
+      if (bound instanceof Number) {
+        from = lower == null ? 0 : firstAtLeast(((Number) lower).doubleValue());
+        to = upper == null ? numbers.length : firstAbove(((Number) upper).doubleValue());
+        positions = numberPositions;
+      } else {
+        from = lower == null ? 0 : firstAtLeast((String) lower);
+        to = upper == null ? strings.length : firstAbove((String) upper);
+        positions = stringPositions;
+      }
+      int[] found = from < to ? Arrays.copyOfRange(positions, from, to) : new int[0];
+      Arrays.sort(found);
+      return bound instanceof Number ? union(unordered, found) : found;
+    }
+
+    private int firstAtLeast(double value) {
+      int low = 0;
+      int high = numbers.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (numbers[middle] < value) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private int firstAbove(double value) {
+      int low = 0;
+      int high = numbers.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (numbers[middle] <= value) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private int firstAtLeast(String value) {
+      int low = 0;
+      int high = strings.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (strings[middle].compareTo(value) < 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    private int firstAbove(String value) {
+      int low = 0;
+      int high = strings.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (strings[middle].compareTo(value) <= 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    // the given positions ordered by the given key
+    private static <T extends Comparable<T>> int[] sort(
+        List<Integer> positions, Function<Integer, T> key) {
+      return positions.stream()
+          .sorted(Comparator.comparing(key))
+          .mapToInt(Integer::intValue)
+          .toArray();
+    }
+  }
+
+  /** The result of choosing the indexes for a where clause. */
+  static final class Lookup {
+    private final List<FieldIndex> indexes;
+    private final List<Condition> tests;
+    private final int[] positions;
+
+    private Lookup(FieldIndex index, Condition test, int[] positions) {
+      this(Collections.singletonList(index), Collections.singletonList(test), positions);
+    }
+
+    private Lookup(List<FieldIndex> indexes, List<Condition> tests, int[] positions) {
+      this.indexes = indexes;
+      this.tests = tests;
+      this.positions = positions;
+    }
+
+    /** The first of the chosen indexes, all of which index the same rows. */
+    FieldIndex getIndex() {
+      return indexes.get(0);
+    }
+
+    List<FieldIndex> getIndexes() {
+      return indexes;
+    }
+
+    /** The members of the where clause which the chosen indexes answer, one per index. */
+    List<Condition> getTests() {
+      return tests;
+    }
+
+    /** The positions of the rows which the indexes found, in row order. */
+    int[] getPositions() {
+      return positions;
+    }
+
+    private Lookup intersect(Lookup other) {
+      List<FieldIndex> indexes = new ArrayList<>(this.indexes);
+      indexes.addAll(other.indexes);
+      List<Condition> tests = new ArrayList<>(this.tests);
+      tests.addAll(other.tests);
+      return new Lookup(indexes, tests, intersection(positions, other.positions));
+    }
+  }
+}
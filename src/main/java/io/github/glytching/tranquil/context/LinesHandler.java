@@ -0,0 +1,101 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.exception.TranquilException;
+import io.github.glytching.tranquil.mapping.DocumentReader;
+import io.github.glytching.tranquil.ql.ExpressionFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/** Reads from a JSON lines input, see {@link LinesReadContext}. */
+class LinesHandler implements LinesReadContext {
+
+  private final Configuration configuration;
+  private final ExpressionFactory expressionFactory;
+  private final Callable<InputStream> source;
+  private final String charset;
+  // true if the source can be opened more than once
+  private final boolean reopenable;
+
+  private boolean read = false;
+
+  LinesHandler(
+      Configuration configuration,
+      ExpressionFactory expressionFactory,
+      Callable<InputStream> source,
+      String charset,
+      boolean reopenable) {
+    this.configuration = configuration;
+    this.expressionFactory = expressionFactory;
+    this.source = source;
+    this.charset = charset;
+    this.reopenable = reopenable;
+  }
+
+  @Override
+  public boolean exists(String where) {
+    TranquilQuery query = query("", where);
+    return query.exists(() -> open(query));
+  }
+
+  @Override
+  public String read(String select, String where) {
+    StringWriter output = new StringWriter();
+    read(select, where, output);
+    return output.toString();
+  }
+
+  @Override
+  public void read(String select, String where, Writer output) {
+    read(select, where, match -> write(output, match));
+    try {
+      output.flush();
+    } catch (IOException ex) {
+      throw new TranquilException("Failed to write the results!", ex);
+    }
+  }
+
+  @Override
+  public void read(String select, String where, Consumer<Map<String, Object>> consumer) {
+    TranquilQuery query = query(select, where);
+    query.stream(() -> open(query), consumer);
+  }
+
+  private void write(Writer output, Map<String, Object> match) {
+    try {
+      output.write(configuration.mappingProvider().serialize(Collections.singletonList(match)));
+      output.write('\n');
+    } catch (IOException ex) {
+      throw new TranquilException("Failed to write the results!", ex);
+    }
+  }
+
+  private DocumentReader open(TranquilQuery query) {
+    if (read && !reopenable) {
+      throw new TranquilException(
+          "This lines context has already been read, an input stream can only be read once!");
+    }
+    read = true;
+
+    InputStream sourceStream;
+    try {
+      sourceStream = source.call();
+    } catch (Exception ex) {
+      throw new TranquilException("Failed to open the input!", ex);
+    }
+    return configuration
+        .mappingProvider()
+        .openLinesReader(sourceStream, charset, query.getFields(), query.getFilter());
+  }
+
+  private TranquilQuery query(String select, String where) {
+    return new TranquilQuery(configuration, expressionFactory, select, where);
+  }
+}
@@ -0,0 +1,57 @@
+package io.github.glytching.tranquil.context;
+
+import java.io.Writer;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads from a JSON lines (aka newline delimited JSON) input, in which each line holds one record.
+ * Each record is parsed, tested and projected on its own, using one query for the entire input, so
+ * memory use is bounded by the size of the largest record rather than the size of the input.
+ * Results are written as JSON lines too, one matching record per line.
+ *
+ * <p>A context which was created for an input stream can only be read once, since the first read
+ * consumes the stream. A context which was created for a file opens the file afresh for each read.
+ */
+public interface LinesReadContext {
+
+  /**
+   * Tests this context using the given {@code where}, reading stops at the first match.
+   *
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return true if any of the input's records match the given {@code where}
+   */
+  boolean exists(String where);
+
+  /**
+   * Reads from this context, applying the given {@code select} and {@code where}. The input is
+   * streamed but the matches are accumulated so this is suited to selective queries, use {@link
+   * #read(String, String, Writer)} if the matches are themselves too large to hold in memory.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return the projected form of each matching record, one per line
+   */
+  String read(String select, String where);
+
+  /**
+   * Reads from this context, applying the given {@code select} and {@code where} and writing each
+   * match to the given {@code output}, one per line, as soon as it has been found. The output is
+   * flushed, but not closed, once the input has been read.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @param output receives the projected form of each matching record, one per line
+   */
+  void read(String select, String where, Writer output);
+
+  /**
+   * Reads from this context, applying the given {@code select} and {@code where} and passing each
+   * match to the given {@code consumer} as soon as it has been found.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @param consumer receives the projected form of each matching record, in input order
+   */
+  void read(String select, String where, Consumer<Map<String, Object>> consumer);
+}
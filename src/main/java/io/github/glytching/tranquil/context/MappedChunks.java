@@ -0,0 +1,248 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.exception.MappingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Memory maps a JSON file and splits it into chunks at record boundaries, so that the chunks can be
+ * parsed independently of one another. The file is either:
+ *
+ * <ul>
+ *   <li>A JSON lines file, whose first record starts with <code>{</code> and ends on the same line,
+ *       this is split at newlines. A single object which spans many lines (e.g. a pretty printed
+ *       object) is not supported
+ *   <li>A JSON array, which starts with <code>[</code>, this is split between the array's elements.
+ *       Each chunk holds the elements between two top level commas, without the enclosing brackets
+ * </ul>
+ *
+ * <p>Finding the boundaries of a lines file only requires a look at the bytes around each boundary,
+ * whereas finding the top level commas of an array requires a pass over the whole file to track
+ * string and nesting state. That pass is much cheaper than parsing the file but it is not
+ * parallelised.
+ *
+ * <p>The file is assumed to be UTF-8 (or ASCII) encoded, the structural characters of JSON are
+ * single bytes in that encoding and never occur within a multi byte character.
+ */
+final class MappedChunks {
+
+  /** The layout of a mapped file. */
+  enum Format {
+    LINES,
+    ARRAY
+  }
+
+  // the size of the region mapped while looking for boundaries
+  private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+  private final Format format;
+  private final List<ByteBuffer> chunks;
+
+  private MappedChunks(Format format, List<ByteBuffer> chunks) {
+    this.format = format;
+    this.chunks = chunks;
+  }
+
+  /**
+   * Maps the given file and splits it into chunks of roughly {@code chunkSize} bytes.
+   *
+   * @param channel an open channel on the file, the mappings remain valid once this is closed
+   * @param chunkSize the preferred size of each chunk, this must not exceed {@link
+   *     Integer#MAX_VALUE}
+   * @return the mapped chunks
+   * @throws MappingException if the file is neither a JSON lines file nor a JSON array, if the
+   *     first record of a file which starts with <code>{</code> spans more than one line, or if a
+   *     single record exceeds the maximum size of a mapping
+   */
+  static MappedChunks map(FileChannel channel, long chunkSize) throws IOException {
+    long size = channel.size();
+    long start = skipWhitespace(channel, 0, size);
+    if (start == size) {
+      return empty();
+    }
+
+    byte first = read(channel, start);
+    if (first == '{') {
+      checkFirstLine(channel, start, size);
+      return new MappedChunks(Format.LINES, splitLines(channel, start, size, chunkSize));
+    } else if (first == '[') {
+      return new MappedChunks(Format.ARRAY, splitArray(channel, start, size, chunkSize));
+    }
+    throw new MappingException(
+        String.format(
+            "Failed to map, expected a JSON lines file or a JSON array but found: [%s] at %s!",
+            (char) first, start));
+  }
+
+  /**
+   * Returns an empty set of chunks, for use when a file cannot be mapped.
+   *
+   * @return an empty set of chunks
+   */
+  static MappedChunks empty() {
+    return new MappedChunks(Format.LINES, Collections.emptyList());
+  }
+
+  /**
+   * Returns the layout of the mapped file.
+   *
+   * @return the layout of the mapped file
+   */
+  Format getFormat() {
+    return format;
+  }
+
+  /**
+   * Returns the chunks of the mapped file, in file order.
+   *
+   * @return the chunks of the mapped file
+   */
+  List<ByteBuffer> getChunks() {
+    return chunks;
+  }
+
+  private static List<ByteBuffer> splitLines(
+      FileChannel channel, long start, long size, long chunkSize) throws IOException {
+    List<ByteBuffer> chunks = new ArrayList<>();
+    while (start < size) {
+      long end = start + chunkSize < size ? indexOf(channel, start + chunkSize, size) : size;
+      // the boundary is just after the newline
+      end = Math.min(end + 1, size);
+      chunks.add(map(channel, start, end));
+      start = end;
+    }
+    return chunks;
+  }
+
+  private static List<ByteBuffer> splitArray(
+      FileChannel channel, long start, long size, long chunkSize) throws IOException {
+    List<ByteBuffer> chunks = new ArrayList<>();
+    // skip the opening bracket
+    long chunkStart = start + 1;
+    long nextBoundary = chunkStart + chunkSize;
+    int depth = 0;
+    boolean inString = false;
+    boolean escaped = false;
+    for (long base = chunkStart; base < size; base += WINDOW_SIZE) {
+      MappedByteBuffer window =
+          channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW_SIZE, size - base));
+      for (int i = 0; i < window.limit(); i++) {
+        byte b = window.get(i);
+        if (inString) {
+          if (escaped) {
+            escaped = false;
+          } else if (b == '\\') {
+            escaped = true;
+          } else if (b == '"') {
+            inString = false;
+          }
+        } else if (b == '"') {
+          inString = true;
+        } else if (b == '{' || b == '[') {
+          depth++;
+        } else if (b == '}' || b == ']') {
+          if (depth == 0) {
+            // the end of the array
+            chunks.add(map(channel, chunkStart, base + i));
+            return chunks;
+          }
+          depth--;
+        } else if (b == ',' && depth == 0 && base + i >= nextBoundary) {
+          chunks.add(map(channel, chunkStart, base + i));
+          chunkStart = base + i + 1;
+          nextBoundary = chunkStart + chunkSize;
+        }
+      }
+    }
+    throw new MappingException("Failed to map, unexpected end of input!");
+  }
+
+  // a lines file is split at newlines so its first record must end before the first newline, a
+  // newline can only occur within a record as whitespace since it must be escaped within a string
+  private static void checkFirstLine(FileChannel channel, long start, long size)
+      throws IOException {
+    int depth = 0;
+    boolean inString = false;
+    boolean escaped = false;
+    for (long base = start; base < size; base += WINDOW_SIZE) {
+      MappedByteBuffer window =
+          channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW_SIZE, size - base));
+      for (int i = 0; i < window.limit(); i++) {
+        byte b = window.get(i);
+        if (inString) {
+          if (escaped) {
+            escaped = false;
+          } else if (b == '\\') {
+            escaped = true;
+          } else if (b == '"') {
+            inString = false;
+          }
+        } else if (b == '"') {
+          inString = true;
+        } else if (b == '{' || b == '[') {
+          depth++;
+        } else if ((b == '}' || b == ']') && --depth == 0) {
+          return;
+        } else if (b == '\n') {
+          throw new MappingException(
+              String.format(
+                  "Failed to map, the record which starts at %s spans more than one line, a file"
+                      + " which starts with an object must be a JSON lines file with one record per"
+                      + " line!",
+                  start));
+        }
+      }
+    }
+    // an unterminated record is reported when it is parsed
+  }
+
+  // returns the position of the first newline at or after the given position, or size if there is
+  // no such newline
+  private static long indexOf(FileChannel channel, long position, long size) throws IOException {
+    for (long base = position; base < size; base += WINDOW_SIZE) {
+      MappedByteBuffer window =
+          channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW_SIZE, size - base));
+      for (int i = 0; i < window.limit(); i++) {
+        if (window.get(i) == '\n') {
+          return base + i;
+        }
+      }
+    }
+    return size;
+  }
+
+  private static long skipWhitespace(FileChannel channel, long position, long size)
+      throws IOException {
+    for (long base = position; base < size; base += WINDOW_SIZE) {
+      MappedByteBuffer window =
+          channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW_SIZE, size - base));
+      for (int i = 0; i < window.limit(); i++) {
+        if (!Character.isWhitespace(window.get(i))) {
+          return base + i;
+        }
+      }
+    }
+    return size;
+  }
+
+  private static byte read(FileChannel channel, long position) throws IOException {
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, 1).get(0);
+  }
+
+  private static ByteBuffer map(FileChannel channel, long start, long end) throws IOException {
+    if (end - start > Integer.MAX_VALUE) {
+      throw new MappingException(
+          String.format(
+              "Failed to map, the record(s) between %s and %s exceed the maximum size of a"
+                  + " mapping!",
+              start, end));
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+  }
+}
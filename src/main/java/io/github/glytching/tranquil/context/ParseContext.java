@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Tranquil parses an input and reads from the parsed form of that input. For example: parse {@code
@@ -58,4 +59,107 @@ public interface ParseContext {
    * @throws IOException
    */
   ReadContext parse(File sourceFile) throws IOException;
+
+  /**
+   * Create a {@link StreamingReadContext} for the given input stream. Unlike {@link
+   * #parse(InputStream)} the input is not parsed up front, it is parsed one document at a time as
+   * it is read. Use this for inputs which are too large to hold in memory.
+   *
+   * @param sourceStream a parseable input
+   * @return a context which can be read once
+   */
+  StreamingReadContext stream(InputStream sourceStream);
+
+  /**
+   * Create a {@link StreamingReadContext} for the given input stream, in a specific charset. Unlike
+   * {@link #parse(InputStream, String)} the input is not parsed up front, it is parsed one document
+   * at a time as it is read. Use this for inputs which are too large to hold in memory.
+   *
+   * @param sourceStream a parseable input
+   * @param charset the charset of the given {@code sourceStream}
+   * @return a context which can be read once
+   */
+  StreamingReadContext stream(InputStream sourceStream, String charset);
+
+  /**
+   * Create a {@link LinesReadContext} for the given JSON lines input stream, in which each line
+   * holds one record. The input is read one record at a time, each record is parsed, tested and
+   * projected on its own.
+   *
+   * @param sourceStream an input containing one json object per line
+   * @return a context which can be read once
+   */
+  LinesReadContext lines(InputStream sourceStream);
+
+  /**
+   * Create a {@link LinesReadContext} for the given JSON lines input stream, in a specific charset.
+   * The input is read one record at a time, each record is parsed, tested and projected on its own.
+   *
+   * @param sourceStream an input containing one json object per line
+   * @param charset the charset of the given {@code sourceStream}
+   * @return a context which can be read once
+   */
+  LinesReadContext lines(InputStream sourceStream, String charset);
+
+  /**
+   * Create a {@link LinesReadContext} for the given JSON lines file, in which each line holds one
+   * record. The file is opened afresh for each read and read one record at a time.
+   *
+   * @param sourceFile a file containing one json object per line
+   * @return a context which can be read any number of times
+   */
+  LinesReadContext lines(File sourceFile);
+
+  /**
+   * Create a {@link ScanReadContext} for the given JSON lines or JSON array file. The file is
+   * memory mapped, split at record boundaries and the chunks are evaluated in parallel on the
+   * common {@link ForkJoinPool}. Use this for large files, for small files the cost of splitting
+   * and scheduling outweighs the gain.
+   *
+   * @param sourceFile a UTF-8 encoded file containing either one json object per line or a json
+   *     array
+   * @return a context which can be read any number of times
+   */
+  ScanReadContext scan(File sourceFile);
+
+  /**
+   * Create a {@link ScanReadContext} for the given JSON lines or JSON array file, whose chunks are
+   * evaluated in parallel on the given {@code pool}.
+   *
+   * @param sourceFile a UTF-8 encoded file containing either one json object per line or a json
+   *     array
+   * @param pool the pool on which the file's chunks are evaluated
+   * @return a context which can be read any number of times
+   */
+  ScanReadContext scan(File sourceFile, ForkJoinPool pool);
+
+  /**
+   * Compile the given {@code select} and {@code where} into a {@link CompiledQuery} which can be
+   * applied to any number of inputs. Use this in preference to {@code parse(...).read(select,
+   * where)} when the same expressions are applied to many inputs.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return a compiled query
+   * @throws io.github.glytching.tranquil.exception.TranquilParserException if either expression
+   *     cannot be parsed
+   */
+  CompiledQuery compile(String select, String where);
+
+  /**
+   * Index the given {@code whereClauses} so that a document can be tested against all of them at
+   * once. Use this in preference to calling {@link ReadContext#exists(String)} with each where
+   * clause when many where clauses are applied to each input. The where clauses are evaluated by
+   * the interpreter whatever this context's engine, see {@link SubscriptionIndex} for where that
+   * may differ from {@link ReadContext#exists(String)}.
+   *
+   * @param whereClauses predicates expressed using our SQL-esque grammar, keyed by the id of the
+   *     subscription to which each belongs. An empty where clause matches every document.
+   * @return an index of the given where clauses
+   * @throws io.github.glytching.tranquil.exception.TranquilParserException if a where clause cannot
+   *     be parsed
+   * @throws io.github.glytching.tranquil.exception.TranquilException if a where clause has
+   *     parameters
+   */
+  SubscriptionIndex index(Map<String, String> whereClauses);
 }
@@ -0,0 +1,183 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.mapping.DocumentWriter;
+import io.github.glytching.tranquil.mapping.TypeRef;
+import io.github.glytching.tranquil.ql.ExpressionFactory;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads from an input which has been parsed in its entirety, see {@link ReadContext}.
+ *
+ * <p>Instances are immutable: the parsed input is held as is and each read creates its own query,
+ * whose predicators and projectors come from the configuration's shared (and thread safe) {@link
+ * ExpressionFactory}. So an instance can be read by any number of threads at once without copying
+ * the parsed input, provided that the parsed input is not modified. This context takes no locks,
+ * but a document which is bound lazily (see {@code JacksonMappingProvider}) advances its own scan
+ * on a read and so locks itself while it does so. Note that the matches of a query which has no
+ * select clause are the parsed documents themselves.
+ *
+ * <p>A read whose where clause can use this context's {@link FieldIndex}es is applied to the rows
+ * which those indexes find rather than to the entire input.
+ */
+final class ParsedHandler implements ReadContext {
+
+  private final Configuration configuration;
+  private final ExpressionFactory expressionFactory;
+  private final List<Map<String, Object>> parsed;
+  // keyed by kind and path
+  private final Map<String, FieldIndex> indexes;
+
+  ParsedHandler(
+      Configuration configuration,
+      ExpressionFactory expressionFactory,
+      List<Map<String, Object>> parsed) {
+    this(
+        configuration,
+        expressionFactory,
+        Collections.unmodifiableList(parsed),
+        Collections.emptyMap());
+  }
+
+  private ParsedHandler(
+      Configuration configuration,
+      ExpressionFactory expressionFactory,
+      List<Map<String, Object>> parsed,
+      Map<String, FieldIndex> indexes) {
+    this.configuration = configuration;
+    this.expressionFactory = expressionFactory;
+    this.parsed = parsed;
+    this.indexes = indexes;
+  }
+
+  @Override
+  public boolean exists(String where) {
+    return query("", where).exists(candidates(where));
+  }
+
+  @Override
+  public String read(String select, String where) {
+    List<Map<String, Object>> read = query(select, where).apply(candidates(where));
+
+    return configuration.mappingProvider().serialize(read);
+  }
+
+  @Override
+  public void read(String select, String where, Writer writer) {
+    write(select, where, configuration.mappingProvider().openWriter(writer));
+  }
+
+  @Override
+  public void read(String select, String where, OutputStream outputStream) {
+    write(select, where, configuration.mappingProvider().openWriter(outputStream, "UTF-8"));
+  }
+
+  @Override
+  public Stream<Map<String, Object>> stream(String select, String where) {
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(
+            iterator(select, where), Spliterator.ORDERED | Spliterator.NONNULL),
+        false);
+  }
+
+  @Override
+  public Iterator<Map<String, Object>> iterator(String select, String where) {
+    return query(select, where).iterator(candidates(where));
+  }
+
+  @Override
+  public String select(String select) {
+    return read(select, "");
+  }
+
+  @Override
+  public String where(String where) {
+    return read("", where);
+  }
+
+  @Override
+  public <T> T read(String select, String where, Class<T> type) {
+    List<Map<String, Object>> read = query(select, where).apply(candidates(where));
+    return configuration.mappingProvider().serialize(read, type);
+  }
+
+  @Override
+  public <T> T read(String select, String where, TypeRef<T> type) {
+    List<Map<String, Object>> read = query(select, where).apply(candidates(where));
+    return configuration.mappingProvider().serialize(read, type);
+  }
+
+  @Override
+  public <T> List<T> readEach(String select, String where, Class<T> type) {
+    return query(select, where).readEach(candidates(where), type);
+  }
+
+  @Override
+  public ReadContext createIndex(String path) {
+    return withIndex(FieldIndex.hash(parsed, path));
+  }
+
+  @Override
+  public ReadContext createSortedIndex(String path) {
+    return withIndex(FieldIndex.sorted(parsed, path));
+  }
+
+  @Override
+  public String explain(String where) {
+    FieldIndex.Lookup lookup = FieldIndex.lookup(indexes.values(), where);
+    if (lookup == null) {
+      return "Scan, every row is tested";
+    }
+    List<FieldIndex> used = lookup.getIndexes();
+    StringBuilder sb = new StringBuilder(used.size() == 1 ? "Index on " : "Indexes on ");
+    for (int i = 0; i < used.size(); i++) {
+      if (i > 0) {
+        sb.append(" and ");
+      }
+      sb.append(
+          String.format(
+              "[%s] (%s) for [%s]",
+              used.get(i).getPath(), used.get(i).getKind(), lookup.getTests().get(i)));
+    }
+    return sb.append(
+            String.format(
+                ", %s of %s rows are tested",
+                lookup.getPositions().length, lookup.getIndex().getRowCount()))
+        .toString();
+  }
+
+  private ReadContext withIndex(FieldIndex index) {
+    Map<String, FieldIndex> extended = new LinkedHashMap<>(indexes);
+    extended.put(index.getKind() + " " + index.getPath(), index);
+    return new ParsedHandler(
+        configuration, expressionFactory, parsed, Collections.unmodifiableMap(extended));
+  }
+
+  private void write(String select, String where, DocumentWriter documents) {
+    // the writer is only closed on success since closing it completes the output
+    query(select, where).apply(candidates(where), documents::write);
+    documents.close();
+  }
+
+  // the rows which the best indexes for the given where clause find, or all rows if there is no
+  // such index
+  private List<Map<String, Object>> candidates(String where) {
+    FieldIndex.Lookup lookup = FieldIndex.lookup(indexes.values(), where);
+    return lookup == null ? parsed : lookup.getIndex().narrow(parsed, lookup.getPositions());
+  }
+
+  private TranquilQuery query(String select, String where) {
+    return new TranquilQuery(configuration, expressionFactory, select, where);
+  }
+}
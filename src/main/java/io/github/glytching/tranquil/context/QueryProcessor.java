@@ -0,0 +1,288 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.exception.TranquilException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * A {@link Flow.Processor} which applies a query to each item published upstream and publishes each
+ * match downstream, see {@link CompiledQuery#processor(Executor, int)}.
+ *
+ * <p>Up to {@link #BATCH_SIZE} items are requested from upstream ahead of demand and they are
+ * evaluated in batches, but only while there is downstream demand, so no more than one batch of
+ * matches is ever held. A batch is split into as many slices as the parallelism allows, the first
+ * slice is evaluated by the thread which is driving this processor and the rest are evaluated on
+ * the executor. The matches are published in upstream order whatever the parallelism. An error,
+ * whether upstream or in evaluation, is passed on as soon as it is seen and any matches which have
+ * not yet been published are discarded.
+ *
+ * <p>Signals are serialized with a work-in-progress counter so evaluation and emission happen on
+ * whichever thread signalled (via {@code onNext}, {@code request} etc) while no other thread was
+ * draining. This processor supports a single subscriber.
+ *
+ * @param <T> the type of the items published upstream
+ */
+final class QueryProcessor<T> implements Flow.Processor<T, Map<String, Object>> {
+
+  // the number of items which are evaluated together and which are requested ahead of demand
+  static final int BATCH_SIZE = 128;
+
+  private final Function<T, Iterator<Map<String, Object>>> evaluator;
+  private final Executor executor;
+  private final int parallelism;
+
+  private final Queue<T> inputs = new ConcurrentLinkedQueue<>();
+  private final AtomicLong demand = new AtomicLong();
+  private final AtomicInteger wip = new AtomicInteger();
+  private final AtomicReference<Flow.Subscriber<? super Map<String, Object>>> downstream =
+      new AtomicReference<>();
+  private volatile Flow.Subscription upstream;
+  private volatile boolean upstreamDone = false;
+  private volatile Throwable error;
+  private volatile boolean cancelled = false;
+
+  // these are only used by the draining thread
+  private final Queue<Map<String, Object>> outputs = new ArrayDeque<>();
+  private boolean terminated = false;
+
+  /**
+   * Creates a processor.
+   *
+   * @param evaluator applies the query to an item, returning its matches
+   * @param executor runs the slices of a batch which are evaluated in parallel
+   * @param parallelism the number of slices into which a batch is split, 1 evaluates each batch on
+   *     the thread which is driving this processor
+   */
+  QueryProcessor(
+      Function<T, Iterator<Map<String, Object>>> evaluator, Executor executor, int parallelism) {
+    if (parallelism < 1) {
+      throw new TranquilException(
+          String.format("The parallelism must be at least 1 but was: %s!", parallelism));
+    }
+    this.evaluator = evaluator;
+    this.executor = executor;
+    this.parallelism = parallelism;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super Map<String, Object>> subscriber) {
+    Objects.requireNonNull(subscriber);
+    if (!downstream.compareAndSet(null, subscriber)) {
+      subscriber.onSubscribe(
+          new Flow.Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {}
+          });
+      subscriber.onError(new IllegalStateException("This processor supports a single subscriber!"));
+      return;
+    }
+    subscriber.onSubscribe(new Downstream());
+    drain();
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (upstream != null) {
+      // a processor can only be subscribed to one publisher
+      subscription.cancel();
+      return;
+    }
+    upstream = subscription;
+    if (cancelled) {
+      subscription.cancel();
+    } else {
+      subscription.request(BATCH_SIZE);
+    }
+  }
+
+  @Override
+  public void onNext(T item) {
+    inputs.offer(item);
+    drain();
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    error = throwable;
+    upstreamDone = true;
+    drain();
+  }
+
+  @Override
+  public void onComplete() {
+    upstreamDone = true;
+    drain();
+  }
+
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      // the draining thread will pick up this signal
+      return;
+    }
+    int missed = 1;
+    do {
+      Flow.Subscriber<? super Map<String, Object>> subscriber = downstream.get();
+      if (subscriber != null && !terminated) {
+        emit(subscriber);
+      }
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void emit(Flow.Subscriber<? super Map<String, Object>> subscriber) {
+    while (true) {
+      if (cancelled) {
+        discard();
+        return;
+      }
+      if (error != null) {
+        terminate();
+        subscriber.onError(error);
+        return;
+      }
+
+      long requested = demand.get();
+      long emitted = 0;
+      while (emitted < requested && !outputs.isEmpty() && !cancelled) {
+        subscriber.onNext(outputs.poll());
+        emitted++;
+      }
+      if (emitted > 0 && requested != Long.MAX_VALUE) {
+        demand.addAndGet(-emitted);
+      }
+      if (cancelled) {
+        continue;
+      }
+      if (!outputs.isEmpty()) {
+        // the remaining matches wait for more demand
+        return;
+      }
+
+      boolean done = upstreamDone;
+      if (inputs.isEmpty()) {
+        if (done && error == null) {
+          terminate();
+          subscriber.onComplete();
+        }
+        return;
+      }
+      if (demand.get() == 0) {
+        return;
+      }
+      try {
+        evaluateBatch();
+      } catch (RuntimeException ex) {
+        Flow.Subscription subscription = upstream;
+        if (subscription != null) {
+          subscription.cancel();
+        }
+        terminate();
+        subscriber.onError(ex);
+        return;
+      }
+    }
+  }
+
+  private void evaluateBatch() {
+    List<T> batch = new ArrayList<>(BATCH_SIZE);
+    T item;
+    while (batch.size() < BATCH_SIZE && (item = inputs.poll()) != null) {
+      batch.add(item);
+    }
+    // replenish before evaluating so that the next batch can arrive while this one is evaluated
+    Flow.Subscription subscription = upstream;
+    if (!upstreamDone && subscription != null) {
+      subscription.request(batch.size());
+    }
+
+    int slices = Math.min(parallelism, batch.size());
+    int sliceSize = (batch.size() + slices - 1) / slices;
+    List<CompletableFuture<List<Map<String, Object>>>> futures = new ArrayList<>();
+    for (int from = sliceSize; from < batch.size(); from += sliceSize) {
+      List<T> slice = batch.subList(from, Math.min(batch.size(), from + sliceSize));
+      futures.add(CompletableFuture.supplyAsync(() -> evaluate(slice), executor));
+    }
+    outputs.addAll(evaluate(batch.subList(0, sliceSize)));
+    for (CompletableFuture<List<Map<String, Object>>> future : futures) {
+      outputs.addAll(join(future));
+    }
+  }
+
+  private List<Map<String, Object>> evaluate(List<T> slice) {
+    List<Map<String, Object>> matches = new ArrayList<>();
+    for (T item : slice) {
+      evaluator.apply(item).forEachRemaining(matches::add);
+    }
+    return matches;
+  }
+
+  private static <K> K join(CompletableFuture<K> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new TranquilException("Failed to process the input!", cause);
+    }
+  }
+
+  private void terminate() {
+    terminated = true;
+    discard();
+  }
+
+  private void discard() {
+    inputs.clear();
+    outputs.clear();
+  }
+
+  /** The subscription which is given to the downstream subscriber. */
+  private class Downstream implements Flow.Subscription {
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        // rule 3.9 of the reactive streams specification
+        cancelUpstream();
+        error = new IllegalArgumentException("A request must be for a positive number of items!");
+      } else {
+        demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      cancelUpstream();
+      drain();
+    }
+
+    private void cancelUpstream() {
+      Flow.Subscription subscription = upstream;
+      if (subscription != null) {
+        subscription.cancel();
+      }
+    }
+  }
+}
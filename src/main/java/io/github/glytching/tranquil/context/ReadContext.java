@@ -2,6 +2,13 @@ package io.github.glytching.tranquil.context;
 
 import io.github.glytching.tranquil.mapping.TypeRef;
 
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
 /**
  * Tranquil parses an input and reads from the parsed form of that input. For example: parse {@code
  * JSON} into a {@code Map} and then apply projections and predicates to that {@code Map}. This
@@ -26,6 +33,57 @@ public interface ReadContext {
    */
   String read(String select, String where);
 
+  /**
+   * Reads from this context, applying the given {@code select} and {@code where} and writing the
+   * result to the given {@code writer}. The output is the same as that of {@link #read(String,
+   * String)} but each match is written as soon as it has been found, rather than accumulated, so
+   * the result is never held in memory in its entirety. See {@link
+   * io.github.glytching.tranquil.mapping.DocumentWriter} for the details.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @param writer receives the projected and/or predicated results, this is flushed but not closed
+   */
+  void read(String select, String where, Writer writer);
+
+  /**
+   * Reads from this context, applying the given {@code select} and {@code where} and writing the
+   * result to the given {@code outputStream} using UTF-8. This is the byte oriented equivalent of
+   * {@link #read(String, String, Writer)}.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @param outputStream receives the projected and/or predicated results, this is flushed but not
+   *     closed
+   */
+  void read(String select, String where, OutputStream outputStream);
+
+  /**
+   * Reads from this context lazily, applying the given {@code select} and {@code where} to each
+   * document only when the returned stream needs it. So short circuiting operations such as {@code
+   * findFirst()}, {@code limit(n)} and {@code anyMatch(...)} stop evaluating as soon as they are
+   * satisfied. The documents are the elements of a top level array or the elements of an object's
+   * array attribute (each of which is a match in its own right), otherwise the input itself. This
+   * is the lazy equivalent of {@link StreamingReadContext#read(String, String,
+   * java.util.function.Consumer)}.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return a sequential, ordered stream of the projected form of each matching document
+   */
+  Stream<Map<String, Object>> stream(String select, String where);
+
+  /**
+   * Reads from this context lazily, applying the given {@code select} and {@code where} to each
+   * document only when the returned iterator needs it. This is the iterator equivalent of {@link
+   * #stream(String, String)}.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return an iterator over the projected form of each matching document, in input order
+   */
+  Iterator<Map<String, Object>> iterator(String select, String where);
+
   /**
    * Reads from this context, applying the given {@code select} with no predicates. This is a
    * shortcut to {@code read(select, "")}.
@@ -66,4 +124,80 @@ public interface ReadContext {
    *     type}'s inner type
    */
   <T> T read(String select, String where, TypeRef<T> type);
+
+  /**
+   * Reads from this context, applying the given {@code select} and {@code where} and expressing
+   * each match as an instance of the given {@code type}. The elements of an input which contains a
+   * single array attribute are matched individually, so each element yields its own instance.
+   *
+   * <p>If each projection in the {@code select} has an alias (either given or derived from its
+   * attribute name) which names a public setter or public field of the given {@code type}, and the
+   * type has a public no-arg constructor, then the projected values are written straight into new
+   * instances of the type, so the only objects allocated per match are the result and its values.
+   * Otherwise each match is converted by the mapping provider. Properties are matched by name so
+   * mapping provider annotations such as {@code @JsonProperty} are only honoured on the latter
+   * path.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @param type the type to which each match should be converted
+   * @param <T> the output type
+   * @return the matches, in input order
+   */
+  <T> List<T> readEach(String select, String where, Class<T> type);
+
+  /**
+   * Creates a hash index of the given {@code path} and returns a context which reads the same
+   * parsed input using that index (and any indexes this context already has), this context is
+   * unchanged. A read whose where clause tests the indexed path for equality with a literal, or for
+   * membership of a list of literals, either on its own or as a member of a top level {@code and},
+   * only evaluates the rows which the index finds rather than every row. The results are the same
+   * as those of an unindexed read. Use {@link #explain(String)} to see whether a where clause uses
+   * an index.
+   *
+   * <p>The indexed rows are the ones a query tests: the elements of the input's array attribute if
+   * the input contains a single array attribute, with that attribute's name stripped from the path
+   * if it starts with it (so {@code items.id} and {@code id} both index each element's {@code id}),
+   * otherwise the parsed documents (e.g. {@code id} for an input which is an array of documents).
+   * The index is built when this is called, so the parsed input must not be modified afterwards.
+   *
+   * @param path a dot delimited list of property names
+   * @return a context which reads the same parsed input with the new index
+   * @throws io.github.glytching.tranquil.exception.TranquilException if the path is not a dot
+   *     delimited list of property names
+   */
+  ReadContext createIndex(String path);
+
+  /**
+   * Creates a sorted index of the given {@code path} and returns a context which reads the same
+   * parsed input using that index (and any indexes this context already has), this context is
+   * unchanged. Numeric values are ordered by value and string values are ordered lexicographically.
+   * Besides the tests which are answered by {@link #createIndex(String)}, a sorted index answers
+   * range tests ({@code <}, {@code <=}, {@code >}, {@code >=} and {@code between}) of the indexed
+   * path against a number or a string by binary search. Where more than one member of a top level
+   * {@code and} can be answered by this context's indexes the rows which each index finds are
+   * intersected, so only the rows which pass every indexed test are evaluated. The results are the
+   * same as those of an unindexed read, except that a row whose value cannot be ordered against the
+   * literal (e.g. a string tested against a number) is never tested, whereas an engine which would
+   * throw on such a comparison throws on an unindexed read.
+   *
+   * <p>The indexed rows are chosen as described for {@link #createIndex(String)} and the index is
+   * built when this is called, so the parsed input must not be modified afterwards.
+   *
+   * @param path a dot delimited list of property names
+   * @return a context which reads the same parsed input with the new index
+   * @throws io.github.glytching.tranquil.exception.TranquilException if the path is not a dot
+   *     delimited list of property names
+   */
+  ReadContext createSortedIndex(String path);
+
+  /**
+   * Describes how a read with the given {@code where} would be evaluated: either by a scan of every
+   * row or by an index lookup, in which case the description names the index, the test which it
+   * answers and how many rows it finds.
+   *
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return a description of the evaluation of the given {@code where}
+   */
+  String explain(String where);
 }
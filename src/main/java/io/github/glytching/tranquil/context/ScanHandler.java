@@ -0,0 +1,199 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.configuration.Option;
+import io.github.glytching.tranquil.exception.TranquilException;
+import io.github.glytching.tranquil.mapping.DocumentReader;
+import io.github.glytching.tranquil.mapping.MappingProvider;
+import io.github.glytching.tranquil.ql.ExpressionFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/** Reads from a memory mapped file in parallel, see {@link ScanReadContext}. */
+class ScanHandler implements ScanReadContext {
+
+  // chunks smaller than this are not worth the cost of a task
+  private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+  // bounds the size of a single mapping
+  private static final long MAX_CHUNK_SIZE = 1024 * 1024 * 1024;
+  // more chunks than threads so that a slow chunk does not leave the other threads idle
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private final Configuration configuration;
+  private final ExpressionFactory expressionFactory;
+  private final File sourceFile;
+  private final ForkJoinPool pool;
+  private final boolean suppressExceptions;
+
+  ScanHandler(
+      Configuration configuration,
+      ExpressionFactory expressionFactory,
+      File sourceFile,
+      ForkJoinPool pool) {
+    this.configuration = configuration;
+    this.expressionFactory = expressionFactory;
+    this.sourceFile = sourceFile;
+    this.pool = pool;
+    this.suppressExceptions = configuration.containsOption(Option.SUPPRESS_EXCEPTIONS);
+  }
+
+  @Override
+  public boolean exists(String where) {
+    TranquilQuery query = query("", where);
+    MappedChunks chunks = map();
+    AtomicBoolean found = new AtomicBoolean(false);
+
+    CompletionService<Boolean> completion = new ExecutorCompletionService<>(pool);
+    List<Future<Boolean>> futures = new ArrayList<>();
+    for (ByteBuffer chunk : chunks.getChunks()) {
+      futures.add(
+          completion.submit(
+              () -> !found.get() && query.exists(() -> open(query, chunks.getFormat(), chunk))));
+    }
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        if (get(take(completion))) {
+          found.set(true);
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      cancel(futures);
+    }
+  }
+
+  @Override
+  public String read(String select, String where) {
+    List<Map<String, Object>> read = new ArrayList<>();
+    read(select, where, true, read::add);
+    return configuration.mappingProvider().serialize(read);
+  }
+
+  @Override
+  public void read(String select, String where, Consumer<Map<String, Object>> consumer) {
+    read(select, where, true, consumer);
+  }
+
+  @Override
+  public void read(
+      String select, String where, boolean ordered, Consumer<Map<String, Object>> consumer) {
+    TranquilQuery query = query(select, where);
+    MappedChunks chunks = map();
+
+    CompletionService<List<Map<String, Object>>> completion = new ExecutorCompletionService<>(pool);
+    List<Future<List<Map<String, Object>>>> futures = new ArrayList<>();
+    for (ByteBuffer chunk : chunks.getChunks()) {
+      futures.add(completion.submit(read(query, chunks.getFormat(), chunk)));
+    }
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        Future<List<Map<String, Object>>> future = ordered ? futures.get(i) : take(completion);
+        get(future).forEach(consumer);
+      }
+    } finally {
+      cancel(futures);
+    }
+  }
+
+  private Callable<List<Map<String, Object>>> read(
+      TranquilQuery query, MappedChunks.Format format, ByteBuffer chunk) {
+    return () -> {
+      List<Map<String, Object>> read = new ArrayList<>();
+      query.stream(() -> open(query, format, chunk), read::add);
+      return read;
+    };
+  }
+
+  private DocumentReader open(TranquilQuery query, MappedChunks.Format format, ByteBuffer chunk) {
+    MappingProvider mappingProvider = configuration.mappingProvider();
+    InputStream chunkStream = new ByteBufferInputStream(chunk);
+    if (format == MappedChunks.Format.LINES) {
+      return mappingProvider.openLinesReader(
+          chunkStream, "UTF-8", query.getFields(), query.getFilter());
+    }
+    // a chunk of an array holds a run of its elements, restore the brackets so that the chunk can
+    // be read as an array in its own right
+    InputStream arrayStream =
+        new SequenceInputStream(
+            Collections.enumeration(Arrays.asList(bytes("["), chunkStream, bytes("]"))));
+    return mappingProvider.openReader(arrayStream, "UTF-8", query.getFields(), query.getFilter());
+  }
+
+  private MappedChunks map() {
+    try (FileChannel channel = FileChannel.open(sourceFile.toPath(), StandardOpenOption.READ)) {
+      int chunkCount = pool.getParallelism() * CHUNKS_PER_THREAD;
+      long chunkSize =
+          Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, channel.size() / chunkCount));
+      return MappedChunks.map(channel, chunkSize);
+    } catch (IOException | RuntimeException ex) {
+      if (suppressExceptions) {
+        return MappedChunks.empty();
+      }
+      throw ex instanceof RuntimeException
+          ? (RuntimeException) ex
+          : new TranquilException("Failed to map the input!", ex);
+    }
+  }
+
+  private <T> T get(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new TranquilException("Interrupted while reading the input!", ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new TranquilException("Failed to read the input!", cause);
+    }
+  }
+
+  private <T> Future<T> take(CompletionService<T> completion) {
+    try {
+      return completion.take();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new TranquilException("Interrupted while reading the input!", ex);
+    }
+  }
+
+  private static void cancel(List<? extends Future<?>> futures) {
+    // chunks which have not been started are abandoned, those which have been started run to
+    // completion but their results are ignored
+    for (Future<?> future : futures) {
+      future.cancel(false);
+    }
+  }
+
+  private static InputStream bytes(String value) {
+    return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private TranquilQuery query(String select, String where) {
+    return new TranquilQuery(configuration, expressionFactory, select, where);
+  }
+}
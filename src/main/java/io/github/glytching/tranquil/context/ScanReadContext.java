@@ -0,0 +1,62 @@
+package io.github.glytching.tranquil.context;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads from a large JSON lines file or JSON array file by memory mapping the file, splitting it at
+ * record boundaries and evaluating the chunks in parallel on a {@link
+ * java.util.concurrent.ForkJoinPool}. A JSON lines file holds one record per line, a JSON array
+ * file holds one record per element of its top level array. The file is expected to be UTF-8
+ * encoded.
+ *
+ * <p>Each chunk is parsed, tested and projected on its own, using one query for the entire file.
+ * The file is mapped afresh for each read so a context can be read any number of times.
+ */
+public interface ScanReadContext {
+
+  /**
+   * Tests this context using the given {@code where}, chunks which have not yet been started are
+   * skipped once a match has been found.
+   *
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return true if any of the file's records match the given {@code where}
+   */
+  boolean exists(String where);
+
+  /**
+   * Reads from this context, applying the given {@code select} and {@code where}. The matches are
+   * accumulated so this is suited to selective queries, use {@link #read(String, String, Consumer)}
+   * if the matches are themselves too large to hold in memory.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return result the projected and/or predicated results as a string, in file order
+   */
+  String read(String select, String where);
+
+  /**
+   * Reads from this context, applying the given {@code select} and {@code where} and passing each
+   * match to the given {@code consumer} in file order. This is equivalent to {@code read(select,
+   * where, true, consumer)}.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @param consumer receives the projected form of each matching record
+   */
+  void read(String select, String where, Consumer<Map<String, Object>> consumer);
+
+  /**
+   * Reads from this context, applying the given {@code select} and {@code where} and passing each
+   * match to the given {@code consumer}. The consumer is only ever called by the calling thread.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @param ordered if true then matches are passed in file order, in which case the matches of a
+   *     chunk are held until every preceding chunk has been passed on. If false then the matches of
+   *     each chunk are passed on as soon as that chunk has been read, so chunks may be interleaved
+   *     but the matches within a chunk remain in file order.
+   * @param consumer receives the projected form of each matching record
+   */
+  void read(String select, String where, boolean ordered, Consumer<Map<String, Object>> consumer);
+}
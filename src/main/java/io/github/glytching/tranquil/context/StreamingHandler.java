@@ -0,0 +1,81 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.exception.TranquilException;
+import io.github.glytching.tranquil.mapping.DocumentReader;
+import io.github.glytching.tranquil.ql.ExpressionFactory;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads from an input stream which is parsed incrementally by a {@link DocumentReader}, see {@link
+ * StreamingReadContext}.
+ */
+class StreamingHandler implements StreamingReadContext {
+
+  private final Configuration configuration;
+  private final ExpressionFactory expressionFactory;
+  private final InputStream sourceStream;
+  private final String charset;
+
+  private boolean read = false;
+
+  StreamingHandler(
+      Configuration configuration,
+      ExpressionFactory expressionFactory,
+      InputStream sourceStream,
+      String charset) {
+    this.configuration = configuration;
+    this.expressionFactory = expressionFactory;
+    this.sourceStream = sourceStream;
+    this.charset = charset;
+  }
+
+  @Override
+  public boolean exists(String where) {
+    TranquilQuery query = query("", where);
+    return query.exists(() -> open(query));
+  }
+
+  @Override
+  public String read(String select, String where) {
+    List<Map<String, Object>> matched = new ArrayList<>();
+    TranquilQuery query = query(select, where);
+    String arrayName = query.stream(() -> open(query), matched::add);
+
+    if (arrayName != null) {
+      // reassemble the array attribute, as a non streaming read would
+      Map<String, Object> response = new HashMap<>();
+      response.put(arrayName, matched);
+      return configuration.mappingProvider().serialize(Collections.singletonList(response));
+    }
+    return configuration.mappingProvider().serialize(matched);
+  }
+
+  @Override
+  public void read(String select, String where, Consumer<Map<String, Object>> consumer) {
+    TranquilQuery query = query(select, where);
+    query.stream(() -> open(query), consumer);
+  }
+
+  private DocumentReader open(TranquilQuery query) {
+    if (read) {
+      throw new TranquilException(
+          "This streaming context has already been read, an input stream can only be read once!");
+    }
+    read = true;
+    return configuration
+        .mappingProvider()
+        .openReader(sourceStream, charset, query.getFields(), query.getFilter());
+  }
+
+  private TranquilQuery query(String select, String where) {
+    return new TranquilQuery(configuration, expressionFactory, select, where);
+  }
+}
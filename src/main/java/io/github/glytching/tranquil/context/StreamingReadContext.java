@@ -0,0 +1,51 @@
+package io.github.glytching.tranquil.context;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads from an input which is parsed incrementally, one document at a time, so memory use is
+ * bounded by the size of the largest document rather than the size of the input. The documents are
+ * the elements of a top level array or the elements of an object's array attribute, see {@link
+ * io.github.glytching.tranquil.mapping.DocumentReader} for the details. Documents which do not
+ * match are discarded as soon as they have been tested.
+ *
+ * <p>A parsed read only tests the elements of an object's array attribute when that array is the
+ * object's only attribute. A streaming read cannot hold the whole object, so it also streams an
+ * array which is preceded by scalar attributes (such as a timestamp) or followed by any attributes,
+ * and skips those attributes. For such inputs a streaming read and a parsed read differ.
+ *
+ * <p>The underlying input stream is consumed by the first read so a streaming context can only be
+ * read once.
+ */
+public interface StreamingReadContext {
+
+  /**
+   * Tests this context using the given {@code where}, reading stops at the first match.
+   *
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return true if the input contains data which matches the given {@code where}
+   */
+  boolean exists(String where);
+
+  /**
+   * Reads from this context, applying the given {@code select} and {@code where}. The input is
+   * streamed but the matches are accumulated so this is suited to selective queries, use {@link
+   * #read(String, String, Consumer)} if the matches are themselves too large to hold in memory.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return result the projected and/or predicated results as a string
+   */
+  String read(String select, String where);
+
+  /**
+   * Reads from this context, applying the given {@code select} and {@code where} and passing each
+   * match to the given {@code consumer} as soon as it has been found.
+   *
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @param consumer receives the projected form of each matching document, in input order
+   */
+  void read(String select, String where, Consumer<Map<String, Object>> consumer);
+}
@@ -0,0 +1,52 @@
+package io.github.glytching.tranquil.context;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Many where clauses, each known by an id, which are tested against a document together. This is
+ * suited to routing, where each document is tested against the filters of many subscribers, since
+ * the where clauses' equality, {@code in} and range tests are indexed so that the cost of a match
+ * depends on the number of distinct tests which a document touches rather than on the number of
+ * where clauses. See {@link io.github.glytching.tranquil.ql.interpreter.PredicateIndex} for the
+ * details.
+ *
+ * <p>For example: <code>
+ *    SubscriptionIndex index = Tranquil.index(whereClausesBySubscriberId);
+ *    for (String message : messages) {
+ *      Set&lt;String&gt; subscribers = index.match(message);
+ *    }
+ * </code>
+ *
+ * <p>A subscription matches a document if testing that document with {@link
+ * ReadContext#exists(String)} and the subscription's where clause would be true on the {@link
+ * io.github.glytching.tranquil.configuration.Engine#INTERPRETER} engine. As with {@code exists},
+ * the elements of a document which contains a single array attribute are matched individually, with
+ * references to the array attribute stripped from the where clauses. The where clauses are always
+ * evaluated by the engine neutral interpreter, whatever the configured engine, so where the
+ * configured engine's semantics differ from the interpreter's the index and {@code exists} may
+ * disagree. For example, the Groovy engine has no support for {@code between}, on that engine
+ * {@code exists} is false for any {@code between} test whereas the index tests the range.
+ *
+ * <p>Instances are immutable and are safe for use by multiple threads.
+ */
+public interface SubscriptionIndex {
+
+  /**
+   * Parses the given {@code source} and tests it against each of the indexed where clauses.
+   *
+   * @param source a parseable input
+   * @return the ids of the subscriptions which match any of the documents in the given {@code
+   *     source}, in the order in which the subscriptions were given
+   */
+  Set<String> match(String source);
+
+  /**
+   * Tests the given {@code source} against each of the indexed where clauses.
+   *
+   * @param source an input which has already been parsed
+   * @return the ids of the subscriptions which match the given {@code source}, in the order in
+   *     which the subscriptions were given
+   */
+  Set<String> match(Map<String, Object> source);
+}
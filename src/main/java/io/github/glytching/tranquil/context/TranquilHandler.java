@@ -2,32 +2,32 @@ package io.github.glytching.tranquil.context;
 
 import io.github.glytching.tranquil.configuration.Configuration;
 import io.github.glytching.tranquil.configuration.Option;
-import io.github.glytching.tranquil.exception.TranquilException;
-import io.github.glytching.tranquil.mapping.TypeRef;
-import io.github.glytching.tranquil.ql.Predicator;
-import io.github.glytching.tranquil.ql.Projector;
-import io.github.glytching.tranquil.ql.groovy.GroovyFactory;
+import io.github.glytching.tranquil.ql.ExpressionFactories;
+import io.github.glytching.tranquil.ql.ExpressionFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Tranquil parses an input and reads from the parsed form of that input. For example: parse {@code
  * JSON} into a {@code Map} and then apply projections and predicates to that {@code Map}. This
- * class combines the parsing and reading behaviour.
+ * class provides the parsing behaviour, each parse returns its own immutable {@link ReadContext} so
+ * a parsed input can be read by many threads at once and an instance of this class can be reused
+ * for any number of inputs.
  */
-public class TranquilHandler implements ParseContext, ReadContext {
+public class TranquilHandler implements ParseContext {
 
   private final Configuration configuration;
-  private final GroovyFactory groovyFactory;
+  private final ExpressionFactory expressionFactory;
   private final boolean suppressExceptions;
 
-  private List<Map<String, Object>> parsed;
-
   public TranquilHandler() {
     this(Configuration.defaultConfiguration());
   }
@@ -35,20 +35,18 @@ public class TranquilHandler implements ParseContext, ReadContext {
   public TranquilHandler(Configuration configuration) {
     this.configuration = configuration;
     this.suppressExceptions = configuration.containsOption(Option.SUPPRESS_EXCEPTIONS);
-    this.groovyFactory = new GroovyFactory(configuration.lruCacheSize());
+    this.expressionFactory = ExpressionFactories.get(configuration);
   }
 
   @Override
   public ReadContext parse(Map<String, Object> source) {
-    this.parsed = Arrays.asList(source);
-    return this;
+    return read(Collections.singletonList(source));
   }
 
   @Override
   public ReadContext parse(String source) {
-    this.parsed =
-        executeWithExceptionHandling(() -> configuration.mappingProvider().deserialize(source));
-    return this;
+    return read(
+        executeWithExceptionHandling(() -> configuration.mappingProvider().deserialize(source)));
   }
 
   @Override
@@ -58,174 +56,69 @@ public class TranquilHandler implements ParseContext, ReadContext {
 
   @Override
   public ReadContext parse(InputStream sourceStream, String charset) {
-    this.parsed =
+    return read(
         executeWithExceptionHandling(
-            () -> configuration.mappingProvider().deserialize(sourceStream, charset));
-    return this;
+            () -> configuration.mappingProvider().deserialize(sourceStream, charset)));
   }
 
   @Override
   public ReadContext parse(File sourceFile) throws IOException {
     try (FileInputStream fis = new FileInputStream(sourceFile)) {
-      parse(fis);
+      return parse(fis);
     }
-    return this;
   }
 
   @Override
-  public boolean exists(String where) {
-    boolean exists = true;
-    List<Map<String, Object>> read = internalRead(parsed, "", where);
-
-    if (!read.isEmpty()) {
-      if (read.size() == 1) {
-        // we might be dealing with an input which contained a single array attribute
-        Object value = read.get(0).entrySet().iterator().next().getValue();
-        if (value instanceof List) {
-          exists = !((List) value).isEmpty();
-        }
-      }
-    } else {
-      exists = false;
-    }
-    return exists;
+  public StreamingReadContext stream(InputStream sourceStream) {
+    return stream(sourceStream, "UTF-8");
   }
 
   @Override
-  public String read(String select, String where) {
-    List<Map<String, Object>> read = internalRead(parsed, select, where);
-
-    return configuration.mappingProvider().serialize(read);
+  public StreamingReadContext stream(InputStream sourceStream, String charset) {
+    return new StreamingHandler(configuration, expressionFactory, sourceStream, charset);
   }
 
-    @Override
-    public String select(String select) {
-        return read(select, "");
-    }
+  @Override
+  public LinesReadContext lines(InputStream sourceStream) {
+    return lines(sourceStream, "UTF-8");
+  }
 
-    @Override
-    public String where(String where) {
-        return read("", where);
-    }
+  @Override
+  public LinesReadContext lines(InputStream sourceStream, String charset) {
+    return new LinesHandler(configuration, expressionFactory, () -> sourceStream, charset, false);
+  }
 
-    @Override
-  public <T> T read(String select, String where, Class<T> type) {
-    List<Map<String, Object>> read = internalRead(parsed, select, where);
-    return configuration.mappingProvider().serialize(read, type);
+  @Override
+  public LinesReadContext lines(File sourceFile) {
+    return new LinesHandler(
+        configuration, expressionFactory, () -> new FileInputStream(sourceFile), "UTF-8", true);
   }
 
   @Override
-  public <T> T read(String select, String where, TypeRef<T> type) {
-    List<Map<String, Object>> read = internalRead(parsed, select, where);
-    return configuration.mappingProvider().serialize(read, type);
-  }
-
-  private List<Map<String, Object>> internalRead(
-      List<Map<String, Object>> incoming, String select, String where) {
-    List<Map<String, Object>> read = new ArrayList<>();
-    for (Map<String, Object> s : incoming) {
-      Map<String, Object> handled = internalRead(s, select, where);
-      if (!handled.isEmpty()) {
-        read.add(handled);
-      }
-    }
-    return read;
-  }
-
-  private Map<String, Object> internalRead(
-      Map<String, Object> incoming, String select, String where) {
-    try {
-      Map<String, Object> response = new HashMap<>();
-
-      if (isArray(incoming)) {
-        Map.Entry<String, Object> entry = incoming.entrySet().iterator().next();
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> values = (List) entry.getValue();
-        List<Map<String, Object>> matched = new ArrayList<>();
-
-        for (Map<String, Object> value : values) {
-          if (notEmpty(where)) {
-            Predicator predicator = getPredicator(where.replaceAll(entry.getKey() + ".", ""));
-
-            if (!predicator.isMatched(value)) {
-              value = new HashMap<>();
-            }
-          }
-
-          if (!value.isEmpty() && notEmpty(select)) {
-            Projector projector = getProjector(select.replaceAll(entry.getKey() + ".", ""));
-
-            value = projector.project(value);
-          }
-
-          if (!value.isEmpty()) {
-            matched.add(value);
-          }
-        }
-        response.put(entry.getKey(), matched);
-        return response;
-      } else {
-        if (notEmpty(where)) {
-          Predicator predicator = getPredicator(where);
-          if (!predicator.isMatched(incoming)) {
-            incoming = new HashMap<>();
-          }
-        }
-        if (!incoming.isEmpty() && notEmpty(select)) {
-          Projector projector = getProjector(select);
-
-          incoming = projector.project(incoming);
-        }
-        return incoming;
-      }
-    } catch (Exception ex) {
-      if (suppressExceptions) {
-        return new HashMap<>();
-      } else {
-        throw new TranquilException(
-            String.format("Failed to read incoming due to [%s]!", ex.getMessage()), ex);
-      }
-    }
+  public ScanReadContext scan(File sourceFile) {
+    return scan(sourceFile, ForkJoinPool.commonPool());
   }
 
-  private Predicator getPredicator(String expression) {
-    return groovyFactory.createPredicator(expression);
+  @Override
+  public ScanReadContext scan(File sourceFile, ForkJoinPool pool) {
+    return new ScanHandler(configuration, expressionFactory, sourceFile, pool);
   }
 
-  private Projector getProjector(String expression) {
-    return groovyFactory.createProjector(expression);
+  @Override
+  public CompiledQuery compile(String select, String where) {
+    return TranquilQuery.compile(configuration, expressionFactory, select, where);
   }
 
-  private boolean notEmpty(String incoming) {
-    return incoming != null && incoming.length() > 0;
+  @Override
+  public SubscriptionIndex index(Map<String, String> whereClauses) {
+    return TranquilSubscriptionIndex.of(configuration, whereClauses);
   }
 
-  private boolean isArray(Map<String, Object> incoming) {
-    if (incoming.size() == 1) {
-      Map.Entry<String, Object> entry = incoming.entrySet().iterator().next();
-      Object value = entry.getValue();
-      return Collection.class.isAssignableFrom(value.getClass());
-    } else {
-      return false;
-    }
+  private ReadContext read(List<Map<String, Object>> parsed) {
+    return new ParsedHandler(configuration, expressionFactory, parsed);
   }
 
-  @SuppressWarnings("unchecked")
   private <K> K executeWithExceptionHandling(Callable<K> callable) {
-    try {
-      return callable.call();
-    } catch (RuntimeException ex) {
-      if (suppressExceptions) {
-        return (K) new ArrayList<>();
-      } else {
-        throw ex;
-      }
-    } catch (Exception ex) {
-      if (suppressExceptions) {
-        return (K) new ArrayList<>();
-      } else {
-        throw new TranquilException(ex);
-      }
-    }
+    return Executions.executeWithExceptionHandling(callable, suppressExceptions);
   }
 }
@@ -0,0 +1,964 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.configuration.Engine;
+import io.github.glytching.tranquil.configuration.Option;
+import io.github.glytching.tranquil.exception.TranquilException;
+import io.github.glytching.tranquil.exception.TranquilParserException;
+import io.github.glytching.tranquil.mapping.DocumentFilter;
+import io.github.glytching.tranquil.mapping.DocumentReader;
+import io.github.glytching.tranquil.mapping.FieldSelection;
+import io.github.glytching.tranquil.mapping.TypeRef;
+import io.github.glytching.tranquil.ql.ExpressionFactory;
+import io.github.glytching.tranquil.ql.Parameters;
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.PreparedExpression;
+import io.github.glytching.tranquil.ql.Projector;
+import io.github.glytching.tranquil.ql.interpreter.Prefilter;
+import io.github.glytching.tranquil.ql.model.Condition;
+import io.github.glytching.tranquil.ql.model.FieldReference;
+import io.github.glytching.tranquil.ql.model.FieldReferences;
+import io.github.glytching.tranquil.ql.model.ParameterBinder;
+import io.github.glytching.tranquil.ql.model.Projection;
+import io.github.glytching.tranquil.ql.parser.LiteralLifter;
+import io.github.glytching.tranquil.ql.parser.SelectClauseModelParser;
+import io.github.glytching.tranquil.ql.parser.WhereClauseModelParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static io.github.glytching.tranquil.context.Executions.executeWithExceptionHandling;
+
+/**
+ * Applies a select and where clause to parsed inputs. The expressions are resolved into a {@link
+ * Predicator} and {@link Projector} once per query rather than once per input (or, for inputs which
+ * contain a single array attribute, once per array element).
+ *
+ * <p>When an input contains a single array attribute the expressions are applied to each element of
+ * that array and any references to the array attribute are stripped from the expressions, so {@code
+ * items.name} becomes {@code name}. The stripped expressions depend on the name of the array
+ * attribute so they are resolved on first sight of that name and then remembered.
+ *
+ * <p>Engines which support parameters resolve expressions in their prepared form and then bind them
+ * to this query's {@link Parameters}, an unbound query binds no values. If {@link
+ * Option#LIFT_LITERALS} is on then the where clause has its literals lifted into parameters before
+ * it is resolved.
+ *
+ * <p>When this query reads unparsed inputs it tells the {@link
+ * io.github.glytching.tranquil.mapping.MappingProvider} which fields its expressions refer to, so
+ * that the provider need not materialize the rest of each document. This only applies when there is
+ * a select clause, without one the documents are returned as they were read. It also gives the
+ * provider a {@link DocumentFilter} built from the parts of its where clause which test a single
+ * top level attribute (see {@link Prefilter}), so that the provider can skip documents which cannot
+ * match without materializing them. Groovy's semantics for these tests may differ from the
+ * interpreter's so queries on the Groovy engine have no such filter.
+ */
+class TranquilQuery implements CompiledQuery {
+
+  // inputs are expected to be homogeneous so there should only ever be one or two array attribute
+  // names, this limit guards against inputs with arbitrary names filling the map
+  private static final int MAX_ARRAY_PLANS = 16;
+  // a query is usually read into one or two types, with or without an array attribute's name
+  // stripped from its select clause, this limit guards against callers which ask for many types
+  private static final int MAX_BEAN_PROJECTORS = 16;
+
+  private final Configuration configuration;
+  private final ExpressionFactory expressionFactory;
+  private final boolean suppressExceptions;
+  private final boolean supportsParameters;
+  private final boolean liftLiterals;
+  private final String select;
+  private final String where;
+  // null if this query has not been bound
+  private final Parameters parameters;
+  private final ConcurrentMap<String, Plan> arrayPlans = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Prefilter> arrayPrefilters = new ConcurrentHashMap<>();
+  // keyed on a select clause and a type, empty if there is no bean projector for that pair
+  private final ConcurrentMap<List<Object>, Optional<BeanProjector<?>>> beanProjectors =
+      new ConcurrentHashMap<>();
+
+  private volatile Plan plan;
+  private volatile FieldSelection fields;
+  private volatile DocumentFilter filter;
+
+  TranquilQuery(
+      Configuration configuration,
+      ExpressionFactory expressionFactory,
+      String select,
+      String where) {
+    this(configuration, expressionFactory, select, where, null);
+  }
+
+  private TranquilQuery(
+      Configuration configuration,
+      ExpressionFactory expressionFactory,
+      String select,
+      String where,
+      Parameters parameters) {
+    this.configuration = configuration;
+    this.expressionFactory = expressionFactory;
+    this.suppressExceptions = configuration.containsOption(Option.SUPPRESS_EXCEPTIONS);
+    this.supportsParameters = configuration.engine() != Engine.GROOVY;
+    this.liftLiterals = supportsParameters && configuration.containsOption(Option.LIFT_LITERALS);
+    this.select = select;
+    this.where = where;
+    this.parameters = parameters;
+  }
+
+  /**
+   * Creates a query and eagerly resolves its expressions so that invalid expressions are reported
+   * now rather than when the query is first applied.
+   *
+   * @param configuration the configuration in use
+   * @param expressionFactory the factory which resolves expressions
+   * @param select projections expressed using our SQL-esque grammar
+   * @param where predicates expressed using our SQL-esque grammar
+   * @return a query which is ready to use
+   */
+  static TranquilQuery compile(
+      Configuration configuration,
+      ExpressionFactory expressionFactory,
+      String select,
+      String where) {
+    TranquilQuery query = new TranquilQuery(configuration, expressionFactory, select, where);
+    query.prepare();
+    return query;
+  }
+
+  @Override
+  public String read(String source) {
+    return configuration.mappingProvider().serialize(apply(deserialize(source)));
+  }
+
+  @Override
+  public String read(Map<String, Object> source) {
+    return configuration.mappingProvider().serialize(apply(Arrays.asList(source)));
+  }
+
+  @Override
+  public String read(InputStream sourceStream) {
+    List<Map<String, Object>> parsed =
+        executeWithExceptionHandling(
+            () ->
+                configuration
+                    .mappingProvider()
+                    .deserialize(sourceStream, "UTF-8", getFields(), getFilter()),
+            suppressExceptions);
+    return configuration.mappingProvider().serialize(apply(parsed));
+  }
+
+  @Override
+  public <T> T read(String source, Class<T> type) {
+    return configuration.mappingProvider().serialize(apply(deserialize(source)), type);
+  }
+
+  @Override
+  public <T> T read(String source, TypeRef<T> type) {
+    return configuration.mappingProvider().serialize(apply(deserialize(source)), type);
+  }
+
+  @Override
+  public <T> List<T> readEach(String source, Class<T> type) {
+    return readEach(deserialize(source), type);
+  }
+
+  @Override
+  public List<String> readAll(Collection<?> sources, Executor executor, int parallelism) {
+    return new BatchReader(this::readAny, executor, parallelism).read(sources);
+  }
+
+  @Override
+  public boolean exists(String source) {
+    return exists(deserialize(source));
+  }
+
+  @Override
+  public boolean exists(Map<String, Object> source) {
+    return exists(Arrays.asList(source));
+  }
+
+  @Override
+  public void read(InputStream sourceStream, Consumer<Map<String, Object>> consumer) {
+    stream(
+        () ->
+            configuration
+                .mappingProvider()
+                .openReader(sourceStream, "UTF-8", getFields(), getFilter()),
+        consumer);
+  }
+
+  @Override
+  public Flow.Processor<Map<String, Object>, Map<String, Object>> processor(
+      Executor executor, int parallelism) {
+    return new QueryProcessor<>(
+        document -> iterator(Collections.singletonList(document)), executor, parallelism);
+  }
+
+  @Override
+  public Flow.Processor<byte[], Map<String, Object>> jsonProcessor(
+      Executor executor, int parallelism) {
+    return new QueryProcessor<>(chunk -> iterator(deserialize(chunk)), executor, parallelism);
+  }
+
+  @Override
+  public CompiledQuery bind(Parameters parameters) {
+    TranquilQuery query =
+        new TranquilQuery(configuration, expressionFactory, select, where, parameters);
+    query.getPlan();
+    return query;
+  }
+
+  /**
+   * Applies this query to each of the given parsed inputs.
+   *
+   * @param incoming parsed inputs
+   * @return the non empty results of applying this query
+   */
+  List<Map<String, Object>> apply(List<Map<String, Object>> incoming) {
+    List<Map<String, Object>> read = new ArrayList<>();
+    apply(incoming, read::add);
+    return read;
+  }
+
+  /**
+   * Applies this query to each of the given parsed inputs, passing each non empty result to the
+   * given {@code consumer} as soon as it is available.
+   *
+   * @param incoming parsed inputs
+   * @param consumer receives each non empty result, in input order
+   */
+  void apply(List<Map<String, Object>> incoming, Consumer<Map<String, Object>> consumer) {
+    for (Map<String, Object> s : incoming) {
+      Map<String, Object> handled = apply(s);
+      if (!handled.isEmpty()) {
+        consumer.accept(handled);
+      }
+    }
+  }
+
+  /**
+   * Lazily applies this query to each of the given parsed inputs, each input is only tested and
+   * projected when the returned iterator needs it. The elements of an input which contains a single
+   * array attribute are matched individually, so a caller which stops early need not evaluate the
+   * rest of that array.
+   *
+   * @param incoming parsed inputs
+   * @return an iterator over the non empty results of applying this query, in input order
+   */
+  Iterator<Map<String, Object>> iterator(List<Map<String, Object>> incoming) {
+    return new Matches(incoming.iterator());
+  }
+
+  /**
+   * Applies this query to each of the given parsed inputs, expressing each match as an instance of
+   * the given {@code type}. The elements of an input which contains a single array attribute are
+   * matched individually.
+   *
+   * <p>If the select clause names each of its projections and the given {@code type} is a bean with
+   * a supported property for each of them then the matches are projected straight into new
+   * instances of the type (see {@link BeanProjector}), otherwise each match is projected into a
+   * {@code Map} and converted by the mapping provider.
+   *
+   * @param incoming parsed inputs
+   * @param type the type to which each match should be converted
+   * @param <T> the output type
+   * @return the matches, in input order
+   */
+  <T> List<T> readEach(List<Map<String, Object>> incoming, Class<T> type) {
+    List<T> read = new ArrayList<>();
+    for (Map<String, Object> s : incoming) {
+      try {
+        if (isArray(s)) {
+          Map.Entry<String, Object> entry = s.entrySet().iterator().next();
+          @SuppressWarnings("unchecked")
+          List<Map<String, Object>> values = (List) entry.getValue();
+          Plan arrayPlan = getArrayPlan(entry.getKey());
+          BeanProjector<T> projector =
+              getBeanProjector(
+                  select == null ? null : select.replace(entry.getKey() + ".", ""), type);
+          for (Map<String, Object> value : values) {
+            readEach(arrayPlan, projector, value, type, read);
+          }
+        } else {
+          readEach(getPlan(), getBeanProjector(select, type), s, type, read);
+        }
+      } catch (Exception ex) {
+        handle(ex);
+      }
+    }
+    return read;
+  }
+
+  /**
+   * Tests the given parsed inputs to see whether any of them match this query, testing stops at the
+   * first match. Only the where clause is evaluated, nothing is projected or collected. An input
+   * which contains a single array attribute matches if any of that array's elements match.
+   *
+   * @param incoming parsed inputs
+   * @return true if the given inputs contain data which matches this query
+   */
+  boolean exists(List<Map<String, Object>> incoming) {
+    for (Map<String, Object> document : incoming) {
+      if (matches(document)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Applies this query to each document read from the given {@code documents}, passing each non
+   * empty result to the given {@code consumer} as soon as it is available. The reader is closed
+   * once it has been read.
+   *
+   * @param documents opens the reader
+   * @param consumer receives each non empty result
+   * @return the name of the array attribute whose elements were read, or null if the documents were
+   *     not elements of an array attribute
+   */
+  String stream(Supplier<DocumentReader> documents, Consumer<Map<String, Object>> consumer) {
+    DocumentReader reader = open(documents);
+    if (reader == null) {
+      return null;
+    }
+    try (reader) {
+      Map<String, Object> document;
+      while ((document = next(reader)) != null) {
+        Map<String, Object> handled = apply(reader.getArrayName(), document);
+        if (!handled.isEmpty()) {
+          consumer.accept(handled);
+        }
+      }
+      return reader.getArrayName();
+    }
+  }
+
+  /**
+   * Tests the documents read from the given {@code documents} to see whether any of them match this
+   * query, reading stops at the first match. The reader is closed once it has been read.
+   *
+   * @param documents opens the reader
+   * @return true if any of the documents match this query
+   */
+  boolean exists(Supplier<DocumentReader> documents) {
+    DocumentReader reader = open(documents);
+    if (reader == null) {
+      return false;
+    }
+    try (reader) {
+      Map<String, Object> document;
+      while ((document = next(reader)) != null) {
+        if (reader.getArrayName() == null
+            ? matches(document)
+            : matches(reader.getArrayName(), document)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Returns the fields which this query reads from a document.
+   *
+   * @return the fields which this query reads from a document
+   */
+  FieldSelection getFields() {
+    FieldSelection resolved = fields;
+    if (resolved == null) {
+      resolved = resolveFields();
+      fields = resolved;
+    }
+    return resolved;
+  }
+
+  /**
+   * Returns a filter which rejects documents that cannot match this query.
+   *
+   * @return a filter which rejects documents that cannot match this query
+   */
+  DocumentFilter getFilter() {
+    DocumentFilter resolved = filter;
+    if (resolved == null) {
+      resolved =
+          supportsParameters && notEmpty(where)
+              ? new QueryFilter(getPrefilter(where))
+              : DocumentFilter.NONE;
+      filter = resolved;
+    }
+    return resolved;
+  }
+
+  private Map<String, Object> apply(String arrayName, Map<String, Object> document) {
+    if (arrayName == null) {
+      return apply(document);
+    }
+    try {
+      return getArrayPlan(arrayName).apply(document);
+    } catch (Exception ex) {
+      return handle(ex);
+    }
+  }
+
+  private <T> void readEach(
+      Plan plan,
+      BeanProjector<T> projector,
+      Map<String, Object> incoming,
+      Class<T> type,
+      List<T> read) {
+    if (projector == null) {
+      Map<String, Object> handled = plan.apply(incoming);
+      if (!handled.isEmpty()) {
+        read.add(convert(handled, type));
+      }
+    } else if (plan.matches(incoming) && !incoming.isEmpty()) {
+      read.add(projector.project(incoming, projected -> convert(projected, type)));
+    }
+  }
+
+  private <T> T convert(Map<String, Object> projected, Class<T> type) {
+    return configuration.mappingProvider().serialize(Collections.singletonList(projected), type);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> BeanProjector<T> getBeanProjector(String select, Class<T> type) {
+    // the bean projector evaluates the select clause itself, the Groovy engine's semantics may
+    // differ from the interpreter's so its queries always project via the engine
+    if (!supportsParameters || !notEmpty(select)) {
+      return null;
+    }
+    List<Object> key = Arrays.asList(select, type);
+    Optional<BeanProjector<?>> resolved = beanProjectors.get(key);
+    if (resolved == null) {
+      resolved = Optional.ofNullable(createBeanProjector(select, type));
+      if (beanProjectors.size() < MAX_BEAN_PROJECTORS) {
+        beanProjectors.putIfAbsent(key, resolved);
+      }
+    }
+    return (BeanProjector<T>) resolved.orElse(null);
+  }
+
+  private <T> BeanProjector<T> createBeanProjector(String select, Class<T> type) {
+    try {
+      List<Projection> projections = new SelectClauseModelParser().parse(select);
+      if (!ParameterBinder.getParameters(projections).isEmpty()) {
+        Parameters values = parameters == null ? Parameters.NONE : parameters;
+        projections = ParameterBinder.bind(projections, values::get);
+      }
+      return BeanProjector.of(projections, type);
+    } catch (TranquilException | TranquilParserException ex) {
+      // an unbound or invalid select clause is reported when the query is resolved
+      return null;
+    }
+  }
+
+  private boolean matches(Map<String, Object> document) {
+    try {
+      if (!isArray(document)) {
+        return matches(getPlan(), document);
+      }
+      Map.Entry<String, Object> entry = document.entrySet().iterator().next();
+      @SuppressWarnings("unchecked")
+      List<Map<String, Object>> values = (List) entry.getValue();
+      Plan arrayPlan = getArrayPlan(entry.getKey());
+      for (Map<String, Object> value : values) {
+        if (matches(arrayPlan, value)) {
+          return true;
+        }
+      }
+      return false;
+    } catch (Exception ex) {
+      handle(ex);
+      return false;
+    }
+  }
+
+  private boolean matches(String arrayName, Map<String, Object> document) {
+    try {
+      return matches(getArrayPlan(arrayName), document);
+    } catch (Exception ex) {
+      handle(ex);
+      return false;
+    }
+  }
+
+  private static boolean matches(Plan plan, Map<String, Object> document) {
+    // an empty document is never a match, just as it is never a result
+    return !document.isEmpty() && plan.matches(document);
+  }
+
+  private DocumentReader open(Supplier<DocumentReader> documents) {
+    try {
+      return documents.get();
+    } catch (RuntimeException ex) {
+      if (suppressExceptions) {
+        return null;
+      }
+      throw ex;
+    }
+  }
+
+  private Map<String, Object> next(DocumentReader reader) {
+    try {
+      return reader.next();
+    } catch (RuntimeException ex) {
+      // the input is unreadable from here on so there is nothing more to stream
+      if (suppressExceptions) {
+        return null;
+      }
+      throw ex;
+    }
+  }
+
+  private Map<String, Object> apply(Map<String, Object> incoming) {
+    try {
+      if (isArray(incoming)) {
+        Map.Entry<String, Object> entry = incoming.entrySet().iterator().next();
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> values = (List) entry.getValue();
+        Plan arrayPlan = getArrayPlan(entry.getKey());
+
+        int parallelThreshold = configuration.parallelThreshold();
+        List<Map<String, Object>> matched =
+            parallelThreshold > 0 && values.size() >= parallelThreshold
+                ? ArrayEvaluation.evaluate(arrayPlan, values, configuration.parallelPool())
+                : apply(arrayPlan, values);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put(entry.getKey(), matched);
+        return response;
+      } else {
+        return getPlan().apply(incoming);
+      }
+    } catch (Exception ex) {
+      return handle(ex);
+    }
+  }
+
+  private static List<Map<String, Object>> apply(Plan plan, List<Map<String, Object>> values) {
+    List<Map<String, Object>> matched = new ArrayList<>();
+    for (Map<String, Object> value : values) {
+      value = plan.apply(value);
+      if (!value.isEmpty()) {
+        matched.add(value);
+      }
+    }
+    return matched;
+  }
+
+  private Map<String, Object> handle(Exception ex) {
+    if (suppressExceptions) {
+      return new HashMap<>();
+    } else {
+      throw new TranquilException(
+          String.format("Failed to read incoming due to [%s]!", ex.getMessage()), ex);
+    }
+  }
+
+  private Plan getPlan() {
+    Plan resolved = plan;
+    if (resolved == null) {
+      // racing threads will resolve the same predicator and projector from the expression factory
+      // so it does not matter which of them wins
+      resolved = resolve(select, where);
+      plan = resolved;
+    }
+    return resolved;
+  }
+
+  private Plan getArrayPlan(String arrayName) {
+    Plan resolved = arrayPlans.get(arrayName);
+    if (resolved == null) {
+      String prefix = arrayName + ".";
+      resolved =
+          resolve(
+              select == null ? null : select.replace(prefix, ""),
+              where == null ? null : where.replace(prefix, ""));
+      if (arrayPlans.size() < MAX_ARRAY_PLANS) {
+        arrayPlans.putIfAbsent(arrayName, resolved);
+      }
+    }
+    return resolved;
+  }
+
+  private void prepare() {
+    if (!supportsParameters) {
+      getPlan();
+    } else {
+      // parameters may be bound later so only the prepared forms can be resolved now
+      if (notEmpty(select)) {
+        expressionFactory.prepareProjector(select);
+      }
+      if (notEmpty(where)) {
+        expressionFactory.preparePredicator(
+            liftLiterals ? LiteralLifter.lift(where).getExpression() : where);
+      }
+    }
+  }
+
+  private Plan resolve(String select, String where) {
+    if (!supportsParameters && parameters == null) {
+      return new Plan(
+          notEmpty(where) ? expressionFactory.createPredicator(where) : null,
+          notEmpty(select) ? expressionFactory.createProjector(select) : null);
+    }
+
+    Parameters values = parameters == null ? Parameters.NONE : parameters;
+    Projector projector = null;
+    if (notEmpty(select)) {
+      PreparedExpression<Projector> prepared = expressionFactory.prepareProjector(select);
+      projector = prepared.bind(values);
+      // the where clause's positional parameters follow those of the select clause
+      values = values.skip(prepared.getPositionalParameterCount());
+    }
+    Predicator predicator = null;
+    if (notEmpty(where)) {
+      LiteralLifter.Lifted lifted = liftLiterals ? LiteralLifter.lift(where) : null;
+      if (lifted != null && lifted.getParameters() != Parameters.NONE) {
+        predicator =
+            expressionFactory
+                .preparePredicator(lifted.getExpression())
+                .bind(lifted.getParameters());
+      } else {
+        predicator = expressionFactory.preparePredicator(where).bind(values);
+      }
+    }
+    return new Plan(predicator, projector);
+  }
+
+  private Prefilter getArrayPrefilter(String arrayName) {
+    Prefilter resolved = arrayPrefilters.get(arrayName);
+    if (resolved == null) {
+      resolved = getPrefilter(where.replace(arrayName + ".", ""));
+      if (arrayPrefilters.size() < MAX_ARRAY_PLANS) {
+        arrayPrefilters.putIfAbsent(arrayName, resolved);
+      }
+    }
+    return resolved;
+  }
+
+  private Prefilter getPrefilter(String where) {
+    try {
+      Condition condition = new WhereClauseModelParser().parse(where);
+      if (!ParameterBinder.getParameters(condition).isEmpty()) {
+        Parameters values = parameters == null ? Parameters.NONE : parameters;
+        if (notEmpty(select)) {
+          // the where clause's positional parameters follow those of the select clause
+          values =
+              values.skip(
+                  ParameterBinder.countPositional(
+                      ParameterBinder.getParameters(new SelectClauseModelParser().parse(select))));
+        }
+        condition = ParameterBinder.bind(condition, values::get);
+      }
+      return Prefilter.of(condition);
+    } catch (TranquilException | TranquilParserException ex) {
+      // an unbound or invalid where clause is reported when the query is resolved
+      return Prefilter.of(null);
+    }
+  }
+
+  private FieldSelection resolveFields() {
+    if (!notEmpty(select)) {
+      return FieldSelection.all();
+    }
+    try {
+      List<Projection> projections = new SelectClauseModelParser().parse(select);
+      if (projections.isEmpty()) {
+        // select *
+        return FieldSelection.all();
+      }
+      Set<FieldReference> references = FieldReferences.of(projections);
+      references.addAll(FieldReferences.of(new WhereClauseModelParser().parse(where)));
+
+      List<List<String>> paths = new ArrayList<>();
+      for (FieldReference reference : references) {
+        List<String> path = new ArrayList<>();
+        for (FieldReference.Segment segment : reference.getSegments()) {
+          // a property of an array is read from each of its elements so index segments do not
+          // narrow the selection
+          if (segment.getType() == FieldReference.Segment.Type.PROPERTY) {
+            path.add(segment.getName());
+          }
+        }
+        paths.add(path);
+      }
+      return FieldSelection.of(paths);
+    } catch (TranquilParserException ex) {
+      // an engine may accept expressions which the engine neutral parser does not, such inputs are
+      // read in their entirety
+      return FieldSelection.all();
+    }
+  }
+
+  // reads one of the inputs which are accepted by readAll
+  @SuppressWarnings("unchecked")
+  private String readAny(Object source) {
+    if (source instanceof String) {
+      return read((String) source);
+    } else if (source instanceof Map) {
+      return read((Map<String, Object>) source);
+    } else if (source instanceof byte[]) {
+      return read(new ByteArrayInputStream((byte[]) source));
+    }
+    return read((InputStream) source);
+  }
+
+  private List<Map<String, Object>> deserialize(String source) {
+    return executeWithExceptionHandling(
+        () -> configuration.mappingProvider().deserialize(source, getFields(), getFilter()),
+        suppressExceptions);
+  }
+
+  private List<Map<String, Object>> deserialize(byte[] source) {
+    return executeWithExceptionHandling(
+        () ->
+            configuration
+                .mappingProvider()
+                .deserialize(new ByteArrayInputStream(source), "UTF-8", getFields(), getFilter()),
+        suppressExceptions);
+  }
+
+  private static boolean notEmpty(String incoming) {
+    return incoming != null && incoming.length() > 0;
+  }
+
+  // walks the keys rather than asking for the size, so a lazily bound document is only scanned as
+  // far as its second attribute
+  static boolean isArray(Map<String, Object> incoming) {
+    Iterator<String> keys = incoming.keySet().iterator();
+    if (!keys.hasNext()) {
+      return false;
+    }
+    String key = keys.next();
+    return !keys.hasNext() && incoming.get(key) instanceof Collection;
+  }
+
+  /** Adapts this query's {@link Prefilter}s to the mapping layer. */
+  private class QueryFilter implements DocumentFilter {
+    private final Prefilter prefilter;
+
+    QueryFilter(Prefilter prefilter) {
+      this.prefilter = prefilter;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return prefilter.isEmpty();
+    }
+
+    @Override
+    public boolean tests(String name) {
+      return prefilter.tests(name);
+    }
+
+    @Override
+    public boolean rejects(String name, Object value) {
+      return prefilter.rejects(name, value);
+    }
+
+    @Override
+    public DocumentFilter forArrayElements(String arrayName) {
+      return new QueryFilter(getArrayPrefilter(arrayName));
+    }
+  }
+
+  /** Applies this query to one input, or one element of an input's array attribute, at a time. */
+  private class Matches implements Iterator<Map<String, Object>> {
+    private final Iterator<Map<String, Object>> documents;
+    // the elements of the current input's array attribute, if it has one
+    private Iterator<Map<String, Object>> elements = Collections.emptyIterator();
+    private Plan elementPlan;
+    // the next result, null until it has been found
+    private Map<String, Object> next;
+
+    Matches(Iterator<Map<String, Object>> documents) {
+      this.documents = documents;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null) {
+        Map<String, Object> handled;
+        if (elements.hasNext()) {
+          handled = applyToElement(elements.next());
+        } else if (documents.hasNext()) {
+          handled = applyToDocument(documents.next());
+        } else {
+          return false;
+        }
+        if (!handled.isEmpty()) {
+          next = handled;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Map<String, Object> current = next;
+      next = null;
+      return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> applyToDocument(Map<String, Object> document) {
+      if (!isArray(document)) {
+        return apply(document);
+      }
+      Map.Entry<String, Object> entry = document.entrySet().iterator().next();
+      try {
+        elementPlan = getArrayPlan(entry.getKey());
+        elements = ((List<Map<String, Object>>) entry.getValue()).iterator();
+      } catch (Exception ex) {
+        return handle(ex);
+      }
+      return Collections.emptyMap();
+    }
+
+    private Map<String, Object> applyToElement(Map<String, Object> element) {
+      try {
+        return elementPlan.apply(element);
+      } catch (Exception ex) {
+        return handle(ex);
+      }
+    }
+  }
+
+  /**
+   * Applies a plan to a range of an array's elements, splitting the range in half until each half
+   * is small enough to be worth evaluating on its own. The halves are joined in element order.
+   *
+   * <p>A failure is recorded rather than thrown, since the pool would rethrow a copy of it, and
+   * once there is a failure the remaining ranges are skipped.
+   */
+  private static class ArrayEvaluation extends RecursiveTask<List<Map<String, Object>>> {
+    // the smallest range which is split, below this the cost of a task outweighs its benefit
+    private static final int MIN_SPLIT_SIZE = 64;
+
+    private final Plan plan;
+    private final List<Map<String, Object>> values;
+    private final int splitSize;
+    private final AtomicReference<RuntimeException> failure;
+
+    private ArrayEvaluation(
+        Plan plan,
+        List<Map<String, Object>> values,
+        int splitSize,
+        AtomicReference<RuntimeException> failure) {
+      this.plan = plan;
+      this.values = values;
+      this.splitSize = splitSize;
+      this.failure = failure;
+    }
+
+    /**
+     * Applies the given {@code plan} to each of the given {@code values} on the given {@code pool}.
+     *
+     * @param plan the plan for the array's elements
+     * @param values the array's elements
+     * @param pool the pool on which the elements are evaluated
+     * @return the non empty results, in element order
+     */
+    static List<Map<String, Object>> evaluate(
+        Plan plan, List<Map<String, Object>> values, ForkJoinPool pool) {
+      // a few ranges per worker so that a worker which finishes early can steal from the others
+      int splitSize = Math.max(MIN_SPLIT_SIZE, values.size() / (pool.getParallelism() * 4));
+      AtomicReference<RuntimeException> failure = new AtomicReference<>();
+      List<Map<String, Object>> matched =
+          pool.invoke(new ArrayEvaluation(plan, values, splitSize, failure));
+      if (failure.get() != null) {
+        throw failure.get();
+      }
+      return matched;
+    }
+
+    @Override
+    protected List<Map<String, Object>> compute() {
+      if (failure.get() != null) {
+        return Collections.emptyList();
+      }
+      if (values.size() <= splitSize) {
+        try {
+          return apply(plan, values);
+        } catch (RuntimeException ex) {
+          failure.compareAndSet(null, ex);
+          return Collections.emptyList();
+        }
+      }
+      int middle = values.size() / 2;
+      ArrayEvaluation tail =
+          new ArrayEvaluation(plan, values.subList(middle, values.size()), splitSize, failure);
+      tail.fork();
+      List<Map<String, Object>> head =
+          new ArrayEvaluation(plan, values.subList(0, middle), splitSize, failure).compute();
+      List<Map<String, Object>> rest = tail.join();
+      List<Map<String, Object>> matched = new ArrayList<>(head.size() + rest.size());
+      matched.addAll(head);
+      matched.addAll(rest);
+      return matched;
+    }
+  }
+
+  /** The resolved form of a select and where clause. */
+  private static class Plan {
+    // null if there is no where clause, in which case everything matches
+    private final Predicator predicator;
+    // null if there is no select clause, in which case the input is returned as is
+    private final Projector projector;
+
+    Plan(Predicator predicator, Projector projector) {
+      this.predicator = predicator;
+      this.projector = projector;
+    }
+
+    /**
+     * Tests the given {@code incoming} against this plan's where clause.
+     *
+     * @param incoming a parsed input
+     * @return true if the input matches
+     */
+    boolean matches(Map<String, Object> incoming) {
+      return predicator == null || predicator.isMatched(incoming);
+    }
+
+    /**
+     * Applies this plan to the given {@code incoming}.
+     *
+     * @param incoming a parsed input
+     * @return the projected input or an empty map if the input does not match
+     */
+    Map<String, Object> apply(Map<String, Object> incoming) {
+      if (!matches(incoming)) {
+        return Collections.emptyMap();
+      }
+      if (projector != null && !incoming.isEmpty()) {
+        return projector.project(incoming);
+      }
+      return incoming;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.configuration.Option;
+import io.github.glytching.tranquil.exception.TranquilException;
+import io.github.glytching.tranquil.ql.interpreter.PredicateIndex;
+import io.github.glytching.tranquil.ql.model.Condition;
+import io.github.glytching.tranquil.ql.model.ParameterBinder;
+import io.github.glytching.tranquil.ql.parser.WhereClauseModelParser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static io.github.glytching.tranquil.context.Executions.executeWithExceptionHandling;
+
+/**
+ * The default implementation of {@link SubscriptionIndex}.
+ *
+ * <p>As with {@link TranquilQuery}, the elements of a document which contains a single array
+ * attribute are matched individually and any references to the array attribute are stripped from
+ * the where clauses, so {@code items.name} becomes {@code name}. The stripped where clauses depend
+ * on the name of the array attribute so they are indexed on first sight of that name and then
+ * remembered.
+ */
+class TranquilSubscriptionIndex implements SubscriptionIndex {
+
+  // inputs are expected to be homogeneous so there should only ever be one or two array attribute
+  // names, this limit guards against inputs with arbitrary names filling the map
+  private static final int MAX_ARRAY_INDEXES = 16;
+
+  private final Configuration configuration;
+  private final boolean suppressExceptions;
+  private final Map<String, String> whereClauses;
+  private final PredicateIndex<String> index;
+  private final ConcurrentMap<String, PredicateIndex<String>> arrayIndexes =
+      new ConcurrentHashMap<>();
+
+  private TranquilSubscriptionIndex(
+      Configuration configuration, Map<String, String> whereClauses, PredicateIndex<String> index) {
+    this.configuration = configuration;
+    this.suppressExceptions = configuration.containsOption(Option.SUPPRESS_EXCEPTIONS);
+    this.whereClauses = whereClauses;
+    this.index = index;
+  }
+
+  /**
+   * Parses and indexes the given {@code whereClauses}.
+   *
+   * @param configuration supplies the mapping provider and options
+   * @param whereClauses where clauses keyed by subscription id
+   * @return an index of the given where clauses
+   * @throws io.github.glytching.tranquil.exception.TranquilParserException if a where clause cannot
+   *     be parsed
+   * @throws TranquilException if a where clause has parameters
+   */
+  static SubscriptionIndex of(Configuration configuration, Map<String, String> whereClauses) {
+    Map<String, String> copy = new LinkedHashMap<>(whereClauses);
+    return new TranquilSubscriptionIndex(configuration, copy, index(copy));
+  }
+
+  @Override
+  public Set<String> match(String source) {
+    List<Map<String, Object>> parsed =
+        executeWithExceptionHandling(
+            () -> configuration.mappingProvider().deserialize(source), suppressExceptions);
+    return match(parsed);
+  }
+
+  @Override
+  public Set<String> match(Map<String, Object> source) {
+    return match(Collections.singletonList(source));
+  }
+
+  private Set<String> match(List<Map<String, Object>> documents) {
+    try {
+      Set<String> matched = new HashSet<>();
+      List<Map<String, Object>> unwrapped = new ArrayList<>();
+      for (Map<String, Object> document : documents) {
+        // as with exists, an empty document matches nothing
+        if (document.isEmpty()) {
+          continue;
+        }
+        if (TranquilQuery.isArray(document)) {
+          Map.Entry<String, Object> entry = document.entrySet().iterator().next();
+          List<Object> elements = new ArrayList<>();
+          for (Object element : (Collection<?>) entry.getValue()) {
+            if (!(element instanceof Map && ((Map<?, ?>) element).isEmpty())) {
+              elements.add(element);
+            }
+          }
+          matched.addAll(getArrayIndex(entry.getKey()).matchAny(elements));
+        } else {
+          unwrapped.add(document);
+        }
+      }
+      matched.addAll(index.matchAny(unwrapped));
+
+      // the ids are returned in the order in which the subscriptions were given
+      Set<String> ordered = new LinkedHashSet<>();
+      for (String id : whereClauses.keySet()) {
+        if (matched.contains(id)) {
+          ordered.add(id);
+        }
+      }
+      return ordered;
+    } catch (RuntimeException ex) {
+      if (suppressExceptions) {
+        return Collections.emptySet();
+      }
+      throw new TranquilException(
+          String.format("Failed to read incoming due to [%s]!", ex.getMessage()), ex);
+    }
+  }
+
+  private PredicateIndex<String> getArrayIndex(String arrayName) {
+    PredicateIndex<String> resolved = arrayIndexes.get(arrayName);
+    if (resolved == null) {
+      String prefix = arrayName + ".";
+      Map<String, String> stripped = new LinkedHashMap<>();
+      for (Map.Entry<String, String> entry : whereClauses.entrySet()) {
+        String where = entry.getValue();
+        stripped.put(entry.getKey(), where == null ? null : where.replace(prefix, ""));
+      }
+      resolved = index(stripped);
+      if (arrayIndexes.size() < MAX_ARRAY_INDEXES) {
+        arrayIndexes.putIfAbsent(arrayName, resolved);
+      }
+    }
+    return resolved;
+  }
+
+  private static PredicateIndex<String> index(Map<String, String> whereClauses) {
+    WhereClauseModelParser parser = new WhereClauseModelParser();
+    Map<String, Condition> conditions = new LinkedHashMap<>();
+    for (Map.Entry<String, String> entry : whereClauses.entrySet()) {
+      String where = entry.getValue();
+      Condition condition = where == null || where.isEmpty() ? null : parser.parse(where);
+      if (condition != null && !ParameterBinder.getParameters(condition).isEmpty()) {
+        throw new TranquilException(
+            String.format(
+                "The where clause of subscription [%s] cannot be indexed since it has parameters!",
+                entry.getKey()));
+      }
+      conditions.put(entry.getKey(), condition);
+    }
+    return PredicateIndex.of(conditions);
+  }
+}
@@ -14,6 +14,10 @@ public class MappingException extends TranquilException {
     super(String.format("Failed to deserialize [%s]!", json), ex);
   }
 
+  public MappingException(String message) {
+    super(message);
+  }
+
   public MappingException(String message, Exception ex) {
     super(message, ex);
   }
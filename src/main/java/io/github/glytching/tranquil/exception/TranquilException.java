@@ -3,6 +3,10 @@ package io.github.glytching.tranquil.exception;
 /** The public exception type for Tranquil. */
 // TODO consider whether this should extend Exception instead of RuntimeException
 public class TranquilException extends RuntimeException {
+  public TranquilException(String message) {
+    super(message);
+  }
+
   public TranquilException(Throwable cause) {
     super(cause);
   }
@@ -0,0 +1,73 @@
+package io.github.glytching.tranquil.mapping;
+
+/**
+ * A necessary condition for a document to match a query, expressed in terms of the document's top
+ * level scalar attributes. A {@link MappingProvider} which reads its input incrementally can test
+ * each such attribute as soon as it is read and, if the document cannot match, skip the rest of
+ * that document rather than materializing it. A filter never rejects a document which the query
+ * would match, so a provider which ignores the filter is still correct.
+ *
+ * <p>Filters apply to the documents in a top level array, to the records of a JSON lines input and
+ * to the elements of an array attribute (see {@link #forArrayElements(String)}). There is nothing
+ * to be gained by filtering a lone top level object so providers need not do so.
+ */
+public interface DocumentFilter {
+
+  /** A filter which rejects nothing. */
+  DocumentFilter NONE =
+      new DocumentFilter() {
+        @Override
+        public boolean isEmpty() {
+          return true;
+        }
+
+        @Override
+        public boolean tests(String name) {
+          return false;
+        }
+
+        @Override
+        public boolean rejects(String name, Object value) {
+          return false;
+        }
+
+        @Override
+        public DocumentFilter forArrayElements(String arrayName) {
+          return this;
+        }
+      };
+
+  /**
+   * Returns true if this filter tests none of a document's attributes, the filters for the elements
+   * of its array attributes may still test something.
+   *
+   * @return true if this filter tests none of a document's attributes
+   */
+  boolean isEmpty();
+
+  /**
+   * Returns true if this filter tests the named attribute.
+   *
+   * @param name the name of a top level attribute
+   * @return true if this filter tests the named attribute
+   */
+  boolean tests(String name);
+
+  /**
+   * Tests the value of a top level attribute.
+   *
+   * @param name the name of a top level attribute
+   * @param value the attribute's value, this will be a string, a number, a boolean or null
+   * @return true if a document whose named attribute has the given value cannot match the query
+   */
+  boolean rejects(String name, Object value);
+
+  /**
+   * Returns the filter which applies to the elements of the named array attribute, when those
+   * elements are read as documents in their own right.
+   *
+   * @param arrayName the name of an array attribute
+   * @return the filter which applies to each element of the named array attribute
+   */
+  DocumentFilter forArrayElements(String arrayName);
+}
@@ -0,0 +1,41 @@
+package io.github.glytching.tranquil.mapping;
+
+import java.io.Closeable;
+import java.util.Map;
+
+/**
+ * Reads the documents in an input one at a time, so that the input is never held in memory in its
+ * entirety. The documents are:
+ *
+ * <ul>
+ *   <li>If the input is an array then each element of that array
+ *   <li>If the input is an object with an array attribute whose elements are objects, and only
+ *       scalar attributes precede that array, then each element of that array. In this case {@link
+ *       #getArrayName()} returns the name of that attribute, the scalar attributes which precede
+ *       the array and any attributes which follow it are skipped.
+ *   <li>Otherwise the input itself is the only document
+ * </ul>
+ *
+ * <p>Instances are not thread safe and should be closed once they have been read.
+ */
+public interface DocumentReader extends Closeable {
+
+  /**
+   * Reads the next document.
+   *
+   * @return the next document or null if there are no more documents
+   * @throws io.github.glytching.tranquil.exception.MappingException if the input cannot be parsed
+   */
+  Map<String, Object> next();
+
+  /**
+   * Returns the name of the array attribute whose elements are being read.
+   *
+   * @return the name of the array attribute, or null if the documents are not elements of an array
+   *     attribute. This is only known once the first document has been read.
+   */
+  String getArrayName();
+
+  @Override
+  void close();
+}
@@ -0,0 +1,41 @@
+package io.github.glytching.tranquil.mapping;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes documents to an output one at a time, so that the output is never held in memory in its
+ * entirety. The output has the same form as {@link MappingProvider#serialize(List)}:
+ *
+ * <ul>
+ *   <li>If no documents are written then an empty object
+ *   <li>If one document is written then that document
+ *   <li>Otherwise an array of the documents
+ * </ul>
+ *
+ * <p>So the first document is held back until a second document is written, or until this writer is
+ * closed, since until then the form of the output is not known. Closing a writer completes and
+ * flushes the output, it does not close the underlying output.
+ *
+ * <p>Instances are not thread safe and should be closed once every document has been written.
+ */
+public interface DocumentWriter extends Closeable {
+
+  /**
+   * Writes the given {@code document}.
+   *
+   * @param document the document to be written
+   * @throws io.github.glytching.tranquil.exception.MappingException if the document cannot be
+   *     written
+   */
+  void write(Map<String, Object> document);
+
+  /**
+   * Completes and flushes the output.
+   *
+   * @throws io.github.glytching.tranquil.exception.MappingException if the output cannot be written
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,151 @@
+package io.github.glytching.tranquil.mapping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The fields which a query reads from a document, a {@link MappingProvider} can use this to skip
+ * the parts of its input which no query would look at. A selection is a tree of attribute names,
+ * for example the paths {@code a.b} and {@code c} select attribute {@code b} of attribute {@code a}
+ * and all of attribute {@code c}. A selection applies to the elements of an array in the same way
+ * as it applies to the array itself, since a query reads a property from each element of an array.
+ *
+ * <p>When a document contains a single array attribute the query is applied to each element of that
+ * array with references to the array attribute stripped from its expressions, {@link
+ * #forArrayElements(String)} returns the selection which applies in that case.
+ */
+public final class FieldSelection {
+
+  private static final FieldSelection ALL = new FieldSelection(null, Collections.emptyList());
+
+  // documents are expected to be homogeneous so there should only ever be one or two array
+  // attribute names, this limit guards against inputs with arbitrary names filling the map
+  private static final int MAX_ARRAY_SELECTIONS = 16;
+
+  // null if every field is selected
+  private final Map<String, FieldSelection> fields;
+  // the paths from which this selection was created, null for a nested selection
+  private final Collection<List<String>> paths;
+  private final ConcurrentMap<String, FieldSelection> arraySelections = new ConcurrentHashMap<>();
+
+  private FieldSelection(Map<String, FieldSelection> fields, Collection<List<String>> paths) {
+    this.fields = fields;
+    this.paths = paths;
+  }
+
+  /**
+   * Returns a selection which selects every field.
+   *
+   * @return a selection which selects every field
+   */
+  public static FieldSelection all() {
+    return ALL;
+  }
+
+  /**
+   * Creates a selection from the given {@code paths}, an empty path selects every field.
+   *
+   * @param paths the attribute names on the path to each selected field e.g. {@code [a, b]} for
+   *     {@code a.b}
+   * @return a selection of the fields on the given paths
+   */
+  public static FieldSelection of(Collection<List<String>> paths) {
+    return build(paths, 0, paths);
+  }
+
+  /**
+   * Returns true if this selection selects every field.
+   *
+   * @return true if this selection selects every field
+   */
+  public boolean isAll() {
+    return fields == null;
+  }
+
+  /**
+   * Returns the selection within the named attribute.
+   *
+   * @param name the name of an attribute
+   * @return the selection within the named attribute, or null if that attribute is not selected
+   */
+  public FieldSelection get(String name) {
+    return fields == null ? ALL : fields.get(name);
+  }
+
+  /**
+   * Returns the selection which applies to the elements of the named array attribute when that
+   * attribute is the only attribute of a document, in this case paths which start with the name of
+   * the array attribute are read from each element without that prefix.
+   *
+   * @param arrayName the name of an array attribute
+   * @return the selection which applies to each element of the named array attribute
+   */
+  public FieldSelection forArrayElements(String arrayName) {
+    if (paths == null || fields == null) {
+      return this;
+    }
+    FieldSelection selection = arraySelections.get(arrayName);
+    if (selection == null) {
+      List<List<String>> stripped = new ArrayList<>();
+      for (List<String> path : paths) {
+        stripped.add(
+            path.size() > 1 && path.get(0).equals(arrayName) ? path.subList(1, path.size()) : path);
+      }
+      selection = of(stripped);
+      if (arraySelections.size() < MAX_ARRAY_SELECTIONS) {
+        arraySelections.putIfAbsent(arrayName, selection);
+      }
+    }
+    return selection;
+  }
+
+  /**
+   * Returns a selection of the fields which are selected by either of the given selections.
+   *
+   * @param left a selection, may be null
+   * @param right a selection, may be null
+   * @return the union of the given selections, or null if both are null
+   */
+  public static FieldSelection union(FieldSelection left, FieldSelection right) {
+    if (left == null) {
+      return right;
+    } else if (right == null) {
+      return left;
+    } else if (left.isAll() || right.isAll()) {
+      return ALL;
+    }
+    Map<String, FieldSelection> fields = new HashMap<>(left.fields);
+    for (Map.Entry<String, FieldSelection> entry : right.fields.entrySet()) {
+      fields.merge(entry.getKey(), entry.getValue(), FieldSelection::union);
+    }
+    return new FieldSelection(fields, null);
+  }
+
+  private static FieldSelection build(
+      Collection<List<String>> paths, int depth, Collection<List<String>> root) {
+    Map<String, List<List<String>>> children = new HashMap<>();
+    for (List<String> path : paths) {
+      if (path.size() <= depth) {
+        return ALL;
+      }
+      children.computeIfAbsent(path.get(depth), k -> new ArrayList<>()).add(path);
+    }
+
+    Map<String, FieldSelection> fields = new HashMap<>();
+    for (Map.Entry<String, List<List<String>>> entry : children.entrySet()) {
+      fields.put(entry.getKey(), build(entry.getValue(), depth + 1, null));
+    }
+    return new FieldSelection(fields, root);
+  }
+
+  @Override
+  public String toString() {
+    return fields == null ? "*" : fields.toString();
+  }
+}
@@ -0,0 +1,48 @@
+package io.github.glytching.tranquil.mapping;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A {@link DocumentWriter} which writes each document to a {@link JsonWriter} as soon as the form
+ * of the output is known, see {@link StreamingDocumentWriter}.
+ */
+class GsonDocumentWriter extends StreamingDocumentWriter {
+
+  private final Gson gson;
+  private final JsonWriter writer;
+
+  GsonDocumentWriter(Gson gson, JsonWriter writer) {
+    this.gson = gson;
+    this.writer = writer;
+  }
+
+  @Override
+  protected void writeStartArray() throws IOException {
+    writer.beginArray();
+  }
+
+  @Override
+  protected void writeDocument(Map<String, Object> document) throws IOException {
+    try {
+      gson.toJson(document, document.getClass(), writer);
+    } catch (JsonIOException ex) {
+      throw new IOException(ex);
+    }
+  }
+
+  @Override
+  protected void writeEndArray() throws IOException {
+    writer.endArray();
+  }
+
+  @Override
+  protected void finish() throws IOException {
+    // closing a JsonWriter would close the output, which belongs to the caller
+    writer.flush();
+  }
+}
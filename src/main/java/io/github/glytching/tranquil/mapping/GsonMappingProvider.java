@@ -2,11 +2,13 @@ package io.github.glytching.tranquil.mapping;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.reflect.TypeToken;
 import io.github.glytching.tranquil.exception.MappingException;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Writer;
 import java.util.*;
 
 public class GsonMappingProvider implements MappingProvider {
@@ -64,6 +66,23 @@ public class GsonMappingProvider implements MappingProvider {
     }
   }
 
+  /**
+   * Opens a {@link DocumentWriter} which writes each document to a {@link
+   * com.google.gson.stream.JsonWriter} as soon as the form of the output is known, only the first
+   * document is ever held back.
+   *
+   * @param writer the output, this is flushed but not closed when the document writer is closed
+   * @return a writer to the given {@code writer}
+   */
+  @Override
+  public DocumentWriter openWriter(Writer writer) {
+    try {
+      return new GsonDocumentWriter(gson, gson.newJsonWriter(writer));
+    } catch (Exception ex) {
+      throw new MappingException(ex);
+    }
+  }
+
   @Override
   public String serialize(List<Map<String, Object>> source) {
     if (source == null) {
@@ -90,42 +109,36 @@ public class GsonMappingProvider implements MappingProvider {
       return null;
     }
     try {
-      if (source.isEmpty()) {
-        return gson.getAdapter(targetType).fromJson(gson.toJson(new HashMap<>()));
-      } else {
-        if (source.size() == 1) {
-          return gson.getAdapter(targetType).fromJson(gson.toJson(source.get(0)));
-        } else {
-          return gson.getAdapter(targetType).fromJson(gson.toJson(source));
-        }
-      }
+      return gson.getAdapter(targetType).fromJsonTree(toJsonTree(source, new HashMap<>()));
     } catch (Exception ex) {
       throw new MappingException(ex);
     }
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public <T> T serialize(List<Map<String, Object>> source, TypeRef<T> targetType) {
     if (source == null) {
       return null;
     }
     try {
-      if (source.isEmpty()) {
-        return (T)
-            gson.getAdapter(TypeToken.get(targetType.getType()))
-                .fromJson(gson.toJson(new ArrayList<>()));
-      } else {
-        if (source.size() == 1) {
-          return (T)
-              gson.getAdapter(TypeToken.get(targetType.getType()))
-                  .fromJson(gson.toJson(source.get(0)));
-        } else {
-          return (T)
-              gson.getAdapter(TypeToken.get(targetType.getType())).fromJson(gson.toJson(source));
-        }
-      }
+      return (T)
+          gson.getAdapter(TypeToken.get(targetType.getType()))
+              .fromJsonTree(toJsonTree(source, new ArrayList<>()));
     } catch (Exception ex) {
       throw new MappingException(ex);
     }
   }
+
+  // conversions go via Gson's tree model so that the source is never written out as a string
+  private JsonElement toJsonTree(List<Map<String, Object>> source, Object empty) {
+    if (source.isEmpty()) {
+      return gson.toJsonTree(empty);
+    } else if (source.size() == 1) {
+      // we were given a single json object so convert back to that
+      return gson.toJsonTree(source.get(0));
+    } else {
+      return gson.toJsonTree(source);
+    }
+  }
 }
@@ -0,0 +1,164 @@
+package io.github.glytching.tranquil.mapping;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.github.glytching.tranquil.exception.MappingException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link DocumentReader} which walks the tokens of its input with a {@link JsonParser} and only
+ * binds one document at a time, so memory use is bounded by the size of the largest document rather
+ * than the size of the input. Only the fields in the given {@link FieldSelection} are bound and
+ * documents which are rejected by the given {@link DocumentFilter} are skipped, see {@link
+ * JacksonSelectiveReader}.
+ */
+class JacksonDocumentReader implements DocumentReader {
+
+  private final JsonParser parser;
+  private final JacksonSelectiveReader reader;
+  private final FieldSelection fields;
+  private final DocumentFilter filter;
+
+  private boolean started = false;
+  private boolean exhausted = false;
+  private String arrayName;
+  // the fields to be read from each element of the array attribute
+  private FieldSelection elementFields;
+  // the filter to be applied to each element of the array attribute
+  private DocumentFilter elementFilter;
+
+  JacksonDocumentReader(
+      JsonParser parser,
+      JacksonSelectiveReader reader,
+      FieldSelection fields,
+      DocumentFilter filter) {
+    this.parser = parser;
+    this.reader = reader;
+    this.fields = fields;
+    this.filter = filter;
+  }
+
+  @Override
+  public Map<String, Object> next() {
+    if (exhausted) {
+      return null;
+    }
+    try {
+      if (!started) {
+        started = true;
+        return start();
+      }
+      return nextElement();
+    } catch (IOException ex) {
+      exhausted = true;
+      throw new MappingException("Failed to deserialize!", ex);
+    }
+  }
+
+  @Override
+  public String getArrayName() {
+    return arrayName;
+  }
+
+  @Override
+  public void close() {
+    try {
+      parser.close();
+    } catch (IOException ex) {
+      throw new MappingException("Failed to close the input!", ex);
+    }
+  }
+
+  private Map<String, Object> start() throws IOException {
+    JsonToken token = parser.nextToken();
+    if (token == JsonToken.START_ARRAY) {
+      return nextElement();
+    } else if (token != JsonToken.START_OBJECT) {
+      exhausted = true;
+      if (token == null) {
+        return null;
+      }
+      throw JacksonSelectiveReader.unexpected(parser, token);
+    }
+
+    // the scalar attributes which precede an array of objects are buffered, if there is no such
+    // array, or an object or array precedes it, then the object is read in its entirety and becomes
+    // the only document
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    String skipped = null;
+    boolean scalarsOnly = true;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken value = parser.nextToken();
+      if (value == JsonToken.START_ARRAY && scalarsOnly) {
+        JsonToken first = parser.nextToken();
+        if (first == JsonToken.START_OBJECT) {
+          arrayName = name;
+          elementFields = fields.forArrayElements(name);
+          elementFilter = filter.forArrayElements(name);
+          Map<String, Object> element = reader.readElement(parser, elementFields, elementFilter);
+          return element != null ? element : nextElement();
+        }
+        attributes.put(name, readArray(first));
+      } else {
+        FieldSelection selected = JacksonSelectiveReader.forAttribute(fields, name, false);
+        if (selected == null) {
+          parser.skipChildren();
+          if (skipped == null) {
+            skipped = name;
+          }
+        } else {
+          attributes.put(name, reader.readValue(parser, selected));
+        }
+      }
+      scalarsOnly &= value.isScalarValue();
+    }
+    exhausted = true;
+    return JacksonSelectiveReader.retainSkipped(attributes, skipped);
+  }
+
+  private Map<String, Object> nextElement() throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+      Map<String, Object> document =
+          arrayName == null
+              ? reader.readDocument(parser, fields, filter)
+              : reader.readElement(parser, elementFields, elementFilter);
+      // a document which was rejected by the filter is read as null, move on to the next one
+      if (document != null) {
+        return document;
+      }
+    }
+    if (token == JsonToken.END_ARRAY) {
+      exhausted = true;
+      if (arrayName != null) {
+        // skip whatever follows the array without binding it, just as a read which stops at its
+        // first match never reaches it
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          parser.nextToken();
+          parser.skipChildren();
+        }
+      }
+      return null;
+    } else {
+      exhausted = true;
+      throw JacksonSelectiveReader.unexpected(parser, token);
+    }
+  }
+
+  private List<Object> readArray(JsonToken first) throws IOException {
+    List<Object> values = new ArrayList<>();
+    for (JsonToken token = first; token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+      if (token == null) {
+        throw new MappingException("Failed to deserialize, unexpected end of input!");
+      }
+      values.add(reader.readValue(parser, FieldSelection.all()));
+    }
+    return values;
+  }
+}
@@ -0,0 +1,43 @@
+package io.github.glytching.tranquil.mapping;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A {@link DocumentWriter} which writes each document to a {@link JsonGenerator} as soon as the
+ * form of the output is known, see {@link StreamingDocumentWriter}.
+ */
+class JacksonDocumentWriter extends StreamingDocumentWriter {
+
+  private final JsonGenerator generator;
+  private final ObjectWriter objectWriter;
+
+  JacksonDocumentWriter(JsonGenerator generator, ObjectWriter objectWriter) {
+    // the output belongs to the caller
+    this.generator = generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.objectWriter = objectWriter;
+  }
+
+  @Override
+  protected void writeStartArray() throws IOException {
+    generator.writeStartArray();
+  }
+
+  @Override
+  protected void writeDocument(Map<String, Object> document) throws IOException {
+    objectWriter.writeValue(generator, document);
+  }
+
+  @Override
+  protected void writeEndArray() throws IOException {
+    generator.writeEndArray();
+  }
+
+  @Override
+  protected void finish() throws IOException {
+    generator.close();
+  }
+}
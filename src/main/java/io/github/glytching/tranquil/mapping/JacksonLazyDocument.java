@@ -0,0 +1,326 @@
+package io.github.glytching.tranquil.mapping;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.github.glytching.tranquil.exception.MappingException;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A document which holds its own UTF-8 encoded JSON and only binds an attribute when that attribute
+ * is read. A predicate which reads one attribute of a wide document binds that attribute alone, so
+ * a document which does not match is never materialized.
+ *
+ * <p>The attributes are located by a forward scan of the document's tokens which stops as soon as
+ * the requested attribute has been found, the scan resumes from where it stopped on the next miss.
+ * The start of each attribute's value is remembered as it is passed, so an attribute which was
+ * passed over can later be bound without rescanning, and each bound value is cached. Operations
+ * which need every attribute, such as {@link #entrySet()}, bind the whole document once and use the
+ * bound form from then on, as do modifications. {@link #isEmpty()} and {@link #keySet()} bind
+ * nothing and only scan as far as they are asked to.
+ *
+ * <p>If an attribute name is repeated then the first occurrence is used, whereas an eagerly bound
+ * document holds the last occurrence.
+ *
+ * <p>Instances are thread safe, each operation holds the document's lock since even a read may
+ * advance the scan, so a parsed input made up of lazy documents can be read by many threads at
+ * once. A map or list which has been bound from an attribute is not itself synchronized.
+ */
+class JacksonLazyDocument extends AbstractMap<String, Object> {
+
+  private final JsonFactory factory;
+  private final ObjectReader valueReader;
+  private final byte[] json;
+
+  // the scan, this is opened on the first lookup and closed once it reaches the end of the document
+  private JsonParser scanner;
+  private boolean scanned = false;
+  // the attribute names in document order, mapped to their index in the following arrays
+  private final Map<String, Integer> indexes = new LinkedHashMap<>();
+  private String[] names = new String[8];
+  private int[] valueOffsets = new int[8];
+  private int[] valueEnds = new int[8];
+  private Object[] values = new Object[8];
+  private boolean[] bound = new boolean[8];
+  // the fully bound form of this document, null until it is needed
+  private Map<String, Object> materialized;
+
+  private JacksonLazyDocument(JsonFactory factory, ObjectReader valueReader, byte[] json) {
+    this.factory = factory;
+    this.valueReader = valueReader;
+    this.json = json;
+  }
+
+  /**
+   * Copies the object on which the given parser is positioned into a lazy document, leaving the
+   * parser positioned on the end of that object. The copy preserves the text of each number so that
+   * binding it later gives the same value as binding it now.
+   *
+   * @param parser a parser which is positioned on the start of an object
+   * @param factory creates the parsers with which the copy is read
+   * @param valueReader binds the copy's attributes
+   * @return a lazy document holding a copy of the object
+   */
+  static JacksonLazyDocument copyOf(
+      JsonParser parser, JsonFactory factory, ObjectReader valueReader) throws IOException {
+    ByteArrayBuilder buffer = new ByteArrayBuilder();
+    try (JsonGenerator generator = factory.createGenerator(buffer)) {
+      int depth = 0;
+      JsonToken token = parser.currentToken();
+      do {
+        depth += copy(parser, generator, token);
+      } while (depth > 0 && (token = parser.nextToken()) != null);
+      if (depth > 0) {
+        throw new MappingException("Failed to deserialize, unexpected end of input!");
+      }
+    }
+    return new JacksonLazyDocument(factory, valueReader, buffer.toByteArray());
+  }
+
+  @Override
+  public synchronized Object get(Object key) {
+    if (materialized != null) {
+      return materialized.get(key);
+    }
+    Integer index = indexes.get(key);
+    if (index != null) {
+      return bind(index);
+    }
+    return key instanceof String ? scan((String) key, Integer.MAX_VALUE) : null;
+  }
+
+  @Override
+  public synchronized boolean containsKey(Object key) {
+    if (materialized != null) {
+      return materialized.containsKey(key);
+    }
+    if (indexes.containsKey(key)) {
+      return true;
+    }
+    if (key instanceof String) {
+      scan((String) key, Integer.MAX_VALUE);
+      return indexes.containsKey(key);
+    }
+    return false;
+  }
+
+  @Override
+  public synchronized int size() {
+    if (materialized != null) {
+      return materialized.size();
+    }
+    scan(null, Integer.MAX_VALUE);
+    return indexes.size();
+  }
+
+  /** Scans no further than the first attribute, rather than to the end of the document. */
+  @Override
+  public synchronized boolean isEmpty() {
+    if (materialized != null) {
+      return materialized.isEmpty();
+    }
+    scan(null, 1);
+    return indexes.isEmpty();
+  }
+
+  /**
+   * Returns the attribute names, in document order, without binding any values. The scan only
+   * advances as far as the iteration does, so a caller which only needs to know whether there is a
+   * second attribute scans no further than that attribute.
+   */
+  @Override
+  public synchronized Set<String> keySet() {
+    if (materialized != null) {
+      return materialized.keySet();
+    }
+    return new AbstractSet<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return new Iterator<String>() {
+          private int position = 0;
+
+          @Override
+          public boolean hasNext() {
+            synchronized (JacksonLazyDocument.this) {
+              if (position == indexes.size()) {
+                scan(null, position + 1);
+              }
+              return position < indexes.size();
+            }
+          }
+
+          @Override
+          public String next() {
+            synchronized (JacksonLazyDocument.this) {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              return names[position++];
+            }
+          }
+        };
+      }
+
+      @Override
+      public boolean contains(Object key) {
+        return containsKey(key);
+      }
+
+      @Override
+      public int size() {
+        return JacksonLazyDocument.this.size();
+      }
+    };
+  }
+
+  @Override
+  public synchronized Object put(String key, Object value) {
+    return materialize().put(key, value);
+  }
+
+  @Override
+  public synchronized Object remove(Object key) {
+    return materialize().remove(key);
+  }
+
+  @Override
+  public synchronized Set<Entry<String, Object>> entrySet() {
+    return materialize().entrySet();
+  }
+
+  /** The number of attributes which have been found so far, this is exposed for testing. */
+  synchronized int getScannedCount() {
+    return indexes.size();
+  }
+
+  private Map<String, Object> materialize() {
+    if (materialized == null) {
+      scan(null, Integer.MAX_VALUE);
+      Map<String, Object> all = new LinkedHashMap<>();
+      for (Map.Entry<String, Integer> entry : indexes.entrySet()) {
+        all.put(entry.getKey(), bind(entry.getValue()));
+      }
+      materialized = all;
+    }
+    return materialized;
+  }
+
+  private Object bind(int index) {
+    if (!bound[index]) {
+      try (JsonParser parser =
+          factory.createParser(json, valueOffsets[index], valueEnds[index] - valueOffsets[index])) {
+        parser.nextToken();
+        values[index] = valueReader.readValue(parser);
+        bound[index] = true;
+      } catch (IOException ex) {
+        throw new MappingException("Failed to deserialize!", ex);
+      }
+    }
+    return values[index];
+  }
+
+  // scans forward until the named attribute has been found, binding it from the scanner, or until
+  // count attributes have been found, or until the end of the document
+  private Object scan(String name, int count) {
+    if (scanned || indexes.size() >= count) {
+      return null;
+    }
+    try {
+      if (scanner == null) {
+        scanner = factory.createParser(json);
+        scanner.nextToken();
+      }
+      while (scanner.nextToken() == JsonToken.FIELD_NAME) {
+        String attribute = scanner.getCurrentName();
+        JsonToken token = scanner.nextToken();
+        int valueOffset = (int) scanner.getTokenLocation().getByteOffset();
+        // a number is bound from exactly its own bytes since a parser will not accept a root level
+        // number which is followed by a comma, the other values delimit themselves
+        int valueEnd =
+            token.isNumeric() ? (int) scanner.getCurrentLocation().getByteOffset() : json.length;
+        int index = index(attribute, valueOffset, valueEnd);
+        if (index >= 0 && attribute.equals(name)) {
+          values[index] = valueReader.readValue(scanner);
+          bound[index] = true;
+          return values[index];
+        }
+        scanner.skipChildren();
+        if (indexes.size() >= count) {
+          return null;
+        }
+      }
+      scanned = true;
+      scanner.close();
+      scanner = null;
+      return null;
+    } catch (IOException ex) {
+      throw new MappingException("Failed to deserialize!", ex);
+    }
+  }
+
+  private int index(String attribute, int valueOffset, int valueEnd) {
+    if (indexes.containsKey(attribute)) {
+      // a repeated name, the first occurrence is retained
+      return -1;
+    }
+    int index = indexes.size();
+    if (index == valueOffsets.length) {
+      valueOffsets = Arrays.copyOf(valueOffsets, index * 2);
+      valueEnds = Arrays.copyOf(valueEnds, index * 2);
+      names = Arrays.copyOf(names, index * 2);
+      values = Arrays.copyOf(values, index * 2);
+      bound = Arrays.copyOf(bound, index * 2);
+    }
+    indexes.put(attribute, index);
+    names[index] = attribute;
+    valueOffsets[index] = valueOffset;
+    valueEnds[index] = valueEnd;
+    return index;
+  }
+
+  // copies the current token, returning the change in nesting depth
+  private static int copy(JsonParser parser, JsonGenerator generator, JsonToken token)
+      throws IOException {
+    switch (token) {
+      case START_OBJECT:
+        generator.writeStartObject();
+        return 1;
+      case START_ARRAY:
+        generator.writeStartArray();
+        return 1;
+      case END_OBJECT:
+        generator.writeEndObject();
+        return -1;
+      case END_ARRAY:
+        generator.writeEndArray();
+        return -1;
+      case FIELD_NAME:
+        generator.writeFieldName(parser.getCurrentName());
+        return 0;
+      case VALUE_STRING:
+        generator.writeString(
+            parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        return 0;
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        generator.writeNumber(
+            parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        return 0;
+      default:
+        generator.copyCurrentEvent(parser);
+        return 0;
+    }
+  }
+}
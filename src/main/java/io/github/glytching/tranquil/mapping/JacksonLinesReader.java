@@ -0,0 +1,75 @@
+package io.github.glytching.tranquil.mapping;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.github.glytching.tranquil.exception.MappingException;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A {@link DocumentReader} over a JSON lines input which reads the input's root level values with a
+ * single {@link JsonParser}, so records are never copied into an intermediate line buffer. Only the
+ * fields in the given {@link FieldSelection} are bound and records which are rejected by the given
+ * {@link DocumentFilter} are skipped, see {@link JacksonSelectiveReader}.
+ */
+class JacksonLinesReader implements DocumentReader {
+
+  private final JsonParser parser;
+  private final JacksonSelectiveReader reader;
+  private final FieldSelection fields;
+  private final DocumentFilter filter;
+
+  private boolean exhausted = false;
+
+  JacksonLinesReader(
+      JsonParser parser,
+      JacksonSelectiveReader reader,
+      FieldSelection fields,
+      DocumentFilter filter) {
+    this.parser = parser;
+    this.reader = reader;
+    this.fields = fields;
+    this.filter = filter;
+  }
+
+  @Override
+  public Map<String, Object> next() {
+    if (exhausted) {
+      return null;
+    }
+    try {
+      JsonToken token;
+      while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+        Map<String, Object> document = reader.readDocument(parser, fields, filter);
+        // a record which was rejected by the filter is read as null, move on to the next one
+        if (document != null) {
+          return document;
+        }
+      }
+      exhausted = true;
+      if (token == null) {
+        return null;
+      }
+      throw JacksonSelectiveReader.unexpected(parser, token);
+    } catch (IOException ex) {
+      exhausted = true;
+      throw new MappingException("Failed to deserialize!", ex);
+    }
+  }
+
+  @Override
+  public String getArrayName() {
+    // each record is a document in its own right
+    return null;
+  }
+
+  @Override
+  public void close() {
+    try {
+      parser.close();
+    } catch (IOException ex) {
+      throw new MappingException("Failed to close the input!", ex);
+    }
+  }
+}
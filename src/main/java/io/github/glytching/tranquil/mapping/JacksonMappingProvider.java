@@ -1,13 +1,23 @@
 package io.github.glytching.tranquil.mapping;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.github.glytching.tranquil.exception.MappingException;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +28,9 @@ public class JacksonMappingProvider implements MappingProvider {
 
   private final ObjectMapper objectMapper;
   private final ObjectReader objectReader;
+  private final JacksonSelectiveReader selectiveReader;
+  private final ObjectWriter documentWriter;
+  private final boolean lazyDocuments;
 
   /** Create with a default {@link ObjectMapper}. */
   public JacksonMappingProvider() {
@@ -30,17 +43,39 @@ public class JacksonMappingProvider implements MappingProvider {
    * @param objectMapper the ObjectMapper to be used
    */
   public JacksonMappingProvider(ObjectMapper objectMapper) {
+    this(objectMapper, false);
+  }
+
+  /**
+   * Create with the given {@link ObjectMapper}, optionally deserializing to lazy documents. A lazy
+   * document holds its own JSON and only binds an attribute when a select or where clause reads
+   * that attribute, so a query which tests one attribute of a wide document need not bind the rest
+   * of that document. This is worthwhile for selective queries over wide documents, it is not for
+   * queries which read most of each document or which read the same input many times.
+   *
+   * @param objectMapper the ObjectMapper to be used
+   * @param lazyDocuments if true then documents which are read in their entirety are bound lazily
+   */
+  public JacksonMappingProvider(ObjectMapper objectMapper, boolean lazyDocuments) {
     this.objectMapper = objectMapper;
+    this.lazyDocuments = lazyDocuments;
     // handle JSON of this form: {...} and this form: [{...}, {...}]
     objectMapper.configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
     // ignore unmapped fields
     objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-    this.objectReader = objectMapper.reader().forType(new TypeReference<List<Map>>() {});
+    this.objectReader = objectMapper.reader().forType(new TypeReference<List<Map<String, Object>>>() {});
+    this.selectiveReader = new JacksonSelectiveReader(objectMapper, lazyDocuments);
+    // a document writer flushes once, when it is closed
+    this.documentWriter =
+        objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
   }
 
   @Override
   public List<Map<String, Object>> deserialize(String source) {
     try {
+      if (lazyDocuments) {
+        return readDocuments(objectMapper.getFactory().createParser(source));
+      }
       return objectReader.readValue(source);
     } catch (Exception ex) {
       throw new MappingException(ex, source);
@@ -50,12 +85,178 @@ public class JacksonMappingProvider implements MappingProvider {
   @Override
   public List<Map<String, Object>> deserialize(InputStream sourceStream, String charset) {
     try {
+      if (lazyDocuments) {
+        return readDocuments(createParser(sourceStream, charset));
+      }
       return objectReader.readValue(sourceStream);
     } catch (Exception ex) {
       throw new MappingException("Failed to deserialize!", ex);
     }
   }
 
+  /**
+   * Deserializes the given {@code source}, skipping the subtrees of any fields which are not in the
+   * given {@code fields} and the remainder of any document which is rejected by the given {@code
+   * filter} rather than binding them.
+   *
+   * @param source a source string
+   * @param fields the fields to be read
+   * @param filter a necessary condition for a document to be of interest
+   * @return a {@link Map} representation of the given {@code source}
+   */
+  @Override
+  public List<Map<String, Object>> deserialize(
+      String source, FieldSelection fields, DocumentFilter filter) {
+    if (fields.isAll() && filter.isEmpty()) {
+      return deserialize(source);
+    }
+    try (JsonParser parser = objectMapper.getFactory().createParser(source)) {
+      return selectiveReader.readDocuments(parser, fields, filter);
+    } catch (Exception ex) {
+      throw new MappingException(ex, source);
+    }
+  }
+
+  /**
+   * Deserializes the given {@code sourceStream}, skipping the subtrees of any fields which are not
+   * in the given {@code fields} and the remainder of any document which is rejected by the given
+   * {@code filter} rather than binding them.
+   *
+   * @param sourceStream an input stream containing a json string
+   * @param charset the charset of the given {@code sourceStream}
+   * @param fields the fields to be read
+   * @param filter a necessary condition for a document to be of interest
+   * @return a {@link Map} representation of the given {@code sourceStream}
+   */
+  @Override
+  public List<Map<String, Object>> deserialize(
+      InputStream sourceStream, String charset, FieldSelection fields, DocumentFilter filter) {
+    if (fields.isAll() && filter.isEmpty()) {
+      return deserialize(sourceStream, charset);
+    }
+    try (JsonParser parser = createParser(sourceStream, charset)) {
+      return selectiveReader.readDocuments(parser, fields, filter);
+    } catch (Exception ex) {
+      throw new MappingException("Failed to deserialize!", ex);
+    }
+  }
+
+  /**
+   * Opens a {@link DocumentReader} which parses the given {@code sourceStream} incrementally, only
+   * one document is held in memory at any time.
+   *
+   * @param sourceStream an input stream containing a json string
+   * @param charset the charset of the given {@code sourceStream}
+   * @return a reader over the documents in the given {@code sourceStream}
+   */
+  @Override
+  public DocumentReader openReader(InputStream sourceStream, String charset) {
+    return openReader(sourceStream, charset, FieldSelection.all(), DocumentFilter.NONE);
+  }
+
+  /**
+   * Opens a {@link DocumentReader} which parses the given {@code sourceStream} incrementally, only
+   * one document is held in memory at any time. The subtrees of any fields which are not in the
+   * given {@code fields} and the remainder of any document which is rejected by the given {@code
+   * filter} are skipped rather than bound.
+   *
+   * @param sourceStream an input stream containing a json string
+   * @param charset the charset of the given {@code sourceStream}
+   * @param fields the fields to be read
+   * @param filter a necessary condition for a document to be of interest
+   * @return a reader over the documents in the given {@code sourceStream}
+   */
+  @Override
+  public DocumentReader openReader(
+      InputStream sourceStream, String charset, FieldSelection fields, DocumentFilter filter) {
+    try {
+      return new JacksonDocumentReader(
+          createParser(sourceStream, charset), selectiveReader, fields, filter);
+    } catch (Exception ex) {
+      throw new MappingException("Failed to deserialize!", ex);
+    }
+  }
+
+  /**
+   * Opens a {@link DocumentReader} which reads the records of the given JSON lines {@code
+   * sourceStream} as a sequence of root level values, without buffering a line at a time. The
+   * subtrees of any fields which are not in the given {@code fields} and the remainder of any
+   * record which is rejected by the given {@code filter} are skipped rather than bound.
+   *
+   * @param sourceStream an input stream containing one json object per line
+   * @param charset the charset of the given {@code sourceStream}
+   * @param fields the fields to be read
+   * @param filter a necessary condition for a record to be of interest
+   * @return a reader over the records in the given {@code sourceStream}
+   */
+  @Override
+  public DocumentReader openLinesReader(
+      InputStream sourceStream, String charset, FieldSelection fields, DocumentFilter filter) {
+    try {
+      return new JacksonLinesReader(
+          createParser(sourceStream, charset), selectiveReader, fields, filter);
+    } catch (Exception ex) {
+      throw new MappingException("Failed to deserialize!", ex);
+    }
+  }
+
+  private List<Map<String, Object>> readDocuments(JsonParser parser) throws IOException {
+    try (parser) {
+      return selectiveReader.readDocuments(parser, FieldSelection.all(), DocumentFilter.NONE);
+    }
+  }
+
+  private JsonParser createParser(InputStream sourceStream, String charset) throws IOException {
+    return StandardCharsets.UTF_8.name().equalsIgnoreCase(charset)
+        // the byte based parser is faster and it detects the unicode encodings for itself
+        ? objectMapper.getFactory().createParser(sourceStream)
+        : objectMapper.getFactory().createParser(new InputStreamReader(sourceStream, charset));
+  }
+
+  /**
+   * Opens a {@link DocumentWriter} which writes each document to a {@link
+   * com.fasterxml.jackson.core.JsonGenerator} as soon as the form of the output is known, only the
+   * first document is ever held back.
+   *
+   * @param writer the output, this is flushed but not closed when the document writer is closed
+   * @return a writer to the given {@code writer}
+   */
+  @Override
+  public DocumentWriter openWriter(Writer writer) {
+    try {
+      return new JacksonDocumentWriter(
+          objectMapper.getFactory().createGenerator(writer), documentWriter);
+    } catch (Exception ex) {
+      throw new MappingException(ex);
+    }
+  }
+
+  /**
+   * Opens a {@link DocumentWriter} which writes each document to a {@link
+   * com.fasterxml.jackson.core.JsonGenerator} as soon as the form of the output is known, only the
+   * first document is ever held back.
+   *
+   * @param outputStream the output, this is flushed but not closed when the document writer is
+   *     closed
+   * @param charset the charset in which to write to the given {@code outputStream}
+   * @return a writer to the given {@code outputStream}
+   */
+  @Override
+  public DocumentWriter openWriter(OutputStream outputStream, String charset) {
+    try {
+      return StandardCharsets.UTF_8.name().equalsIgnoreCase(charset)
+          // the byte based generator is faster
+          ? new JacksonDocumentWriter(
+              objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8),
+              documentWriter)
+          : openWriter(new OutputStreamWriter(outputStream, charset));
+    } catch (MappingException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new MappingException(ex);
+    }
+  }
+
   @Override
   public String serialize(List<Map<String, Object>> source) {
     if (source == null) {
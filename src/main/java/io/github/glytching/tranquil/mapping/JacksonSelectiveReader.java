@@ -0,0 +1,219 @@
+package io.github.glytching.tranquil.mapping;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.github.glytching.tranquil.exception.MappingException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds documents from a {@link JsonParser}, only materializing the fields in a {@link
+ * FieldSelection}. The subtrees of unselected fields are skipped at the token level so they are
+ * never bound. Selected fields are bound in full by the {@link ObjectMapper}. If a {@link
+ * DocumentFilter} rejects one of a document's top level attributes then the rest of that document
+ * is skipped and the document is not returned.
+ *
+ * <p>Skipping a document's attributes must not change how a query sees that document, so:
+ *
+ * <ul>
+ *   <li>A document's array attributes are always read, since the query treats a document whose only
+ *       attribute is an array as a collection of documents
+ *   <li>If an attribute has been skipped and what remains is either empty or a single array
+ *       attribute then the first skipped attribute is retained with a null value
+ * </ul>
+ *
+ * <p>If this reader is lazy then documents which are read in their entirety are read as {@link
+ * JacksonLazyDocument}s, which bind each attribute on first use, rather than being bound up front.
+ */
+class JacksonSelectiveReader {
+
+  private final JsonFactory factory;
+  private final ObjectReader documentReader;
+  private final ObjectReader valueReader;
+  private final boolean lazy;
+
+  JacksonSelectiveReader(ObjectMapper objectMapper, boolean lazy) {
+    this.factory = objectMapper.getFactory();
+    this.documentReader = objectMapper.readerFor(new TypeReference<Map<String, Object>>() {});
+    this.valueReader = objectMapper.readerFor(Object.class);
+    this.lazy = lazy;
+  }
+
+  /**
+   * Reads the documents in the parser's input, this is either an array of documents or a single
+   * document.
+   *
+   * @param parser a parser which has not yet been read
+   * @param fields the fields to be read
+   * @param filter the filter to be applied to the documents of an array
+   * @return the documents in the parser's input, less any which were rejected by the filter
+   */
+  List<Map<String, Object>> readDocuments(
+      JsonParser parser, FieldSelection fields, DocumentFilter filter) throws IOException {
+    JsonToken token = parser.nextToken();
+    if (token == JsonToken.START_OBJECT) {
+      return Collections.singletonList(readDocument(parser, fields, DocumentFilter.NONE));
+    } else if (token != JsonToken.START_ARRAY) {
+      throw unexpected(parser, token);
+    }
+    List<Map<String, Object>> documents = new ArrayList<>();
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token != JsonToken.START_OBJECT) {
+        throw unexpected(parser, token);
+      }
+      Map<String, Object> document = readDocument(parser, fields, filter);
+      if (document != null) {
+        documents.add(document);
+      }
+    }
+    return documents;
+  }
+
+  /**
+   * Reads a document which may contain an array attribute whose elements the query will treat as
+   * documents in their own right.
+   *
+   * @param parser a parser which is positioned on the start of an object
+   * @param fields the fields to be read
+   * @param filter the filter to be applied to the document
+   * @return the document or null if it was rejected by the filter
+   */
+  Map<String, Object> readDocument(JsonParser parser, FieldSelection fields, DocumentFilter filter)
+      throws IOException {
+    if (fields.isAll() && filter.isEmpty()) {
+      return readWhole(parser);
+    }
+    return readObject(parser, fields, filter, true);
+  }
+
+  /**
+   * Reads a document which is an element of an array attribute.
+   *
+   * @param parser a parser which is positioned on the start of an object
+   * @param fields the fields to be read
+   * @param filter the filter to be applied to the document
+   * @return the document or null if it was rejected by the filter
+   */
+  Map<String, Object> readElement(JsonParser parser, FieldSelection fields, DocumentFilter filter)
+      throws IOException {
+    if (fields.isAll() && filter.isEmpty()) {
+      return readWhole(parser);
+    }
+    return readObject(parser, fields, filter, false);
+  }
+
+  /**
+   * Reads the value on which the parser is positioned.
+   *
+   * @param parser a parser which is positioned on the start of a value
+   * @param fields the fields to be read
+   * @return the value
+   */
+  Object readValue(JsonParser parser, FieldSelection fields) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (fields.isAll() || token.isScalarValue()) {
+      return valueReader.readValue(parser);
+    } else if (token == JsonToken.START_OBJECT) {
+      return readObject(parser, fields, DocumentFilter.NONE, false);
+    }
+    List<Object> values = new ArrayList<>();
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == null) {
+        throw new MappingException("Failed to deserialize, unexpected end of input!");
+      }
+      values.add(readValue(parser, fields));
+    }
+    return values;
+  }
+
+  /**
+   * Applies the rules described in this class' Javadoc to an object from which the named attribute
+   * has been skipped.
+   *
+   * @param values the attributes which were read
+   * @param skipped the name of the first skipped attribute, null if nothing was skipped
+   * @return the given values
+   */
+  static Map<String, Object> retainSkipped(Map<String, Object> values, String skipped) {
+    if (skipped != null
+        && (values.isEmpty()
+            || (values.size() == 1 && values.values().iterator().next() instanceof Collection))) {
+      values.put(skipped, null);
+    }
+    return values;
+  }
+
+  /**
+   * Returns the selection which applies to the named attribute of a document.
+   *
+   * @param fields the fields to be read from the document
+   * @param name the name of an attribute of the document
+   * @param isArray true if the named attribute is an array
+   * @return the selection which applies to the named attribute, null if it is not selected
+   */
+  static FieldSelection forAttribute(FieldSelection fields, String name, boolean isArray) {
+    if (isArray) {
+      // this may be the document's only attribute, in which case it is read as a collection of
+      // documents
+      return FieldSelection.union(fields.get(name), fields.forArrayElements(name));
+    }
+    return fields.get(name);
+  }
+
+  static MappingException unexpected(JsonParser parser, JsonToken token) {
+    return new MappingException(
+        String.format(
+            "Failed to deserialize, expected an object but found: [%s] at %s!",
+            token, parser.getCurrentLocation()));
+  }
+
+  private Map<String, Object> readWhole(JsonParser parser) throws IOException {
+    return lazy
+        ? JacksonLazyDocument.copyOf(parser, factory, valueReader)
+        : documentReader.readValue(parser);
+  }
+
+  private Map<String, Object> readObject(
+      JsonParser parser, FieldSelection fields, DocumentFilter filter, boolean document)
+      throws IOException {
+    Map<String, Object> values = new LinkedHashMap<>();
+    String skipped = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      FieldSelection selected =
+          document ? forAttribute(fields, name, token == JsonToken.START_ARRAY) : fields.get(name);
+      if (selected == null) {
+        parser.skipChildren();
+        if (skipped == null) {
+          skipped = name;
+        }
+      } else {
+        Object value = readValue(parser, selected);
+        if (token.isScalarValue() && filter.tests(name) && filter.rejects(name, value)) {
+          skipRemainder(parser);
+          return null;
+        }
+        values.put(name, value);
+      }
+    }
+    return retainSkipped(values, skipped);
+  }
+
+  private void skipRemainder(JsonParser parser) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      parser.nextToken();
+      parser.skipChildren();
+    }
+  }
+}
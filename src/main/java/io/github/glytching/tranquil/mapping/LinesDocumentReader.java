@@ -0,0 +1,69 @@
+package io.github.glytching.tranquil.mapping;
+
+import io.github.glytching.tranquil.exception.MappingException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A {@link DocumentReader} over a JSON lines input, for use by mapping providers which cannot parse
+ * incrementally. Each line is deserialized on its own so only one line is held in memory at any
+ * time. Blank lines are ignored.
+ */
+class LinesDocumentReader implements DocumentReader {
+
+  private final MappingProvider mappingProvider;
+  private final BufferedReader reader;
+  private final FieldSelection fields;
+  private final DocumentFilter filter;
+
+  private Iterator<Map<String, Object>> documents = Collections.emptyIterator();
+
+  LinesDocumentReader(
+      MappingProvider mappingProvider,
+      BufferedReader reader,
+      FieldSelection fields,
+      DocumentFilter filter) {
+    this.mappingProvider = mappingProvider;
+    this.reader = reader;
+    this.fields = fields;
+    this.filter = filter;
+  }
+
+  @Override
+  public Map<String, Object> next() {
+    while (!documents.hasNext()) {
+      String line;
+      try {
+        line = reader.readLine();
+      } catch (IOException ex) {
+        throw new MappingException("Failed to deserialize!", ex);
+      }
+      if (line == null) {
+        return null;
+      }
+      if (!line.trim().isEmpty()) {
+        documents = mappingProvider.deserialize(line, fields, filter).iterator();
+      }
+    }
+    return documents.next();
+  }
+
+  @Override
+  public String getArrayName() {
+    // each record is a document in its own right
+    return null;
+  }
+
+  @Override
+  public void close() {
+    try {
+      reader.close();
+    } catch (IOException ex) {
+      throw new MappingException("Failed to close the input!", ex);
+    }
+  }
+}
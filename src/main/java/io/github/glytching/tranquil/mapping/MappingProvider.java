@@ -2,7 +2,13 @@ package io.github.glytching.tranquil.mapping;
 
 import io.github.glytching.tranquil.exception.MappingException;
 
+import java.io.BufferedReader;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +31,121 @@ public interface MappingProvider {
    */
   List<Map<String, Object>> deserialize(InputStream sourceStream, String charset);
 
+  /**
+   * Parse the given {@code source} into a {@link Map}, only the given {@code fields} need be read
+   * and documents which are rejected by the given {@code filter} need not be returned. Providers
+   * which can skip parts of their input should override this, by default everything is read.
+   *
+   * @param source a source string
+   * @param fields the fields which will be read from the deserialized form
+   * @param filter a necessary condition for a document to be of interest
+   * @return a {@link Map} representation of the given {@code source}
+   */
+  default List<Map<String, Object>> deserialize(
+      String source, FieldSelection fields, DocumentFilter filter) {
+    return deserialize(source);
+  }
+
+  /**
+   * Parse a json string encapsulated in the given {@code sourceStream} into a {@link Map}, only the
+   * given {@code fields} need be read and documents which are rejected by the given {@code filter}
+   * need not be returned. Providers which can skip parts of their input should override this, by
+   * default everything is read.
+   *
+   * @param sourceStream an input stream containing a json string
+   * @param charset the charset of the given {@code sourceStream}
+   * @param fields the fields which will be read from the deserialized form
+   * @param filter a necessary condition for a document to be of interest
+   * @return a {@link Map} representation of the given {@code sourceStream}
+   */
+  default List<Map<String, Object>> deserialize(
+      InputStream sourceStream, String charset, FieldSelection fields, DocumentFilter filter) {
+    return deserialize(sourceStream, charset);
+  }
+
+  /**
+   * Open a {@link DocumentReader} on the given {@code sourceStream}, this allows the caller to read
+   * one document at a time. Providers which can parse incrementally should override this, by
+   * default the entire input is deserialized up front.
+   *
+   * @param sourceStream an input stream containing a json string
+   * @param charset the charset of the given {@code sourceStream}
+   * @return a reader over the documents in the given {@code sourceStream}
+   */
+  default DocumentReader openReader(InputStream sourceStream, String charset) {
+    return new MaterializedDocumentReader(deserialize(sourceStream, charset));
+  }
+
+  /**
+   * Open a {@link DocumentReader} on the given {@code sourceStream}, only the given {@code fields}
+   * need be read from each document and documents which are rejected by the given {@code filter}
+   * need not be returned. By default everything is read.
+   *
+   * @param sourceStream an input stream containing a json string
+   * @param charset the charset of the given {@code sourceStream}
+   * @param fields the fields which will be read from each document
+   * @param filter a necessary condition for a document to be of interest
+   * @return a reader over the documents in the given {@code sourceStream}
+   */
+  default DocumentReader openReader(
+      InputStream sourceStream, String charset, FieldSelection fields, DocumentFilter filter) {
+    return openReader(sourceStream, charset);
+  }
+
+  /**
+   * Open a {@link DocumentReader} on the given JSON lines {@code sourceStream}, in which each line
+   * holds one record. Each record is a document in its own right. Only the given {@code fields}
+   * need be read from each record and records which are rejected by the given {@code filter} need
+   * not be returned. By default the input is read one line at a time and each line is deserialized
+   * on its own.
+   *
+   * @param sourceStream an input stream containing one json object per line
+   * @param charset the charset of the given {@code sourceStream}
+   * @param fields the fields which will be read from each record
+   * @param filter a necessary condition for a record to be of interest
+   * @return a reader over the records in the given {@code sourceStream}
+   */
+  default DocumentReader openLinesReader(
+      InputStream sourceStream, String charset, FieldSelection fields, DocumentFilter filter) {
+    try {
+      return new LinesDocumentReader(
+          this, new BufferedReader(new InputStreamReader(sourceStream, charset)), fields, filter);
+    } catch (UnsupportedEncodingException ex) {
+      throw new MappingException("Failed to deserialize!", ex);
+    }
+  }
+
+  /**
+   * Open a {@link DocumentWriter} on the given {@code writer}, this allows the caller to write one
+   * document at a time. The output is the same as that of {@link #serialize(List)} for the same
+   * documents. Providers which can serialize incrementally should override this, by default the
+   * documents are accumulated and serialized when the document writer is closed.
+   *
+   * @param writer the output, this is flushed but not closed when the document writer is closed
+   * @return a writer to the given {@code writer}
+   */
+  default DocumentWriter openWriter(Writer writer) {
+    return new MaterializedDocumentWriter(this, writer);
+  }
+
+  /**
+   * Open a {@link DocumentWriter} on the given {@code outputStream}, this allows the caller to
+   * write one document at a time. The output is the same as that of {@link #serialize(List)} for
+   * the same documents.
+   *
+   * @param outputStream the output, this is flushed but not closed when the document writer is
+   *     closed
+   * @param charset the charset in which to write to the given {@code outputStream}
+   * @return a writer to the given {@code outputStream}
+   */
+  default DocumentWriter openWriter(OutputStream outputStream, String charset) {
+    try {
+      return openWriter(new OutputStreamWriter(outputStream, charset));
+    } catch (UnsupportedEncodingException ex) {
+      throw new MappingException(ex);
+    }
+  }
+
   /**
    * Convert the {@code source} to a string.
    *
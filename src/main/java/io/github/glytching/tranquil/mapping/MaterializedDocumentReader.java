@@ -0,0 +1,67 @@
+package io.github.glytching.tranquil.mapping;
+
+import io.github.glytching.tranquil.exception.MappingException;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link DocumentReader} over an input which has already been deserialized, for use by mapping
+ * providers which cannot parse incrementally. This offers none of the memory benefits of an
+ * incremental reader but it applies the same rules about what constitutes a document.
+ */
+class MaterializedDocumentReader implements DocumentReader {
+
+  private final Iterator<?> documents;
+  private final String arrayName;
+
+  MaterializedDocumentReader(List<Map<String, Object>> deserialized) {
+    Map.Entry<String, Object> array =
+        deserialized.size() == 1 ? findArray(deserialized.get(0)) : null;
+    if (array != null) {
+      this.arrayName = array.getKey();
+      this.documents = ((List<?>) array.getValue()).iterator();
+    } else {
+      this.arrayName = null;
+      this.documents = deserialized.iterator();
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> next() {
+    if (!documents.hasNext()) {
+      return null;
+    }
+    Object document = documents.next();
+    if (!(document instanceof Map)) {
+      throw new MappingException(
+          String.format("Failed to deserialize, expected an object but found: [%s]!", document));
+    }
+    return (Map<String, Object>) document;
+  }
+
+  @Override
+  public String getArrayName() {
+    return arrayName;
+  }
+
+  @Override
+  public void close() {
+    // nothing to release, the input was consumed when it was deserialized
+  }
+
+  private static Map.Entry<String, Object> findArray(Map<String, Object> document) {
+    for (Map.Entry<String, Object> entry : document.entrySet()) {
+      if (entry.getValue() instanceof List) {
+        List<?> values = (List<?>) entry.getValue();
+        if (!values.isEmpty() && values.get(0) instanceof Map) {
+          return entry;
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,48 @@
+package io.github.glytching.tranquil.mapping;
+
+import io.github.glytching.tranquil.exception.MappingException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link DocumentWriter} which accumulates its documents and serializes them when it is closed,
+ * for use by mapping providers which cannot serialize incrementally. This offers none of the memory
+ * benefits of an incremental writer but its output is exactly that of {@link
+ * MappingProvider#serialize(List)}.
+ */
+class MaterializedDocumentWriter implements DocumentWriter {
+
+  private final MappingProvider mappingProvider;
+  private final Writer writer;
+  private final List<Map<String, Object>> documents = new ArrayList<>();
+
+  private boolean closed = false;
+
+  MaterializedDocumentWriter(MappingProvider mappingProvider, Writer writer) {
+    this.mappingProvider = mappingProvider;
+    this.writer = writer;
+  }
+
+  @Override
+  public void write(Map<String, Object> document) {
+    documents.add(document);
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      writer.write(mappingProvider.serialize(documents));
+      writer.flush();
+    } catch (IOException ex) {
+      throw new MappingException(ex);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package io.github.glytching.tranquil.mapping;
+
+import io.github.glytching.tranquil.exception.MappingException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link DocumentWriter} which writes each document as soon as the form of the output is known,
+ * holding back no more than the first document. Subclasses adapt this to a specific generator.
+ */
+abstract class StreamingDocumentWriter implements DocumentWriter {
+
+  // the first document, held until it is known whether the output is an array
+  private Map<String, Object> first;
+  private int count = 0;
+  private boolean closed = false;
+
+  @Override
+  public void write(Map<String, Object> document) {
+    try {
+      if (count == 0) {
+        first = document;
+      } else {
+        if (count == 1) {
+          writeStartArray();
+          writeDocument(first);
+          first = null;
+        }
+        writeDocument(document);
+      }
+      count++;
+    } catch (IOException ex) {
+      throw new MappingException(ex);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (count == 0) {
+        // the empty json string "{}"
+        writeDocument(new HashMap<>());
+      } else if (count == 1) {
+        // a single json object is written as is
+        writeDocument(first);
+      } else {
+        writeEndArray();
+      }
+      finish();
+    } catch (IOException ex) {
+      throw new MappingException(ex);
+    }
+  }
+
+  protected abstract void writeStartArray() throws IOException;
+
+  protected abstract void writeDocument(Map<String, Object> document) throws IOException;
+
+  protected abstract void writeEndArray() throws IOException;
+
+  /**
+   * Flushes the output and releases the generator, leaving the underlying output open.
+   *
+   * @throws IOException if the output cannot be flushed
+   */
+  protected abstract void finish() throws IOException;
+}
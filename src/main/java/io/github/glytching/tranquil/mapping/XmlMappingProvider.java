@@ -8,6 +8,10 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -41,6 +45,43 @@ public class XmlMappingProvider extends JacksonMappingProvider {
     }
   }
 
+  // the selective and incremental reads inherited from JacksonMappingProvider parse JSON so each of
+  // them is replaced by the MappingProvider default: read the whole input and evaluate it in memory
+
+  @Override
+  public List<Map<String, Object>> deserialize(
+      String source, FieldSelection fields, DocumentFilter filter) {
+    return deserialize(source);
+  }
+
+  @Override
+  public List<Map<String, Object>> deserialize(
+      InputStream sourceStream, String charset, FieldSelection fields, DocumentFilter filter) {
+    return deserialize(sourceStream, charset);
+  }
+
+  @Override
+  public DocumentReader openReader(InputStream sourceStream, String charset) {
+    return new MaterializedDocumentReader(deserialize(sourceStream, charset));
+  }
+
+  @Override
+  public DocumentReader openReader(
+      InputStream sourceStream, String charset, FieldSelection fields, DocumentFilter filter) {
+    return openReader(sourceStream, charset);
+  }
+
+  @Override
+  public DocumentReader openLinesReader(
+      InputStream sourceStream, String charset, FieldSelection fields, DocumentFilter filter) {
+    try {
+      return new LinesDocumentReader(
+          this, new BufferedReader(new InputStreamReader(sourceStream, charset)), fields, filter);
+    } catch (UnsupportedEncodingException ex) {
+      throw new MappingException("Failed to deserialize!", ex);
+    }
+  }
+
   @Override
   public String serialize(List<Map<String, Object>> source) {
     if (source == null) {
@@ -65,6 +106,21 @@ public class XmlMappingProvider extends JacksonMappingProvider {
     }
   }
 
+  @Override
+  public DocumentWriter openWriter(Writer writer) {
+    // XML documents cannot be written incrementally by the underlying library
+    return new MaterializedDocumentWriter(this, writer);
+  }
+
+  @Override
+  public DocumentWriter openWriter(OutputStream outputStream, String charset) {
+    try {
+      return openWriter(new OutputStreamWriter(outputStream, charset));
+    } catch (UnsupportedEncodingException ex) {
+      throw new MappingException(ex);
+    }
+  }
+
   private String toString(InputStream input) throws IOException {
     try (BufferedReader buffer = new BufferedReader(new InputStreamReader(input))) {
       return buffer.lines().collect(Collectors.joining(System.lineSeparator()));
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql;
+
+import io.github.glytching.tranquil.cache.Cache;
+import io.github.glytching.tranquil.exception.TranquilException;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The caching behaviour shared by each engine's {@link ExpressionFactory}. Extensions of this class
+ * only have to turn an expression into a {@link Predicator} or {@link Projector}, this class makes
+ * sure that happens once per expression:
+ *
+ * <ul>
+ *   <li>Compiled expressions are cached, predicators, projectors and their prepared forms share a
+ *       cache so their keys are qualified by type
+ *   <li>Compilation is single-flight, if several threads miss on the same expression at the same
+ *       time then only one of them compiles it and the others wait for its result
+ * </ul>
+ */
+public abstract class CachingExpressionFactory implements ExpressionFactory {
+
+  private static final String WHERE_KEY_PREFIX = "where:";
+  private static final String SELECT_KEY_PREFIX = "select:";
+  private static final String PREPARED_WHERE_KEY_PREFIX = "prepared-where:";
+  private static final String PREPARED_SELECT_KEY_PREFIX = "prepared-select:";
+
+  private final Cache cache;
+  private final SingleFlight singleFlight = new SingleFlight();
+  private final LongAdder compilations = new LongAdder();
+
+  protected CachingExpressionFactory(Cache cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  public Predicator createPredicator(String expression) {
+    return get(
+        Predicator.class, WHERE_KEY_PREFIX + expression, () -> compilePredicator(expression));
+  }
+
+  @Override
+  public Projector createProjector(String expression) {
+    return get(Projector.class, SELECT_KEY_PREFIX + expression, () -> compileProjector(expression));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public PreparedExpression<Predicator> preparePredicator(String expression) {
+    return get(
+        PreparedExpression.class,
+        PREPARED_WHERE_KEY_PREFIX + expression,
+        () -> compilePreparedPredicator(expression));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public PreparedExpression<Projector> prepareProjector(String expression) {
+    return get(
+        PreparedExpression.class,
+        PREPARED_SELECT_KEY_PREFIX + expression,
+        () -> compilePreparedProjector(expression));
+  }
+
+  @Override
+  public ExpressionStatistics getStatistics() {
+    return new ExpressionStatistics(compilations.sum(), singleFlight.getCoalesced());
+  }
+
+  /**
+   * Turn the given where clause into a {@link Predicator}.
+   *
+   * @param expression a 'where clause'
+   * @return a {@link Predicator} specific to the given expression
+   */
+  protected abstract Predicator compilePredicator(String expression);
+
+  /**
+   * Turn the given select clause into a {@link Projector}.
+   *
+   * @param expression a 'select clause'
+   * @return a {@link Projector} specific to the given expression
+   */
+  protected abstract Projector compileProjector(String expression);
+
+  /**
+   * Turn the given where clause into a {@link PreparedExpression}. Engines which support parameters
+   * must override this, by default parameters are not supported.
+   *
+   * @param expression a 'where clause' which may contain parameters
+   * @return a {@link PreparedExpression} specific to the given expression
+   */
+  protected PreparedExpression<Predicator> compilePreparedPredicator(String expression) {
+    throw parametersNotSupported();
+  }
+
+  /**
+   * Turn the given select clause into a {@link PreparedExpression}. Engines which support
+   * parameters must override this, by default parameters are not supported.
+   *
+   * @param expression a 'select clause' which may contain parameters
+   * @return a {@link PreparedExpression} specific to the given expression
+   */
+  protected PreparedExpression<Projector> compilePreparedProjector(String expression) {
+    throw parametersNotSupported();
+  }
+
+  private TranquilException parametersNotSupported() {
+    return new TranquilException(
+        String.format("Parameters are not supported by the %s!", getClass().getSimpleName()));
+  }
+
+  private <T> T get(Class<T> type, String key, Supplier<T> compiler) {
+    T cached = cache.get(type, key);
+    if (cached != null) {
+      return cached;
+    }
+    return singleFlight.execute(
+        key,
+        () -> {
+          // another thread may have compiled and cached this expression between our cache miss and
+          // our joining the flight
+          T compiled = cache.get(type, key);
+          if (compiled == null) {
+            compilations.increment();
+            compiled = compiler.get();
+            cache.put(key, compiled);
+          }
+          return compiled;
+        });
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql;
+
+import io.github.glytching.tranquil.cache.CachePolicy;
+import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.configuration.Engine;
+import io.github.glytching.tranquil.ql.compiler.CompilerFactory;
+import io.github.glytching.tranquil.ql.groovy.GroovyFactory;
+import io.github.glytching.tranquil.ql.interpreter.InterpreterFactory;
+import io.github.glytching.tranquil.ql.tiered.TieredFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A JVM wide registry of {@link ExpressionFactory}s. Each factory caches the predicators and
+ * projectors it creates so sharing factories means that an expression is compiled once per JVM
+ * rather than once per {@link io.github.glytching.tranquil.context.TranquilHandler}. This matters
+ * because every call to {@code Tranquil.parse(...)} creates a new handler.
+ *
+ * <p>Factories are keyed by {@link Engine}, cache size, {@link CachePolicy} and, for the {@link
+ * Engine#TIERED} engine, compilation threshold so configurations which agree on all of these share
+ * the same compiled expressions. All of the factories are safe for use by multiple threads.
+ */
+public final class ExpressionFactories {
+
+  private static final Map<String, ExpressionFactory> FACTORIES = new ConcurrentHashMap<>();
+
+  private ExpressionFactories() {}
+
+  /**
+   * Returns the shared {@link ExpressionFactory} for the given {@code configuration}, creating it
+   * if this is the first request for the configuration's engine and cache size.
+   *
+   * @param configuration the configuration in use
+   * @return a shared factory
+   */
+  public static ExpressionFactory get(Configuration configuration) {
+    return get(
+        configuration.engine(),
+        configuration.lruCacheSize(),
+        configuration.cachePolicy(),
+        configuration.tieredCompilationThreshold());
+  }
+
+  /**
+   * Returns the shared {@link ExpressionFactory} for the given {@code engine} and {@code
+   * cacheSize}, with a {@link CachePolicy#LRU} cache, creating it if this is the first request for
+   * that combination.
+   *
+   * @param engine the engine
+   * @param cacheSize the capacity of the factory's cache
+   * @return a shared factory
+   */
+  public static ExpressionFactory get(Engine engine, int cacheSize) {
+    return get(engine, cacheSize, CachePolicy.LRU);
+  }
+
+  /**
+   * Returns the shared {@link ExpressionFactory} for the given {@code engine}, {@code cacheSize}
+   * and {@code cachePolicy}, creating it if this is the first request for that combination.
+   *
+   * @param engine the engine
+   * @param cacheSize the capacity of the factory's cache
+   * @param cachePolicy the eviction policy of the factory's cache
+   * @return a shared factory
+   */
+  public static ExpressionFactory get(Engine engine, int cacheSize, CachePolicy cachePolicy) {
+    return get(engine, cacheSize, cachePolicy, TieredFactory.DEFAULT_COMPILATION_THRESHOLD);
+  }
+
+  /**
+   * Returns the shared {@link ExpressionFactory} for the given {@code engine}, {@code cacheSize},
+   * {@code cachePolicy} and {@code tieredCompilationThreshold}, creating it if this is the first
+   * request for that combination. The threshold is only relevant to the {@link Engine#TIERED}
+   * engine.
+   *
+   * @param engine the engine
+   * @param cacheSize the capacity of the factory's cache
+   * @param cachePolicy the eviction policy of the factory's cache
+   * @param tieredCompilationThreshold the number of invocations after which a tiered expression is
+   *     compiled
+   * @return a shared factory
+   */
+  public static ExpressionFactory get(
+      Engine engine, int cacheSize, CachePolicy cachePolicy, int tieredCompilationThreshold) {
+    String key = engine + ":" + cacheSize + ":" + cachePolicy;
+    if (engine == Engine.TIERED) {
+      key += ":" + tieredCompilationThreshold;
+    }
+    return FACTORIES.computeIfAbsent(
+        key, k -> create(engine, cacheSize, cachePolicy, tieredCompilationThreshold));
+  }
+
+  private static ExpressionFactory create(
+      Engine engine, int cacheSize, CachePolicy cachePolicy, int tieredCompilationThreshold) {
+    switch (engine) {
+      case INTERPRETER:
+        return new InterpreterFactory(cacheSize, cachePolicy);
+      case COMPILER:
+        return new CompilerFactory(cacheSize, cachePolicy);
+      case TIERED:
+        return new TieredFactory(cacheSize, cachePolicy, tieredCompilationThreshold);
+      default:
+        return new GroovyFactory(cacheSize, cachePolicy);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql;
+
+/**
+ * Interface which defines how an engine turns caller defined expressions into executable {@link
+ * Predicator}s and {@link Projector}s.
+ */
+public interface ExpressionFactory {
+
+  /**
+   * Create a {@link Predicator} for the given where clause.
+   *
+   * @param expression a 'where clause'
+   * @return a {@link Predicator} specific to the given expression
+   */
+  Predicator createPredicator(String expression);
+
+  /**
+   * Create a {@link Projector} for the given select clause.
+   *
+   * @param expression a 'select clause'
+   * @return a {@link Projector} specific to the given expression
+   */
+  Projector createProjector(String expression);
+
+  /**
+   * Prepare a where clause which contains parameters, the resulting {@link PreparedExpression} can
+   * be bound to any number of parameter values without parsing or compiling the expression again.
+   *
+   * @param expression a 'where clause' which may contain {@code ?} or {@code :name} parameters
+   * @return a {@link PreparedExpression} specific to the given expression
+   */
+  PreparedExpression<Predicator> preparePredicator(String expression);
+
+  /**
+   * Prepare a select clause which contains parameters, the resulting {@link PreparedExpression} can
+   * be bound to any number of parameter values without parsing or compiling the expression again.
+   *
+   * @param expression a 'select clause' which may contain {@code ?} or {@code :name} parameters
+   * @return a {@link PreparedExpression} specific to the given expression
+   */
+  PreparedExpression<Projector> prepareProjector(String expression);
+
+  /**
+   * Returns a snapshot of this factory's activity.
+   *
+   * @return this factory's statistics
+   */
+  ExpressionStatistics getStatistics();
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql;
+
+/** A point in time snapshot of the activity of an {@link ExpressionFactory}. */
+public class ExpressionStatistics {
+
+  private final long compilations;
+  private final long coalescedCompilations;
+  private final long interpretedInvocations;
+  private final long compiledInvocations;
+  private final long promotions;
+
+  public ExpressionStatistics(long compilations, long coalescedCompilations) {
+    this(compilations, coalescedCompilations, 0, 0, 0);
+  }
+
+  public ExpressionStatistics(
+      long compilations,
+      long coalescedCompilations,
+      long interpretedInvocations,
+      long compiledInvocations,
+      long promotions) {
+    this.compilations = compilations;
+    this.coalescedCompilations = coalescedCompilations;
+    this.interpretedInvocations = interpretedInvocations;
+    this.compiledInvocations = compiledInvocations;
+    this.promotions = promotions;
+  }
+
+  /**
+   * Returns the number of times an expression has been turned into a {@link Predicator} or {@link
+   * Projector}, each cache miss which is not coalesced results in one compilation.
+   *
+   * @return the number of compilations
+   */
+  public long getCompilations() {
+    return compilations;
+  }
+
+  /**
+   * Returns the number of requests for an expression which was already being compiled by another
+   * thread, these requests waited for that compilation rather than compiling the expression again.
+   *
+   * @return the number of coalesced compilations
+   */
+  public long getCoalescedCompilations() {
+    return coalescedCompilations;
+  }
+
+  /**
+   * Returns the number of times an expression was applied by its interpreted tier. Only the {@link
+   * io.github.glytching.tranquil.configuration.Engine#TIERED} engine counts invocations, for other
+   * engines this is always zero.
+   *
+   * @return the number of interpreted invocations
+   */
+  public long getInterpretedInvocations() {
+    return interpretedInvocations;
+  }
+
+  /**
+   * Returns the number of times an expression was applied by its compiled tier. Only the {@link
+   * io.github.glytching.tranquil.configuration.Engine#TIERED} engine counts invocations, for other
+   * engines this is always zero.
+   *
+   * @return the number of compiled invocations
+   */
+  public long getCompiledInvocations() {
+    return compiledInvocations;
+  }
+
+  /**
+   * Returns the number of expressions which have been promoted from their interpreted tier to their
+   * compiled tier.
+   *
+   * @return the number of promotions
+   */
+  public long getPromotions() {
+    return promotions;
+  }
+
+  @Override
+  public String toString() {
+    return "ExpressionStatistics{"
+        + "compilations="
+        + compilations
+        + ", coalescedCompilations="
+        + coalescedCompilations
+        + ", interpretedInvocations="
+        + interpretedInvocations
+        + ", compiledInvocations="
+        + compiledInvocations
+        + ", promotions="
+        + promotions
+        + '}';
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql;
+
+import io.github.glytching.tranquil.exception.TranquilException;
+import io.github.glytching.tranquil.ql.model.Parameter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The values which are bound to the parameters of an expression. Positional values are bound to
+ * {@code ?} placeholders in order of appearance, named values are bound to {@code :name}
+ * placeholders.
+ *
+ * <p>For example: <code>
+ *    Parameters.of("tap", 10)                      // for "name = ? and quantity > ?"
+ *    Parameters.of(Collections.singletonMap("name", "tap"))  // for "name = :name"
+ *    Parameters.of(10).with("name", "tap")          // for "name = :name and quantity > ?"
+ * </code>
+ *
+ * <p>Instances are immutable.
+ */
+public final class Parameters {
+
+  /** No values, for use with expressions which have no parameters. */
+  public static final Parameters NONE =
+      new Parameters(Collections.emptyList(), Collections.emptyMap());
+
+  private final List<Object> positional;
+  private final Map<String, Object> named;
+
+  private Parameters(List<Object> positional, Map<String, Object> named) {
+    this.positional = positional;
+    this.named = named;
+  }
+
+  /**
+   * Creates positional values.
+   *
+   * @param values the values of the positional parameters, in order of appearance
+   * @return parameter values
+   */
+  public static Parameters of(Object... values) {
+    return new Parameters(
+        Collections.unmodifiableList(Arrays.asList(values.clone())), Collections.emptyMap());
+  }
+
+  /**
+   * Creates named values.
+   *
+   * @param values the values of the named parameters, keyed by name
+   * @return parameter values
+   */
+  public static Parameters of(Map<String, Object> values) {
+    return new Parameters(
+        Collections.emptyList(), Collections.unmodifiableMap(new HashMap<>(values)));
+  }
+
+  /**
+   * Returns a copy of these values with the addition of the given named value.
+   *
+   * @param name the name of the parameter, without the leading colon
+   * @param value the value of the parameter
+   * @return parameter values
+   */
+  public Parameters with(String name, Object value) {
+    Map<String, Object> copy = new HashMap<>(named);
+    copy.put(name, value);
+    return new Parameters(positional, Collections.unmodifiableMap(copy));
+  }
+
+  /**
+   * Returns a copy of these values without the first {@code count} positional values. This is used
+   * when one set of values is shared by a select and a where clause, the where clause's positional
+   * parameters follow those of the select clause.
+   *
+   * @param count the number of positional values to skip
+   * @return parameter values
+   */
+  public Parameters skip(int count) {
+    if (count == 0) {
+      return this;
+    }
+    return new Parameters(
+        positional.subList(Math.min(count, positional.size()), positional.size()), named);
+  }
+
+  /**
+   * Returns the value bound to the given {@code parameter}.
+   *
+   * @param parameter a parameter
+   * @return the value bound to the given parameter, this may be null
+   * @throws TranquilException if no value has been bound to the given parameter
+   */
+  public Object get(Parameter parameter) {
+    if (parameter.isNamed()) {
+      if (!named.containsKey(parameter.getName())) {
+        throw new TranquilException(
+            String.format("No value has been bound to the parameter: [%s]!", parameter));
+      }
+      return named.get(parameter.getName());
+    }
+    if (parameter.getIndex() >= positional.size()) {
+      throw new TranquilException(
+          String.format(
+              "No value has been bound to the parameter: [%s], there are only %s positional"
+                  + " values!",
+              parameter, positional.size()));
+    }
+    return positional.get(parameter.getIndex());
+  }
+
+  @Override
+  public String toString() {
+    return "Parameters{" + "positional=" + positional + ", named=" + named + '}';
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql;
+
+import java.util.function.Function;
+
+/**
+ * An expression which has been parsed, and possibly compiled, but whose parameters have yet to be
+ * bound. Preparing an expression does all of the work which does not depend on parameter values so
+ * an expression such as {@code customerId = ?} is prepared once and then bound, cheaply, for each
+ * customer.
+ *
+ * @param <T> the bound form of the expression, either a {@link Predicator} or a {@link Projector}
+ */
+public interface PreparedExpression<T> {
+
+  /**
+   * Binds the given {@code parameters} to this expression.
+   *
+   * @param parameters the parameter values
+   * @return the bound form of this expression
+   * @throws io.github.glytching.tranquil.exception.TranquilException if a value has not been
+   *     supplied for any of this expression's parameters
+   */
+  T bind(Parameters parameters);
+
+  /**
+   * Returns the number of distinct positional ({@code ?}) parameters in this expression.
+   *
+   * @return the number of positional parameters
+   */
+  int getPositionalParameterCount();
+
+  /**
+   * Creates a {@link PreparedExpression} from the given {@code binder}.
+   *
+   * @param positionalParameterCount the number of distinct positional parameters in the expression
+   * @param binder binds parameter values to the expression
+   * @param <T> the bound form of the expression
+   * @return a prepared expression
+   */
+  static <T> PreparedExpression<T> of(
+      int positionalParameterCount, Function<Parameters, T> binder) {
+    return new PreparedExpression<T>() {
+      @Override
+      public T bind(Parameters parameters) {
+        return binder.apply(parameters);
+      }
+
+      @Override
+      public int getPositionalParameterCount() {
+        return positionalParameterCount;
+      }
+    };
+  }
+}
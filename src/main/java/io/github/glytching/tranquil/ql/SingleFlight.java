@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Ensures that at most one caller at a time runs the work for a given key. The first caller to ask
+ * for a key does the work, any caller which asks for the same key while that work is in flight
+ * waits for, and shares, its result (or its exception). Once the work is complete the key is
+ * released so a later caller will run the work again; callers are expected to cache the result.
+ */
+public class SingleFlight {
+
+  private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight =
+      new ConcurrentHashMap<>();
+  private final LongAdder coalesced = new LongAdder();
+
+  /**
+   * Runs the given {@code work} unless work for the same {@code key} is already in flight, in which
+   * case this waits for that work to complete and returns its result.
+   *
+   * @param key identifies the work
+   * @param work the work to run
+   * @param <T> the type of the work's result
+   * @return the result of the work
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T execute(String key, Supplier<T> work) {
+    CompletableFuture<Object> flight = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+    if (existing != null) {
+      coalesced.increment();
+      return (T) join(existing);
+    }
+
+    try {
+      T result = work.get();
+      flight.complete(result);
+      return result;
+    } catch (RuntimeException | Error ex) {
+      flight.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  /**
+   * Returns the number of callers which shared the result of work already in flight rather than
+   * running the work themselves.
+   *
+   * @return the number of coalesced calls
+   */
+  public long getCoalesced() {
+    return coalesced.sum();
+  }
+
+  private Object join(CompletableFuture<Object> flight) {
+    try {
+      return flight.join();
+    } catch (CompletionException ex) {
+      // rethrow the original exception so that waiting callers see what the first caller saw
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw ex;
+    }
+  }
+}
@@ -1049,6 +1049,18 @@ public class TranquilLoggingListener extends SQLParserBaseListener {
     log("exitUnsigned_value_specification: {0}", ctx.start.getText());
   }
 
+  @Override
+  public void enterParameter_specification(SQLParser.Parameter_specificationContext ctx) {
+    super.enterParameter_specification(ctx);
+    log("enterParameter_specification: {0}", ctx.start.getText());
+  }
+
+  @Override
+  public void exitParameter_specification(SQLParser.Parameter_specificationContext ctx) {
+    super.exitParameter_specification(ctx);
+    log("exitParameter_specification: {0}", ctx.start.getText());
+  }
+
   @Override
   public void enterParam(SQLParser.ParamContext ctx) {
     super.enterParam(ctx);
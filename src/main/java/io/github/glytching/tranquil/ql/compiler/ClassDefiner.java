@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.compiler;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Loads the classes generated by the {@link Compiler}.
+ *
+ * <p>Where the runtime supports it (Java 15+) each class is defined as a <i>hidden</i> class via
+ * {@code MethodHandles.Lookup.defineHiddenClass}. Hidden classes are not discoverable by name and
+ * are unloaded as soon as they are no longer reachable, so a compiled expression which is evicted
+ * from the cache takes its class with it. Tranquil is built for Java 11 so that method is looked up
+ * reflectively and, where it is not available, each class is defined in its own throwaway class
+ * loader which gives the same unloading behaviour at the cost of a class loader per expression.
+ */
+final class ClassDefiner {
+
+  private static final Method DEFINE_HIDDEN_CLASS = findDefineHiddenClass();
+  private static final Object NO_CLASS_OPTIONS = noClassOptions();
+
+  private ClassDefiner() {}
+
+  /**
+   * Defines the given class.
+   *
+   * @param binaryName the binary name of the class, it must be in this class's package
+   * @param bytes the class file
+   * @return the defined class
+   */
+  static Class<?> define(String binaryName, byte[] bytes) {
+    if (DEFINE_HIDDEN_CLASS != null) {
+      try {
+        MethodHandles.Lookup defined =
+            (MethodHandles.Lookup)
+                DEFINE_HIDDEN_CLASS.invoke(MethodHandles.lookup(), bytes, true, NO_CLASS_OPTIONS);
+        return defined.lookupClass();
+      } catch (IllegalAccessException | InvocationTargetException ex) {
+        Throwable cause = ex instanceof InvocationTargetException ? ex.getCause() : ex;
+        throw new CompilerException(
+            String.format("Failed to define the hidden class: [%s]!", binaryName), cause);
+      }
+    }
+    return new GeneratedClassLoader(ClassDefiner.class.getClassLoader()).define(binaryName, bytes);
+  }
+
+  private static Method findDefineHiddenClass() {
+    try {
+      Class<?> classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+      return MethodHandles.Lookup.class.getMethod(
+          "defineHiddenClass",
+          byte[].class,
+          boolean.class,
+          Array.newInstance(classOption, 0).getClass());
+    } catch (ClassNotFoundException | NoSuchMethodException ex) {
+      // pre Java 15, fall back to a class loader per class
+      return null;
+    }
+  }
+
+  private static Object noClassOptions() {
+    return DEFINE_HIDDEN_CLASS == null
+        ? null
+        : Array.newInstance(DEFINE_HIDDEN_CLASS.getParameterTypes()[2].getComponentType(), 0);
+  }
+
+  private static final class GeneratedClassLoader extends ClassLoader {
+
+    GeneratedClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    Class<?> define(String binaryName, byte[] bytes) {
+      return defineClass(binaryName, bytes, 0, bytes.length);
+    }
+  }
+}
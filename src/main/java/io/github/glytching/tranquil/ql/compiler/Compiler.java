@@ -0,0 +1,671 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.compiler;
+
+import io.github.glytching.tranquil.ql.Parameters;
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.PreparedExpression;
+import io.github.glytching.tranquil.ql.Projector;
+import io.github.glytching.tranquil.ql.interpreter.Interpreter;
+import io.github.glytching.tranquil.ql.interpreter.Operations;
+import io.github.glytching.tranquil.ql.model.Arithmetic;
+import io.github.glytching.tranquil.ql.model.Condition;
+import io.github.glytching.tranquil.ql.model.Conjunction;
+import io.github.glytching.tranquil.ql.model.Criterion;
+import io.github.glytching.tranquil.ql.model.FieldReference;
+import io.github.glytching.tranquil.ql.model.Literal;
+import io.github.glytching.tranquil.ql.model.Negation;
+import io.github.glytching.tranquil.ql.model.Operand;
+import io.github.glytching.tranquil.ql.model.Parameter;
+import io.github.glytching.tranquil.ql.model.ParameterBinder;
+import io.github.glytching.tranquil.ql.model.Projection;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Turns the parsed form of an expression into a JVM class which implements {@link Predicator} or
+ * {@link Projector}. The generated code is statically typed: a field reference becomes a chain of
+ * {@code Map.get} calls (with a null safe fallback for anything which is not a {@code Map}),
+ * conditions become branches and everything else is a direct call to the {@link Operations} which
+ * the interpreter also uses, so both engines produce the same results. Constant work (compiling a
+ * {@code like} pattern, hashing the values in an {@code in} list) is done once and handed to the
+ * generated class through its constructor.
+ *
+ * <p>Parameters are also handed to the generated class through its constructor so an expression
+ * with parameters is compiled into one class, by {@link #toPreparedPredicator(Condition)} or {@link
+ * #toPreparedProjector(List)}, and binding that expression to a set of values only creates a new
+ * instance of that class.
+ *
+ * <p>A criterion on {@code items[*]} is compiled into a private method which applies the criterion
+ * to a single element and a loop which calls that method for each element in the list.
+ */
+public final class Compiler {
+
+  private static final AtomicLong SEQUENCE = new AtomicLong();
+
+  private static final String PACKAGE = Compiler.class.getPackage().getName().replace('.', '/');
+  private static final String OBJECT = Type.getInternalName(Object.class);
+  private static final String MAP = Type.getInternalName(Map.class);
+  private static final String LIST = Type.getInternalName(List.class);
+  private static final String OPERATIONS = Type.getInternalName(Operations.class);
+  private static final String CONSTANTS = "constants";
+  private static final String PARAMETERS = "parameters";
+  private static final String CONSTANTS_DESCRIPTOR = "[Ljava/lang/Object;";
+  private static final String CONSTRUCTOR_DESCRIPTOR =
+      "(" + CONSTANTS_DESCRIPTOR + CONSTANTS_DESCRIPTOR + ")V";
+  private static final String ELEMENT_METHOD_PREFIX = "anyElement";
+  private static final String OPERATION_DESCRIPTOR = "(Ljava/lang/Object;Ljava/lang/Object;)Z";
+  private static final String ARITHMETIC_DESCRIPTOR =
+      "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;";
+  private static final String PREDICATE_DESCRIPTOR = "(Ljava/lang/Object;)Z";
+
+  // local variable slots, 0 is 'this' and 1 is the method's only parameter
+  private static final int GIVEN = 1;
+  private static final int FIRST_FREE_LOCAL = 2;
+
+  private final String className;
+  private final ClassWriter classWriter;
+  private final List<Object> constants = new ArrayList<>();
+  private final List<Parameter> parameters = new ArrayList<>();
+  private final List<Criterion> elementCriteria = new ArrayList<>();
+  private int nextLocal;
+
+  private Compiler(Class<?> type) {
+    this.className = PACKAGE + "/Compiled" + type.getSimpleName() + SEQUENCE.incrementAndGet();
+    this.classWriter = new FramesWriter();
+    classWriter.visit(
+        V11,
+        ACC_PUBLIC | ACC_FINAL | ACC_SUPER,
+        className,
+        null,
+        OBJECT,
+        new String[] {Type.getInternalName(type)});
+    classWriter
+        .visitField(ACC_PRIVATE | ACC_FINAL, CONSTANTS, CONSTANTS_DESCRIPTOR, null, null)
+        .visitEnd();
+    classWriter
+        .visitField(ACC_PRIVATE | ACC_FINAL, PARAMETERS, CONSTANTS_DESCRIPTOR, null, null)
+        .visitEnd();
+    writeConstructor();
+  }
+
+  /**
+   * Create a compiled {@link Predicator} for the given {@code condition}.
+   *
+   * @param condition the parsed form of a where clause, may be null
+   * @return a predicator which applies the given {@code condition}, if the condition is null then
+   *     the predicator matches everything
+   */
+  public static Predicator toPredicator(Condition condition) {
+    return toPreparedPredicator(condition).bind(Parameters.NONE);
+  }
+
+  /**
+   * Create a compiled {@link PreparedExpression} for the given {@code condition}. The class is
+   * generated once, binding creates a new instance of that class.
+   *
+   * @param condition the parsed form of a where clause, may be null
+   * @return a prepared predicator which applies the given {@code condition}
+   */
+  public static PreparedExpression<Predicator> toPreparedPredicator(Condition condition) {
+    Compiler compiler = new Compiler(Predicator.class);
+    compiler.writePredicate(ACC_PUBLIC, "isMatched", condition);
+    // writing an element method may discover further element methods e.g. for a[*].b[*].c
+    for (int i = 0; i < compiler.elementCriteria.size(); i++) {
+      compiler.writePredicate(
+          ACC_PRIVATE, ELEMENT_METHOD_PREFIX + i, compiler.elementCriteria.get(i));
+    }
+    return compiler.prepare(Predicator.class);
+  }
+
+  /**
+   * Create a compiled {@link Projector} for the given {@code projections}.
+   *
+   * @param projections the parsed form of a select clause
+   * @return a projector which applies the given {@code projections}, if there are no projections
+   *     then the projector returns its input as-is
+   */
+  public static Projector toProjector(List<Projection> projections) {
+    return toPreparedProjector(projections).bind(Parameters.NONE);
+  }
+
+  /**
+   * Create a compiled {@link PreparedExpression} for the given {@code projections}. The class is
+   * generated once, binding creates a new instance of that class.
+   *
+   * @param projections the parsed form of a select clause
+   * @return a prepared projector which applies the given {@code projections}
+   */
+  public static PreparedExpression<Projector> toPreparedProjector(List<Projection> projections) {
+    Compiler compiler = new Compiler(Projector.class);
+    compiler.writeProjection(projections);
+    return compiler.prepare(Projector.class);
+  }
+
+  private void writeConstructor() {
+    MethodVisitor mv =
+        classWriter.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null);
+    mv.visitCode();
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitVarInsn(ALOAD, 1);
+    mv.visitFieldInsn(PUTFIELD, className, CONSTANTS, CONSTANTS_DESCRIPTOR);
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitVarInsn(ALOAD, 2);
+    mv.visitFieldInsn(PUTFIELD, className, PARAMETERS, CONSTANTS_DESCRIPTOR);
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  private void writePredicate(int access, String name, Condition condition) {
+    MethodVisitor mv = classWriter.visitMethod(access, name, PREDICATE_DESCRIPTOR, null, null);
+    mv.visitCode();
+    nextLocal = FIRST_FREE_LOCAL;
+    if (condition == null) {
+      mv.visitInsn(ICONST_1);
+      mv.visitInsn(IRETURN);
+    } else {
+      Label unmatched = new Label();
+      jumpIfFalse(mv, condition, unmatched);
+      mv.visitInsn(ICONST_1);
+      mv.visitInsn(IRETURN);
+      mv.visitLabel(unmatched);
+      mv.visitInsn(ICONST_0);
+      mv.visitInsn(IRETURN);
+    }
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  private void writeProjection(List<Projection> projections) {
+    MethodVisitor mv =
+        classWriter.visitMethod(
+            ACC_PUBLIC, "project", "(Ljava/lang/Object;)Ljava/util/Map;", null, null);
+    mv.visitCode();
+    nextLocal = FIRST_FREE_LOCAL;
+    if (projections.isEmpty()) {
+      mv.visitVarInsn(ALOAD, GIVEN);
+      mv.visitTypeInsn(CHECKCAST, MAP);
+    } else {
+      String linkedHashMap = Type.getInternalName(LinkedHashMap.class);
+      mv.visitTypeInsn(NEW, linkedHashMap);
+      mv.visitInsn(DUP);
+      mv.visitMethodInsn(INVOKESPECIAL, linkedHashMap, "<init>", "()V", false);
+      for (Projection projection : projections) {
+        mv.visitInsn(DUP);
+        mv.visitLdcInsn(projection.getAlias());
+        writeOperand(mv, projection.getOperand());
+        mv.visitMethodInsn(
+            INVOKEINTERFACE,
+            MAP,
+            "put",
+            "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;",
+            true);
+        mv.visitInsn(POP);
+      }
+    }
+    mv.visitInsn(ARETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  private void jumpIfFalse(MethodVisitor mv, Condition condition, Label target) {
+    if (condition instanceof Conjunction) {
+      Conjunction conjunction = (Conjunction) condition;
+      List<Condition> members = conjunction.getConditions();
+      if (conjunction.getType() == Conjunction.Type.AND) {
+        for (Condition member : members) {
+          jumpIfFalse(mv, member, target);
+        }
+      } else {
+        Label matched = new Label();
+        for (int i = 0; i < members.size() - 1; i++) {
+          jumpIfTrue(mv, members.get(i), matched);
+        }
+        jumpIfFalse(mv, members.get(members.size() - 1), target);
+        mv.visitLabel(matched);
+      }
+    } else if (condition instanceof Negation) {
+      jumpIfTrue(mv, ((Negation) condition).getCondition(), target);
+    } else {
+      writeCriterion(mv, (Criterion) condition);
+      mv.visitJumpInsn(IFEQ, target);
+    }
+  }
+
+  private void jumpIfTrue(MethodVisitor mv, Condition condition, Label target) {
+    if (condition instanceof Conjunction) {
+      Conjunction conjunction = (Conjunction) condition;
+      List<Condition> members = conjunction.getConditions();
+      if (conjunction.getType() == Conjunction.Type.OR) {
+        for (Condition member : members) {
+          jumpIfTrue(mv, member, target);
+        }
+      } else {
+        Label unmatched = new Label();
+        for (int i = 0; i < members.size() - 1; i++) {
+          jumpIfFalse(mv, members.get(i), unmatched);
+        }
+        jumpIfTrue(mv, members.get(members.size() - 1), target);
+        mv.visitLabel(unmatched);
+      }
+    } else if (condition instanceof Negation) {
+      jumpIfFalse(mv, ((Negation) condition).getCondition(), target);
+    } else {
+      writeCriterion(mv, (Criterion) condition);
+      mv.visitJumpInsn(IFNE, target);
+    }
+  }
+
+  /** Writes the code for the given {@code criterion}, leaving a boolean on the stack. */
+  private void writeCriterion(MethodVisitor mv, Criterion criterion) {
+    Operand subject = criterion.getSubject();
+    if (subject instanceof FieldReference && ((FieldReference) subject).hasAnyElement()) {
+      writeAnyElement(mv, criterion, (FieldReference) subject);
+      return;
+    }
+
+    switch (criterion.getOperator()) {
+      case EQUAL:
+        writeEquality(mv, subject, criterion.getArgument());
+        break;
+      case NOT_EQUAL:
+        writeEquality(mv, subject, criterion.getArgument());
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IXOR);
+        break;
+      case LESS_THAN:
+        writeOperation(mv, "isLessThan", subject, criterion.getArgument());
+        break;
+      case LESS_THAN_OR_EQUAL:
+        writeOperation(mv, "isLessThanOrEqual", subject, criterion.getArgument());
+        break;
+      case GREATER_THAN:
+        writeOperation(mv, "isGreaterThan", subject, criterion.getArgument());
+        break;
+      case GREATER_THAN_OR_EQUAL:
+        writeOperation(mv, "isGreaterThanOrEqual", subject, criterion.getArgument());
+        break;
+      case IN:
+        writeIn(mv, subject, criterion.getArguments());
+        break;
+      case LIKE:
+      case ILIKE:
+        writeOperand(mv, subject);
+        writeConstant(mv, Interpreter.toPattern(criterion), Pattern.class);
+        mv.visitMethodInsn(
+            INVOKESTATIC,
+            OPERATIONS,
+            "isLike",
+            "(Ljava/lang/Object;Ljava/util/regex/Pattern;)Z",
+            false);
+        break;
+      case IS_NULL:
+        writeOperand(mv, subject);
+        writeBoolean(mv, IFNULL);
+        break;
+      default:
+        writeBetween(mv, subject, criterion.getArguments());
+    }
+  }
+
+  /**
+   * A criterion such as {@code items[*].quantity = 10} is true if <i>any</i> element of {@code
+   * items} has a {@code quantity} of 10. The criterion is rewritten relative to the elements i.e.
+   * {@code quantity = 10} and compiled into its own method which is invoked for each element.
+   */
+  private void writeAnyElement(MethodVisitor mv, Criterion criterion, FieldReference subject) {
+    int position = subject.indexOfAnyElement();
+    FieldReference collection = subject.subPath(0, position);
+    FieldReference element = subject.subPath(position + 1, subject.getSegments().size());
+
+    String elementMethod = ELEMENT_METHOD_PREFIX + elementCriteria.size();
+    elementCriteria.add(new Criterion(element, criterion.getOperator(), criterion.getArguments()));
+
+    String iterable = Type.getInternalName(Iterable.class);
+    String iterator = Type.getInternalName(Iterator.class);
+    int candidates = nextLocal++;
+    Label loop = new Label();
+    Label unmatched = new Label();
+    Label end = new Label();
+
+    writeOperand(mv, collection);
+    mv.visitVarInsn(ASTORE, candidates);
+    mv.visitVarInsn(ALOAD, candidates);
+    mv.visitTypeInsn(INSTANCEOF, iterable);
+    mv.visitJumpInsn(IFEQ, unmatched);
+    mv.visitVarInsn(ALOAD, candidates);
+    mv.visitTypeInsn(CHECKCAST, iterable);
+    mv.visitMethodInsn(INVOKEINTERFACE, iterable, "iterator", "()Ljava/util/Iterator;", true);
+    mv.visitVarInsn(ASTORE, candidates);
+
+    mv.visitLabel(loop);
+    mv.visitVarInsn(ALOAD, candidates);
+    mv.visitTypeInsn(CHECKCAST, iterator);
+    mv.visitMethodInsn(INVOKEINTERFACE, iterator, "hasNext", "()Z", true);
+    mv.visitJumpInsn(IFEQ, unmatched);
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitVarInsn(ALOAD, candidates);
+    mv.visitTypeInsn(CHECKCAST, iterator);
+    mv.visitMethodInsn(INVOKEINTERFACE, iterator, "next", "()Ljava/lang/Object;", true);
+    mv.visitMethodInsn(INVOKESPECIAL, className, elementMethod, PREDICATE_DESCRIPTOR, false);
+    mv.visitJumpInsn(IFEQ, loop);
+    mv.visitInsn(ICONST_1);
+    mv.visitJumpInsn(GOTO, end);
+
+    mv.visitLabel(unmatched);
+    mv.visitInsn(ICONST_0);
+    mv.visitLabel(end);
+  }
+
+  private void writeEquality(MethodVisitor mv, Operand subject, Operand argument) {
+    if (argument instanceof Literal) {
+      Object expected = ((Literal) argument).getValue();
+      if (expected == null) {
+        writeOperand(mv, subject);
+        writeBoolean(mv, IFNULL);
+        return;
+      } else if (expected instanceof String || expected instanceof Boolean) {
+        // these can only ever equal an instance of the same type so there is no need to coerce
+        writeLiteral(mv, expected);
+        writeOperand(mv, subject);
+        mv.visitMethodInsn(INVOKEVIRTUAL, OBJECT, "equals", "(Ljava/lang/Object;)Z", false);
+        return;
+      }
+    }
+    writeOperation(mv, "isEqual", subject, argument);
+  }
+
+  private void writeIn(MethodVisitor mv, Operand subject, List<Operand> arguments) {
+    if (arguments.stream().allMatch(a -> a instanceof Literal)) {
+      Object[] candidates = arguments.stream().map(a -> ((Literal) a).getValue()).toArray();
+      if (candidates.length > 1 && Arrays.stream(candidates).allMatch(c -> c instanceof String)) {
+        writeConstant(mv, new HashSet<>(Arrays.asList(candidates)), Set.class);
+        writeOperand(mv, subject);
+        mv.visitMethodInsn(
+            INVOKEINTERFACE,
+            Type.getInternalName(Set.class),
+            "contains",
+            "(Ljava/lang/Object;)Z",
+            true);
+        return;
+      }
+      writeOperand(mv, subject);
+      writeConstant(mv, candidates, Object[].class);
+    } else {
+      writeOperand(mv, subject);
+      writeInt(mv, arguments.size());
+      mv.visitTypeInsn(ANEWARRAY, OBJECT);
+      for (int i = 0; i < arguments.size(); i++) {
+        mv.visitInsn(DUP);
+        writeInt(mv, i);
+        writeOperand(mv, arguments.get(i));
+        mv.visitInsn(AASTORE);
+      }
+    }
+    mv.visitMethodInsn(
+        INVOKESTATIC, OPERATIONS, "isIn", "(Ljava/lang/Object;[Ljava/lang/Object;)Z", false);
+  }
+
+  private void writeBetween(MethodVisitor mv, Operand subject, List<Operand> range) {
+    int value = nextLocal++;
+    Label unmatched = new Label();
+    Label end = new Label();
+
+    writeOperand(mv, subject);
+    mv.visitVarInsn(ASTORE, value);
+    mv.visitVarInsn(ALOAD, value);
+    writeOperand(mv, range.get(0));
+    mv.visitMethodInsn(
+        INVOKESTATIC, OPERATIONS, "isGreaterThanOrEqual", OPERATION_DESCRIPTOR, false);
+    mv.visitJumpInsn(IFEQ, unmatched);
+    mv.visitVarInsn(ALOAD, value);
+    writeOperand(mv, range.get(1));
+    mv.visitMethodInsn(INVOKESTATIC, OPERATIONS, "isLessThanOrEqual", OPERATION_DESCRIPTOR, false);
+    mv.visitJumpInsn(GOTO, end);
+    mv.visitLabel(unmatched);
+    mv.visitInsn(ICONST_0);
+    mv.visitLabel(end);
+  }
+
+  private void writeOperation(MethodVisitor mv, String operation, Operand left, Operand right) {
+    writeOperand(mv, left);
+    writeOperand(mv, right);
+    mv.visitMethodInsn(INVOKESTATIC, OPERATIONS, operation, OPERATION_DESCRIPTOR, false);
+  }
+
+  /** Converts the reference on top of the stack into a boolean using the given jump. */
+  private void writeBoolean(MethodVisitor mv, int jumpIfTrue) {
+    Label matched = new Label();
+    Label end = new Label();
+    mv.visitJumpInsn(jumpIfTrue, matched);
+    mv.visitInsn(ICONST_0);
+    mv.visitJumpInsn(GOTO, end);
+    mv.visitLabel(matched);
+    mv.visitInsn(ICONST_1);
+    mv.visitLabel(end);
+  }
+
+  /** Writes the code for the given {@code operand}, leaving its value on the stack. */
+  private void writeOperand(MethodVisitor mv, Operand operand) {
+    if (operand instanceof Literal) {
+      writeLiteral(mv, ((Literal) operand).getValue());
+    } else if (operand instanceof FieldReference) {
+      writeFieldReference(mv, (FieldReference) operand);
+    } else if (operand instanceof Parameter) {
+      writeParameter(mv, (Parameter) operand);
+    } else {
+      Arithmetic arithmetic = (Arithmetic) operand;
+      writeOperand(mv, arithmetic.getLeft());
+      writeOperand(mv, arithmetic.getRight());
+      mv.visitMethodInsn(
+          INVOKESTATIC,
+          OPERATIONS,
+          arithmetic.getOperator().name().toLowerCase(Locale.ROOT),
+          ARITHMETIC_DESCRIPTOR,
+          false);
+    }
+  }
+
+  private void writeFieldReference(MethodVisitor mv, FieldReference reference) {
+    mv.visitVarInsn(ALOAD, GIVEN);
+    for (FieldReference.Segment segment : reference.getSegments()) {
+      switch (segment.getType()) {
+        case PROPERTY:
+          {
+            // the fast path is a direct Map.get, anything else (including null) goes through the
+            // null safe, list spreading Operations.property
+            Label notAMap = new Label();
+            Label end = new Label();
+            mv.visitInsn(DUP);
+            mv.visitTypeInsn(INSTANCEOF, MAP);
+            mv.visitJumpInsn(IFEQ, notAMap);
+            mv.visitTypeInsn(CHECKCAST, MAP);
+            mv.visitLdcInsn(segment.getName());
+            mv.visitMethodInsn(
+                INVOKEINTERFACE, MAP, "get", "(Ljava/lang/Object;)Ljava/lang/Object;", true);
+            mv.visitJumpInsn(GOTO, end);
+            mv.visitLabel(notAMap);
+            mv.visitLdcInsn(segment.getName());
+            mv.visitMethodInsn(
+                INVOKESTATIC,
+                OPERATIONS,
+                "property",
+                "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;",
+                false);
+            mv.visitLabel(end);
+            break;
+          }
+        case INDEX:
+          writeInt(mv, segment.getIndex());
+          mv.visitMethodInsn(
+              INVOKESTATIC,
+              OPERATIONS,
+              "element",
+              "(Ljava/lang/Object;I)Ljava/lang/Object;",
+              false);
+          break;
+        default:
+          {
+            // 'any element' of a list is the list itself, subsequent property reads will spread
+            // across its elements
+            Label isAList = new Label();
+            mv.visitInsn(DUP);
+            mv.visitTypeInsn(INSTANCEOF, LIST);
+            mv.visitJumpInsn(IFNE, isAList);
+            mv.visitInsn(POP);
+            mv.visitInsn(ACONST_NULL);
+            mv.visitLabel(isAList);
+          }
+      }
+    }
+  }
+
+  private void writeLiteral(MethodVisitor mv, Object value) {
+    if (value == null) {
+      mv.visitInsn(ACONST_NULL);
+    } else if (value instanceof String) {
+      mv.visitLdcInsn(value);
+    } else if (value instanceof Boolean) {
+      mv.visitFieldInsn(
+          GETSTATIC,
+          "java/lang/Boolean",
+          (Boolean) value ? "TRUE" : "FALSE",
+          "Ljava/lang/Boolean;");
+    } else if (value instanceof Integer) {
+      writeInt(mv, (Integer) value);
+      mv.visitMethodInsn(
+          INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
+    } else if (value instanceof Long) {
+      mv.visitLdcInsn(value);
+      mv.visitMethodInsn(INVOKESTATIC, "java/lang/Long", "valueOf", "(J)Ljava/lang/Long;", false);
+    } else {
+      writeConstant(mv, value, value.getClass());
+    }
+  }
+
+  private void writeConstant(MethodVisitor mv, Object value, Class<?> type) {
+    int index = constants.size();
+    constants.add(value);
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitFieldInsn(GETFIELD, className, CONSTANTS, CONSTANTS_DESCRIPTOR);
+    writeInt(mv, index);
+    mv.visitInsn(AALOAD);
+    mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+  }
+
+  private void writeParameter(MethodVisitor mv, Parameter parameter) {
+    // a parameter which appears more than once in the expression occupies a single slot
+    int index = parameters.indexOf(parameter);
+    if (index < 0) {
+      index = parameters.size();
+      parameters.add(parameter);
+    }
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitFieldInsn(GETFIELD, className, PARAMETERS, CONSTANTS_DESCRIPTOR);
+    writeInt(mv, index);
+    mv.visitInsn(AALOAD);
+  }
+
+  private void writeInt(MethodVisitor mv, int value) {
+    if (value >= -1 && value <= 5) {
+      mv.visitInsn(ICONST_0 + value);
+    } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+      mv.visitIntInsn(BIPUSH, value);
+    } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+      mv.visitIntInsn(SIPUSH, value);
+    } else {
+      mv.visitLdcInsn(value);
+    }
+  }
+
+  private <T> PreparedExpression<T> prepare(Class<T> type) {
+    classWriter.visitEnd();
+    Class<?> clazz = ClassDefiner.define(className.replace('/', '.'), classWriter.toByteArray());
+    Constructor<?> constructor;
+    try {
+      constructor = clazz.getConstructor(Object[].class, Object[].class);
+    } catch (NoSuchMethodException ex) {
+      throw new CompilerException(
+          String.format("Exception creating the %s class instance!", type.getSimpleName()), ex);
+    }
+
+    Object[] constantValues = constants.toArray();
+    if (parameters.isEmpty()) {
+      // nothing to bind so every binding can share one instance
+      T instance = newInstance(type, constructor, constantValues, new Object[0]);
+      return PreparedExpression.of(0, values -> instance);
+    }
+    Parameter[] slots = parameters.toArray(new Parameter[0]);
+    return PreparedExpression.of(
+        ParameterBinder.countPositional(parameters),
+        values -> {
+          Object[] parameterValues = new Object[slots.length];
+          for (int i = 0; i < slots.length; i++) {
+            parameterValues[i] = values.get(slots[i]);
+          }
+          return newInstance(type, constructor, constantValues, parameterValues);
+        });
+  }
+
+  private static <T> T newInstance(
+      Class<T> type, Constructor<?> constructor, Object[] constants, Object[] parameters) {
+    try {
+      return type.cast(constructor.newInstance(constants, parameters));
+    } catch (InstantiationException | IllegalAccessException | InvocationTargetException ex) {
+      throw new CompilerException(
+          String.format("Exception creating the %s class instance!", type.getSimpleName()), ex);
+    }
+  }
+
+  /**
+   * Computes stack map frames without loading any classes. The generated code only ever merges
+   * values which it subsequently treats as {@code Object} (or re-casts) so {@code Object} is always
+   * a safe common super class.
+   */
+  private static final class FramesWriter extends ClassWriter {
+
+    FramesWriter() {
+      super(ClassWriter.COMPUTE_FRAMES);
+    }
+
+    @Override
+    protected String getCommonSuperClass(String type1, String type2) {
+      return OBJECT;
+    }
+  }
+}
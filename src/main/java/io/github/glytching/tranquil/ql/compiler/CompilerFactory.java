@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.compiler;
+
+import io.github.glytching.tranquil.cache.Cache;
+import io.github.glytching.tranquil.cache.CachePolicy;
+import io.github.glytching.tranquil.cache.CacheProvider;
+import io.github.glytching.tranquil.ql.CachingExpressionFactory;
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.PreparedExpression;
+import io.github.glytching.tranquil.ql.Projector;
+import io.github.glytching.tranquil.ql.parser.SelectClauseModelParser;
+import io.github.glytching.tranquil.ql.parser.WhereClauseModelParser;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compiles expressions straight to JVM bytecode. Expressions are parsed into the engine neutral
+ * model and that model is handed to the {@link Compiler}. Compared with the {@link
+ * io.github.glytching.tranquil.ql.groovy.GroovyFactory} there is no Groovy compilation, no
+ * metaclass registry and no dynamic dispatch. Compared with the {@link
+ * io.github.glytching.tranquil.ql.interpreter.InterpreterFactory} creating an expression is a
+ * little slower but applying it is faster since the JIT can inline the whole expression.
+ */
+public class CompilerFactory extends CachingExpressionFactory {
+  private static final Logger logger = Logger.getLogger(CompilerFactory.class.getName());
+
+  private final SelectClauseModelParser selectClauseParser;
+  private final WhereClauseModelParser whereClauseParser;
+
+  public CompilerFactory(int cacheSize) {
+    this(cacheSize, CachePolicy.LRU);
+  }
+
+  public CompilerFactory(int cacheSize, CachePolicy cachePolicy) {
+    this(
+        new SelectClauseModelParser(),
+        new WhereClauseModelParser(),
+        new CacheProvider(cacheSize, cachePolicy).get());
+  }
+
+  public CompilerFactory(
+      SelectClauseModelParser selectClauseParser,
+      WhereClauseModelParser whereClauseParser,
+      Cache cache) {
+    super(cache);
+    this.selectClauseParser = selectClauseParser;
+    this.whereClauseParser = whereClauseParser;
+  }
+
+  /**
+   * Delegates to the {@link WhereClauseModelParser} to parse the given expression and then to the
+   * {@link Compiler} to generate a class for the parsed expression.
+   *
+   * @param expression a 'where clause'
+   * @return a compiled implementation of our Predicator, specific to the given expression
+   */
+  @Override
+  protected Predicator compilePredicator(String expression) throws CompilerException {
+    Predicator predicator = Compiler.toPredicator(whereClauseParser.parse(expression));
+
+    logger.log(
+        Level.FINEST,
+        "Created the class: [{0}] from the expression: [{1}]",
+        new Object[] {predicator.getClass().getName(), expression});
+
+    return predicator;
+  }
+
+  /**
+   * Delegates to the {@link SelectClauseModelParser} to parse the given expression and then to the
+   * {@link Compiler} to generate a class for the parsed expression.
+   *
+   * @param expression a 'select clause'
+   * @return a compiled implementation of our Projector, specific to the given expression
+   */
+  @Override
+  protected Projector compileProjector(String expression) throws CompilerException {
+    Projector projector = Compiler.toProjector(selectClauseParser.parse(expression));
+
+    logger.log(
+        Level.FINEST,
+        "Created the class: [{0}] from the expression: [{1}]",
+        new Object[] {projector.getClass().getName(), expression});
+
+    return projector;
+  }
+
+  /**
+   * Delegates to the {@link WhereClauseModelParser} to parse the given expression and then to the
+   * {@link Compiler} to prepare the parsed expression for binding.
+   *
+   * @param expression a 'where clause' which may contain parameters
+   * @return a prepared implementation of our Predicator, specific to the given expression
+   */
+  @Override
+  protected PreparedExpression<Predicator> compilePreparedPredicator(String expression) {
+    PreparedExpression<Predicator> prepared =
+        Compiler.toPreparedPredicator(whereClauseParser.parse(expression));
+
+    logger.log(Level.FINEST, "Prepared a predicator from the expression: [{0}]", expression);
+
+    return prepared;
+  }
+
+  /**
+   * Delegates to the {@link SelectClauseModelParser} to parse the given expression and then to the
+   * {@link Compiler} to prepare the parsed expression for binding.
+   *
+   * @param expression a 'select clause' which may contain parameters
+   * @return a prepared implementation of our Projector, specific to the given expression
+   */
+  @Override
+  protected PreparedExpression<Projector> compilePreparedProjector(String expression) {
+    PreparedExpression<Projector> prepared =
+        Compiler.toPreparedProjector(selectClauseParser.parse(expression));
+
+    logger.log(Level.FINEST, "Prepared a projector from the expression: [{0}]", expression);
+
+    return prepared;
+  }
+}
@@ -20,7 +20,9 @@ import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyCodeSource;
 import groovy.lang.GroovySystem;
 import io.github.glytching.tranquil.cache.Cache;
+import io.github.glytching.tranquil.cache.CachePolicy;
 import io.github.glytching.tranquil.cache.CacheProvider;
+import io.github.glytching.tranquil.ql.CachingExpressionFactory;
 import io.github.glytching.tranquil.ql.Predicator;
 import io.github.glytching.tranquil.ql.Projector;
 import io.github.glytching.tranquil.ql.parser.SelectClauseParser;
@@ -35,20 +37,23 @@ import java.util.logging.Logger;
  * expressions Tranquil has to create some sort of dynamic <i>executable</i>, this is where Groovy
  * comes in.
  */
-public class GroovyFactory {
+public class GroovyFactory extends CachingExpressionFactory {
   private static final Logger logger = Logger.getLogger(GroovyFactory.class.getName());
 
   private final GroovyClassLoader groovyClassLoader;
   private final GroovySelectClauseParser selectClauseParser;
   private final GroovyWhereClauseParser whereClauseParser;
-  private final Cache cache;
 
   public GroovyFactory(int cacheSize) {
+    this(cacheSize, CachePolicy.LRU);
+  }
+
+  public GroovyFactory(int cacheSize, CachePolicy cachePolicy) {
     this(
         new GroovyClassLoader(),
         new GroovySelectClauseParser(),
         new GroovyWhereClauseParser(),
-        new CacheProvider(cacheSize).get());
+        new CacheProvider(cacheSize, cachePolicy).get());
   }
 
   public GroovyFactory(
@@ -56,10 +61,10 @@ public class GroovyFactory {
       GroovySelectClauseParser selectClauseParser,
       GroovyWhereClauseParser whereClauseParser,
       Cache cache) {
+    super(cache);
     this.groovyClassLoader = groovyClassLoader;
     this.selectClauseParser = selectClauseParser;
     this.whereClauseParser = whereClauseParser;
-    this.cache = cache;
   }
 
   /**
@@ -70,21 +75,16 @@ public class GroovyFactory {
    * @param expression a 'where clause'
    * @return a Groovy implementation of our Predicator, specific to the given expression
    */
-  public Predicator createPredicator(String expression) throws GroovyFactoryException {
-    Predicator predicator = cache.get(Predicator.class, expression);
-    if (predicator == null) {
-      String script = whereClauseParser.parse(expression);
+  @Override
+  protected Predicator compilePredicator(String expression) throws GroovyFactoryException {
+    String script = whereClauseParser.parse(expression);
 
-      logger.log(
-          Level.FINEST,
-          "Created the groovy class: [{0}] from the expression: [{1}]",
-          new Object[] {script, expression});
+    logger.log(
+        Level.FINEST,
+        "Created the groovy class: [{0}] from the expression: [{1}]",
+        new Object[] {script, expression});
 
-      predicator = create(Predicator.class, script);
-      cache.put(expression, predicator);
-    }
-
-    return predicator;
+    return create(Predicator.class, script);
   }
 
   /**
@@ -95,24 +95,23 @@ public class GroovyFactory {
    * @param expression a 'project clause'
    * @return a Groovy implementation of our Projector, specific to the given expression
    */
-  public Projector createProjector(String expression) throws GroovyFactoryException {
-    Projector projector = cache.get(Projector.class, expression);
-    if (projector == null) {
-      String script = selectClauseParser.parse(expression);
+  @Override
+  protected Projector compileProjector(String expression) throws GroovyFactoryException {
+    String script = selectClauseParser.parse(expression);
 
-      logger.log(
-          Level.FINEST,
-          "Created the groovy class: [{0}] from the expression: [{1}]",
-          new Object[] {script, expression});
+    logger.log(
+        Level.FINEST,
+        "Created the groovy class: [{0}] from the expression: [{1}]",
+        new Object[] {script, expression});
 
-      projector = create(Projector.class, script);
-      cache.put(expression, projector);
-    }
-    return projector;
+    return create(Projector.class, script);
   }
 
+  // the class loader's cache and the metaclass registry are cleared after each compile so compiles
+  // are serialised, this factory may be shared between threads
   @SuppressWarnings("unchecked")
-  private <T> T create(final Class<T> type, final String script) throws GroovyFactoryException {
+  private synchronized <T> T create(final Class<T> type, final String script)
+      throws GroovyFactoryException {
     String name = UUID.randomUUID().toString();
     GroovyCodeSource groovyCodeSource = new GroovyCodeSource(script, name, "/groovy/shell");
     groovyCodeSource.setCachable(true);
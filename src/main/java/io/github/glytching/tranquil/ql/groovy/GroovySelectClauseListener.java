@@ -1,6 +1,7 @@
 package io.github.glytching.tranquil.ql.groovy;
 
 import io.github.glytching.tranquil.antlr.SQLParser;
+import io.github.glytching.tranquil.exception.TranquilParserException;
 import io.github.glytching.tranquil.ql.TranquilLoggingListener;
 import io.github.glytching.tranquil.ql.model.Projection;
 import org.antlr.v4.runtime.misc.NotNull;
@@ -45,6 +46,13 @@ public class GroovySelectClauseListener extends TranquilLoggingListener {
   private boolean inColumnReference = false;
   private boolean skipNextTerminal = false;
 
+  @Override
+  public void enterParameter_specification(SQLParser.Parameter_specificationContext ctx) {
+    super.enterParameter_specification(ctx);
+    throw new TranquilParserException(
+        "Failed to parse expression, parameters are not supported by the Groovy engine!");
+  }
+
   @Override
   public void enterColumn_reference(@NotNull SQLParser.Column_referenceContext ctx) {
     super.enterColumn_reference(ctx);
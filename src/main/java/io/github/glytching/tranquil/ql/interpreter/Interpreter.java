@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.interpreter;
+
+import io.github.glytching.tranquil.exception.TranquilException;
+import io.github.glytching.tranquil.exception.TranquilParserException;
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.PreparedExpression;
+import io.github.glytching.tranquil.ql.Projector;
+import io.github.glytching.tranquil.ql.model.Arithmetic;
+import io.github.glytching.tranquil.ql.model.Condition;
+import io.github.glytching.tranquil.ql.model.Conjunction;
+import io.github.glytching.tranquil.ql.model.Criterion;
+import io.github.glytching.tranquil.ql.model.FieldReference;
+import io.github.glytching.tranquil.ql.model.Literal;
+import io.github.glytching.tranquil.ql.model.Negation;
+import io.github.glytching.tranquil.ql.model.Operand;
+import io.github.glytching.tranquil.ql.model.Parameter;
+import io.github.glytching.tranquil.ql.model.ParameterBinder;
+import io.github.glytching.tranquil.ql.model.Projection;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the parsed form of an expression into a tree of {@link Predicator}s, {@link Projector}s and
+ * {@link Evaluator}s. Each node in the resulting tree is created once, with any constant work (such
+ * as compiling a {@code like} pattern or hashing the values in an {@code in} list) done up front so
+ * that evaluating a node against an input involves no parsing, no reflection and no dynamic
+ * dispatch beyond the tree itself.
+ */
+public final class Interpreter {
+
+  private static final Predicator MATCH_ALL = given -> true;
+
+  private Interpreter() {}
+
+  /**
+   * Create a {@link Predicator} for the given {@code condition}.
+   *
+   * @param condition the parsed form of a where clause, may be null
+   * @return a predicator which applies the given {@code condition}, if the condition is null then
+   *     the predicator matches everything
+   */
+  public static Predicator toPredicator(Condition condition) {
+    if (condition == null) {
+      return MATCH_ALL;
+    } else if (condition instanceof Conjunction) {
+      return toPredicator((Conjunction) condition);
+    } else if (condition instanceof Negation) {
+      Predicator negated = toPredicator(((Negation) condition).getCondition());
+      return given -> !negated.isMatched(given);
+    } else {
+      return toPredicator((Criterion) condition);
+    }
+  }
+
+  /**
+   * Create a {@link Projector} for the given {@code projections}.
+   *
+   * @param projections the parsed form of a select clause
+   * @return a projector which applies the given {@code projections}, if there are no projections
+   *     then the projector returns its input as-is
+   */
+  @SuppressWarnings("unchecked")
+  public static Projector toProjector(List<Projection> projections) {
+    if (projections.isEmpty()) {
+      return given -> (Map<String, Object>) given;
+    }
+
+    String[] aliases = new String[projections.size()];
+    Evaluator[] evaluators = new Evaluator[projections.size()];
+    for (int i = 0; i < projections.size(); i++) {
+      aliases[i] = projections.get(i).getAlias();
+      evaluators[i] = toEvaluator(projections.get(i).getOperand());
+    }
+
+    return given -> {
+      Map<String, Object> projected = new LinkedHashMap<>();
+      for (int i = 0; i < aliases.length; i++) {
+        projected.put(aliases[i], evaluators[i].evaluate(given));
+      }
+      return projected;
+    };
+  }
+
+  /**
+   * Create a {@link PreparedExpression} for the given {@code condition}. Binding replaces the
+   * condition's parameters with the bound values and then interprets the result, so the parsed form
+   * is shared by every binding.
+   *
+   * @param condition the parsed form of a where clause, may be null
+   * @return a prepared predicator for the given {@code condition}
+   */
+  public static PreparedExpression<Predicator> toPreparedPredicator(Condition condition) {
+    List<Parameter> parameters = ParameterBinder.getParameters(condition);
+    if (parameters.isEmpty()) {
+      Predicator predicator = toPredicator(condition);
+      return PreparedExpression.of(0, values -> predicator);
+    }
+    return PreparedExpression.of(
+        ParameterBinder.countPositional(parameters),
+        values -> toPredicator(ParameterBinder.bind(condition, values::get)));
+  }
+
+  /**
+   * Create a {@link PreparedExpression} for the given {@code projections}. Binding replaces the
+   * projections' parameters with the bound values and then interprets the result, so the parsed
+   * form is shared by every binding.
+   *
+   * @param projections the parsed form of a select clause
+   * @return a prepared projector for the given {@code projections}
+   */
+  public static PreparedExpression<Projector> toPreparedProjector(List<Projection> projections) {
+    List<Parameter> parameters = ParameterBinder.getParameters(projections);
+    if (parameters.isEmpty()) {
+      Projector projector = toProjector(projections);
+      return PreparedExpression.of(0, values -> projector);
+    }
+    return PreparedExpression.of(
+        ParameterBinder.countPositional(parameters),
+        values -> toProjector(ParameterBinder.bind(projections, values::get)));
+  }
+
+  /**
+   * Create an {@link Evaluator} for the given {@code operand}.
+   *
+   * @param operand the parsed form of a value
+   * @return an evaluator for the given {@code operand}
+   */
+  public static Evaluator toEvaluator(Operand operand) {
+    if (operand instanceof Literal) {
+      Object value = ((Literal) operand).getValue();
+      return given -> value;
+    } else if (operand instanceof FieldReference) {
+      return toEvaluator((FieldReference) operand);
+    } else if (operand instanceof Parameter) {
+      // parameters are replaced by literals when they are bound so this parameter is unbound
+      throw new TranquilException(
+          String.format("No value has been bound to the parameter: [%s]!", operand));
+    } else {
+      return toEvaluator((Arithmetic) operand);
+    }
+  }
+
+  private static Evaluator toEvaluator(FieldReference reference) {
+    List<FieldReference.Segment> segments = reference.getSegments();
+    if (segments.size() == 1 && segments.get(0).getType() == FieldReference.Segment.Type.PROPERTY) {
+      // the most common case: a top level attribute
+      String name = segments.get(0).getName();
+      return given ->
+          given instanceof Map ? ((Map) given).get(name) : Operations.property(given, name);
+    }
+    return given -> Operations.resolve(given, reference);
+  }
+
+  private static Evaluator toEvaluator(Arithmetic arithmetic) {
+    Evaluator left = toEvaluator(arithmetic.getLeft());
+    Evaluator right = toEvaluator(arithmetic.getRight());
+    switch (arithmetic.getOperator()) {
+      case PLUS:
+        return given -> Operations.plus(left.evaluate(given), right.evaluate(given));
+      case MINUS:
+        return given -> Operations.minus(left.evaluate(given), right.evaluate(given));
+      case MULTIPLY:
+        return given -> Operations.multiply(left.evaluate(given), right.evaluate(given));
+      case DIVIDE:
+        return given -> Operations.divide(left.evaluate(given), right.evaluate(given));
+      default:
+        return given -> Operations.modulo(left.evaluate(given), right.evaluate(given));
+    }
+  }
+
+  private static Predicator toPredicator(Conjunction conjunction) {
+    Predicator[] members =
+        conjunction.getConditions().stream()
+            .map(Interpreter::toPredicator)
+            .toArray(Predicator[]::new);
+
+    if (conjunction.getType() == Conjunction.Type.AND) {
+      if (members.length == 2) {
+        Predicator first = members[0];
+        Predicator second = members[1];
+        return given -> first.isMatched(given) && second.isMatched(given);
+      }
+      return given -> {
+        for (Predicator member : members) {
+          if (!member.isMatched(given)) {
+            return false;
+          }
+        }
+        return true;
+      };
+    } else {
+      if (members.length == 2) {
+        Predicator first = members[0];
+        Predicator second = members[1];
+        return given -> first.isMatched(given) || second.isMatched(given);
+      }
+      return given -> {
+        for (Predicator member : members) {
+          if (member.isMatched(given)) {
+            return true;
+          }
+        }
+        return false;
+      };
+    }
+  }
+
+  private static Predicator toPredicator(Criterion criterion) {
+    Operand subject = criterion.getSubject();
+    if (subject instanceof FieldReference && ((FieldReference) subject).hasAnyElement()) {
+      return toAnyElementPredicator(criterion, (FieldReference) subject);
+    }
+
+    Evaluator value = toEvaluator(subject);
+    switch (criterion.getOperator()) {
+      case EQUAL:
+        return toEqualityPredicator(value, criterion.getArgument());
+      case NOT_EQUAL:
+        Predicator equality = toEqualityPredicator(value, criterion.getArgument());
+        return given -> !equality.isMatched(given);
+      case LESS_THAN:
+        {
+          Evaluator argument = toEvaluator(criterion.getArgument());
+          return given -> Operations.isLessThan(value.evaluate(given), argument.evaluate(given));
+        }
+      case LESS_THAN_OR_EQUAL:
+        {
+          Evaluator argument = toEvaluator(criterion.getArgument());
+          return given ->
+              Operations.isLessThanOrEqual(value.evaluate(given), argument.evaluate(given));
+        }
+      case GREATER_THAN:
+        {
+          Evaluator argument = toEvaluator(criterion.getArgument());
+          return given -> Operations.isGreaterThan(value.evaluate(given), argument.evaluate(given));
+        }
+      case GREATER_THAN_OR_EQUAL:
+        {
+          Evaluator argument = toEvaluator(criterion.getArgument());
+          return given ->
+              Operations.isGreaterThanOrEqual(value.evaluate(given), argument.evaluate(given));
+        }
+      case IN:
+        return toInPredicator(value, criterion.getArguments());
+      case LIKE:
+      case ILIKE:
+        {
+          Pattern pattern = toPattern(criterion);
+          return given -> Operations.isLike(value.evaluate(given), pattern);
+        }
+      case IS_NULL:
+        return given -> value.evaluate(given) == null;
+      default:
+        {
+          Evaluator lower = toEvaluator(criterion.getArguments().get(0));
+          Evaluator upper = toEvaluator(criterion.getArguments().get(1));
+          return given -> {
+            Object v = value.evaluate(given);
+            return Operations.isGreaterThanOrEqual(v, lower.evaluate(given))
+                && Operations.isLessThanOrEqual(v, upper.evaluate(given));
+          };
+        }
+    }
+  }
+
+  /**
+   * A criterion such as {@code items[*].quantity = 10} is true if <i>any</i> element of {@code
+   * items} has a {@code quantity} of 10. The criterion is rewritten relative to the elements i.e.
+   * {@code quantity = 10} and the resulting predicator is applied to each element in turn.
+   */
+  private static Predicator toAnyElementPredicator(Criterion criterion, FieldReference subject) {
+    int position = subject.indexOfAnyElement();
+    FieldReference collection = subject.subPath(0, position);
+    FieldReference element = subject.subPath(position + 1, subject.getSegments().size());
+
+    Predicator elementPredicator =
+        toPredicator(new Criterion(element, criterion.getOperator(), criterion.getArguments()));
+
+    return given -> {
+      Object candidates = Operations.resolve(given, collection);
+      if (candidates instanceof Iterable) {
+        for (Object candidate : (Iterable) candidates) {
+          if (elementPredicator.isMatched(candidate)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    };
+  }
+
+  private static Predicator toEqualityPredicator(Evaluator value, Operand argument) {
+    if (argument instanceof Literal) {
+      Object expected = ((Literal) argument).getValue();
+      if (expected == null) {
+        return given -> value.evaluate(given) == null;
+      } else if (expected instanceof String || expected instanceof Boolean) {
+        // these can only ever equal an instance of the same type
+        return given -> expected.equals(value.evaluate(given));
+      }
+      return given -> Operations.isEqual(value.evaluate(given), expected);
+    }
+    Evaluator other = toEvaluator(argument);
+    return given -> Operations.isEqual(value.evaluate(given), other.evaluate(given));
+  }
+
+  private static Predicator toInPredicator(Evaluator value, List<Operand> arguments) {
+    boolean allLiterals = arguments.stream().allMatch(a -> a instanceof Literal);
+    if (allLiterals) {
+      Object[] candidates = arguments.stream().map(a -> ((Literal) a).getValue()).toArray();
+      boolean allStrings =
+          arguments.stream().allMatch(a -> ((Literal) a).getValue() instanceof String);
+      if (allStrings && candidates.length > 1) {
+        Set<Object> hashed = new HashSet<>(List.of(candidates));
+        return given -> hashed.contains(value.evaluate(given));
+      }
+      return given -> Operations.isIn(value.evaluate(given), candidates);
+    }
+
+    Evaluator[] candidates =
+        arguments.stream().map(Interpreter::toEvaluator).toArray(Evaluator[]::new);
+    return given -> {
+      Object v = value.evaluate(given);
+      for (Evaluator candidate : candidates) {
+        if (Operations.isEqual(v, candidate.evaluate(given))) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+
+  /**
+   * Compiles the pattern for the given {@code like} or {@code ilike} criterion.
+   *
+   * @param criterion a pattern matching criterion
+   * @return the compiled pattern
+   * @throws TranquilParserException if the criterion's pattern is not a string literal
+   */
+  public static Pattern toPattern(Criterion criterion) {
+    Operand argument = criterion.getArgument();
+    if (!(argument instanceof Literal) || !(((Literal) argument).getValue() instanceof String)) {
+      throw new TranquilParserException(
+          String.format("The pattern in [%s] must be a string literal!", criterion));
+    }
+    String pattern = (String) ((Literal) argument).getValue();
+    return criterion.getOperator() == Criterion.Operator.ILIKE
+        ? Pattern.compile(pattern, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)
+        : Pattern.compile(pattern);
+  }
+}
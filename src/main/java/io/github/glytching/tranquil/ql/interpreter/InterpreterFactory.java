@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.interpreter;
+
+import io.github.glytching.tranquil.cache.Cache;
+import io.github.glytching.tranquil.cache.CachePolicy;
+import io.github.glytching.tranquil.cache.CacheProvider;
+import io.github.glytching.tranquil.ql.CachingExpressionFactory;
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.PreparedExpression;
+import io.github.glytching.tranquil.ql.Projector;
+import io.github.glytching.tranquil.ql.parser.SelectClauseModelParser;
+import io.github.glytching.tranquil.ql.parser.WhereClauseModelParser;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A pure Java alternative to the {@link io.github.glytching.tranquil.ql.groovy.GroovyFactory}.
+ * Expressions are parsed into the engine neutral model and that model is handed to the {@link
+ * Interpreter}. There is no class generation so a new expression is ready to use as soon as it has
+ * been parsed and there is no Groovy metaclass lookup when the expression is applied.
+ */
+public class InterpreterFactory extends CachingExpressionFactory {
+  private static final Logger logger = Logger.getLogger(InterpreterFactory.class.getName());
+
+  private final SelectClauseModelParser selectClauseParser;
+  private final WhereClauseModelParser whereClauseParser;
+
+  public InterpreterFactory(int cacheSize) {
+    this(cacheSize, CachePolicy.LRU);
+  }
+
+  public InterpreterFactory(int cacheSize, CachePolicy cachePolicy) {
+    this(
+        new SelectClauseModelParser(),
+        new WhereClauseModelParser(),
+        new CacheProvider(cacheSize, cachePolicy).get());
+  }
+
+  public InterpreterFactory(
+      SelectClauseModelParser selectClauseParser,
+      WhereClauseModelParser whereClauseParser,
+      Cache cache) {
+    super(cache);
+    this.selectClauseParser = selectClauseParser;
+    this.whereClauseParser = whereClauseParser;
+  }
+
+  /**
+   * Delegates to the {@link WhereClauseModelParser} to parse the given expression and then to the
+   * {@link Interpreter} to create an executable form of the parsed expression.
+   *
+   * @param expression a 'where clause'
+   * @return an interpreted implementation of our Predicator, specific to the given expression
+   */
+  @Override
+  protected Predicator compilePredicator(String expression) {
+    Predicator predicator = Interpreter.toPredicator(whereClauseParser.parse(expression));
+
+    logger.log(Level.FINEST, "Created a predicator from the expression: [{0}]", expression);
+
+    return predicator;
+  }
+
+  /**
+   * Delegates to the {@link SelectClauseModelParser} to parse the given expression and then to the
+   * {@link Interpreter} to create an executable form of the parsed expression.
+   *
+   * @param expression a 'select clause'
+   * @return an interpreted implementation of our Projector, specific to the given expression
+   */
+  @Override
+  protected Projector compileProjector(String expression) {
+    Projector projector = Interpreter.toProjector(selectClauseParser.parse(expression));
+
+    logger.log(Level.FINEST, "Created a projector from the expression: [{0}]", expression);
+
+    return projector;
+  }
+
+  /**
+   * Delegates to the {@link WhereClauseModelParser} to parse the given expression and then to the
+   * {@link Interpreter} to prepare the parsed expression for binding.
+   *
+   * @param expression a 'where clause' which may contain parameters
+   * @return a prepared implementation of our Predicator, specific to the given expression
+   */
+  @Override
+  protected PreparedExpression<Predicator> compilePreparedPredicator(String expression) {
+    PreparedExpression<Predicator> prepared =
+        Interpreter.toPreparedPredicator(whereClauseParser.parse(expression));
+
+    logger.log(Level.FINEST, "Prepared a predicator from the expression: [{0}]", expression);
+
+    return prepared;
+  }
+
+  /**
+   * Delegates to the {@link SelectClauseModelParser} to parse the given expression and then to the
+   * {@link Interpreter} to prepare the parsed expression for binding.
+   *
+   * @param expression a 'select clause' which may contain parameters
+   * @return a prepared implementation of our Projector, specific to the given expression
+   */
+  @Override
+  protected PreparedExpression<Projector> compilePreparedProjector(String expression) {
+    PreparedExpression<Projector> prepared =
+        Interpreter.toPreparedProjector(selectClauseParser.parse(expression));
+
+    logger.log(Level.FINEST, "Prepared a projector from the expression: [{0}]", expression);
+
+    return prepared;
+  }
+}
@@ -0,0 +1,386 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.interpreter;
+
+import io.github.glytching.tranquil.exception.TranquilException;
+import io.github.glytching.tranquil.ql.model.FieldReference;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The operations which an engine applies when evaluating an expression against a deserialized
+ * input. These mirror the Groovy engine's semantics wherever that is reasonable, so that switching
+ * engine does not change the results of a query:
+ *
+ * <ul>
+ *   <li>Field access is null safe and reading a property from a {@code List} reads that property
+ *       from each element of the list
+ *   <li>Numbers are compared by value regardless of their type so {@code 10 == 10.0} and a {@code
+ *       Double} read from the input equals the decimal literal with the same digits
+ *   <li>{@code like} is a regular expression <i>find</i> against the string form of the value
+ *   <li>{@code +} concatenates if either side is a string and dividing integers produces a decimal
+ * </ul>
+ *
+ * Where the Groovy engine would throw (e.g. ordering a string against a number) these operations
+ * are lenient: the comparison is simply false. Ordering comparisons against a null are also false.
+ */
+public final class Operations {
+
+  private static final int INCOMPARABLE = Integer.MIN_VALUE;
+  private static final int DIVISION_EXTRA_PRECISION = 10;
+  // a double or float of this magnitude or more may not be compared exactly against an integer
+  private static final double MAX_EXACT_DOUBLE = 0x1p53;
+
+  private Operations() {}
+
+  /**
+   * Resolves the given {@code reference} against the given {@code given}.
+   *
+   * @param given the root object
+   * @param reference the path to resolve
+   * @return the resolved value or null if any step on the path is missing
+   */
+  public static Object resolve(Object given, FieldReference reference) {
+    Object current = given;
+    for (FieldReference.Segment segment : reference.getSegments()) {
+      if (current == null) {
+        return null;
+      }
+      switch (segment.getType()) {
+        case PROPERTY:
+          current = property(current, segment.getName());
+          break;
+        case INDEX:
+          current = element(current, segment.getIndex());
+          break;
+        default:
+          // 'any element' of a list is the list itself, subsequent property reads will spread
+          // across its elements
+          current = current instanceof List ? current : null;
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Reads the named property from the given {@code target}. If the target is a {@code List} then
+   * the property is read from each (non null) element of that list.
+   *
+   * @param target the object to read from
+   * @param name the name of the property
+   * @return the property value or null if there is no such property
+   */
+  public static Object property(Object target, String name) {
+    if (target instanceof Map) {
+      return ((Map) target).get(name);
+    } else if (target instanceof List) {
+      List<?> elements = (List) target;
+      List<Object> values = new ArrayList<>(elements.size());
+      for (Object element : elements) {
+        if (element != null) {
+          values.add(property(element, name));
+        }
+      }
+      return values;
+    }
+    return null;
+  }
+
+  /**
+   * Reads the element at the given {@code index} from the given {@code target}. Negative indexes
+   * count back from the end of the list.
+   *
+   * @param target the list to read from
+   * @param index the position to read
+   * @return the element or null if the target is not a list or the index is out of bounds
+   */
+  public static Object element(Object target, int index) {
+    if (target instanceof List) {
+      List<?> elements = (List) target;
+      int position = index < 0 ? elements.size() + index : index;
+      return position >= 0 && position < elements.size() ? elements.get(position) : null;
+    }
+    return null;
+  }
+
+  /**
+   * Returns a key for the given {@code value} which can be hashed and sorted in place of the value.
+   * Two values which have keys are {@link #isEqual(Object, Object)} if and only if their keys are
+   * equal and, if both are numbers, they are ordered as their keys are ordered. So {@code 10},
+   * {@code 10L} and {@code 10.0} share a key but {@code 0.1f} and {@code 0.1} do not, since a
+   * {@code Float} is compared by its {@code double} value.
+   *
+   * @param value a value read from the input or a literal
+   * @return a {@code String}, a {@code Boolean} or a {@code BigDecimal} with no trailing zeros, or
+   *     null if the given value cannot be looked up exactly (for example it is a list, or a
+   *     floating point number which is too large to be compared exactly against an integer)
+   */
+  public static Object toLookupKey(Object value) {
+    if (value instanceof String || value instanceof Boolean) {
+      return value;
+    } else if (value instanceof Double || value instanceof Float) {
+      double d = ((Number) value).doubleValue();
+      if (!Double.isFinite(d) || Math.abs(d) >= MAX_EXACT_DOUBLE) {
+        return null;
+      }
+    } else if (!(value instanceof Number)) {
+      return null;
+    }
+    return toBigDecimal((Number) value).stripTrailingZeros();
+  }
+
+  public static boolean isEqual(Object left, Object right) {
+    if (left == right) {
+      return true;
+    }
+    if (left == null || right == null) {
+      return false;
+    }
+    if (left instanceof Number && right instanceof Number) {
+      return compareNumbers((Number) left, (Number) right) == 0;
+    }
+    return left.equals(right);
+  }
+
+  public static boolean isLessThan(Object left, Object right) {
+    int comparison = compare(left, right);
+    return comparison != INCOMPARABLE && comparison < 0;
+  }
+
+  public static boolean isLessThanOrEqual(Object left, Object right) {
+    int comparison = compare(left, right);
+    return comparison != INCOMPARABLE && comparison <= 0;
+  }
+
+  public static boolean isGreaterThan(Object left, Object right) {
+    int comparison = compare(left, right);
+    return comparison != INCOMPARABLE && comparison > 0;
+  }
+
+  public static boolean isGreaterThanOrEqual(Object left, Object right) {
+    int comparison = compare(left, right);
+    return comparison != INCOMPARABLE && comparison >= 0;
+  }
+
+  public static boolean isIn(Object value, Object[] candidates) {
+    for (Object candidate : candidates) {
+      if (isEqual(value, candidate)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static boolean isLike(Object value, Pattern pattern) {
+    return value != null && pattern.matcher(value.toString()).find();
+  }
+
+  public static Object plus(Object left, Object right) {
+    if (left instanceof CharSequence || right instanceof CharSequence) {
+      return String.valueOf(left) + right;
+    }
+    return arithmetic(left, '+', right);
+  }
+
+  public static Object minus(Object left, Object right) {
+    return arithmetic(left, '-', right);
+  }
+
+  public static Object multiply(Object left, Object right) {
+    return arithmetic(left, '*', right);
+  }
+
+  public static Object divide(Object left, Object right) {
+    return arithmetic(left, '/', right);
+  }
+
+  public static Object modulo(Object left, Object right) {
+    return arithmetic(left, '%', right);
+  }
+
+  /**
+   * Compares two values which are known to be non null and of a comparable type.
+   *
+   * @return a negative, zero or positive integer or {@link #INCOMPARABLE} if the two values cannot
+   *     be compared
+   */
+  @SuppressWarnings("unchecked")
+  private static int compare(Object left, Object right) {
+    if (left == null || right == null) {
+      return INCOMPARABLE;
+    }
+    if (left instanceof Number && right instanceof Number) {
+      return Integer.signum(compareNumbers((Number) left, (Number) right));
+    }
+    if (left instanceof String && right instanceof String) {
+      return Integer.signum(((String) left).compareTo((String) right));
+    }
+    if (left instanceof Comparable && left.getClass() == right.getClass()) {
+      return Integer.signum(((Comparable) left).compareTo(right));
+    }
+    return INCOMPARABLE;
+  }
+
+  private static int compareNumbers(Number left, Number right) {
+    if (isIntegral(left) && isIntegral(right)) {
+      return Long.compare(left.longValue(), right.longValue());
+    }
+    if (isFloatingPoint(left) || isFloatingPoint(right)) {
+      if (!isBig(left) && !isBig(right)) {
+        double l = left.doubleValue();
+        double r = right.doubleValue();
+        return l < r ? -1 : l > r ? 1 : 0;
+      }
+      if (!isFinite(left) || !isFinite(right)) {
+        return Double.compare(left.doubleValue(), right.doubleValue());
+      }
+    }
+    return toBigDecimal(left).compareTo(toBigDecimal(right));
+  }
+
+  private static Object arithmetic(Object left, char operator, Object right) {
+    if (left == null || right == null) {
+      return null;
+    }
+    if (!(left instanceof Number) || !(right instanceof Number)) {
+      throw new TranquilException(
+          String.format(
+              "Cannot apply [%s] to [%s] and [%s]!", operator, left.getClass(), right.getClass()));
+    }
+    Number l = (Number) left;
+    Number r = (Number) right;
+
+    if (isFloatingPoint(l) || isFloatingPoint(r)) {
+      double a = l.doubleValue();
+      double b = r.doubleValue();
+      switch (operator) {
+        case '+':
+          return a + b;
+        case '-':
+          return a - b;
+        case '*':
+          return a * b;
+        case '/':
+          return a / b;
+        default:
+          return a % b;
+      }
+    }
+
+    if (isIntegral(l) && isIntegral(r) && operator != '/') {
+      try {
+        long a = l.longValue();
+        long b = r.longValue();
+        long result;
+        switch (operator) {
+          case '+':
+            result = Math.addExact(a, b);
+            break;
+          case '-':
+            result = Math.subtractExact(a, b);
+            break;
+          case '*':
+            result = Math.multiplyExact(a, b);
+            break;
+          default:
+            result = a % b;
+        }
+        boolean narrow = !(l instanceof Long) && !(r instanceof Long);
+        return narrow && result == (int) result ? (Object) (int) result : (Object) result;
+      } catch (ArithmeticException ex) {
+        // overflow, fall through to big decimal arithmetic
+      }
+    }
+
+    BigDecimal a = toBigDecimal(l);
+    BigDecimal b = toBigDecimal(r);
+    BigDecimal result;
+    switch (operator) {
+      case '+':
+        result = a.add(b);
+        break;
+      case '-':
+        result = a.subtract(b);
+        break;
+      case '*':
+        result = a.multiply(b);
+        break;
+      case '/':
+        try {
+          result = a.divide(b);
+        } catch (ArithmeticException ex) {
+          if (b.signum() == 0) {
+            throw ex;
+          }
+          // a non terminating decimal expansion so limit the precision
+          result =
+              a.divide(
+                  b,
+                  new MathContext(
+                      Math.max(a.precision(), b.precision()) + DIVISION_EXTRA_PRECISION));
+        }
+        break;
+      default:
+        result = a.remainder(b);
+    }
+    if (!(l instanceof BigDecimal) && !(r instanceof BigDecimal) && operator != '/') {
+      // integral inputs which overflowed a long
+      return result.toBigInteger();
+    }
+    return result;
+  }
+
+  private static boolean isIntegral(Number number) {
+    return number instanceof Integer
+        || number instanceof Long
+        || number instanceof Short
+        || number instanceof Byte;
+  }
+
+  private static boolean isFloatingPoint(Number number) {
+    return number instanceof Double || number instanceof Float;
+  }
+
+  private static boolean isBig(Number number) {
+    return number instanceof BigDecimal || number instanceof BigInteger;
+  }
+
+  private static boolean isFinite(Number number) {
+    return !isFloatingPoint(number) || Double.isFinite(number.doubleValue());
+  }
+
+  private static BigDecimal toBigDecimal(Number number) {
+    if (number instanceof BigDecimal) {
+      return (BigDecimal) number;
+    } else if (number instanceof BigInteger) {
+      return new BigDecimal((BigInteger) number);
+    } else if (isIntegral(number)) {
+      return BigDecimal.valueOf(number.longValue());
+    } else if (isFloatingPoint(number)) {
+      // a float is widened to a double, as it is when compared against a double, so that a float
+      // and a decimal are compared in the same way whatever the other side of the comparison is
+      return BigDecimal.valueOf(number.doubleValue());
+    }
+    return new BigDecimal(number.toString());
+  }
+}
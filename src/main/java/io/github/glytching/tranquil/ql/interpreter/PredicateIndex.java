@@ -0,0 +1,466 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.interpreter;
+
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.model.Condition;
+import io.github.glytching.tranquil.ql.model.Conjunction;
+import io.github.glytching.tranquil.ql.model.Criterion;
+import io.github.glytching.tranquil.ql.model.FieldReference;
+import io.github.glytching.tranquil.ql.model.Literal;
+import io.github.glytching.tranquil.ql.model.Operand;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Tests a document against many where clauses at once, returning the keys of those which match.
+ * Each where clause is decomposed into atoms: equality, {@code in} and range tests (including
+ * {@code between}, which is two range tests) of a field path against literals. An atom which
+ * appears in several where clauses is held once. For example, given:
+ *
+ * <pre>
+ *   a: type = 'PushEvent' and actor.id > 10
+ *   b: type in ('PushEvent', 'DeleteEvent') and actor.id between 5 and 20
+ *   c: type = 'PushEvent' and name like '^tr'
+ * </pre>
+ *
+ * There are five atoms on two paths: {@code type = 'PushEvent'} (shared by a and c), {@code type in
+ * (...)}, {@code actor.id > 10}, {@code actor.id >= 5} and {@code actor.id <= 20}. Matching
+ * resolves each path once, looks its value up in a hash of the equality and {@code in} values and
+ * in sorted maps of the range bounds, and counts the atoms satisfied by each where clause. A where
+ * clause whose atoms are all satisfied is then tested against whatever remains of it (here, c's
+ * {@code like}) so the cost of a match depends on the number of distinct atoms touched rather than
+ * on the number of where clauses.
+ *
+ * <p>Only the members of a top level {@code and} are decomposed, a top level {@code or} is treated
+ * as one where clause per member. Anything else, such as a negation, a test of an {@code [*]} path
+ * or a comparison of two fields, is left to the remainder. A where clause with no atoms at all is
+ * tested in full for every document. If a path's value cannot be looked up exactly (for example it
+ * is a list, or a floating point number too large to be compared exactly) then that path's atoms
+ * are each tested in full, so the results are always those of testing each where clause on its own.
+ *
+ * <p>Instances are immutable and are safe for use by multiple threads.
+ *
+ * @param <K> the type of the key by which each where clause is known
+ */
+public final class PredicateIndex<K> {
+
+  private final List<K> keys;
+  // per entry i.e. per member of a where clause's top level 'or'
+  private final int[] owners;
+  private final int[] required;
+  private final Predicator[] remainders;
+  private final int[] unindexed;
+  // per atom
+  private final int[][] atomEntries;
+  private final Predicator[] atomPredicators;
+  private final PathIndex[] paths;
+
+  private PredicateIndex(Builder<K> builder) {
+    this.keys = builder.keys;
+    this.owners = toArray(builder.owners);
+    this.required = toArray(builder.required);
+    this.remainders = builder.remainders.toArray(new Predicator[0]);
+    List<Integer> unindexedEntries = new ArrayList<>();
+    for (int entry = 0; entry < required.length; entry++) {
+      if (required[entry] == 0) {
+        unindexedEntries.add(entry);
+      }
+    }
+    this.unindexed = toArray(unindexedEntries);
+    this.atomEntries = new int[builder.atoms.size()][];
+    this.atomPredicators = new Predicator[builder.atoms.size()];
+    for (int atom = 0; atom < atomEntries.length; atom++) {
+      atomEntries[atom] = toArray(builder.atomEntries.get(atom));
+      atomPredicators[atom] = Interpreter.toPredicator(builder.atoms.get(atom));
+    }
+    this.paths = builder.paths.values().stream().map(PathBuilder::build).toArray(PathIndex[]::new);
+  }
+
+  /**
+   * Create a {@link PredicateIndex} for the given {@code conditions}.
+   *
+   * @param conditions the parsed form of each where clause, keyed by the key which identifies it in
+   *     the result of {@link #match(Object)}. A null condition (i.e. an empty where clause) matches
+   *     every document.
+   * @param <K> the type of the key by which each where clause is known
+   * @return an index of the given conditions
+   */
+  public static <K> PredicateIndex<K> of(Map<K, Condition> conditions) {
+    Builder<K> builder = new Builder<>();
+    for (Map.Entry<K, Condition> entry : conditions.entrySet()) {
+      builder.add(entry.getKey(), entry.getValue());
+    }
+    return new PredicateIndex<>(builder);
+  }
+
+  /**
+   * Returns the number of distinct atoms held by this index.
+   *
+   * @return the number of distinct atoms
+   */
+  public int getAtomCount() {
+    return atomEntries.length;
+  }
+
+  /**
+   * Tests the given {@code document} against each of the indexed where clauses.
+   *
+   * @param document a parsed input
+   * @return the keys of the where clauses which match, in the order in which they were given
+   */
+  public Set<K> match(Object document) {
+    return matchAny(Collections.singletonList(document));
+  }
+
+  /**
+   * Tests each of the given {@code documents} against each of the indexed where clauses.
+   *
+   * @param documents parsed inputs
+   * @return the keys of the where clauses which match any of the given documents, in the order in
+   *     which they were given
+   */
+  public Set<K> matchAny(Iterable<?> documents) {
+    boolean[] matched = new boolean[keys.size()];
+    for (Object document : documents) {
+      match(document, matched);
+    }
+    Set<K> result = new LinkedHashSet<>();
+    for (int i = 0; i < matched.length; i++) {
+      if (matched[i]) {
+        result.add(keys.get(i));
+      }
+    }
+    return result;
+  }
+
+  private void match(Object document, boolean[] matched) {
+    Counts counts = new Counts(required.length, atomEntries.length);
+    for (PathIndex path : paths) {
+      Object value = Operations.resolve(document, path.reference);
+      if (value == null) {
+        // none of the atoms is satisfied by a null
+        continue;
+      }
+      Object key = Operations.toLookupKey(value);
+      if (key == null) {
+        for (int atom : path.atoms) {
+          if (atomPredicators[atom].isMatched(document)) {
+            counts.hit(atom);
+          }
+        }
+        continue;
+      }
+      counts.hitAll(path.equalities.get(key));
+      if (key instanceof BigDecimal) {
+        BigDecimal number = (BigDecimal) key;
+        // e.g. 'a > 5' is satisfied by a value of 10 since 5 < 10
+        counts.hitAll(path.greaterThan.headMap(number, false));
+        counts.hitAll(path.greaterThanOrEqual.headMap(number, true));
+        counts.hitAll(path.lessThan.tailMap(number, false));
+        counts.hitAll(path.lessThanOrEqual.tailMap(number, true));
+      }
+    }
+
+    for (int i = 0; i < counts.touchedCount; i++) {
+      test(counts.touched[i], counts, document, matched);
+    }
+    for (int entry : unindexed) {
+      test(entry, counts, document, matched);
+    }
+  }
+
+  private void test(int entry, Counts counts, Object document, boolean[] matched) {
+    int owner = owners[entry];
+    if (!matched[owner]
+        && counts.entries[entry] == required[entry]
+        && (remainders[entry] == null || remainders[entry].isMatched(document))) {
+      matched[owner] = true;
+    }
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /** The atoms satisfied by a document, and how many of each entry's atoms these include. */
+  private class Counts {
+    private final int[] entries;
+    private final boolean[] hits;
+    // the entries which have at least one satisfied atom
+    private final int[] touched;
+    private int touchedCount = 0;
+
+    Counts(int entryCount, int atomCount) {
+      this.entries = new int[entryCount];
+      this.hits = new boolean[atomCount];
+      this.touched = new int[entryCount];
+    }
+
+    void hit(int atom) {
+      if (!hits[atom]) {
+        // an 'in' atom may be reached via more than one of its values
+        hits[atom] = true;
+        for (int entry : atomEntries[atom]) {
+          if (entries[entry]++ == 0) {
+            touched[touchedCount++] = entry;
+          }
+        }
+      }
+    }
+
+    void hitAll(int[] atoms) {
+      if (atoms != null) {
+        for (int atom : atoms) {
+          hit(atom);
+        }
+      }
+    }
+
+    void hitAll(Map<BigDecimal, int[]> bounds) {
+      for (int[] atoms : bounds.values()) {
+        hitAll(atoms);
+      }
+    }
+  }
+
+  /** The atoms which test one field path. */
+  private static class PathIndex {
+    private final FieldReference reference;
+    private final int[] atoms;
+    private final Map<Object, int[]> equalities;
+    // keyed by the bound of each range atom, with the atoms which have that bound
+    private final NavigableMap<BigDecimal, int[]> greaterThan;
+    private final NavigableMap<BigDecimal, int[]> greaterThanOrEqual;
+    private final NavigableMap<BigDecimal, int[]> lessThan;
+    private final NavigableMap<BigDecimal, int[]> lessThanOrEqual;
+
+    PathIndex(
+        FieldReference reference,
+        int[] atoms,
+        Map<Object, int[]> equalities,
+        NavigableMap<BigDecimal, int[]> greaterThan,
+        NavigableMap<BigDecimal, int[]> greaterThanOrEqual,
+        NavigableMap<BigDecimal, int[]> lessThan,
+        NavigableMap<BigDecimal, int[]> lessThanOrEqual) {
+      this.reference = reference;
+      this.atoms = atoms;
+      this.equalities = equalities;
+      this.greaterThan = greaterThan;
+      this.greaterThanOrEqual = greaterThanOrEqual;
+      this.lessThan = lessThan;
+      this.lessThanOrEqual = lessThanOrEqual;
+    }
+  }
+
+  private static class PathBuilder {
+    private final FieldReference reference;
+    private final List<Integer> atoms = new ArrayList<>();
+    private final Map<Object, List<Integer>> equalities = new HashMap<>();
+    private final Map<Criterion.Operator, NavigableMap<BigDecimal, List<Integer>>> bounds =
+        new HashMap<>();
+
+    PathBuilder(FieldReference reference) {
+      this.reference = reference;
+    }
+
+    PathIndex build() {
+      return new PathIndex(
+          reference,
+          toArray(atoms),
+          freeze(equalities, new HashMap<>()),
+          bounds(Criterion.Operator.GREATER_THAN),
+          bounds(Criterion.Operator.GREATER_THAN_OR_EQUAL),
+          bounds(Criterion.Operator.LESS_THAN),
+          bounds(Criterion.Operator.LESS_THAN_OR_EQUAL));
+    }
+
+    private NavigableMap<BigDecimal, int[]> bounds(Criterion.Operator operator) {
+      return freeze(
+          bounds.getOrDefault(operator, Collections.emptyNavigableMap()), new TreeMap<>());
+    }
+
+    private static <T, M extends Map<T, int[]>> M freeze(Map<T, List<Integer>> from, M to) {
+      for (Map.Entry<T, List<Integer>> entry : from.entrySet()) {
+        to.put(entry.getKey(), toArray(entry.getValue()));
+      }
+      return to;
+    }
+  }
+
+  private static class Builder<K> {
+    private final List<K> keys = new ArrayList<>();
+    private final List<Integer> owners = new ArrayList<>();
+    private final List<Integer> required = new ArrayList<>();
+    private final List<Predicator> remainders = new ArrayList<>();
+    private final Map<String, Integer> atomIndexes = new HashMap<>();
+    private final List<Criterion> atoms = new ArrayList<>();
+    private final List<List<Integer>> atomEntries = new ArrayList<>();
+    private final Map<String, PathBuilder> paths = new LinkedHashMap<>();
+
+    void add(K key, Condition condition) {
+      int owner = keys.size();
+      keys.add(key);
+      if (condition instanceof Conjunction
+          && ((Conjunction) condition).getType() == Conjunction.Type.OR) {
+        for (Condition member : ((Conjunction) condition).getConditions()) {
+          addEntry(owner, member);
+        }
+      } else {
+        addEntry(owner, condition);
+      }
+    }
+
+    private void addEntry(int owner, Condition condition) {
+      List<Condition> members =
+          condition == null
+              ? Collections.emptyList()
+              : condition instanceof Conjunction
+                      && ((Conjunction) condition).getType() == Conjunction.Type.AND
+                  ? ((Conjunction) condition).getConditions()
+                  : Collections.singletonList(condition);
+
+      int entry = owners.size();
+      Set<Integer> entryAtoms = new LinkedHashSet<>();
+      List<Condition> remainder = new ArrayList<>();
+      for (Condition member : members) {
+        List<Criterion> decomposed = decompose(member);
+        if (decomposed.isEmpty()) {
+          remainder.add(member);
+        }
+        for (Criterion atom : decomposed) {
+          entryAtoms.add(addAtom(atom));
+        }
+      }
+      for (int atom : entryAtoms) {
+        atomEntries.get(atom).add(entry);
+      }
+      owners.add(owner);
+      required.add(entryAtoms.size());
+      remainders.add(
+          remainder.isEmpty()
+              ? null
+              : Interpreter.toPredicator(
+                  remainder.size() == 1
+                      ? remainder.get(0)
+                      : new Conjunction(Conjunction.Type.AND, remainder)));
+    }
+
+    private int addAtom(Criterion criterion) {
+      FieldReference reference = (FieldReference) criterion.getSubject();
+      Criterion.Operator operator = criterion.getOperator();
+      List<Object> values = new ArrayList<>();
+      for (Operand argument : criterion.getArguments()) {
+        values.add(Operations.toLookupKey(((Literal) argument).getValue()));
+      }
+      String identity = reference.getPath() + " " + operator.getSymbol() + " " + values;
+      Integer existing = atomIndexes.get(identity);
+      if (existing != null) {
+        return existing;
+      }
+
+      int atom = atoms.size();
+      atomIndexes.put(identity, atom);
+      atoms.add(criterion);
+      atomEntries.add(new ArrayList<>());
+      PathBuilder path =
+          paths.computeIfAbsent(reference.getPath(), k -> new PathBuilder(reference));
+      path.atoms.add(atom);
+      if (operator == Criterion.Operator.EQUAL || operator == Criterion.Operator.IN) {
+        for (Object value : new LinkedHashSet<>(values)) {
+          path.equalities.computeIfAbsent(value, k -> new ArrayList<>()).add(atom);
+        }
+      } else {
+        path.bounds
+            .computeIfAbsent(operator, k -> new TreeMap<>())
+            .computeIfAbsent((BigDecimal) values.get(0), k -> new ArrayList<>())
+            .add(atom);
+      }
+      return atom;
+    }
+
+    // the atoms of the given member of a top level 'and', or none if it cannot be decomposed
+    private static List<Criterion> decompose(Condition condition) {
+      if (!(condition instanceof Criterion)) {
+        return Collections.emptyList();
+      }
+      Criterion criterion = (Criterion) condition;
+      Operand subject = criterion.getSubject();
+      if (!(subject instanceof FieldReference) || !((FieldReference) subject).isSimple()) {
+        return Collections.emptyList();
+      }
+      switch (criterion.getOperator()) {
+        case EQUAL:
+        case IN:
+          return hasLiterals(criterion, false)
+              ? Collections.singletonList(criterion)
+              : Collections.emptyList();
+        case LESS_THAN:
+        case LESS_THAN_OR_EQUAL:
+        case GREATER_THAN:
+        case GREATER_THAN_OR_EQUAL:
+          return hasLiterals(criterion, true)
+              ? Collections.singletonList(criterion)
+              : Collections.emptyList();
+        case BETWEEN:
+          if (!hasLiterals(criterion, true)) {
+            return Collections.emptyList();
+          }
+          return Arrays.asList(
+              new Criterion(
+                  subject,
+                  Criterion.Operator.GREATER_THAN_OR_EQUAL,
+                  Collections.singletonList(criterion.getArguments().get(0))),
+              new Criterion(
+                  subject,
+                  Criterion.Operator.LESS_THAN_OR_EQUAL,
+                  Collections.singletonList(criterion.getArguments().get(1))));
+        default:
+          return Collections.emptyList();
+      }
+    }
+
+    // are all of the given criterion's arguments literals which can be looked up exactly?
+    private static boolean hasLiterals(Criterion criterion, boolean numeric) {
+      for (Operand argument : criterion.getArguments()) {
+        if (!(argument instanceof Literal)) {
+          return false;
+        }
+        Object value = ((Literal) argument).getValue();
+        if (numeric ? !(value instanceof Number) : value == null) {
+          return false;
+        }
+        Object key = Operations.toLookupKey(value);
+        if (key == null || (numeric && !(key instanceof BigDecimal))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
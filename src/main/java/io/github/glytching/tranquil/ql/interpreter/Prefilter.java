@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.interpreter;
+
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.model.Condition;
+import io.github.glytching.tranquil.ql.model.Conjunction;
+import io.github.glytching.tranquil.ql.model.Criterion;
+import io.github.glytching.tranquil.ql.model.FieldReference;
+import io.github.glytching.tranquil.ql.model.Literal;
+import io.github.glytching.tranquil.ql.model.Negation;
+import io.github.glytching.tranquil.ql.model.Operand;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a where clause which can be decided from a single top level attribute of a document,
+ * these allow a document to be rejected as soon as that attribute has been read. Only the members
+ * of a top level {@code and} qualify and of those only equality, {@code in} and {@code null} tests
+ * (and their negations) of a top level field against literals. For example, given:
+ *
+ * <pre>
+ *   type in ('PushEvent', 'DeleteEvent') and actor.id > 10 and public = true
+ * </pre>
+ *
+ * A document can be rejected on reading its {@code type} or its {@code public} attribute. The
+ * remainder of the where clause is left to the predicator for the entire where clause, so a
+ * prefilter is a necessary rather than a sufficient condition for a match.
+ */
+public final class Prefilter {
+
+  private static final Prefilter NONE = new Prefilter(Collections.emptyMap());
+
+  // keyed by the name of the tested attribute
+  private final Map<String, Predicator> predicators;
+
+  private Prefilter(Map<String, Predicator> predicators) {
+    this.predicators = predicators;
+  }
+
+  /**
+   * Create a {@link Prefilter} for the given {@code condition}.
+   *
+   * @param condition the parsed form of a where clause, may be null
+   * @return a prefilter for the given condition, this will be empty if no part of the condition
+   *     qualifies
+   */
+  public static Prefilter of(Condition condition) {
+    List<Condition> members =
+        condition instanceof Conjunction
+                && ((Conjunction) condition).getType() == Conjunction.Type.AND
+            ? ((Conjunction) condition).getConditions()
+            : Collections.singletonList(condition);
+
+    Map<String, List<Condition>> tests = new LinkedHashMap<>();
+    for (Condition member : members) {
+      String name = getTestedAttribute(member);
+      if (name != null) {
+        tests.computeIfAbsent(name, k -> new ArrayList<>()).add(member);
+      }
+    }
+    if (tests.isEmpty()) {
+      return NONE;
+    }
+
+    Map<String, Predicator> predicators = new HashMap<>();
+    for (Map.Entry<String, List<Condition>> entry : tests.entrySet()) {
+      List<Condition> conditions = entry.getValue();
+      predicators.put(
+          entry.getKey(),
+          Interpreter.toPredicator(
+              conditions.size() == 1
+                  ? conditions.get(0)
+                  : new Conjunction(Conjunction.Type.AND, conditions)));
+    }
+    return new Prefilter(predicators);
+  }
+
+  /**
+   * Returns true if this prefilter has nothing to test.
+   *
+   * @return true if this prefilter has nothing to test
+   */
+  public boolean isEmpty() {
+    return predicators.isEmpty();
+  }
+
+  /**
+   * Returns true if this prefilter tests the named attribute.
+   *
+   * @param name the name of a top level attribute
+   * @return true if this prefilter tests the named attribute
+   */
+  public boolean tests(String name) {
+    return predicators.containsKey(name);
+  }
+
+  /**
+   * Tests the value of a top level attribute.
+   *
+   * @param name the name of a top level attribute
+   * @param value the attribute's value
+   * @return true if a document whose named attribute has the given value cannot match
+   */
+  public boolean rejects(String name, Object value) {
+    Predicator predicator = predicators.get(name);
+    // each predicator only refers to its own attribute so it can be applied to that attribute alone
+    return predicator != null && !predicator.isMatched(Collections.singletonMap(name, value));
+  }
+
+  private static String getTestedAttribute(Condition condition) {
+    if (condition instanceof Negation) {
+      return getTestedAttribute(((Negation) condition).getCondition());
+    } else if (!(condition instanceof Criterion)) {
+      return null;
+    }
+    Criterion criterion = (Criterion) condition;
+    switch (criterion.getOperator()) {
+      case EQUAL:
+      case NOT_EQUAL:
+      case IN:
+      case IS_NULL:
+        break;
+      default:
+        return null;
+    }
+    for (Operand argument : criterion.getArguments()) {
+      if (!(argument instanceof Literal)) {
+        return null;
+      }
+    }
+    Operand subject = criterion.getSubject();
+    if (subject instanceof FieldReference) {
+      List<FieldReference.Segment> segments = ((FieldReference) subject).getSegments();
+      if (segments.size() == 1
+          && segments.get(0).getType() == FieldReference.Segment.Type.PROPERTY) {
+        return segments.get(0).getName();
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,53 @@
+package io.github.glytching.tranquil.ql.model;
+
+/**
+ * Combines two {@link Operand}s with an arithmetic operator e.g. {@code 2 * price} or {@code
+ * 'silver ' + name}.
+ */
+public class Arithmetic implements Operand {
+
+  public enum Operator {
+    PLUS("+"),
+    MINUS("-"),
+    MULTIPLY("*"),
+    DIVIDE("/"),
+    MODULO("%");
+
+    private final String symbol;
+
+    Operator(String symbol) {
+      this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+      return symbol;
+    }
+  }
+
+  private final Operand left;
+  private final Operator operator;
+  private final Operand right;
+
+  public Arithmetic(Operand left, Operator operator, Operand right) {
+    this.left = left;
+    this.operator = operator;
+    this.right = right;
+  }
+
+  public Operand getLeft() {
+    return left;
+  }
+
+  public Operator getOperator() {
+    return operator;
+  }
+
+  public Operand getRight() {
+    return right;
+  }
+
+  @Override
+  public String toString() {
+    return "(" + left + " " + operator.symbol + " " + right + ")";
+  }
+}
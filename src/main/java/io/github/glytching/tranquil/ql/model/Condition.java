@@ -0,0 +1,11 @@
+package io.github.glytching.tranquil.ql.model;
+
+/**
+ * A node in the parsed form of a where clause. A where clause such as {@code a = 1 and (b > 2 or c
+ * is null)} is represented as a tree of conditions: {@link Conjunction}s and {@link Negation}s for
+ * the boolean structure and {@link Criterion}s for the leaves.
+ *
+ * <p>This model is engine neutral, an engine (such as the interpreter) walks it to create an
+ * executable form of the where clause.
+ */
+public interface Condition {}
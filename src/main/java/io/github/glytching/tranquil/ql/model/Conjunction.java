@@ -0,0 +1,41 @@
+package io.github.glytching.tranquil.ql.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Combines two or more {@link Condition}s with either {@code and} or {@code or}. */
+public class Conjunction implements Condition {
+
+  public enum Type {
+    AND,
+    OR
+  }
+
+  private final Type type;
+  private final List<Condition> conditions;
+
+  public Conjunction(Type type, List<Condition> conditions) {
+    this.type = type;
+    this.conditions = Collections.unmodifiableList(conditions);
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public List<Condition> getConditions() {
+    return conditions;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("(");
+    for (int i = 0; i < conditions.size(); i++) {
+      if (i > 0) {
+        sb.append(" ").append(type.name().toLowerCase()).append(" ");
+      }
+      sb.append(conditions.get(i));
+    }
+    return sb.append(")").toString();
+  }
+}
@@ -0,0 +1,85 @@
+package io.github.glytching.tranquil.ql.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A leaf in the parsed form of a where clause. A criterion applies an {@link Operator} to a {@link
+ * #getSubject()} and zero or more {@link #getArguments()}. For example:
+ *
+ * <ul>
+ *   <li>{@code a = 1} has the subject {@code a}, the operator {@link Operator#EQUAL} and the
+ *       argument {@code 1}
+ *   <li>{@code a in (1, 2)} has the subject {@code a}, the operator {@link Operator#IN} and the
+ *       arguments {@code 1, 2}
+ *   <li>{@code a is null} has the subject {@code a}, the operator {@link Operator#IS_NULL} and no
+ *       arguments
+ * </ul>
+ */
+public class Criterion implements Condition {
+
+  public enum Operator {
+    EQUAL("="),
+    NOT_EQUAL("!="),
+    LESS_THAN("<"),
+    LESS_THAN_OR_EQUAL("<="),
+    GREATER_THAN(">"),
+    GREATER_THAN_OR_EQUAL(">="),
+    IN("in"),
+    LIKE("like"),
+    ILIKE("ilike"),
+    IS_NULL("is null"),
+    BETWEEN("between");
+
+    private final String symbol;
+
+    Operator(String symbol) {
+      this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+      return symbol;
+    }
+  }
+
+  private final Operand subject;
+  private final Operator operator;
+  private final List<Operand> arguments;
+
+  public Criterion(Operand subject, Operator operator, List<Operand> arguments) {
+    this.subject = subject;
+    this.operator = operator;
+    this.arguments = Collections.unmodifiableList(arguments);
+  }
+
+  public Operand getSubject() {
+    return subject;
+  }
+
+  public Operator getOperator() {
+    return operator;
+  }
+
+  public List<Operand> getArguments() {
+    return arguments;
+  }
+
+  /**
+   * Returns the first argument, this is a convenience for the many operators which have exactly one
+   * argument.
+   *
+   * @return the first argument
+   */
+  public Operand getArgument() {
+    return arguments.get(0);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder().append(subject).append(" ").append(operator.symbol);
+    if (!arguments.isEmpty()) {
+      sb.append(" ").append(arguments.size() == 1 ? arguments.get(0) : arguments);
+    }
+    return sb.toString();
+  }
+}
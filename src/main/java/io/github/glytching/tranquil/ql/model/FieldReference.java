@@ -0,0 +1,168 @@
+package io.github.glytching.tranquil.ql.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A reference to a field in the input, expressed as a path of {@link Segment}s. For example: {@code
+ * items[0].name} is represented by the segments {@code items}, {@code [0]}, {@code name} and {@code
+ * items[*].name} is represented by the segments {@code items}, {@code [*]}, {@code name}.
+ */
+public class FieldReference implements Operand {
+
+  /** A single step in a field path. */
+  public static class Segment {
+
+    public enum Type {
+      /** Read a named attribute from a {@code Map}. */
+      PROPERTY,
+      /** Read a specific element from a {@code List}. */
+      INDEX,
+      /** Read every element from a {@code List}. */
+      ANY_ELEMENT
+    }
+
+    private static final Segment ANY_ELEMENT = new Segment(Type.ANY_ELEMENT, null, -1);
+
+    private final Type type;
+    private final String name;
+    private final int index;
+
+    private Segment(Type type, String name, int index) {
+      this.type = type;
+      this.name = name;
+      this.index = index;
+    }
+
+    public static Segment property(String name) {
+      return new Segment(Type.PROPERTY, name, -1);
+    }
+
+    public static Segment index(int index) {
+      return new Segment(Type.INDEX, null, index);
+    }
+
+    public static Segment anyElement() {
+      return ANY_ELEMENT;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    @Override
+    public String toString() {
+      switch (type) {
+        case PROPERTY:
+          return name;
+        case INDEX:
+          return "[" + index + "]";
+        default:
+          return "[*]";
+      }
+    }
+  }
+
+  private final List<Segment> segments;
+
+  public FieldReference(List<Segment> segments) {
+    this.segments = Collections.unmodifiableList(new ArrayList<>(segments));
+  }
+
+  public List<Segment> getSegments() {
+    return segments;
+  }
+
+  /**
+   * Does this reference contain an 'any element' accessor i.e. {@code [*]}?
+   *
+   * @return true if any of this reference's segments is {@link Segment.Type#ANY_ELEMENT}
+   */
+  public boolean hasAnyElement() {
+    return indexOfAnyElement() >= 0;
+  }
+
+  /**
+   * Returns the position of the first 'any element' accessor in this reference's segments.
+   *
+   * @return the position of the first {@link Segment.Type#ANY_ELEMENT} or -1 if there is no such
+   *     segment
+   */
+  public int indexOfAnyElement() {
+    for (int i = 0; i < segments.size(); i++) {
+      if (segments.get(i).getType() == Segment.Type.ANY_ELEMENT) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Is this reference made up of property names only i.e. no array accessors?
+   *
+   * @return true if all of this reference's segments are {@link Segment.Type#PROPERTY}
+   */
+  public boolean isSimple() {
+    for (Segment segment : segments) {
+      if (segment.getType() != Segment.Type.PROPERTY) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns a new reference containing the segments between {@code from} (inclusive) and {@code to}
+   * (exclusive).
+   *
+   * @param from the position of the first segment to include
+   * @param to the position after the last segment to include
+   * @return a reference to a sub path of this reference
+   */
+  public FieldReference subPath(int from, int to) {
+    return new FieldReference(segments.subList(from, to));
+  }
+
+  /**
+   * Returns this reference as a dot delimited path e.g. {@code items[0].name}.
+   *
+   * @return the path expressed by this reference
+   */
+  public String getPath() {
+    StringBuilder sb = new StringBuilder();
+    for (Segment segment : segments) {
+      if (segment.getType() == Segment.Type.PROPERTY && sb.length() > 0) {
+        sb.append(".");
+      }
+      sb.append(segment);
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    return getPath().equals(((FieldReference) o).getPath());
+  }
+
+  @Override
+  public int hashCode() {
+    return getPath().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return getPath();
+  }
+}
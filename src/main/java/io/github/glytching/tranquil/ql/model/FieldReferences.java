@@ -0,0 +1,62 @@
+package io.github.glytching.tranquil.ql.model;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/** Finds the {@link FieldReference}s in the parsed form of an expression. */
+public final class FieldReferences {
+
+  private FieldReferences() {}
+
+  /**
+   * Returns the distinct field references in the given {@code condition}, in order of appearance.
+   *
+   * @param condition the parsed form of a where clause, may be null
+   * @return the distinct field references in the given condition
+   */
+  public static Set<FieldReference> of(Condition condition) {
+    Set<FieldReference> references = new LinkedHashSet<>();
+    collect(condition, references);
+    return references;
+  }
+
+  /**
+   * Returns the distinct field references in the given {@code projections}, in order of appearance.
+   *
+   * @param projections the parsed form of a select clause
+   * @return the distinct field references in the given projections
+   */
+  public static Set<FieldReference> of(List<Projection> projections) {
+    Set<FieldReference> references = new LinkedHashSet<>();
+    for (Projection projection : projections) {
+      collect(projection.getOperand(), references);
+    }
+    return references;
+  }
+
+  private static void collect(Condition condition, Set<FieldReference> references) {
+    if (condition instanceof Conjunction) {
+      for (Condition member : ((Conjunction) condition).getConditions()) {
+        collect(member, references);
+      }
+    } else if (condition instanceof Negation) {
+      collect(((Negation) condition).getCondition(), references);
+    } else if (condition instanceof Criterion) {
+      Criterion criterion = (Criterion) condition;
+      collect(criterion.getSubject(), references);
+      for (Operand argument : criterion.getArguments()) {
+        collect(argument, references);
+      }
+    }
+  }
+
+  private static void collect(Operand operand, Set<FieldReference> references) {
+    if (operand instanceof FieldReference) {
+      references.add((FieldReference) operand);
+    } else if (operand instanceof Arithmetic) {
+      collect(((Arithmetic) operand).getLeft(), references);
+      collect(((Arithmetic) operand).getRight(), references);
+    }
+  }
+}
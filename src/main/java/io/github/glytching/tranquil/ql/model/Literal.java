@@ -0,0 +1,39 @@
+package io.github.glytching.tranquil.ql.model;
+
+import java.util.Objects;
+
+/**
+ * A literal value such as {@code 'tap'}, {@code 10}, {@code 49.99}, {@code true} or {@code null}.
+ * Integral numbers are held as {@link Integer} or {@link Long} (depending on their magnitude) and
+ * decimals are held as {@link java.math.BigDecimal}.
+ */
+public class Literal implements Operand {
+
+  private final Object value;
+
+  public Literal(Object value) {
+    this.value = value;
+  }
+
+  public Object getValue() {
+    return value;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    return Objects.equals(value, ((Literal) o).value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(value);
+  }
+
+  @Override
+  public String toString() {
+    return value instanceof String ? "'" + value + "'" : String.valueOf(value);
+  }
+}
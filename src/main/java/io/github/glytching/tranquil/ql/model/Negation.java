@@ -0,0 +1,23 @@
+package io.github.glytching.tranquil.ql.model;
+
+/**
+ * Negates a {@link Condition}, this is used for {@code not (...)} and for the negated forms of
+ * predicates such as {@code not in}, {@code not like} and {@code is not null}.
+ */
+public class Negation implements Condition {
+
+  private final Condition condition;
+
+  public Negation(Condition condition) {
+    this.condition = condition;
+  }
+
+  public Condition getCondition() {
+    return condition;
+  }
+
+  @Override
+  public String toString() {
+    return "not " + condition;
+  }
+}
@@ -0,0 +1,8 @@
+package io.github.glytching.tranquil.ql.model;
+
+/**
+ * A value in the parsed form of a select or where clause. An operand is either a {@link Literal}, a
+ * {@link Parameter} whose value is bound later, a {@link FieldReference} into the input or an
+ * {@link Arithmetic} combination of other operands.
+ */
+public interface Operand {}
@@ -0,0 +1,80 @@
+package io.github.glytching.tranquil.ql.model;
+
+import java.util.Objects;
+
+/**
+ * A placeholder for a value which is bound after the expression has been parsed. A parameter is
+ * either positional, written as {@code ?} and numbered from zero in order of appearance, or named,
+ * written as {@code :name}.
+ */
+public class Parameter implements Operand {
+
+  private final int index;
+  private final String name;
+
+  private Parameter(int index, String name) {
+    this.index = index;
+    this.name = name;
+  }
+
+  /**
+   * Creates a positional parameter.
+   *
+   * @param index the zero based position of this parameter within its expression
+   * @return a positional parameter
+   */
+  public static Parameter positional(int index) {
+    return new Parameter(index, null);
+  }
+
+  /**
+   * Creates a named parameter.
+   *
+   * @param name the name of this parameter, without the leading colon
+   * @return a named parameter
+   */
+  public static Parameter named(String name) {
+    return new Parameter(-1, name);
+  }
+
+  public boolean isNamed() {
+    return name != null;
+  }
+
+  /**
+   * Returns the position of a positional parameter.
+   *
+   * @return the zero based position of this parameter or -1 if this is a named parameter
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Returns the name of a named parameter.
+   *
+   * @return the name of this parameter or null if this is a positional parameter
+   */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    Parameter parameter = (Parameter) o;
+    return index == parameter.index && Objects.equals(name, parameter.name);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(index, name);
+  }
+
+  @Override
+  public String toString() {
+    return isNamed() ? ":" + name : "?" + index;
+  }
+}
@@ -0,0 +1,139 @@
+package io.github.glytching.tranquil.ql.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Finds the {@link Parameter}s in the parsed form of an expression and replaces them with {@link
+ * Literal}s. Binding never modifies the given model, it returns a copy in which each parameter has
+ * been replaced.
+ */
+public final class ParameterBinder {
+
+  private ParameterBinder() {}
+
+  /**
+   * Returns the distinct parameters in the given {@code condition}, in order of appearance.
+   *
+   * @param condition the parsed form of a where clause, may be null
+   * @return the distinct parameters in the given condition
+   */
+  public static List<Parameter> getParameters(Condition condition) {
+    Set<Parameter> parameters = new LinkedHashSet<>();
+    collect(condition, parameters);
+    return new ArrayList<>(parameters);
+  }
+
+  /**
+   * Returns the distinct parameters in the given {@code projections}, in order of appearance.
+   *
+   * @param projections the parsed form of a select clause
+   * @return the distinct parameters in the given projections
+   */
+  public static List<Parameter> getParameters(List<Projection> projections) {
+    Set<Parameter> parameters = new LinkedHashSet<>();
+    for (Projection projection : projections) {
+      collect(projection.getOperand(), parameters);
+    }
+    return new ArrayList<>(parameters);
+  }
+
+  /**
+   * Returns the number of distinct positional parameters in the given {@code parameters}.
+   *
+   * @param parameters the parameters of an expression
+   * @return the number of positional parameters
+   */
+  public static int countPositional(List<Parameter> parameters) {
+    return (int) parameters.stream().filter(p -> !p.isNamed()).count();
+  }
+
+  /**
+   * Replaces each parameter in the given {@code condition} with a literal.
+   *
+   * @param condition the parsed form of a where clause, may be null
+   * @param values supplies the value of each parameter
+   * @return a copy of the given condition with no parameters
+   */
+  public static Condition bind(Condition condition, Function<Parameter, Object> values) {
+    if (condition instanceof Conjunction) {
+      Conjunction conjunction = (Conjunction) condition;
+      List<Condition> bound = new ArrayList<>();
+      for (Condition member : conjunction.getConditions()) {
+        bound.add(bind(member, values));
+      }
+      return new Conjunction(conjunction.getType(), bound);
+    } else if (condition instanceof Negation) {
+      return new Negation(bind(((Negation) condition).getCondition(), values));
+    } else if (condition instanceof Criterion) {
+      Criterion criterion = (Criterion) condition;
+      List<Operand> arguments = new ArrayList<>();
+      for (Operand argument : criterion.getArguments()) {
+        arguments.add(bind(argument, values));
+      }
+      return new Criterion(
+          bind(criterion.getSubject(), values), criterion.getOperator(), arguments);
+    }
+    return condition;
+  }
+
+  /**
+   * Replaces each parameter in the given {@code projections} with a literal.
+   *
+   * @param projections the parsed form of a select clause
+   * @param values supplies the value of each parameter
+   * @return a copy of the given projections with no parameters
+   */
+  public static List<Projection> bind(
+      List<Projection> projections, Function<Parameter, Object> values) {
+    List<Projection> bound = new ArrayList<>();
+    for (Projection projection : projections) {
+      Projection copy = new Projection();
+      copy.setAlias(projection.getAlias());
+      copy.setOperand(bind(projection.getOperand(), values));
+      bound.add(copy);
+    }
+    return bound;
+  }
+
+  private static Operand bind(Operand operand, Function<Parameter, Object> values) {
+    if (operand instanceof Parameter) {
+      return new Literal(values.apply((Parameter) operand));
+    } else if (operand instanceof Arithmetic) {
+      Arithmetic arithmetic = (Arithmetic) operand;
+      return new Arithmetic(
+          bind(arithmetic.getLeft(), values),
+          arithmetic.getOperator(),
+          bind(arithmetic.getRight(), values));
+    }
+    return operand;
+  }
+
+  private static void collect(Condition condition, Set<Parameter> parameters) {
+    if (condition instanceof Conjunction) {
+      for (Condition member : ((Conjunction) condition).getConditions()) {
+        collect(member, parameters);
+      }
+    } else if (condition instanceof Negation) {
+      collect(((Negation) condition).getCondition(), parameters);
+    } else if (condition instanceof Criterion) {
+      Criterion criterion = (Criterion) condition;
+      collect(criterion.getSubject(), parameters);
+      for (Operand argument : criterion.getArguments()) {
+        collect(argument, parameters);
+      }
+    }
+  }
+
+  private static void collect(Operand operand, Set<Parameter> parameters) {
+    if (operand instanceof Parameter) {
+      parameters.add((Parameter) operand);
+    } else if (operand instanceof Arithmetic) {
+      collect(((Arithmetic) operand).getLeft(), parameters);
+      collect(((Arithmetic) operand).getRight(), parameters);
+    }
+  }
+}
@@ -18,6 +18,9 @@ public class Projection {
   private final List<Object> literals;
   // the (optional) alias for this select clause element
   private String alias;
+  // the parsed form of this select clause element, populated by engines which do not work from
+  // the fields and literals
+  private Operand operand;
 
   public Projection() {
     this.fields = new ArrayList<>();
@@ -32,6 +35,14 @@ public class Projection {
     this.alias = alias;
   }
 
+  public Operand getOperand() {
+    return operand;
+  }
+
+  public void setOperand(Operand operand) {
+    this.operand = operand;
+  }
+
   public List<Object> getLiterals() {
     return this.literals;
   }
@@ -102,16 +102,17 @@ public abstract class BaseParser {
       SQLParserListener sqlParserListener,
       TranquilErrorListener errorListener,
       ParserRuleContext entryPoint) {
-    ParseTreeWalker walker = new ParseTreeWalker();
-
-    walker.walk(sqlParserListener, entryPoint);
-
-    // if the parser call raised any exceptions then lets throw
+    // if the parser call raised any exceptions then lets throw before walking, listeners should
+    // only ever see a valid tree
     errorListener
         .getException()
         .ifPresent(
             ex -> {
               throw ex;
             });
+
+    ParseTreeWalker walker = new ParseTreeWalker();
+
+    walker.walk(sqlParserListener, entryPoint);
   }
 }
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.parser;
+
+import io.github.glytching.tranquil.antlr.SQLLexer;
+import io.github.glytching.tranquil.ql.Parameters;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lifts the literals out of a where clause, replacing each of them with a positional parameter.
+ * Expressions which differ only in their literals lift to the same text, so they share one prepared
+ * expression. For example both {@code name = 'tap'} and {@code name = 'sink'} lift to {@code name =
+ * ?}, with the values {@code tap} and {@code sink} respectively.
+ *
+ * <p>The lifter works on the tokens of the expression rather than on its parse tree, so it is much
+ * cheaper than a parse. Literals which the grammar requires to be literals are left in place: like
+ * patterns, datetime literals and array indexes. Booleans and nulls are not lifted. Expressions
+ * which already contain parameters are returned as they are since mixing caller supplied and lifted
+ * parameters would be ambiguous.
+ */
+public final class LiteralLifter {
+
+  // a literal which follows one of these tokens is part of the syntax of that token
+  private static final Set<Integer> LITERAL_REQUIRED_AFTER =
+      new HashSet<>(
+          Arrays.asList(
+              SQLLexer.LIKE,
+              SQLLexer.ILIKE,
+              SQLLexer.TO,
+              SQLLexer.REGEXP,
+              SQLLexer.RLIKE,
+              SQLLexer.Similar_To,
+              SQLLexer.Not_Similar_To,
+              SQLLexer.Similar_To_Case_Insensitive,
+              SQLLexer.Not_Similar_To_Case_Insensitive,
+              SQLLexer.DATE,
+              SQLLexer.TIME,
+              SQLLexer.TIMETZ,
+              SQLLexer.TIMESTAMP,
+              SQLLexer.TIMESTAMPTZ,
+              SQLLexer.INTERVAL));
+
+  private LiteralLifter() {}
+
+  /**
+   * Lifts the literals out of the given where clause.
+   *
+   * @param expression a 'where clause'
+   * @return the lifted expression and the lifted values, if there is nothing to lift then the
+   *     expression is returned as-is with no values
+   */
+  public static Lifted lift(String expression) {
+    if (expression == null || expression.isEmpty()) {
+      return new Lifted(expression, Parameters.NONE);
+    }
+
+    SQLLexer lexer = new SQLLexer(new ANTLRInputStream(expression));
+    lexer.removeErrorListeners();
+    List<? extends Token> tokens = lexer.getAllTokens();
+
+    StringBuilder lifted = new StringBuilder(expression.length());
+    List<Object> values = new ArrayList<>();
+    int copiedTo = 0;
+    int previousType = Token.INVALID_TYPE;
+    int arrayDepth = 0;
+    for (Token token : tokens) {
+      int type = token.getType();
+      if (type == SQLLexer.QUESTION || type == SQLLexer.COLON) {
+        return new Lifted(expression, Parameters.NONE);
+      } else if (type == SQLLexer.LEFT_PAREN_SQUARE) {
+        arrayDepth++;
+      } else if (type == SQLLexer.RIGHT_PAREN_SQUARE) {
+        arrayDepth--;
+      } else if (isLiftable(type)
+          && arrayDepth == 0
+          && !LITERAL_REQUIRED_AFTER.contains(previousType)) {
+        lifted.append(expression, copiedTo, token.getStartIndex()).append('?');
+        copiedTo = token.getStopIndex() + 1;
+        values.add(
+            type == SQLLexer.Character_String_Literal
+                ? OperandModelListener.unquote(token.getText())
+                : OperandModelListener.toNumber(token.getText()));
+      }
+      previousType = type;
+    }
+
+    if (values.isEmpty()) {
+      return new Lifted(expression, Parameters.NONE);
+    }
+    lifted.append(expression, copiedTo, expression.length());
+    return new Lifted(lifted.toString(), Parameters.of(values.toArray()));
+  }
+
+  private static boolean isLiftable(int type) {
+    return type == SQLLexer.Character_String_Literal
+        || type == SQLLexer.NUMBER
+        || type == SQLLexer.REAL_NUMBER;
+  }
+
+  /** The result of lifting the literals out of an expression. */
+  public static final class Lifted {
+    private final String expression;
+    private final Parameters parameters;
+
+    private Lifted(String expression, Parameters parameters) {
+      this.expression = expression;
+      this.parameters = parameters;
+    }
+
+    /**
+     * Returns the expression with each lifted literal replaced by a positional parameter.
+     *
+     * @return the lifted expression
+     */
+    public String getExpression() {
+      return expression;
+    }
+
+    /**
+     * Returns the lifted values, in order of appearance.
+     *
+     * @return the lifted values
+     */
+    public Parameters getParameters() {
+      return parameters;
+    }
+  }
+}
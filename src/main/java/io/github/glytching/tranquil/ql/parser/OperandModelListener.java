@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.parser;
+
+import io.github.glytching.tranquil.antlr.SQLParser;
+import io.github.glytching.tranquil.exception.TranquilParserException;
+import io.github.glytching.tranquil.ql.TranquilLoggingListener;
+import io.github.glytching.tranquil.ql.model.Arithmetic;
+import io.github.glytching.tranquil.ql.model.FieldReference;
+import io.github.glytching.tranquil.ql.model.Literal;
+import io.github.glytching.tranquil.ql.model.Operand;
+import io.github.glytching.tranquil.ql.model.Parameter;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Listens to callbacks from our sql parser and uses them to build the engine neutral {@link
+ * Operand}s for an expression. As each value rule is exited its operand is pushed onto a stack and
+ * rules which combine values (such as {@code term} and {@code numeric_value_expression}) pop their
+ * inputs and push the combined operand. Extensions of this class consume the operands to build
+ * clause-specific models.
+ */
+public abstract class OperandModelListener extends TranquilLoggingListener {
+
+  private final Deque<Object> stack = new ArrayDeque<>();
+
+  // the subtree beneath a column reference (e.g. an array index) is handled in one go when we
+  // enter the column reference so we ignore callbacks from within that subtree
+  private int columnReferenceDepth = 0;
+
+  // positional parameters are numbered in order of appearance
+  private int positionalParameterCount = 0;
+
+  @Override
+  public void enterColumn_reference(SQLParser.Column_referenceContext ctx) {
+    super.enterColumn_reference(ctx);
+    if (!inColumnReference()) {
+      push(toFieldReference(ctx));
+    }
+    columnReferenceDepth++;
+  }
+
+  @Override
+  public void exitColumn_reference(SQLParser.Column_referenceContext ctx) {
+    super.exitColumn_reference(ctx);
+    columnReferenceDepth--;
+  }
+
+  @Override
+  public void exitUnsigned_numeric_literal(SQLParser.Unsigned_numeric_literalContext ctx) {
+    super.exitUnsigned_numeric_literal(ctx);
+    if (!inColumnReference()) {
+      push(new Literal(toNumber(ctx.getText())));
+    }
+  }
+
+  @Override
+  public void exitGeneral_literal(SQLParser.General_literalContext ctx) {
+    super.exitGeneral_literal(ctx);
+    if (!inColumnReference()) {
+      if (ctx.Character_String_Literal() != null) {
+        push(new Literal(unquote(ctx.Character_String_Literal().getText())));
+      } else if (ctx.datetime_literal() != null) {
+        // datetime literals are compared as strings, just like the engines treat dates in the input
+        Token literal = ctx.datetime_literal().getStop();
+        push(new Literal(unquote(literal.getText())));
+      } else {
+        SQLParser.Boolean_literalContext booleanLiteral = ctx.boolean_literal();
+        push(
+            new Literal(
+                booleanLiteral.TRUE() != null
+                    ? Boolean.TRUE
+                    : booleanLiteral.FALSE() != null ? Boolean.FALSE : null));
+      }
+    }
+  }
+
+  @Override
+  public void exitParameter_specification(SQLParser.Parameter_specificationContext ctx) {
+    super.exitParameter_specification(ctx);
+    if (!inColumnReference()) {
+      push(
+          ctx.QUESTION() != null
+              ? Parameter.positional(positionalParameterCount++)
+              : Parameter.named(ctx.identifier().getText()));
+    }
+  }
+
+  @Override
+  public void exitCommon_value_expression(SQLParser.Common_value_expressionContext ctx) {
+    super.exitCommon_value_expression(ctx);
+    if (!inColumnReference() && ctx.NULL() != null) {
+      push(new Literal(null));
+    }
+  }
+
+  @Override
+  public void exitFactor(SQLParser.FactorContext ctx) {
+    super.exitFactor(ctx);
+    if (!inColumnReference() && ctx.sign() != null && ctx.sign().MINUS() != null) {
+      push(negate(popOperand()));
+    }
+  }
+
+  @Override
+  public void exitTerm(SQLParser.TermContext ctx) {
+    super.exitTerm(ctx);
+    if (!inColumnReference()) {
+      combine(ctx, ctx.factor().size());
+    }
+  }
+
+  @Override
+  public void exitNumeric_value_expression(SQLParser.Numeric_value_expressionContext ctx) {
+    super.exitNumeric_value_expression(ctx);
+    if (!inColumnReference()) {
+      combine(ctx, ctx.term().size());
+    }
+  }
+
+  @Override
+  public void enterNonparenthesized_value_expression_primary(
+      SQLParser.Nonparenthesized_value_expression_primaryContext ctx) {
+    super.enterNonparenthesized_value_expression_primary(ctx);
+    if (ctx.unsigned_value_specification() == null && ctx.column_reference() == null) {
+      throw unsupported(ctx);
+    }
+  }
+
+  @Override
+  public void enterNumeric_value_function(SQLParser.Numeric_value_functionContext ctx) {
+    super.enterNumeric_value_function(ctx);
+    throw unsupported(ctx);
+  }
+
+  @Override
+  public void enterString_value_function(SQLParser.String_value_functionContext ctx) {
+    super.enterString_value_function(ctx);
+    throw unsupported(ctx);
+  }
+
+  @Override
+  public void enterCharacter_value_expression(SQLParser.Character_value_expressionContext ctx) {
+    super.enterCharacter_value_expression(ctx);
+    if (ctx.CONCATENATION_OPERATOR().size() > 0) {
+      throw unsupported(ctx);
+    }
+  }
+
+  @Override
+  public void enterNumeric_primary(SQLParser.Numeric_primaryContext ctx) {
+    super.enterNumeric_primary(ctx);
+    if (ctx.CAST_EXPRESSION().size() > 0) {
+      throw unsupported(ctx);
+    }
+  }
+
+  protected void push(Object value) {
+    stack.push(value);
+  }
+
+  protected Object pop() {
+    if (stack.isEmpty()) {
+      throw new TranquilParserException("Failed to parse expression, it is incomplete!");
+    }
+    return stack.pop();
+  }
+
+  protected boolean isEmpty() {
+    return stack.isEmpty();
+  }
+
+  protected Operand popOperand() {
+    Object popped = pop();
+    if (!(popped instanceof Operand)) {
+      throw new TranquilParserException(
+          String.format("Failed to parse expression, expected a value but got: [%s]!", popped));
+    }
+    return (Operand) popped;
+  }
+
+  /**
+   * Pops {@code count} operands from the stack, preserving the order in which they were pushed.
+   *
+   * @param count the number of operands to pop
+   * @return the popped operands, in declaration order
+   */
+  protected List<Operand> popOperands(int count) {
+    Operand[] operands = new Operand[count];
+    for (int i = count - 1; i >= 0; i--) {
+      operands[i] = popOperand();
+    }
+    return Arrays.asList(operands);
+  }
+
+  protected boolean inColumnReference() {
+    return columnReferenceDepth > 0;
+  }
+
+  protected TranquilParserException unsupported(ParserRuleContext ctx) {
+    return new TranquilParserException(
+        String.format("Failed to parse expression, [%s] is not supported!", ctx.getText()));
+  }
+
+  /**
+   * Strips the surrounding quotes from a string literal and resolves any escape sequences within
+   * it.
+   *
+   * @param text a quoted string literal e.g. {@code 'it''s'}
+   * @return the unquoted string e.g. {@code it's}
+   */
+  protected static String unquote(String text) {
+    if (text.length() >= 2 && text.startsWith("'") && text.endsWith("'")) {
+      text = text.substring(1, text.length() - 1);
+    }
+    if (text.indexOf('\\') < 0) {
+      return text.replace("''", "'");
+    }
+    StringBuilder sb = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\\' && i + 1 < text.length()) {
+        char next = text.charAt(++i);
+        switch (next) {
+          case 'b':
+            sb.append('\b');
+            break;
+          case 't':
+            sb.append('\t');
+            break;
+          case 'n':
+            sb.append('\n');
+            break;
+          case 'f':
+            sb.append('\f');
+            break;
+          case 'r':
+            sb.append('\r');
+            break;
+          case 'u':
+            sb.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+            i += 4;
+            break;
+          default:
+            if (next >= '0' && next <= '7') {
+              int end = i;
+              while (end < text.length() && end < i + 3 && isOctal(text.charAt(end))) {
+                end++;
+              }
+              sb.append((char) Integer.parseInt(text.substring(i, end), 8));
+              i = end - 1;
+            } else {
+              sb.append(next);
+            }
+        }
+      } else if (c == '\'' && i + 1 < text.length() && text.charAt(i + 1) == '\'') {
+        sb.append('\'');
+        i++;
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static boolean isOctal(char c) {
+    return c >= '0' && c <= '7';
+  }
+
+  private void combine(ParserRuleContext ctx, int count) {
+    if (count > 1) {
+      List<Operand> operands = popOperands(count);
+      Operand combined = operands.get(0);
+      int operandIndex = 1;
+      for (ParseTree child : ctx.children) {
+        if (child instanceof TerminalNode) {
+          combined =
+              new Arithmetic(
+                  combined,
+                  toArithmeticOperator(((TerminalNode) child).getSymbol()),
+                  operands.get(operandIndex++));
+        }
+      }
+      push(combined);
+    }
+  }
+
+  private Arithmetic.Operator toArithmeticOperator(Token token) {
+    switch (token.getType()) {
+      case SQLParser.PLUS:
+        return Arithmetic.Operator.PLUS;
+      case SQLParser.MINUS:
+        return Arithmetic.Operator.MINUS;
+      case SQLParser.MULTIPLY:
+        return Arithmetic.Operator.MULTIPLY;
+      case SQLParser.DIVIDE:
+        return Arithmetic.Operator.DIVIDE;
+      default:
+        return Arithmetic.Operator.MODULO;
+    }
+  }
+
+  private Operand negate(Operand operand) {
+    if (operand instanceof Literal) {
+      Object value = ((Literal) operand).getValue();
+      if (value instanceof Integer) {
+        return new Literal(-(Integer) value);
+      } else if (value instanceof Long) {
+        return new Literal(-(Long) value);
+      } else if (value instanceof BigInteger) {
+        return new Literal(((BigInteger) value).negate());
+      } else if (value instanceof BigDecimal) {
+        return new Literal(((BigDecimal) value).negate());
+      }
+    }
+    return new Arithmetic(new Literal(0), Arithmetic.Operator.MINUS, operand);
+  }
+
+  /**
+   * Converts the text of a numeric literal into the narrowest of {@link Integer}, {@link Long} or
+   * {@link BigInteger} for integral values and into a {@link BigDecimal} for decimal values.
+   *
+   * @param text the text of a numeric literal e.g. {@code 10} or {@code 49.99}
+   * @return the numeric value of the given text
+   */
+  static Number toNumber(String text) {
+    if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+      return new BigDecimal(text);
+    }
+    BigInteger value = new BigInteger(text);
+    if (value.bitLength() < 32) {
+      return value.intValue();
+    } else if (value.bitLength() < 64) {
+      return value.longValue();
+    } else {
+      return value;
+    }
+  }
+
+  private FieldReference toFieldReference(SQLParser.Column_referenceContext ctx) {
+    List<FieldReference.Segment> segments = new ArrayList<>();
+    for (ParseTree child : ctx.children) {
+      if (child instanceof SQLParser.IdentifierContext) {
+        segments.add(FieldReference.Segment.property(child.getText()));
+      } else if (child instanceof SQLParser.Array_accessorContext) {
+        SQLParser.Array_accessorContext accessor = (SQLParser.Array_accessorContext) child;
+        if (accessor.any_array_element() != null) {
+          segments.add(FieldReference.Segment.anyElement());
+        } else {
+          segments.add(FieldReference.Segment.index(toIndex(accessor)));
+        }
+      } else if (child instanceof SQLParser.Array_declarationContext) {
+        throw unsupported(ctx);
+      }
+    }
+    return new FieldReference(segments);
+  }
+
+  private int toIndex(SQLParser.Array_accessorContext accessor) {
+    String text = accessor.numeric_value_expression().getText();
+    try {
+      return Integer.parseInt(text);
+    } catch (NumberFormatException ex) {
+      throw new TranquilParserException(
+          String.format(
+              "Failed to parse expression, array accessor [%s] is not supported!",
+              accessor.getText()),
+          ex);
+    }
+  }
+}
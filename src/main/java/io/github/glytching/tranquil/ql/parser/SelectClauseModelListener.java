@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.parser;
+
+import io.github.glytching.tranquil.antlr.SQLParser;
+import io.github.glytching.tranquil.ql.model.Projection;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listens to callbacks from our sql parser and uses them to create a {@link Projection}, complete
+ * with its {@link Projection#getOperand()}, for each element in a select clause.
+ */
+public class SelectClauseModelListener extends OperandModelListener {
+
+  private final List<Projection> projections = new ArrayList<>();
+  private Projection currentProjection;
+  private boolean inAsClause = false;
+
+  @Override
+  public void enterDerived_column(SQLParser.Derived_columnContext ctx) {
+    super.enterDerived_column(ctx);
+    currentProjection = new Projection();
+    projections.add(currentProjection);
+  }
+
+  @Override
+  public void exitDerived_column(SQLParser.Derived_columnContext ctx) {
+    super.exitDerived_column(ctx);
+    currentProjection.setOperand(popOperand());
+    currentProjection = null;
+  }
+
+  @Override
+  public void enterAs_clause(SQLParser.As_clauseContext ctx) {
+    super.enterAs_clause(ctx);
+    inAsClause = true;
+    currentProjection.setAlias(ctx.identifier().getText());
+  }
+
+  @Override
+  public void exitAs_clause(SQLParser.As_clauseContext ctx) {
+    super.exitAs_clause(ctx);
+    inAsClause = false;
+  }
+
+  @Override
+  public void visitTerminal(TerminalNode node) {
+    super.visitTerminal(node);
+    // gather fields and literals in the same way as the Groovy listener so that un-aliased
+    // projections derive the same key regardless of engine
+    if (currentProjection != null && !inAsClause) {
+      if (inColumnReference()) {
+        currentProjection.addField(node.getText());
+      } else {
+        currentProjection.addLiteral(node.getText());
+      }
+    }
+  }
+
+  /**
+   * Returns the parsed form of the select clause.
+   *
+   * @return the parsed projections, this will be empty for a <i>select *</i>
+   */
+  public List<Projection> getProjections() {
+    return projections;
+  }
+}
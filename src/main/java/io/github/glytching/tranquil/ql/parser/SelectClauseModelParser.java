@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.parser;
+
+import io.github.glytching.tranquil.ql.model.Projection;
+
+import java.util.List;
+
+/**
+ * An engine neutral implementation of {@link SelectClauseParser} which parses a select clause into
+ * a list of {@link Projection}s. Example usage:
+ *
+ * <pre>
+ *  SelectClauseModelParser parser = new SelectClauseModelParser();
+ *
+ *  List&lt;Projection&gt; projections = parser.parse("a, b.c as d");
+ * </pre>
+ */
+public class SelectClauseModelParser extends SelectClauseParser<List<Projection>> {
+
+  /**
+   * Parse the given {@code expression} into a list of {@link Projection}s.
+   *
+   * @param expression the select expression
+   * @return the parsed form of the given {@code expression}, this will be empty for a <i>select
+   *     *</i>
+   */
+  @Override
+  public List<Projection> parse(String expression) {
+    SelectClauseModelListener listener = new SelectClauseModelListener();
+
+    parse(expression, listener);
+
+    return listener.getProjections();
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.parser;
+
+import io.github.glytching.tranquil.antlr.SQLParser;
+import io.github.glytching.tranquil.exception.TranquilParserException;
+import io.github.glytching.tranquil.ql.model.Condition;
+import io.github.glytching.tranquil.ql.model.Conjunction;
+import io.github.glytching.tranquil.ql.model.Criterion;
+import io.github.glytching.tranquil.ql.model.Literal;
+import io.github.glytching.tranquil.ql.model.Negation;
+import io.github.glytching.tranquil.ql.model.Operand;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Listens to callbacks from our sql parser and uses them to create the {@link Condition} tree for a
+ * where clause.
+ */
+public class WhereClauseModelListener extends OperandModelListener {
+
+  @Override
+  public void exitComparison_predicate(SQLParser.Comparison_predicateContext ctx) {
+    super.exitComparison_predicate(ctx);
+
+    Operand right = popOperand();
+    Operand left = popOperand();
+    push(new Criterion(left, toOperator(ctx.c), Collections.singletonList(right)));
+  }
+
+  @Override
+  public void exitBetween_predicate(SQLParser.Between_predicateContext ctx) {
+    super.exitBetween_predicate(ctx);
+
+    List<Operand> range = popOperands(2);
+    Operand subject = popOperand();
+    Condition between = new Criterion(subject, Criterion.Operator.BETWEEN, range);
+    push(ctx.between_predicate_part_2().NOT() != null ? new Negation(between) : between);
+  }
+
+  @Override
+  public void enterIn_predicate(SQLParser.In_predicateContext ctx) {
+    super.enterIn_predicate(ctx);
+    if (ctx.in_predicate_value().table_subquery() != null) {
+      throw unsupported(ctx);
+    }
+  }
+
+  @Override
+  public void exitIn_predicate(SQLParser.In_predicateContext ctx) {
+    super.exitIn_predicate(ctx);
+
+    List<Operand> values =
+        popOperands(ctx.in_predicate_value().in_value_list().row_value_predicand().size());
+    Operand subject = popOperand();
+    Condition in = new Criterion(subject, Criterion.Operator.IN, values);
+    push(ctx.NOT() != null ? new Negation(in) : in);
+  }
+
+  @Override
+  public void exitPattern_matching_predicate(SQLParser.Pattern_matching_predicateContext ctx) {
+    super.exitPattern_matching_predicate(ctx);
+
+    Operand subject = popOperand();
+    Literal pattern = new Literal(unquote(ctx.s.getText()));
+
+    SQLParser.Pattern_matcherContext matcher = ctx.pattern_matcher();
+    boolean negated = matcher.NOT() != null;
+    Criterion.Operator operator = Criterion.Operator.LIKE;
+    if (matcher.negativable_matcher() != null) {
+      if (matcher.negativable_matcher().ILIKE() != null) {
+        operator = Criterion.Operator.ILIKE;
+      }
+    } else {
+      SQLParser.Regex_matcherContext regex = matcher.regex_matcher();
+      if (regex.Similar_To_Case_Insensitive() != null
+          || regex.Not_Similar_To_Case_Insensitive() != null) {
+        operator = Criterion.Operator.ILIKE;
+      }
+      negated = regex.Not_Similar_To() != null || regex.Not_Similar_To_Case_Insensitive() != null;
+    }
+
+    Condition like = new Criterion(subject, operator, Collections.singletonList(pattern));
+    push(negated ? new Negation(like) : like);
+  }
+
+  @Override
+  public void exitNull_predicate(SQLParser.Null_predicateContext ctx) {
+    super.exitNull_predicate(ctx);
+
+    Condition isNull =
+        new Criterion(popOperand(), Criterion.Operator.IS_NULL, Collections.emptyList());
+    push(ctx.n != null ? new Negation(isNull) : isNull);
+  }
+
+  @Override
+  public void enterExists_predicate(SQLParser.Exists_predicateContext ctx) {
+    super.enterExists_predicate(ctx);
+    throw unsupported(ctx);
+  }
+
+  @Override
+  public void enterIs_clause(SQLParser.Is_clauseContext ctx) {
+    super.enterIs_clause(ctx);
+    throw unsupported(ctx);
+  }
+
+  @Override
+  public void exitBoolean_predicand(SQLParser.Boolean_predicandContext ctx) {
+    super.exitBoolean_predicand(ctx);
+
+    // a bare value used as a condition e.g. "where active" is treated as "where active = true"
+    if (ctx.nonparenthesized_value_expression_primary() != null
+        && ctx.getParent() instanceof SQLParser.Boolean_primaryContext) {
+      push(isTrue(popOperand()));
+    }
+  }
+
+  @Override
+  public void exitBoolean_factor(SQLParser.Boolean_factorContext ctx) {
+    super.exitBoolean_factor(ctx);
+    if (ctx.NOT() != null) {
+      push(new Negation(popCondition()));
+    }
+  }
+
+  @Override
+  public void exitAnd_predicate(SQLParser.And_predicateContext ctx) {
+    super.exitAnd_predicate(ctx);
+    combine(Conjunction.Type.AND, 1 + ctx.and_predicate().size());
+  }
+
+  @Override
+  public void exitOr_predicate(SQLParser.Or_predicateContext ctx) {
+    super.exitOr_predicate(ctx);
+    combine(Conjunction.Type.OR, 1 + ctx.or_predicate().size());
+  }
+
+  /**
+   * Returns the parsed form of the where clause.
+   *
+   * @return the parsed condition or null if the where clause was empty
+   */
+  public Condition getCondition() {
+    if (isEmpty()) {
+      return null;
+    }
+    Object popped = pop();
+    if (!isEmpty()) {
+      throw new TranquilParserException(
+          "Failed to parse expression, it contains more than one condition!");
+    }
+    return popped instanceof Operand ? isTrue((Operand) popped) : (Condition) popped;
+  }
+
+  private Condition popCondition() {
+    Object popped = pop();
+    if (popped instanceof Operand) {
+      return isTrue((Operand) popped);
+    }
+    return (Condition) popped;
+  }
+
+  private void combine(Conjunction.Type type, int count) {
+    if (count > 1) {
+      Condition[] popped = new Condition[count];
+      for (int i = count - 1; i >= 0; i--) {
+        popped[i] = popCondition();
+      }
+
+      // flatten nested conjunctions of the same type e.g. "a and (b and c)" becomes "a and b and c"
+      List<Condition> conditions = new ArrayList<>();
+      for (Condition condition : popped) {
+        if (condition instanceof Conjunction && ((Conjunction) condition).getType() == type) {
+          conditions.addAll(((Conjunction) condition).getConditions());
+        } else {
+          conditions.add(condition);
+        }
+      }
+      push(new Conjunction(type, conditions));
+    }
+  }
+
+  private Condition isTrue(Operand operand) {
+    return new Criterion(
+        operand, Criterion.Operator.EQUAL, Collections.singletonList(new Literal(Boolean.TRUE)));
+  }
+
+  private Criterion.Operator toOperator(SQLParser.Comp_opContext ctx) {
+    if (ctx.EQUAL() != null) {
+      return Criterion.Operator.EQUAL;
+    } else if (ctx.NOT_EQUAL() != null) {
+      return Criterion.Operator.NOT_EQUAL;
+    } else if (ctx.LTH() != null) {
+      return Criterion.Operator.LESS_THAN;
+    } else if (ctx.LEQ() != null) {
+      return Criterion.Operator.LESS_THAN_OR_EQUAL;
+    } else if (ctx.GTH() != null) {
+      return Criterion.Operator.GREATER_THAN;
+    } else {
+      return Criterion.Operator.GREATER_THAN_OR_EQUAL;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.parser;
+
+import io.github.glytching.tranquil.ql.model.Condition;
+
+/**
+ * An engine neutral implementation of {@link WhereClauseParser} which parses a where clause into a
+ * {@link Condition} tree. Example usage:
+ *
+ * <pre>
+ *  WhereClauseModelParser parser = new WhereClauseModelParser();
+ *
+ *  Condition condition = parser.parse("a = 1 and b != 'this'");
+ * </pre>
+ */
+public class WhereClauseModelParser extends WhereClauseParser<Condition> {
+
+  /**
+   * Parse the given {@code expression} into a {@link Condition} tree.
+   *
+   * @param expression the where expression
+   * @return the parsed form of the given {@code expression} or null if the expression is empty
+   */
+  @Override
+  public Condition parse(String expression) {
+    WhereClauseModelListener listener = new WhereClauseModelListener();
+
+    parse(expression, listener);
+
+    return listener.getCondition();
+  }
+}
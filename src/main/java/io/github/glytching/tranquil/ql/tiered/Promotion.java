@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.tiered;
+
+import io.github.glytching.tranquil.ql.PreparedExpression;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decides when an expression moves from its interpreted tier to its compiled tier. The invocations
+ * of every binding of the expression are counted here and when that count reaches {@code
+ * compilationThreshold} a compilation is submitted to the {@code executor}. When the compilation
+ * completes each binding swaps in its own instance of the compiled class. Invocations which arrive
+ * while the compilation is in progress continue to use the interpreted tier so no caller ever waits
+ * for a compilation.
+ *
+ * @param <T> the type of the expression, either a predicator or a projector
+ */
+class Promotion<T> {
+  private static final Logger logger = Logger.getLogger(Promotion.class.getName());
+
+  private final String expression;
+  private final Supplier<PreparedExpression<T>> compiler;
+  private final int compilationThreshold;
+  private final Executor executor;
+  private final TierCounters counters;
+  private final AtomicInteger invocations = new AtomicInteger();
+
+  // written once, by the compiling thread, and read on every interpreted invocation thereafter
+  private volatile PreparedExpression<T> compiled;
+
+  Promotion(
+      String expression,
+      Supplier<PreparedExpression<T>> compiler,
+      int compilationThreshold,
+      Executor executor,
+      TierCounters counters) {
+    this.expression = expression;
+    this.compiler = compiler;
+    this.compilationThreshold = compilationThreshold;
+    this.executor = executor;
+    this.counters = counters;
+
+    if (compilationThreshold <= 0) {
+      promote();
+    }
+  }
+
+  /**
+   * Returns the compiled form of the expression.
+   *
+   * @return the compiled form or null if the expression has not (yet) been compiled
+   */
+  PreparedExpression<T> getCompiled() {
+    return compiled;
+  }
+
+  /** Counts an interpreted invocation, triggering a compilation if this reaches the threshold. */
+  void recordInvocation() {
+    // only the invocation which reaches the threshold triggers a compilation, once we are past the
+    // threshold there is no need to keep counting
+    if (invocations.get() < compilationThreshold
+        && invocations.incrementAndGet() == compilationThreshold) {
+      promote();
+    }
+  }
+
+  private void promote() {
+    try {
+      executor.execute(this::compile);
+    } catch (RejectedExecutionException ex) {
+      logger.log(
+          Level.WARNING,
+          String.format(
+              "Failed to schedule compilation of the expression: [%s], it will remain interpreted!",
+              expression),
+          ex);
+    }
+  }
+
+  private void compile() {
+    try {
+      compiled = compiler.get();
+      counters.promotions.increment();
+
+      logger.log(Level.FINEST, "Promoted the expression: [{0}] to its compiled tier", expression);
+    } catch (RuntimeException ex) {
+      // the interpreted tier is still valid so a failed compilation costs performance, not results
+      logger.log(
+          Level.WARNING,
+          String.format(
+              "Failed to compile the expression: [%s], it will remain interpreted!", expression),
+          ex);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.tiered;
+
+import io.github.glytching.tranquil.ql.Parameters;
+import io.github.glytching.tranquil.ql.PreparedExpression;
+
+/**
+ * Holds the two tiers of a single binding of an expression. Each invocation is served by the
+ * interpreted tier until the expression's {@link Promotion} has compiled the expression, at which
+ * point this binding creates its own instance of the compiled class and uses that for all
+ * subsequent invocations.
+ *
+ * @param <T> the type of the expression, either a predicator or a projector
+ */
+abstract class Tiered<T> {
+
+  private final T interpreted;
+  private final Parameters values;
+  private final Promotion<T> promotion;
+  private final TierCounters counters;
+
+  // racing threads may each bind the compiled class, the instances are equivalent so it does not
+  // matter which of them wins
+  private volatile T compiled;
+
+  Tiered(T interpreted, Parameters values, Promotion<T> promotion, TierCounters counters) {
+    this.interpreted = interpreted;
+    this.values = values;
+    this.promotion = promotion;
+    this.counters = counters;
+  }
+
+  /**
+   * Returns the tier which should serve the current invocation, counting the invocation against
+   * that tier.
+   *
+   * @return the compiled tier if it is available, otherwise the interpreted tier
+   */
+  protected T current() {
+    T current = compiled;
+    if (current == null) {
+      PreparedExpression<T> prepared = promotion.getCompiled();
+      if (prepared == null) {
+        counters.interpretedInvocations.increment();
+        promotion.recordInvocation();
+        return interpreted;
+      }
+      current = prepared.bind(values);
+      compiled = current;
+    }
+    counters.compiledInvocations.increment();
+    return current;
+  }
+
+  /**
+   * Is this expression being served by its compiled tier?
+   *
+   * @return true if the compiled tier is available
+   */
+  boolean isCompiled() {
+    return promotion.getCompiled() != null;
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.tiered;
+
+import io.github.glytching.tranquil.cache.Cache;
+import io.github.glytching.tranquil.cache.CachePolicy;
+import io.github.glytching.tranquil.cache.CacheProvider;
+import io.github.glytching.tranquil.ql.CachingExpressionFactory;
+import io.github.glytching.tranquil.ql.ExpressionStatistics;
+import io.github.glytching.tranquil.ql.Parameters;
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.PreparedExpression;
+import io.github.glytching.tranquil.ql.Projector;
+import io.github.glytching.tranquil.ql.compiler.Compiler;
+import io.github.glytching.tranquil.ql.interpreter.Interpreter;
+import io.github.glytching.tranquil.ql.model.Condition;
+import io.github.glytching.tranquil.ql.model.ParameterBinder;
+import io.github.glytching.tranquil.ql.model.Projection;
+import io.github.glytching.tranquil.ql.parser.SelectClauseModelParser;
+import io.github.glytching.tranquil.ql.parser.WhereClauseModelParser;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Combines the {@link Interpreter} and the {@link Compiler}. A new expression is parsed once and is
+ * immediately usable in its interpreted form, so the first caller of an expression never pays for
+ * class generation. Each expression counts its invocations, across all of its bindings, and when
+ * that count reaches the compilation threshold the expression is compiled on a background executor
+ * and the compiled form is swapped in for all subsequent invocations. Expressions which are only
+ * used a handful of times are never compiled.
+ *
+ * <p>The number of invocations served by each tier is reported by {@link #getStatistics()}, this
+ * can be used to tune the compilation threshold.
+ */
+public class TieredFactory extends CachingExpressionFactory {
+  private static final Logger logger = Logger.getLogger(TieredFactory.class.getName());
+
+  /** The number of invocations after which an expression is compiled, unless configured. */
+  public static final int DEFAULT_COMPILATION_THRESHOLD = 1000;
+
+  private final SelectClauseModelParser selectClauseParser;
+  private final WhereClauseModelParser whereClauseParser;
+  private final int compilationThreshold;
+  private final Executor executor;
+  private final TierCounters counters = new TierCounters();
+
+  public TieredFactory(int cacheSize) {
+    this(cacheSize, CachePolicy.LRU, DEFAULT_COMPILATION_THRESHOLD);
+  }
+
+  public TieredFactory(int cacheSize, CachePolicy cachePolicy, int compilationThreshold) {
+    this(
+        new SelectClauseModelParser(),
+        new WhereClauseModelParser(),
+        new CacheProvider(cacheSize, cachePolicy).get(),
+        compilationThreshold,
+        BackgroundCompiler.EXECUTOR);
+  }
+
+  public TieredFactory(
+      SelectClauseModelParser selectClauseParser,
+      WhereClauseModelParser whereClauseParser,
+      Cache cache,
+      int compilationThreshold,
+      Executor executor) {
+    super(cache);
+    this.selectClauseParser = selectClauseParser;
+    this.whereClauseParser = whereClauseParser;
+    this.compilationThreshold = compilationThreshold;
+    this.executor = executor;
+  }
+
+  @Override
+  public ExpressionStatistics getStatistics() {
+    ExpressionStatistics statistics = super.getStatistics();
+    return new ExpressionStatistics(
+        statistics.getCompilations(),
+        statistics.getCoalescedCompilations(),
+        counters.interpretedInvocations.sum(),
+        counters.compiledInvocations.sum(),
+        counters.promotions.sum());
+  }
+
+  /**
+   * Binds the prepared form of the given expression to no parameters. The plain and prepared forms
+   * of an expression share one prepared expression, and so one invocation count and one promotion,
+   * rather than each being promoted on its own.
+   *
+   * @param expression a 'where clause'
+   * @return a tiered implementation of our Predicator, specific to the given expression
+   */
+  @Override
+  protected Predicator compilePredicator(String expression) {
+    return preparePredicator(expression).bind(Parameters.NONE);
+  }
+
+  /**
+   * Binds the prepared form of the given expression to no parameters, see {@link
+   * #compilePredicator(String)}.
+   *
+   * @param expression a 'select clause'
+   * @return a tiered implementation of our Projector, specific to the given expression
+   */
+  @Override
+  protected Projector compileProjector(String expression) {
+    return prepareProjector(expression).bind(Parameters.NONE);
+  }
+
+  /**
+   * Delegates to the {@link WhereClauseModelParser} to parse the given expression and then prepares
+   * it for binding. Invocations are counted across all bindings of the expression so an expression
+   * which is hot across many bindings is compiled even if each individual binding is short lived.
+   * The compiled class is generated once and shared by all bindings.
+   *
+   * @param expression a 'where clause' which may contain parameters
+   * @return a prepared tiered implementation of our Predicator, specific to the given expression
+   */
+  @Override
+  protected PreparedExpression<Predicator> compilePreparedPredicator(String expression) {
+    PreparedExpression<Predicator> prepared =
+        preparePredicator(expression, whereClauseParser.parse(expression));
+
+    logger.log(Level.FINEST, "Prepared a tiered predicator from the expression: [{0}]", expression);
+
+    return prepared;
+  }
+
+  /**
+   * Delegates to the {@link SelectClauseModelParser} to parse the given expression and then
+   * prepares it for binding. Invocations are counted across all bindings of the expression so an
+   * expression which is hot across many bindings is compiled even if each individual binding is
+   * short lived. The compiled class is generated once and shared by all bindings.
+   *
+   * @param expression a 'select clause' which may contain parameters
+   * @return a prepared tiered implementation of our Projector, specific to the given expression
+   */
+  @Override
+  protected PreparedExpression<Projector> compilePreparedProjector(String expression) {
+    PreparedExpression<Projector> prepared =
+        prepareProjector(expression, selectClauseParser.parse(expression));
+
+    logger.log(Level.FINEST, "Prepared a tiered projector from the expression: [{0}]", expression);
+
+    return prepared;
+  }
+
+  private PreparedExpression<Predicator> preparePredicator(String expression, Condition condition) {
+    PreparedExpression<Predicator> interpreted = Interpreter.toPreparedPredicator(condition);
+    Promotion<Predicator> promotion =
+        new Promotion<>(
+            expression,
+            () -> Compiler.toPreparedPredicator(condition),
+            compilationThreshold,
+            executor,
+            counters);
+    if (ParameterBinder.getParameters(condition).isEmpty()) {
+      // nothing to bind so every binding can share one instance
+      Predicator tiered =
+          new TieredPredicator(
+              interpreted.bind(Parameters.NONE), Parameters.NONE, promotion, counters);
+      return PreparedExpression.of(0, values -> tiered);
+    }
+    return PreparedExpression.of(
+        interpreted.getPositionalParameterCount(),
+        values -> new TieredPredicator(interpreted.bind(values), values, promotion, counters));
+  }
+
+  private PreparedExpression<Projector> prepareProjector(
+      String expression, List<Projection> projections) {
+    PreparedExpression<Projector> interpreted = Interpreter.toPreparedProjector(projections);
+    Promotion<Projector> promotion =
+        new Promotion<>(
+            expression,
+            () -> Compiler.toPreparedProjector(projections),
+            compilationThreshold,
+            executor,
+            counters);
+    if (ParameterBinder.getParameters(projections).isEmpty()) {
+      // nothing to bind so every binding can share one instance
+      Projector tiered =
+          new TieredProjector(
+              interpreted.bind(Parameters.NONE), Parameters.NONE, promotion, counters);
+      return PreparedExpression.of(0, values -> tiered);
+    }
+    return PreparedExpression.of(
+        interpreted.getPositionalParameterCount(),
+        values -> new TieredProjector(interpreted.bind(values), values, promotion, counters));
+  }
+
+  /**
+   * Lazily creates the executor shared by all tiered factories. Compilations are short and
+   * infrequent so a single daemon thread is enough and it will not keep the JVM alive.
+   */
+  private static class BackgroundCompiler {
+    private static final ExecutorService EXECUTOR =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "tranquil-tiered-compiler");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+}
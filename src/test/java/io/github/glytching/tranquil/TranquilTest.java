@@ -8,12 +8,22 @@ import io.github.glytching.junit.extension.exception.ExpectedException;
 import io.github.glytching.junit.extension.folder.TemporaryFolder;
 import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
 import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.configuration.Engine;
+import io.github.glytching.tranquil.context.CompiledQuery;
+import io.github.glytching.tranquil.context.LinesReadContext;
+import io.github.glytching.tranquil.context.ParseContext;
+import io.github.glytching.tranquil.context.ReadContext;
+import io.github.glytching.tranquil.context.ScanReadContext;
+import io.github.glytching.tranquil.context.StreamingReadContext;
+import io.github.glytching.tranquil.context.SubscriptionIndex;
 import io.github.glytching.tranquil.exception.MappingException;
 import io.github.glytching.tranquil.exception.TranquilException;
+import io.github.glytching.tranquil.exception.TranquilParserException;
 import io.github.glytching.tranquil.mapping.GsonMappingProvider;
 import io.github.glytching.tranquil.mapping.JacksonMappingProvider;
 import io.github.glytching.tranquil.mapping.MappingProvider;
 import io.github.glytching.tranquil.mapping.TypeRef;
+import io.github.glytching.tranquil.ql.Parameters;
 import io.github.glytching.tranquil.util.Item;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -23,17 +33,32 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
+import static io.github.glytching.tranquil.configuration.Option.LIFT_LITERALS;
 import static io.github.glytching.tranquil.configuration.Option.SUPPRESS_EXCEPTIONS;
 import static io.github.glytching.tranquil.util.MapMaker.makeEntry;
 import static io.github.glytching.tranquil.util.MapMaker.makeMap;
 import static io.github.glytching.tranquil.util.TestData.*;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.startsWith;
 
 /** Tests the public interface. */
 @ExtendWith(TemporaryFolderExtension.class)
@@ -47,6 +72,10 @@ public class TranquilTest {
     TranquilTest.TEMPORARY_FOLDER = givenTemporaryFolder;
   }
 
+  private static Stream<Engine> getParameterisedEngines() {
+    return Stream.of(Engine.INTERPRETER, Engine.COMPILER, Engine.TIERED);
+  }
+
   private static Stream<MappingProvider> getMappingProviders() {
     return Stream.of(new JacksonMappingProvider(), new GsonMappingProvider());
   }
@@ -200,6 +229,560 @@ public class TranquilTest {
         is("{\"twosome\":\"Laurel and Hardy\",\"qualifiedName\":\"silver tap\"}"));
   }
 
+  @Test
+  public void testAllOperatorsAndAllDataTypesWithTheInterpreter() {
+    assertThat(
+        Tranquil.using(Configuration.builder().engine(Engine.INTERPRETER).build())
+            .parse(JSON_ARRAY)
+            .read(
+                "*",
+                "quantity = 10 "
+                    + "and quantity != 8 "
+                    + "and quantity > 9 "
+                    + "and quantity < 11 "
+                    + "and quantity >= 10 "
+                    + "and quantity <= 10 "
+                    + "and price = 49.99 "
+                    + "and price > 45.0 "
+                    + "and price < 55.0 "
+                    + "and price >= 49.0 "
+                    + "and price <=50.0 "
+                    + "and quantity in (5, 10) "
+                    + "and quantity not in (20) "
+                    + "and name = 'tap' "
+                    + "and name like 'ta' "
+                    + "and name not like 'ink' "
+                    + "and since = '2018-09-07' "
+                    + "and active = true "
+                    + "and name is not null "
+                    + "and owner is null"),
+        is(SIMPLE_JSON));
+  }
+
+  @Test
+  public void testComplexJsonWithTheInterpreter() {
+    assertThat(
+        Tranquil.using(Configuration.builder().engine(Engine.INTERPRETER).build())
+            .parse(COMPLEX_JSON)
+            .read("*", "type = 'catalog' and items[*].quantity = 10 and items[0].name = 'tap'"),
+        is(COMPLEX_JSON));
+  }
+
+  @Test
+  public void testProjectionsWithTheInterpreter() {
+    assertThat(
+        Tranquil.using(Configuration.builder().engine(Engine.INTERPRETER).build())
+            .parse(SIMPLE_JSON)
+            .read(
+                "name, 2 * price as doublePrice, 20 - quantity as twentyMinusQuantity, 'silver ' + name as qualifiedName",
+                "name='tap'"),
+        is(
+            "{\"name\":\"tap\",\"doublePrice\":99.98,\"twentyMinusQuantity\":10,\"qualifiedName\":\"silver tap\"}"));
+  }
+
+  @Test
+  public void testAllOperatorsAndAllDataTypesWithTheCompiler() {
+    assertThat(
+        Tranquil.using(Configuration.builder().engine(Engine.COMPILER).build())
+            .parse(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE)
+            .read(
+                "*",
+                "quantity = 10 "
+                    + "and quantity != 8 "
+                    + "and quantity > 9 "
+                    + "and quantity < 11 "
+                    + "and quantity >= 10 "
+                    + "and quantity <= 10 "
+                    + "and price = 49.99 "
+                    + "and price > 45.0 "
+                    + "and price < 55.0 "
+                    + "and price >= 49.0 "
+                    + "and price <=50.0 "
+                    + "and quantity in (5, 10) "
+                    + "and quantity not in (20) "
+                    + "and name = 'tap' "
+                    + "and name like 'ta' "
+                    + "and name not like 'ink' "
+                    + "and since = '2018-09-07' "
+                    + "and active = true "
+                    + "and name is not null "
+                    + "and owner is null"),
+        is(String.format("{\"items\":[%s]}", SIMPLE_JSON)));
+  }
+
+  @Test
+  public void testProjectionsWithTheCompiler() {
+    assertThat(
+        Tranquil.using(Configuration.builder().engine(Engine.COMPILER).build())
+            .parse(COMPLEX_JSON)
+            .read(
+                "type, items[0].name as firstItemName, items[1].active as secondItemStatus",
+                "type = 'catalog' and items[*].quantity = 10"),
+        is("{\"type\":\"catalog\",\"firstItemName\":\"tap\",\"secondItemStatus\":false}"));
+  }
+
+  @Test
+  public void testTieredEngineBeforeAndAfterCompilation() {
+    ParseContext tranquil =
+        Tranquil.using(
+            Configuration.builder().engine(Engine.TIERED).tieredCompilationThreshold(1).build());
+    String select = "type, items[0].name as firstItemName, items[1].active as secondItemStatus";
+    String where = "type = 'catalog' and items[*].quantity = 10";
+    String expected = "{\"type\":\"catalog\",\"firstItemName\":\"tap\",\"secondItemStatus\":false}";
+
+    // the first read is interpreted and subsequent reads may be compiled, either way the result is
+    // the same
+    for (int i = 0; i < 5; i++) {
+      assertThat(tranquil.parse(COMPLEX_JSON).read(select, where), is(expected));
+    }
+  }
+
+  @Test
+  public void canApplyACompiledQueryToManyInputs() {
+    CompiledQuery query = Tranquil.compile("name, price", "quantity = 10");
+
+    assertThat(query.read(SIMPLE_JSON), is("{\"name\":\"tap\",\"price\":49.99}"));
+    assertThat(query.read(JSON_ARRAY), is("{\"name\":\"tap\",\"price\":49.99}"));
+    assertThat(
+        query.read(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE),
+        is("{\"items\":[{\"name\":\"tap\",\"price\":49.99}]}"));
+    assertThat(query.read(makeMap(makeEntry("name", "sink"), makeEntry("quantity", 5))), is("{}"));
+    assertThat(
+        query.read(new ByteArrayInputStream(SIMPLE_JSON.getBytes(StandardCharsets.UTF_8))),
+        is("{\"name\":\"tap\",\"price\":49.99}"));
+  }
+
+  @Test
+  public void canApplyACompiledQueryWithPrefixedExpressionsToAnArrayAttribute() {
+    CompiledQuery query = Tranquil.compile("items.name", "items.quantity > 5");
+
+    assertThat(
+        query.read(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE),
+        is("{\"items\":[{\"name\":\"tap\"},{\"name\":\"sink\"}]}"));
+    assertThat(
+        Tranquil.parse(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE).read("items.name", "items.quantity > 5"),
+        is(query.read(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE)));
+  }
+
+  @Test
+  public void canReadTypedResultsFromACompiledQuery() {
+    CompiledQuery query =
+        Tranquil.using(Configuration.builder().engine(Engine.INTERPRETER).build())
+            .compile("name, quantity", "price > 50");
+
+    Map<String, Object> read = query.read(SIMPLE_JSON, new TypeRef<Map<String, Object>>() {});
+    assertThat(read.isEmpty(), is(true));
+
+    List<Map<String, Object>> items = query.read(JSON_ARRAY, List.class);
+    assertThat(items.size(), is(1));
+    assertThat(items.get(0).get("name"), is("sink"));
+  }
+
+  @Test
+  public void canTestExistenceWithACompiledQuery() {
+    CompiledQuery query = Tranquil.compile("", "quantity = 10");
+
+    assertThat(query.exists(SIMPLE_JSON), is(true));
+    assertThat(query.exists(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE), is(true));
+    assertThat(query.exists(makeMap(makeEntry("quantity", 10))), is(true));
+    assertThat(query.exists(makeMap(makeEntry("quantity", 666))), is(false));
+  }
+
+  @Test
+  @ExpectedException(
+      type = TranquilParserException.class,
+      messageIs =
+          "Failed to parse expression due to: [ no viable alternative at input 'x+' ] at position: 2 in line 1")
+  public void willThrowWhenCompilingAnInvalidQuery() {
+    Tranquil.compile("", "x+");
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void canBindParametersToACompiledQuery(Engine engine) {
+    CompiledQuery query =
+        Tranquil.using(Configuration.builder().engine(engine).build())
+            .compile("name, price * ? as total", "quantity > ? and name != :excluded");
+
+    assertThat(
+        query.bind(Parameters.of(2, 5).with("excluded", "sink")).read(JSON_ARRAY),
+        is("{\"name\":\"tap\",\"total\":99.98}"));
+    assertThat(query.bind(Parameters.of(1, 5).with("excluded", "tap")).read(SIMPLE_JSON), is("{}"));
+    assertThat(query.bind(Parameters.of(1, 0).with("excluded", "")).exists(JSON_ARRAY), is(true));
+  }
+
+  @Test
+  @ExpectedException(
+      type = TranquilException.class,
+      messageIs = "No value has been bound to the parameter: [:excluded]!")
+  public void willThrowWhenAParameterIsNotBound() {
+    Tranquil.using(Configuration.builder().engine(Engine.COMPILER).build())
+        .compile("name", "name != :excluded")
+        .bind(Parameters.of("tap"));
+  }
+
+  @Test
+  @ExpectedException(
+      type = TranquilException.class,
+      messageIs = "Parameters are not supported by the GroovyFactory!")
+  public void willThrowWhenBindingParametersWithTheGroovyEngine() {
+    Tranquil.using(Configuration.builder().engine(Engine.GROOVY).build())
+        .compile("name", "quantity > 5")
+        .bind(Parameters.of(5));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void canLiftLiteralsOutOfWhereClauses(Engine engine) {
+    ParseContext tranquil =
+        Tranquil.using(Configuration.builder().engine(engine).options(LIFT_LITERALS).build());
+
+    assertThat(
+        tranquil.parse(JSON_ARRAY).read("name", "name = 'sink' and quantity > -1"),
+        is("{\"name\":\"sink\"}"));
+    assertThat(
+        tranquil.parse(JSON_ARRAY).read("name", "name = 'tap' and quantity > -1"),
+        is("{\"name\":\"tap\"}"));
+    assertThat(
+        tranquil.parse(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE).read("items.name", "items.price < 10.5"),
+        is(
+            Tranquil.parse(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE)
+                .read("items.name", "items.price < 10.5")));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getMappingProviders")
+  public void streamingReadsGiveTheSameResultsAsNonStreamingReads(MappingProvider mappingProvider) {
+    ParseContext tranquil = Tranquil.using(mappingProvider);
+
+    for (String json : new String[] {JSON_ARRAY, JSON_WITH_SINGLE_ARRAY_ATTRIBUTE, SIMPLE_JSON}) {
+      assertThat(
+          tranquil.stream(toInputStream(json)).read("name, price", "quantity > 5"),
+          is(tranquil.parse(json).read("name, price", "quantity > 5")));
+      assertThat(
+          tranquil.stream(toInputStream(json)).read("name", "quantity > 500"),
+          is(tranquil.parse(json).read("name", "quantity > 500")));
+    }
+  }
+
+  @Test
+  public void canStreamTheElementsOfALargeArrayAttribute() {
+    List<Map<String, Object>> matched = new ArrayList<>();
+
+    // the array is preceded by a scalar attribute, executionTime, which is skipped
+    Tranquil.stream(getClass().getClassLoader().getResourceAsStream("nyc-citybike.json"))
+        .read(
+            "id, stationName as name",
+            "stationBeanList.statusValue = 'In Service' and stationBeanList.availableBikes > 45",
+            matched::add);
+
+    assertThat(matched.size(), is(2));
+    for (Map<String, Object> station : matched) {
+      assertThat(station.keySet(), contains("id", "name"));
+    }
+    for (String where : Arrays.asList("id = 281", "stationBeanList.id = 281")) {
+      assertThat(
+          Tranquil.stream(getClass().getClassLoader().getResourceAsStream("nyc-citybike.json"))
+              .read("id", where),
+          is("{\"stationBeanList\":[{\"id\":281}]}"));
+    }
+  }
+
+  @Test
+  public void canTestExistenceWithAStreamingRead() {
+    assertThat(Tranquil.stream(toInputStream(JSON_ARRAY)).exists("name = 'sink'"), is(true));
+    assertThat(Tranquil.stream(toInputStream(JSON_ARRAY)).exists("name = 'bath'"), is(false));
+    assertThat(
+        Tranquil.stream(toInputStream(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE)).exists("quantity = 10"),
+        is(true));
+    assertThat(
+        Tranquil.stream(toInputStream(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE)).exists("quantity = 666"),
+        is(false));
+  }
+
+  @Test
+  public void canStreamThroughACompiledQuery() {
+    List<Map<String, Object>> matched = new ArrayList<>();
+
+    Tranquil.compile("items.name", "items.quantity > 5")
+        .read(toInputStream(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE), matched::add);
+
+    assertThat(
+        matched, contains(makeMap(makeEntry("name", "tap")), makeMap(makeEntry("name", "sink"))));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void compiledQueriesGiveTheSameResultsWhenOnlyTheirFieldsAreRead(Engine engine)
+      throws IOException {
+    ParseContext tranquil = Tranquil.using(Configuration.builder().engine(engine).build());
+    String events = read("github-events.json");
+    String laureates = read("nobel-prize-dataset.json");
+
+    String[][] queries = {
+      {events, "id, actor.login", "type = 'PushEvent' and actor.id > 1000"},
+      {events, "payload.commits[*].author.name as authors", "payload.size > 1"},
+      {events, "repo", "actor.id > 0"},
+      {laureates, "laureates.surname", "laureates.prizes[*].category = 'physics'"},
+      {laureates, "firstname, prizes", "gender = 'female'"}
+    };
+    for (String[] query : queries) {
+      String expected = tranquil.parse(query[0]).read(query[1], query[2]);
+      assertThat(tranquil.compile(query[1], query[2]).read(query[0]), is(expected));
+      assertThat(tranquil.compile(query[1], query[2]).read(toInputStream(query[0])), is(expected));
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void queriesGiveTheSameResultsWhenDocumentsAreFilteredAsTheyAreRead(Engine engine)
+      throws IOException {
+    ParseContext tranquil = Tranquil.using(Configuration.builder().engine(engine).build());
+    String events = read("github-events.json");
+
+    String[][] queries = {
+      {events, "id, type", "type in ('PushEvent', 'DeleteEvent')"},
+      {events, "id", "public = true and type = 'WatchEvent' and actor.id > 0"},
+      {events, "id", "type != 'PushEvent' and org is not null"},
+      {JSON_WITH_SINGLE_ARRAY_ATTRIBUTE, "items.name", "items.name = 'sink'"},
+      {JSON_ARRAY, "name", "name = 'bath'"}
+    };
+    for (String[] query : queries) {
+      String expected = tranquil.parse(query[0]).read(query[1], query[2]);
+      assertThat(tranquil.compile(query[1], query[2]).read(query[0]), is(expected));
+      assertThat(tranquil.stream(toInputStream(query[0])).read(query[1], query[2]), is(expected));
+    }
+
+    assertThat(
+        tranquil
+            .compile("id", "type = ? and public = :public")
+            .bind(Parameters.of("PushEvent").with("public", true))
+            .read(events),
+        is(tranquil.parse(events).read("id", "type = 'PushEvent' and public = true")));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void queriesGiveTheSameResultsWhenDocumentsAreBoundLazily(Engine engine)
+      throws IOException {
+    ParseContext eager = Tranquil.using(Configuration.builder().engine(engine).build());
+    ParseContext lazy =
+        Tranquil.using(
+            Configuration.builder()
+                .engine(engine)
+                .mappingProvider(new JacksonMappingProvider(new ObjectMapper(), true))
+                .build());
+    String events = read("github-events.json");
+    String laureates = read("nobel-prize-dataset.json");
+
+    String[][] queries = {
+      {events, "", "type = 'PushEvent' and payload.size > 1"},
+      {events, "id, actor.login", "actor.id > 1000"},
+      {laureates, "", "laureates.prizes[*].category = 'physics'"},
+      {laureates, "firstname, prizes", "gender = 'female'"},
+      {JSON_WITH_SINGLE_ARRAY_ATTRIBUTE, "", "items.name = 'sink'"}
+    };
+    for (String[] query : queries) {
+      String expected = eager.parse(query[0]).read(query[1], query[2]);
+      assertThat(lazy.parse(query[0]).read(query[1], query[2]), is(expected));
+      assertThat(lazy.stream(toInputStream(query[0])).read(query[1], query[2]), is(expected));
+    }
+  }
+
+  @Test
+  public void compiledQueriesWhichReferToNoneOfAnInputsFieldsStillMatchIt() {
+    assertThat(
+        Tranquil.compile("missing", "").read(SIMPLE_JSON),
+        is(Tranquil.parse(SIMPLE_JSON).read("missing", "")));
+    assertThat(
+        Tranquil.compile("items.missing", "").read(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE),
+        is(Tranquil.parse(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE).read("items.missing", "")));
+  }
+
+  @Test
+  @ExpectedException(
+      type = TranquilException.class,
+      messageIs =
+          "This streaming context has already been read, an input stream can only be read once!")
+  public void willThrowWhenAStreamingContextIsReadTwice() {
+    StreamingReadContext context = Tranquil.stream(toInputStream(JSON_ARRAY));
+    context.read("name", "");
+    context.read("name", "");
+  }
+
+  @Test
+  public void streamingReadsOfAnObjectWithManyAttributesGiveTheSameResultsAsNonStreamingReads() {
+    ParseContext tranquil =
+        Tranquil.using(Configuration.builder().engine(Engine.INTERPRETER).build());
+    String json = "{\"meta\":{\"v\":1},\"items\":[{\"a\":1},{\"a\":2}]}";
+
+    String[][] queries = {
+      {"*", "a = 1"}, {"*", "items.a = 1"}, {"meta", "meta.v = 1"}, {"items", ""}
+    };
+    for (String[] query : queries) {
+      String expected = tranquil.parse(json).read(query[0], query[1]);
+      assertThat(tranquil.stream(toInputStream(json)).read(query[0], query[1]), is(expected));
+      assertThat(tranquil.compile(query[0], query[1]).read(toInputStream(json)), is(expected));
+      assertThat(
+          tranquil.stream(toInputStream(json)).exists(query[1]),
+          is(tranquil.parse(json).exists(query[1])));
+    }
+  }
+
+  @Test
+  public void willSkipTheAttributesWhichFollowAStreamedArray() {
+    String json = "{\"items\":[{\"a\":1},{\"a\":2}],\"meta\":{\"v\":1}}";
+
+    assertThat(
+        Tranquil.stream(toInputStream(json)).read("*", "a = 2"), is("{\"items\":[{\"a\":2}]}"));
+    assertThat(Tranquil.stream(toInputStream(json)).exists("a = 2"), is(true));
+    assertThat(Tranquil.stream(toInputStream(json)).read("*", "meta.v = 1"), is("{\"items\":[]}"));
+    assertThat(Tranquil.stream(toInputStream(json)).exists("meta.v = 1"), is(false));
+  }
+
+  @Test
+  public void willSuppressExceptionsWhenStreamingAnInvalidInput() {
+    ParseContext tranquil =
+        Tranquil.using(Configuration.builder().options(SUPPRESS_EXCEPTIONS).build());
+
+    assertThat(
+        tranquil.stream(toInputStream("[{\"name\":\"tap\"},")).read("name", ""),
+        is("{\"name\":\"tap\"}"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getMappingProviders")
+  public void canReadEachRecordOfAJsonLinesInput(MappingProvider mappingProvider) {
+    ParseContext tranquil = Tranquil.using(mappingProvider);
+    String lines = toLines(JSON_ARRAY);
+
+    assertThat(
+        tranquil.lines(toInputStream(lines)).read("name", "quantity > 5"),
+        is("{\"name\":\"tap\"}\n{\"name\":\"sink\"}\n"));
+    assertThat(tranquil.lines(toInputStream(lines)).read("name", "quantity > 500"), is(""));
+    assertThat(tranquil.lines(toInputStream(lines)).exists("name = 'sink'"), is(true));
+    assertThat(tranquil.lines(toInputStream(lines)).exists("name = 'bath'"), is(false));
+  }
+
+  @Test
+  public void canWriteTheMatchingRecordsOfAJsonLinesInput() throws IOException {
+    StringWriter output = new StringWriter();
+
+    Tranquil.lines(toInputStream(toLines(JSON_ARRAY) + "\n\n"))
+        .read("name, quantity", "name = 'sink'", output);
+
+    assertThat(output.toString(), is("{\"name\":\"sink\",\"quantity\":100}\n"));
+  }
+
+  @Test
+  public void canReadAJsonLinesFileMoreThanOnce() throws IOException {
+    File file = writeJsonToFile(toLines(JSON_ARRAY));
+    LinesReadContext context = Tranquil.lines(file);
+
+    List<Map<String, Object>> matched = new ArrayList<>();
+    context.read("name", "", matched::add);
+
+    assertThat(
+        matched, contains(makeMap(makeEntry("name", "tap")), makeMap(makeEntry("name", "sink"))));
+    assertThat(context.exists("name = 'tap'"), is(true));
+  }
+
+  @Test
+  @ExpectedException(
+      type = TranquilException.class,
+      messageIs =
+          "This lines context has already been read, an input stream can only be read once!")
+  public void willThrowWhenALinesContextForAnInputStreamIsReadTwice() {
+    LinesReadContext context = Tranquil.lines(toInputStream(toLines(JSON_ARRAY)));
+    context.read("name", "");
+    context.read("name", "");
+  }
+
+  @ParameterizedTest
+  @MethodSource("getMappingProviders")
+  public void canScanAJsonLinesFileOrAJsonArrayFile(MappingProvider mappingProvider)
+      throws IOException {
+    ParseContext tranquil = Tranquil.using(mappingProvider);
+
+    for (File file :
+        Arrays.asList(
+            writeJsonToFile("scanLines.json", toLines(JSON_ARRAY)),
+            writeJsonToFile("scanArray.json", JSON_ARRAY))) {
+      ScanReadContext context = tranquil.scan(file);
+
+      assertThat(
+          context.read("name", "quantity > 5"), is("[{\"name\":\"tap\"},{\"name\":\"sink\"}]"));
+      assertThat(context.read("name", "quantity > 500"), is(EMPTY_JSON));
+      assertThat(context.exists("name = 'sink'"), is(true));
+      assertThat(context.exists("name = 'bath'"), is(false));
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void scansGiveTheSameResultsAsNonParallelReads(Engine engine) throws IOException {
+    // large enough to be split into several chunks
+    StringBuilder lines = new StringBuilder();
+    for (int i = 0; i < 40000; i++) {
+      lines.append(
+          String.format("{\"id\":%d,\"name\":\"item-%d\",\"quantity\":%d}\n", i, i, i % 100));
+    }
+    File linesFile = writeJsonToFile("largeLines.json", lines.toString());
+    File arrayFile =
+        writeJsonToFile("largeArray.json", "[" + lines.toString().trim().replace("\n", ",") + "]");
+
+    ParseContext tranquil = Tranquil.using(Configuration.builder().engine(engine).build());
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      String expected = tranquil.parse(arrayFile).read("id, name", "quantity = 7");
+      assertThat(tranquil.scan(linesFile, pool).read("id, name", "quantity = 7"), is(expected));
+      assertThat(tranquil.scan(arrayFile, pool).read("id, name", "quantity = 7"), is(expected));
+
+      List<Map<String, Object>> unordered = new ArrayList<>();
+      tranquil.scan(arrayFile, pool).read("id", "quantity = 7", false, unordered::add);
+      assertThat(unordered.size(), is(400));
+
+      assertThat(tranquil.scan(linesFile, pool).exists("id = 39999"), is(true));
+      assertThat(tranquil.scan(linesFile, pool).exists("id = 40000"), is(false));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void canEvaluateLargeArraysInParallel(Engine engine) {
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      items.add(makeMap(makeEntry("id", i), makeEntry("quantity", i % 100)));
+    }
+    Map<String, Object> json = makeMap(makeEntry("items", items));
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ReadContext sequential =
+          Tranquil.using(Configuration.builder().engine(engine).build()).parse(json);
+      ReadContext parallel =
+          Tranquil.using(
+                  Configuration.builder()
+                      .engine(engine)
+                      .parallelThreshold(100)
+                      .parallelPool(pool)
+                      .build())
+              .parse(json);
+
+      String expected = sequential.read("items.id", "items.quantity = 7");
+      assertThat(parallel.read("items.id", "items.quantity = 7"), is(expected));
+      assertThat(expected, startsWith("{\"items\":[{\"id\":7},{\"id\":107},{\"id\":207},"));
+      assertThat(parallel.read("", ""), is(sequential.read("", "")));
+      assertThat(
+          parallel.read("", "items.quantity > 1000"),
+          is(sequential.read("", "items.quantity > 1000")));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
   @Test
   public void testExistsWithSimpleJson() {
     assertThat(Tranquil.parse(SIMPLE_JSON).exists("quantity = 10"), is(true));
@@ -254,6 +837,562 @@ public class TranquilTest {
     assertThat(read, hasItem(new Item("sink", 100)));
   }
 
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void canStreamTheMatchesOfAQuery(Engine engine) {
+    ParseContext tranquil = Tranquil.using(Configuration.builder().engine(engine).build());
+
+    assertThat(
+        tranquil.parse(JSON_ARRAY).stream("name, quantity", "quantity > 5").collect(toList()),
+        contains(
+            makeMap(makeEntry("name", "tap"), makeEntry("quantity", 10)),
+            makeMap(makeEntry("name", "sink"), makeEntry("quantity", 100))));
+    assertThat(
+        tranquil.parse(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE).stream("items.name", "items.quantity > 5")
+            .collect(toList()),
+        contains(makeMap(makeEntry("name", "tap")), makeMap(makeEntry("name", "sink"))));
+    assertThat(tranquil.parse(JSON_ARRAY).stream("name", "name = 'foo'").count(), is(0L));
+
+    Iterator<Map<String, Object>> iterator =
+        tranquil.parse(SIMPLE_JSON).iterator("name", "name = 'tap'");
+    assertThat(iterator.next(), is(makeMap(makeEntry("name", "tap"))));
+    assertThat(iterator.hasNext(), is(false));
+  }
+
+  @Test
+  public void streamsStopEvaluatingOnceTheyAreSatisfied() {
+    AtomicInteger reads = new AtomicInteger();
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      items.add(
+          new HashMap<String, Object>(makeMap(makeEntry("quantity", i))) {
+            @Override
+            public Object get(Object key) {
+              reads.incrementAndGet();
+              return super.get(key);
+            }
+          });
+    }
+    ReadContext context = Tranquil.parse(makeMap(makeEntry("items", items)));
+
+    assertThat(
+        context.stream("items.quantity", "items.quantity > 4").findFirst().get(),
+        is(makeMap(makeEntry("quantity", 5))));
+    assertThat(reads.get(), lessThan(items.size()));
+
+    reads.set(0);
+    assertThat(context.stream("", "items.quantity >= 0").limit(3).count(), is(3L));
+    assertThat(context.stream("", "").anyMatch(item -> item.get("quantity").equals(1)), is(true));
+    assertThat(reads.get(), lessThan(items.size()));
+  }
+
+  @Test
+  public void existsStopsAtTheFirstMatch() {
+    AtomicInteger reads = new AtomicInteger();
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      items.add(
+          new HashMap<String, Object>(makeMap(makeEntry("quantity", i))) {
+            @Override
+            public Object get(Object key) {
+              reads.incrementAndGet();
+              return super.get(key);
+            }
+          });
+    }
+
+    assertThat(
+        Tranquil.parse(makeMap(makeEntry("items", items))).exists("items.quantity > 4"), is(true));
+    assertThat(reads.get(), is(6));
+
+    assertThat(Tranquil.stream(toInputStream(JSON_ARRAY)).exists("quantity > 5"), is(true));
+    assertThat(Tranquil.parse(JSON_ARRAY).exists("quantity > 500"), is(false));
+  }
+
+  @Test
+  public void existsDoesNotDependOnTheShapeOfTheMatch() {
+    // a single match whose first attribute is an empty array
+    assertThat(Tranquil.parse("{\"tags\":[],\"name\":\"tap\"}").exists("name = 'tap'"), is(true));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getMappingProviders")
+  public void canReadToAWriterOrAnOutputStream(MappingProvider mappingProvider) {
+    ParseContext tranquil =
+        Tranquil.using(Configuration.builder().mappingProvider(mappingProvider).build());
+
+    String[][] queries = {
+      {"name, quantity", "quantity > 5"},
+      {"name, quantity", "name = 'tap'"},
+      {"name", "name = 'foo'"},
+      {"items.name", "items.name = 'sink'"}
+    };
+    for (String json : new String[] {JSON_ARRAY, JSON_WITH_SINGLE_ARRAY_ATTRIBUTE}) {
+      for (String[] query : queries) {
+        ReadContext context = tranquil.parse(json);
+        String expected = context.read(query[0], query[1]);
+
+        StringWriter writer = new StringWriter();
+        context.read(query[0], query[1], writer);
+        assertThat(writer.toString(), is(expected));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        context.read(query[0], query[1], outputStream);
+        assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8), is(expected));
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("getMappingProviders")
+  public void canReadEachMatchAsABespokeType(MappingProvider mappingProvider) {
+    for (Engine engine : Engine.values()) {
+      ParseContext tranquil =
+          Tranquil.using(
+              Configuration.builder().engine(engine).mappingProvider(mappingProvider).build());
+
+      assertThat(
+          tranquil.parse(JSON_ARRAY).readEach("name, quantity", "quantity > 5", Item.class),
+          contains(new Item("tap", 10), new Item("sink", 100)));
+      assertThat(
+          tranquil
+              .parse(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE)
+              .readEach("items.name, items.quantity", "items.name = 'sink'", Item.class),
+          contains(new Item("sink", 100)));
+      assertThat(
+          tranquil.parse(JSON_ARRAY).readEach("name, quantity", "name = 'foo'", Item.class),
+          empty());
+    }
+  }
+
+  @Test
+  public void readEachDefersToTheMappingProviderForValuesWhichCannotBeWrittenDirectly() {
+    // the price of a tap is not a whole number, so it cannot be written directly to an int, but
+    // Jackson will truncate it
+    assertThat(
+        Tranquil.parse(JSON_ARRAY).readEach("name, price as quantity", "name = 'tap'", Item.class),
+        contains(new Item("tap", 49)));
+  }
+
+  @Test
+  public void canReadEachMatchWithACompiledQuery() {
+    assertThat(
+        Tranquil.compile("name, quantity", "quantity > 5").readEach(JSON_ARRAY, Item.class),
+        contains(new Item("tap", 10), new Item("sink", 100)));
+  }
+
+  @Test
+  public void canReadABatchOfInputsWithACompiledQuery() {
+    CompiledQuery query = Tranquil.compile("name", "quantity > 5");
+    List<Object> sources = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      String json = String.format("{\"name\":\"item-%d\",\"quantity\":%d}", i, i % 10);
+      expected.add(query.read(json));
+      switch (i % 4) {
+        case 0:
+          sources.add(json);
+          break;
+        case 1:
+          sources.add(Tranquil.parse(json).read("", "", Map.class));
+          break;
+        case 2:
+          sources.add(toInputStream(json));
+          break;
+        default:
+          sources.add(json.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      assertThat(query.readAll(sources, pool, 4), is(expected));
+      assertThat(query.readAll(new ArrayList<>(), pool, 4), empty());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void readAllIsolatesInputsWhichCannotBeRead() {
+    CompiledQuery query =
+        Tranquil.using(Configuration.builder().options(SUPPRESS_EXCEPTIONS).build())
+            .compile("name", "quantity > 5");
+
+    assertThat(
+        query.readAll(Arrays.asList(SIMPLE_JSON, "not json", JSON_ARRAY), Runnable::run, 3),
+        contains(
+            "{\"name\":\"tap\"}",
+            query.read("not json"),
+            "[{\"name\":\"tap\"},{\"name\":\"sink\"}]"));
+  }
+
+  @Test
+  @ExpectedException(type = MappingException.class, messageIs = "Failed to deserialize [bad]!")
+  public void readAllThrowsTheFailureOfTheEarliestInputToFail() {
+    Tranquil.compile("name", "quantity > 5")
+        .readAll(Arrays.asList(SIMPLE_JSON, "bad", "not json"), Runnable::run, 3);
+  }
+
+  @Test
+  @ExpectedException(type = MappingException.class, messageIs = "Failed to deserialize [bad]!")
+  public void readAllStillReadsTheInputsWhichPrecedeAFailure() {
+    // the executor runs the second slice before the calling thread reads the first, so the second
+    // slice's failure is seen first
+    Tranquil.compile("name", "quantity > 5")
+        .readAll(Arrays.asList(SIMPLE_JSON, "bad", SIMPLE_JSON, "not json"), Runnable::run, 2);
+  }
+
+  @Test
+  @ExpectedException(
+      type = TranquilException.class,
+      messageIs =
+          "Cannot read an input of type [java.lang.Integer], an input must be a String, a Map, an"
+              + " InputStream or a byte[]!")
+  public void readAllWillRejectAnUnsupportedInput() {
+    Tranquil.compile("name", "").readAll(Arrays.asList(SIMPLE_JSON, 1), Runnable::run, 1);
+  }
+
+  @ParameterizedTest
+  @MethodSource("getMappingProviders")
+  public void canMatchManySubscriptionsAtOnce(MappingProvider mappingProvider) {
+    Map<String, String> whereClauses = new LinkedHashMap<>();
+    whereClauses.put("taps", "name = 'tap' and quantity between 5 and 20");
+    whereClauses.put("cheap", "price < 50");
+    whereClauses.put("sinks", "name = 'sink' or quantity > 50");
+    whereClauses.put("inactive", "active = false");
+    whereClauses.put("everything", "");
+    SubscriptionIndex index = Tranquil.using(mappingProvider).index(whereClauses);
+
+    assertThat(index.match(SIMPLE_JSON), contains("taps", "cheap", "everything"));
+    assertThat(
+        index.match(JSON_ARRAY), contains("taps", "cheap", "sinks", "inactive", "everything"));
+    assertThat(
+        index.match(Tranquil.parse(SIMPLE_JSON).read("", "", Map.class)),
+        is(index.match(SIMPLE_JSON)));
+    assertThat(index.match(EMPTY_JSON), empty());
+    // the index always uses the interpreter
+    ReadContext context =
+        Tranquil.using(Configuration.builder().engine(Engine.INTERPRETER).build())
+            .parse(SIMPLE_JSON);
+    for (Map.Entry<String, String> entry : whereClauses.entrySet()) {
+      assertThat(
+          index.match(SIMPLE_JSON).contains(entry.getKey()), is(context.exists(entry.getValue())));
+    }
+  }
+
+  @Test
+  public void canMatchSubscriptionsAgainstTheElementsOfAnArrayAttribute() {
+    String json = "{\"items\":[{\"a\":1},{\"a\":2}]}";
+    Map<String, String> whereClauses = new LinkedHashMap<>();
+    whereClauses.put("prefixed", "items.a = 1");
+    whereClauses.put("unprefixed", "a = 1");
+    whereClauses.put("missing", "a = 3");
+    whereClauses.put("range", "items.a between 2 and 3");
+    whereClauses.put("either", "a = 3 or items.a = 2");
+    SubscriptionIndex index = Tranquil.index(whereClauses);
+
+    assertThat(index.match(json), contains("prefixed", "unprefixed", "range", "either"));
+    assertThat(index.match(Tranquil.parse(json).read("", "", Map.class)), is(index.match(json)));
+    ReadContext context =
+        Tranquil.using(Configuration.builder().engine(Engine.INTERPRETER).build()).parse(json);
+    for (Map.Entry<String, String> entry : whereClauses.entrySet()) {
+      assertThat(index.match(json).contains(entry.getKey()), is(context.exists(entry.getValue())));
+    }
+
+    // the index always uses the interpreter whereas the default engine has no support for between
+    assertThat(Tranquil.parse(json).exists("items.a between 2 and 3"), is(false));
+  }
+
+  @Test
+  @ExpectedException(
+      type = TranquilException.class,
+      messageIs = "The where clause of subscription [b] cannot be indexed since it has parameters!")
+  public void willNotIndexAWhereClauseWithParameters() {
+    Map<String, String> whereClauses = new LinkedHashMap<>();
+    whereClauses.put("a", "name = 'tap'");
+    whereClauses.put("b", "quantity > ?");
+    Tranquil.index(whereClauses);
+  }
+
+  @Test
+  public void eachParseHasItsOwnReadContext() {
+    ParseContext tranquil = Tranquil.using(Configuration.builder().build());
+    ReadContext simple = tranquil.parse(SIMPLE_JSON);
+    ReadContext array = tranquil.parse(JSON_ARRAY);
+
+    assertThat(simple.read("name", ""), is("{\"name\":\"tap\"}"));
+    assertThat(array.read("name", ""), is("[{\"name\":\"tap\"},{\"name\":\"sink\"}]"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void canReadOneParsedInputFromManyThreadsAtOnce(Engine engine) throws Exception {
+    ReadContext context =
+        Tranquil.using(Configuration.builder().engine(engine).build()).parse(COMPLEX_JSON);
+    canReadFromManyThreadsAtOnce(context, context);
+  }
+
+  @Test
+  public void canReadOneParsedInputOfLazyDocumentsFromManyThreadsAtOnce() throws Exception {
+    // a lazy document advances its scan on a read so concurrent reads contend for each document,
+    // each round reads a context which has not yet been read
+    ReadContext eager =
+        Tranquil.using(Configuration.builder().engine(Engine.INTERPRETER).build())
+            .parse(COMPLEX_JSON);
+    for (int round = 0; round < 20; round++) {
+      canReadFromManyThreadsAtOnce(
+          Tranquil.using(
+                  Configuration.builder()
+                      .engine(Engine.INTERPRETER)
+                      .mappingProvider(new JacksonMappingProvider(new ObjectMapper(), true))
+                      .build())
+              .parse(COMPLEX_JSON),
+          eager);
+    }
+  }
+
+  private void canReadFromManyThreadsAtOnce(ReadContext context, ReadContext reference)
+      throws Exception {
+    List<String[]> queries =
+        Arrays.asList(
+            new String[] {"type", ""},
+            new String[] {"items.name", "items.quantity > 5"},
+            new String[] {"items.name, items.price", "items.name = 'tap'"},
+            new String[] {"", "items.quantity < 100"});
+    List<String> expected = new ArrayList<>();
+    for (String[] query : queries) {
+      expected.add(reference.read(query[0], query[1]));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(8);
+    try {
+      List<ForkJoinTask<Boolean>> tasks = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        int which = i % queries.size();
+        String[] query = queries.get(which);
+        tasks.add(pool.submit(() -> context.read(query[0], query[1]).equals(expected.get(which))));
+      }
+      for (ForkJoinTask<Boolean> task : tasks) {
+        assertThat(task.get(), is(true));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void anIndexedReadIsTheSameAsAScan(Engine engine) {
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      items.add(
+          makeMap(
+              makeEntry("id", i),
+              makeEntry("colour", i % 3 == 0 ? "red" : "blue"),
+              makeEntry("size", i % 10)));
+    }
+    ReadContext scanned =
+        Tranquil.using(Configuration.builder().engine(engine).build())
+            .parse(makeMap(makeEntry("items", items)));
+    ReadContext indexed = scanned.createIndex("items.id").createIndex("items.colour");
+
+    List<String[]> queries =
+        Arrays.asList(
+            new String[] {"items.id", "items.id = 42"},
+            new String[] {"items.id", "items.id = 42.0"},
+            new String[] {"items.id", "items.id in (3, 5, 1000)"},
+            new String[] {"items.id", "items.id = 1000"},
+            new String[] {"items.id, items.size", "items.colour = 'red' and items.size > 5"},
+            new String[] {"", "items.id = 7 and items.colour = 'blue'"},
+            new String[] {"items.id", "items.id = 7 or items.id = 8"});
+    for (String[] query : queries) {
+      assertThat(indexed.read(query[0], query[1]), is(scanned.read(query[0], query[1])));
+      assertThat(indexed.exists(query[1]), is(scanned.exists(query[1])));
+    }
+
+    assertThat(
+        indexed.explain("items.id in (3, 5, 1000)"),
+        is("Index on [items.id] (hash) for [items.id in [3, 5, 1000]], 2 of 100 rows are tested"));
+    assertThat(
+        indexed.explain("items.colour = 'red' and items.id = 4"),
+        is(
+            "Indexes on [items.colour] (hash) for [items.colour = 'red'] and [items.id] (hash) for [items.id = 4], 0 of 100 rows are tested"));
+    assertThat(indexed.explain("items.id = 7 or items.id = 8"), is("Scan, every row is tested"));
+    // the context from which the indexed context was created is unchanged
+    assertThat(scanned.explain("items.id = 42"), is("Scan, every row is tested"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void anIndexOfAPathWithoutTheArrayAttributesNameIsTheSameAsAScan(Engine engine) {
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      items.add(makeMap(makeEntry("id", i), makeEntry("colour", i % 3 == 0 ? "red" : "blue")));
+    }
+    ReadContext scanned =
+        Tranquil.using(Configuration.builder().engine(engine).build())
+            .parse(makeMap(makeEntry("items", items)));
+    // a query tests each element of a single array attribute whether or not its paths are
+    // prefixed with the attribute's name, so the index does too
+    ReadContext indexed = scanned.createIndex("id").createIndex("items.colour");
+
+    List<String[]> queries =
+        Arrays.asList(
+            new String[] {"", "id = 5"},
+            new String[] {"id", "id in (3, 5, 1000)"},
+            new String[] {"items.id", "items.colour = 'red' and id = 6"},
+            new String[] {"id", "id = 1000"});
+    for (String[] query : queries) {
+      assertThat(indexed.read(query[0], query[1]), is(scanned.read(query[0], query[1])));
+      assertThat(indexed.exists(query[1]), is(scanned.exists(query[1])));
+    }
+    assertThat(indexed.read("id", "id = 5"), is("{\"items\":[{\"id\":5}]}"));
+    assertThat(indexed.explain("id = 5"), endsWith("1 of 10 rows are tested"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void aSortedIndexedReadIsTheSameAsAScan(Engine engine) {
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      items.add(
+          makeMap(
+              makeEntry("id", i),
+              makeEntry("price", i * 1.5),
+              makeEntry("since", String.format("2018-09-%02d", i % 30 + 1)),
+              makeEntry("colour", i % 3 == 0 ? "red" : "blue")));
+    }
+    ReadContext scanned =
+        Tranquil.using(Configuration.builder().engine(engine).build())
+            .parse(makeMap(makeEntry("items", items)));
+    ReadContext indexed =
+        scanned
+            .createSortedIndex("items.price")
+            .createSortedIndex("items.since")
+            .createIndex("items.colour");
+
+    List<String[]> queries =
+        Arrays.asList(
+            new String[] {"items.id", "items.price < 15"},
+            new String[] {"items.id", "items.price <= 15"},
+            new String[] {"items.id", "items.price > 135"},
+            new String[] {"items.id", "items.price >= 135.0"},
+            new String[] {"items.id", "items.price = 3"},
+            new String[] {"items.id", "items.price > 1000"},
+            new String[] {"items.id", "items.since >= '2018-09-29'"},
+            new String[] {"items.id", "items.price > 'a'"},
+            new String[] {
+              "items.id", "items.price > 30 and items.price < 60 and items.colour = 'red'"
+            },
+            new String[] {
+              "items.id, items.since", "items.since < '2018-09-03' and items.price > 50"
+            },
+            new String[] {"", "items.price > 100 and items.id < 80"});
+    for (String[] query : queries) {
+      assertThat(indexed.read(query[0], query[1]), is(scanned.read(query[0], query[1])));
+      assertThat(indexed.exists(query[1]), is(scanned.exists(query[1])));
+    }
+
+    assertThat(
+        indexed.explain("items.price between 30 and 60"),
+        is("Index on [items.price] (sorted) for [items.price between [30, 60]], 21 of 100 rows are tested"));
+    assertThat(
+        indexed.explain("items.price > 30 and items.colour = 'red'"),
+        is("Indexes on [items.price] (sorted) for [items.price > 30] and [items.colour] (hash) for [items.colour = 'red'], 27 of 100 rows are tested"));
+  }
+
+  @ParameterizedTest
+  @MethodSource("getParameterisedEngines")
+  public void aSortedIndexOfAPathWithoutTheArrayAttributesNameIsTheSameAsAScan(Engine engine) {
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      items.add(makeMap(makeEntry("id", i), makeEntry("price", i * 1.5)));
+    }
+    ReadContext scanned =
+        Tranquil.using(Configuration.builder().engine(engine).build())
+            .parse(makeMap(makeEntry("items", items)));
+    ReadContext indexed = scanned.createSortedIndex("id").createSortedIndex("items.price");
+
+    List<String[]> queries =
+        Arrays.asList(
+            new String[] {"id", "id > 4"},
+            new String[] {"id", "id <= 2"},
+            new String[] {"items.id", "id >= 3 and items.price < 9"},
+            new String[] {"id", "id > 100"});
+    for (String[] query : queries) {
+      assertThat(indexed.read(query[0], query[1]), is(scanned.read(query[0], query[1])));
+      assertThat(indexed.exists(query[1]), is(scanned.exists(query[1])));
+    }
+    // the bounds are inclusive so the row on the bound is a candidate too
+    assertThat(indexed.explain("id > 4"), endsWith("6 of 10 rows are tested"));
+  }
+
+  @Test
+  public void canReadBetweenUsingASortedIndex() {
+    ReadContext scanned =
+        Tranquil.using(Configuration.builder().engine(Engine.INTERPRETER).build())
+            .parse(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE);
+    ReadContext indexed = scanned.createSortedIndex("items.price");
+
+    assertThat(
+        indexed.read("items.name", "items.price between 40 and 50"),
+        is("{\"items\":[{\"name\":\"tap\"}]}"));
+    assertThat(
+        indexed.read("items.name", "items.price between 50 and 90"),
+        is(scanned.read("items.name", "items.price between 50 and 90")));
+    assertThat(
+        indexed.explain("items.price between 40 and 50"), endsWith("1 of 2 rows are tested"));
+  }
+
+  @Test
+  public void anIndexedReadOfAFloatIsTheSameAsAScan() {
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (float f : new float[] {0.1f, 0.25f, 0.5f}) {
+      items.add(makeMap(makeEntry("weight", f)));
+    }
+    ReadContext scanned =
+        Tranquil.using(Configuration.builder().engine(Engine.INTERPRETER).build())
+            .parse(makeMap(makeEntry("items", items)));
+    ReadContext indexed = scanned.createIndex("items.weight");
+
+    for (String where :
+        Arrays.asList(
+            "items.weight = 0.1",
+            "items.weight = 0.25",
+            "items.weight in (0.1, 0.5)",
+            "items.weight = 0.10000000149011612")) {
+      assertThat(indexed.read("items.weight", where), is(scanned.read("items.weight", where)));
+    }
+    // 0.1f is 0.10000000149011612 when widened to a double
+    assertThat(
+        indexed.explain("items.weight = 0.10000000149011612"),
+        endsWith("1 of 3 rows are tested"));
+  }
+
+  @Test
+  public void canIndexTheDocumentsOfAnArray() {
+    ReadContext indexed = Tranquil.parse(JSON_ARRAY).createIndex("name");
+
+    assertThat(
+        indexed.read("name, quantity", "name = 'sink'"),
+        is("{\"name\":\"sink\",\"quantity\":100}"));
+    assertThat(
+        indexed.read("name", "name in ('tap', 'sink')"),
+        is(Tranquil.parse(JSON_ARRAY).read("name", "")));
+    assertThat(indexed.exists("name = 'plug'"), is(false));
+    assertThat(indexed.explain("name = 'sink'"), endsWith("1 of 2 rows are tested"));
+  }
+
+  @Test
+  @ExpectedException(
+      type = TranquilException.class,
+      messageIs =
+          "Cannot index [items[0].name], an index path must be a dot delimited list of property names!")
+  public void willNotIndexAPathWhichIsNotMadeUpOfPropertyNames() {
+    Tranquil.parse(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE).createIndex("items[0].name");
+  }
+
   @Test
   public void testReadFromAMap() {
     Map map = Tranquil.parse(SIMPLE_JSON).read("", "", Map.class);
@@ -391,8 +1530,23 @@ public class TranquilTest {
     return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
   }
 
+  private String read(String resource) throws IOException {
+    try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private String toLines(String jsonArray) {
+    // one record per line
+    return jsonArray.substring(1, jsonArray.length() - 1).replace("},{", "}\n{");
+  }
+
   private File writeJsonToFile(String json) throws IOException {
-    File file = TEMPORARY_FOLDER.createFile("testReadFromFile.json");
+    return writeJsonToFile("testReadFromFile.json", json);
+  }
+
+  private File writeJsonToFile(String name, String json) throws IOException {
+    File file = TEMPORARY_FOLDER.createFile(name);
     try (PrintWriter out = new PrintWriter(file.getPath())) {
       out.println(json);
     }
@@ -0,0 +1,103 @@
+package io.github.glytching.tranquil.cache;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the {@link LRUCache} with the {@link TinyLfuCache}. This is a tool rather than a test,
+ * run it by hand and read the output.
+ *
+ * <ul>
+ *   <li>Contention: throughput of concurrent reads from a fully populated cache at increasing
+ *       thread counts
+ *   <li>Hit rate: a small set of hot keys interleaved with a stream of one-off keys
+ * </ul>
+ */
+@Disabled
+public class CacheBenchmark {
+
+  private static final int CACHE_SIZE = 100;
+  private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+  private static final long RUN_MILLIS = 2_000;
+
+  @Test
+  public void contention() throws Exception {
+    for (int threads : THREAD_COUNTS) {
+      System.out.printf(
+          "threads: %2d, LRUCache: %,15d reads/s, TinyLfuCache: %,15d reads/s%n",
+          threads,
+          readsPerSecond(new LRUCache(CACHE_SIZE), threads),
+          readsPerSecond(new TinyLfuCache(CACHE_SIZE), threads));
+    }
+  }
+
+  @Test
+  public void hitRate() {
+    System.out.printf(
+        "LRUCache hit rate: %.2f%%, TinyLfuCache hit rate: %.2f%%%n",
+        hitRate(new LRUCache(CACHE_SIZE)), hitRate(new TinyLfuCache(CACHE_SIZE)));
+  }
+
+  private long readsPerSecond(Cache cache, int threads) throws Exception {
+    for (int i = 0; i < CACHE_SIZE; i++) {
+      cache.put("key" + i, i);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      LongAdder reads = new LongAdder();
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  Random random = new Random();
+                  start.await();
+                  long end = System.currentTimeMillis() + RUN_MILLIS;
+                  while (System.currentTimeMillis() < end) {
+                    for (int i = 0; i < 1_000; i++) {
+                      cache.get("key" + random.nextInt(CACHE_SIZE));
+                    }
+                    reads.add(1_000);
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(RUN_MILLIS * 10, TimeUnit.MILLISECONDS);
+      }
+      return reads.sum() * 1_000 / RUN_MILLIS;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private double hitRate(Cache cache) {
+    Random random = new Random(42);
+    int hits = 0;
+    int requests = 1_000_000;
+    int oneOffs = 0;
+    for (int i = 0; i < requests; i++) {
+      // half of the requests are for 80 hot keys, the other half are one-off keys
+      String key = random.nextBoolean() ? "hot" + random.nextInt(80) : "cold" + oneOffs++;
+      if (cache.get(key) != null) {
+        hits++;
+      } else {
+        cache.put(key, key);
+      }
+    }
+    return 100.0 * hits / requests;
+  }
+}
@@ -16,4 +16,13 @@ public class CacheProviderTest {
     assertThat(cache, instanceOf(LRUCache.class));
     assertThat(cache, sameInstance(cacheProvider.get()));
   }
+
+  @Test
+  public void willProvideATinyLfuCacheInstance() {
+    CacheProvider cacheProvider = new CacheProvider(1, CachePolicy.TINY_LFU);
+    Cache cache = cacheProvider.get();
+
+    assertThat(cache, instanceOf(TinyLfuCache.class));
+    assertThat(cache, sameInstance(cacheProvider.get()));
+  }
 }
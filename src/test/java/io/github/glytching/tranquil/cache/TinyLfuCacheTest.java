@@ -0,0 +1,105 @@
+package io.github.glytching.tranquil.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TinyLfuCacheTest {
+
+  @Test
+  public void canPutAndGet() {
+    TinyLfuCache sut = new TinyLfuCache(10);
+
+    sut.put("aKey", "aValue");
+    sut.put("bKey", 1);
+
+    assertThat(sut.get("aKey"), is("aValue"));
+    assertThat(sut.get(Integer.class, "bKey"), is(1));
+    assertThat(sut.get("cKey"), nullValue());
+
+    sut.put("aKey", "anotherValue");
+    assertThat(sut.get("aKey"), is("anotherValue"));
+    assertThat(sut.size(), is(2));
+  }
+
+  @Test
+  public void cacheIsSizeLimited() {
+    TinyLfuCache sut = new TinyLfuCache(5);
+
+    for (int i = 0; i < 100; i++) {
+      sut.put("key" + i, i);
+      assertThat(sut.size(), lessThanOrEqualTo(5));
+    }
+    assertThat(sut.size(), is(5));
+  }
+
+  @Test
+  public void frequentlyUsedEntriesSurviveABurstOfOneOffEntries() {
+    TinyLfuCache sut = new TinyLfuCache(10);
+    LRUCache lru = new LRUCache(10);
+
+    for (int i = 0; i < 5; i++) {
+      sut.put("hot" + i, i);
+      lru.put("hot" + i, i);
+    }
+
+    // the hot entries are still in use but they are read less often than one-off entries arrive
+    for (int i = 0; i < 1000; i++) {
+      sut.put("cold" + i, i);
+      lru.put("cold" + i, i);
+      if (i % 2 == 0) {
+        String hot = "hot" + ((i / 2) % 5);
+        sut.get(hot);
+        lru.get(hot);
+      }
+    }
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(sut.get("hot" + i), is(i));
+    }
+    assertThat(sut.size(), is(10));
+
+    // whereas a LRU cache is flushed by the one-off entries
+    assertThat(lru.get("hot0"), nullValue());
+  }
+
+  @Test
+  public void canBeUsedConcurrently() throws Exception {
+    TinyLfuCache sut = new TinyLfuCache(50);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        int thread = t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < 20_000; i++) {
+                    String key = "key" + ((i * 31 + thread) % 200);
+                    Object value = sut.get(key);
+                    if (value == null) {
+                      sut.put(key, key);
+                    } else {
+                      assertThat(value, is(key));
+                    }
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(sut.size(), lessThanOrEqualTo(50));
+  }
+}
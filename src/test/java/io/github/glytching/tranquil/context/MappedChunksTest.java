@@ -0,0 +1,115 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.junit.extension.exception.ExpectedException;
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
+import io.github.glytching.tranquil.exception.MappingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+@ExtendWith(TemporaryFolderExtension.class)
+public class MappedChunksTest {
+
+  @Test
+  public void canSplitALinesFileAtNewlines(TemporaryFolder temporaryFolder) throws IOException {
+    MappedChunks chunks = map(temporaryFolder, "{\"a\":1}\n{\"a\":22}\n{\"a\":333}\n{\"a\":4}", 10);
+
+    assertThat(chunks.getFormat(), is(MappedChunks.Format.LINES));
+    assertThat(toStrings(chunks), contains("{\"a\":1}\n{\"a\":22}\n", "{\"a\":333}\n{\"a\":4}"));
+  }
+
+  @Test
+  public void canSplitAnArrayBetweenItsTopLevelElements(TemporaryFolder temporaryFolder)
+      throws IOException {
+    MappedChunks chunks =
+        map(
+            temporaryFolder,
+            " [{\"a\":\"x,}\\\"]\",\"b\":[1,2]},{\"a\":\"y\"},{\"a\":{\"c\":[3]}}] ",
+            5);
+
+    assertThat(chunks.getFormat(), is(MappedChunks.Format.ARRAY));
+    assertThat(
+        toStrings(chunks),
+        contains("{\"a\":\"x,}\\\"]\",\"b\":[1,2]}", "{\"a\":\"y\"}", "{\"a\":{\"c\":[3]}}"));
+  }
+
+  @Test
+  public void willNotSplitASmallFile(TemporaryFolder temporaryFolder) throws IOException {
+    MappedChunks chunks = map(temporaryFolder, "[{\"a\":1},{\"a\":2}]", 1024);
+
+    assertThat(toStrings(chunks), contains("{\"a\":1},{\"a\":2}"));
+  }
+
+  @Test
+  public void willReadAnEmptyFileAsNoChunks(TemporaryFolder temporaryFolder) throws IOException {
+    assertThat(map(temporaryFolder, " \n", 10).getChunks(), empty());
+  }
+
+  @Test
+  @ExpectedException(
+      type = MappingException.class,
+      messageIs = "Failed to map, expected a JSON lines file or a JSON array but found: [n] at 0!")
+  public void willThrowWhenTheFileIsNotJson(TemporaryFolder temporaryFolder) throws IOException {
+    map(temporaryFolder, "not json", 10);
+  }
+
+  @Test
+  @ExpectedException(
+      type = MappingException.class,
+      messageIs = "Failed to map, unexpected end of input!")
+  public void willThrowWhenAnArrayIsNotClosed(TemporaryFolder temporaryFolder) throws IOException {
+    map(temporaryFolder, "[{\"a\":1},{\"a\":2}", 10);
+  }
+
+  @Test
+  public void canSplitALinesFileWhoseRecordsContainBrackets(TemporaryFolder temporaryFolder)
+      throws IOException {
+    MappedChunks chunks = map(temporaryFolder, "{\"a\":{\"b\":[\"}\\\"\"]}}\n{\"a\":2}", 5);
+
+    assertThat(toStrings(chunks), contains("{\"a\":{\"b\":[\"}\\\"\"]}}\n", "{\"a\":2}"));
+  }
+
+  @Test
+  @ExpectedException(
+      type = MappingException.class,
+      messageIs =
+          "Failed to map, the record which starts at 1 spans more than one line, a file which starts with an object must be a JSON lines file with one record per line!")
+  public void willThrowWhenTheFirstRecordSpansManyLines(TemporaryFolder temporaryFolder)
+      throws IOException {
+    map(temporaryFolder, " {\n  \"a\": 1,\n  \"b\": [2, 3]\n}\n", 10);
+  }
+
+  private MappedChunks map(TemporaryFolder temporaryFolder, String content, long chunkSize)
+      throws IOException {
+    File file = temporaryFolder.createFile("chunks.json");
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return MappedChunks.map(channel, chunkSize);
+    }
+  }
+
+  private List<String> toStrings(MappedChunks chunks) {
+    List<String> strings = new ArrayList<>();
+    for (ByteBuffer chunk : chunks.getChunks()) {
+      byte[] bytes = new byte[chunk.remaining()];
+      chunk.duplicate().get(bytes);
+      strings.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    return strings;
+  }
+}
@@ -0,0 +1,206 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.junit.extension.exception.ExpectedException;
+import io.github.glytching.tranquil.Tranquil;
+import io.github.glytching.tranquil.exception.TranquilException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.glytching.tranquil.util.MapMaker.makeEntry;
+import static io.github.glytching.tranquil.util.MapMaker.makeMap;
+import static io.github.glytching.tranquil.util.TestData.JSON_ARRAY;
+import static io.github.glytching.tranquil.util.TestData.JSON_WITH_SINGLE_ARRAY_ATTRIBUTE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class QueryProcessorTest {
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4})
+  public void canPublishTheMatchesOfEachDocumentInOrder(int parallelism) throws Exception {
+    Flow.Processor<Map<String, Object>, Map<String, Object>> processor =
+        Tranquil.compile("id", "id > 500").processor(ForkJoinPool.commonPool(), parallelism);
+    Recorder recorder = new Recorder(Long.MAX_VALUE);
+    processor.subscribe(recorder);
+
+    List<Map<String, Object>> expected = new ArrayList<>();
+    try (SubmissionPublisher<Map<String, Object>> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(processor);
+      for (int i = 0; i < 1000; i++) {
+        publisher.submit(makeMap(makeEntry("id", i), makeEntry("name", "n" + i)));
+        if (i > 500) {
+          expected.add(makeMap(makeEntry("id", i)));
+        }
+      }
+    }
+
+    assertThat(recorder.completion.get(10, TimeUnit.SECONDS), is(true));
+    assertThat(recorder.received, is(expected));
+  }
+
+  @Test
+  public void canPublishTheMatchesOfEachChunkOfJson() throws Exception {
+    Flow.Processor<byte[], Map<String, Object>> processor =
+        Tranquil.compile("name", "quantity > 5").jsonProcessor(ForkJoinPool.commonPool(), 1);
+    Recorder recorder = new Recorder(Long.MAX_VALUE);
+    processor.subscribe(recorder);
+
+    try (SubmissionPublisher<byte[]> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(processor);
+      publisher.submit(JSON_ARRAY.getBytes(StandardCharsets.UTF_8));
+      publisher.submit(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE.getBytes(StandardCharsets.UTF_8));
+    }
+
+    assertThat(recorder.completion.get(10, TimeUnit.SECONDS), is(true));
+    assertThat(
+        recorder.received,
+        contains(
+            makeMap(makeEntry("name", "tap")),
+            makeMap(makeEntry("name", "sink")),
+            makeMap(makeEntry("name", "tap")),
+            makeMap(makeEntry("name", "sink"))));
+  }
+
+  @Test
+  public void willOnlyPublishWhatHasBeenRequested() {
+    QueryProcessor<Integer> processor =
+        new QueryProcessor<>(
+            i -> Collections.singletonList(makeMap(makeEntry("id", i))).iterator(),
+            Runnable::run,
+            1);
+    Recorder recorder = new Recorder(2);
+    processor.subscribe(recorder);
+    RecordingSubscription upstream = new RecordingSubscription();
+    processor.onSubscribe(upstream);
+
+    // the first batch is requested ahead of demand
+    assertThat(upstream.requested, is((long) QueryProcessor.BATCH_SIZE));
+
+    for (int i = 0; i < 5; i++) {
+      processor.onNext(i);
+    }
+    processor.onComplete();
+    assertThat(recorder.received.size(), is(2));
+    assertThat(recorder.completion.isDone(), is(false));
+
+    recorder.subscription.request(10);
+    assertThat(recorder.received.size(), is(5));
+    assertThat(recorder.completion.isDone(), is(true));
+  }
+
+  @Test
+  public void willStopPublishingWhenCancelled() {
+    QueryProcessor<Integer> processor =
+        new QueryProcessor<>(
+            i -> Collections.singletonList(makeMap(makeEntry("id", i))).iterator(),
+            Runnable::run,
+            1);
+    Recorder recorder = new Recorder(1);
+    processor.subscribe(recorder);
+    RecordingSubscription upstream = new RecordingSubscription();
+    processor.onSubscribe(upstream);
+
+    processor.onNext(1);
+    recorder.subscription.cancel();
+    processor.onNext(2);
+    recorder.subscription.request(1);
+
+    assertThat(upstream.cancelled, is(true));
+    assertThat(recorder.received, contains(makeMap(makeEntry("id", 1))));
+  }
+
+  @Test
+  public void willPublishAnErrorIfAnInputCannotBeEvaluated() {
+    Flow.Processor<byte[], Map<String, Object>> processor =
+        Tranquil.compile("name", "quantity > 5").jsonProcessor(ForkJoinPool.commonPool(), 1);
+    Recorder recorder = new Recorder(Long.MAX_VALUE);
+    processor.subscribe(recorder);
+    RecordingSubscription upstream = new RecordingSubscription();
+    processor.onSubscribe(upstream);
+
+    processor.onNext("not json".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(upstream.cancelled, is(true));
+    assertThat(recorder.completion.isCompletedExceptionally(), is(true));
+  }
+
+  @Test
+  public void willRejectASecondSubscriber() {
+    Flow.Processor<Map<String, Object>, Map<String, Object>> processor =
+        Tranquil.compile("", "").processor(ForkJoinPool.commonPool(), 1);
+    processor.subscribe(new Recorder(1));
+
+    Recorder second = new Recorder(1);
+    processor.subscribe(second);
+
+    assertThat(second.completion.isCompletedExceptionally(), is(true));
+  }
+
+  @Test
+  @ExpectedException(
+      type = TranquilException.class,
+      messageIs = "The parallelism must be at least 1 but was: 0!")
+  public void willRejectAParallelismOfLessThanOne() {
+    Tranquil.compile("", "").processor(ForkJoinPool.commonPool(), 0);
+  }
+
+  private static class Recorder implements Flow.Subscriber<Map<String, Object>> {
+    private final long initialRequest;
+    private final List<Map<String, Object>> received = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Boolean> completion = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+
+    Recorder(long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(initialRequest);
+    }
+
+    @Override
+    public void onNext(Map<String, Object> item) {
+      received.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      completion.complete(true);
+    }
+  }
+
+  private static class RecordingSubscription implements Flow.Subscription {
+    private long requested;
+    private boolean cancelled;
+
+    @Override
+    public void request(long n) {
+      requested += n;
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+  }
+}
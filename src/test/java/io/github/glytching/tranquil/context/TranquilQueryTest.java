@@ -0,0 +1,155 @@
+package io.github.glytching.tranquil.context;
+
+import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.configuration.Engine;
+import io.github.glytching.tranquil.configuration.Option;
+import io.github.glytching.tranquil.ql.ExpressionFactory;
+import io.github.glytching.tranquil.ql.ExpressionStatistics;
+import io.github.glytching.tranquil.ql.Parameters;
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.PreparedExpression;
+import io.github.glytching.tranquil.ql.Projector;
+import io.github.glytching.tranquil.ql.interpreter.InterpreterFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.github.glytching.tranquil.util.TestData.JSON_WITH_SINGLE_ARRAY_ATTRIBUTE;
+import static io.github.glytching.tranquil.util.TestData.SIMPLE_JSON;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TranquilQueryTest {
+
+  private final Configuration configuration =
+      Configuration.builder().engine(Engine.INTERPRETER).build();
+
+  private RecordingFactory expressionFactory;
+
+  @BeforeEach
+  public void setup() {
+    expressionFactory = new RecordingFactory();
+  }
+
+  @Test
+  public void willResolveExpressionsWhenCompiled() {
+    TranquilQuery.compile(configuration, expressionFactory, "name", "quantity = 10");
+
+    assertThat(
+        expressionFactory.requested,
+        contains("prepared-select:name", "prepared-where:quantity = 10"));
+  }
+
+  @Test
+  public void willResolveExpressionsOnceForManyInputs() {
+    TranquilQuery query =
+        TranquilQuery.compile(configuration, expressionFactory, "name", "quantity = 10");
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(query.read(SIMPLE_JSON), is("{\"name\":\"tap\"}"));
+    }
+
+    // prepared when compiled and then bound when first read
+    assertThat(expressionFactory.requested.size(), is(4));
+  }
+
+  @Test
+  public void willResolveStrippedExpressionsOncePerArrayAttribute() {
+    TranquilQuery query =
+        new TranquilQuery(configuration, expressionFactory, "items.name", "items.quantity > 5");
+
+    for (int i = 0; i < 5; i++) {
+      query.read(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE);
+    }
+
+    // the input has two array elements and we read it five times but the stripped expressions are
+    // only resolved once
+    assertThat(
+        expressionFactory.requested,
+        contains("prepared-select:name", "prepared-where:quantity > 5"));
+  }
+
+  @Test
+  public void willNotResolveAnEmptyExpression() {
+    TranquilQuery query = TranquilQuery.compile(configuration, expressionFactory, "", "");
+
+    assertThat(query.read(SIMPLE_JSON), is(SIMPLE_JSON));
+    assertThat(expressionFactory.requested, empty());
+  }
+
+  @Test
+  public void willBindTheWhereClauseParametersAfterTheSelectClauseParameters() {
+    CompiledQuery query =
+        TranquilQuery.compile(configuration, expressionFactory, "price * ? as total", "name = ?")
+            .bind(Parameters.of(2, "tap"));
+
+    assertThat(query.read(SIMPLE_JSON), is("{\"total\":99.98}"));
+    assertThat(
+        expressionFactory.requested,
+        contains(
+            "prepared-select:price * ? as total",
+            "prepared-where:name = ?",
+            "prepared-select:price * ? as total",
+            "prepared-where:name = ?"));
+  }
+
+  @Test
+  public void willLiftLiteralsOutOfTheWhereClause() {
+    Configuration lifting =
+        Configuration.builder().engine(Engine.INTERPRETER).options(Option.LIFT_LITERALS).build();
+
+    new TranquilQuery(lifting, expressionFactory, "", "name = 'tap'").read(SIMPLE_JSON);
+    new TranquilQuery(lifting, expressionFactory, "", "name = 'sink'").read(SIMPLE_JSON);
+
+    assertThat(
+        expressionFactory.requested,
+        contains("prepared-where:name = ?", "prepared-where:name = ?"));
+  }
+
+  @Test
+  public void willNotLiftLiteralsForTheGroovyEngine() {
+    Configuration lifting =
+        Configuration.builder().engine(Engine.GROOVY).options(Option.LIFT_LITERALS).build();
+
+    new TranquilQuery(lifting, expressionFactory, "", "name = 'tap'").read(SIMPLE_JSON);
+
+    assertThat(expressionFactory.requested, contains("where:name = 'tap'"));
+  }
+
+  /** Records each request for an expression before handing off to the interpreter. */
+  private static class RecordingFactory implements ExpressionFactory {
+    private final ExpressionFactory delegate = new InterpreterFactory(10);
+    private final List<String> requested = new ArrayList<>();
+
+    @Override
+    public Predicator createPredicator(String expression) {
+      requested.add("where:" + expression);
+      return delegate.createPredicator(expression);
+    }
+
+    @Override
+    public Projector createProjector(String expression) {
+      requested.add("select:" + expression);
+      return delegate.createProjector(expression);
+    }
+
+    @Override
+    public PreparedExpression<Predicator> preparePredicator(String expression) {
+      requested.add("prepared-where:" + expression);
+      return delegate.preparePredicator(expression);
+    }
+
+    @Override
+    public PreparedExpression<Projector> prepareProjector(String expression) {
+      requested.add("prepared-select:" + expression);
+      return delegate.prepareProjector(expression);
+    }
+
+    @Override
+    public ExpressionStatistics getStatistics() {
+      return delegate.getStatistics();
+    }
+  }
+}
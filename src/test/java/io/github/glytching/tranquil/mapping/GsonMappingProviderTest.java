@@ -9,8 +9,11 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -137,6 +140,72 @@ public class GsonMappingProviderTest {
     assertThat(sut.serialize(deserialized), is(GSON_SIMPLE_JSON));
   }
 
+  @ParameterizedTest
+  @ValueSource(strings = {"[]", GSON_SIMPLE_JSON, GSON_JSON_ARRAY, GSON_COMPLEX_JSON})
+  public void canWriteDocumentsOneAtATime(String json) {
+    List<Map<String, Object>> deserialized = sut.deserialize(json);
+
+    StringWriter writer = new StringWriter();
+    try (DocumentWriter documents = sut.openWriter(writer)) {
+      deserialized.forEach(documents::write);
+    }
+    assertThat(writer.toString(), is(sut.serialize(deserialized)));
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (DocumentWriter documents = sut.openWriter(outputStream, "UTF-8")) {
+      deserialized.forEach(documents::write);
+    }
+    assertThat(
+        new String(outputStream.toByteArray(), StandardCharsets.UTF_8),
+        is(sut.serialize(deserialized)));
+  }
+
+  @Test
+  public void canReadTheDocumentsOfAJsonArrayOneAtATime() {
+    DocumentReader reader = sut.openReader(toInputStream(GSON_JSON_ARRAY), "UTF-8");
+
+    assertThat(readAll(reader), is(getExpectedItems()));
+    assertThat(reader.getArrayName(), nullValue());
+  }
+
+  @Test
+  public void canReadTheElementsOfAnArrayAttributeOneAtATime() {
+    DocumentReader reader = sut.openReader(toInputStream(GSON_COMPLEX_JSON), "UTF-8");
+
+    // the array attribute's siblings are skipped
+    assertThat(readAll(reader), is(getExpectedItems()));
+    assertThat(reader.getArrayName(), is("items"));
+  }
+
+  @Test
+  public void canReadAnObjectWithoutAnArrayOfObjectsAsASingleDocument() {
+    DocumentReader reader =
+        sut.openReader(toInputStream("{\"name\":\"tap\",\"tags\":[\"a\",\"b\"]}"), "UTF-8");
+
+    List<Map<String, Object>> read = readAll(reader);
+    assertThat(read.size(), is(1));
+    assertThat(read.get(0).get("name"), is("tap"));
+    assertThat(read.get(0).get("tags"), is(asList("a", "b")));
+    assertThat(reader.getArrayName(), nullValue());
+  }
+
+  @Test
+  public void canReadTheRecordsOfAJsonLinesInputOneAtATime() {
+    DocumentReader reader =
+        sut.openLinesReader(
+            toInputStream(
+                GSON_SIMPLE_JSON + "\n\n" + GSON_SIMPLE_JSON.replace("tap", "sink") + "\n"),
+            "UTF-8",
+            FieldSelection.all(),
+            DocumentFilter.NONE);
+
+    List<Map<String, Object>> read = readAll(reader);
+    assertThat(read.size(), is(2));
+    assertThat(read.get(0), is(getTapItemAsMap()));
+    assertThat(read.get(1).get("name"), is("sink"));
+    assertThat(reader.getArrayName(), nullValue());
+  }
+
   private InputStream toInputStream(String json) {
     return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
   }
@@ -214,4 +283,15 @@ public class GsonMappingProviderTest {
     tap.put("owner", null);
     return tap;
   }
+
+  private List<Map<String, Object>> readAll(DocumentReader reader) {
+    List<Map<String, Object>> read = new ArrayList<>();
+    try (DocumentReader documents = reader) {
+      Map<String, Object> document;
+      while ((document = documents.next()) != null) {
+        read.add(document);
+      }
+    }
+    return read;
+  }
 }
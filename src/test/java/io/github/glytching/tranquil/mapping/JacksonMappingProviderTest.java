@@ -1,5 +1,8 @@
 package io.github.glytching.tranquil.mapping;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.glytching.junit.extension.exception.ExpectedException;
 import io.github.glytching.tranquil.exception.MappingException;
 import io.github.glytching.tranquil.util.Item;
@@ -9,8 +12,14 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -129,6 +138,300 @@ public class JacksonMappingProviderTest {
     assertThat(sut.serialize(deserialized), is(SIMPLE_JSON));
   }
 
+  @ParameterizedTest
+  @ValueSource(strings = {"[]", SIMPLE_JSON, JSON_ARRAY, COMPLEX_JSON})
+  public void canWriteDocumentsOneAtATime(String json) {
+    List<Map<String, Object>> deserialized = sut.deserialize(json);
+
+    StringWriter writer = new StringWriter();
+    try (DocumentWriter documents = sut.openWriter(writer)) {
+      deserialized.forEach(documents::write);
+    }
+    assertThat(writer.toString(), is(sut.serialize(deserialized)));
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (DocumentWriter documents = sut.openWriter(outputStream, "UTF-8")) {
+      deserialized.forEach(documents::write);
+    }
+    assertThat(
+        new String(outputStream.toByteArray(), StandardCharsets.UTF_8),
+        is(sut.serialize(deserialized)));
+  }
+
+  @Test
+  public void canReadTheDocumentsOfAJsonArrayOneAtATime() {
+    DocumentReader reader = sut.openReader(toInputStream(JSON_ARRAY), "UTF-8");
+
+    assertThat(readAll(reader), is(getExpectedItems()));
+    assertThat(reader.getArrayName(), nullValue());
+  }
+
+  @Test
+  public void canReadTheElementsOfAnArrayAttributeOneAtATime() {
+    DocumentReader reader =
+        sut.openReader(toInputStream(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE), "UTF-8");
+
+    assertThat(readAll(reader), is(getExpectedItems()));
+    assertThat(reader.getArrayName(), is("items"));
+
+    // the scalar attributes which precede the array are skipped
+    reader = sut.openReader(toInputStream(COMPLEX_JSON), "UTF-8");
+    assertThat(readAll(reader), is(getExpectedItems()));
+    assertThat(reader.getArrayName(), is("items"));
+  }
+
+  @Test
+  public void canReadAnObjectWithAnArrayOfObjectsWhichFollowsAnObjectAsASingleDocument() {
+    DocumentReader reader =
+        sut.openReader(
+            toInputStream("{\"meta\":{\"v\":1},\"items\":[{\"a\":1},{\"a\":2}]}"), "UTF-8");
+
+    List<Map<String, Object>> read = readAll(reader);
+    assertThat(read.size(), is(1));
+    assertThat(read.get(0).get("meta"), is(makeMap(makeEntry("v", 1))));
+    assertThat(
+        read.get(0).get("items"),
+        is(asList(makeMap(makeEntry("a", 1)), makeMap(makeEntry("a", 2)))));
+    assertThat(reader.getArrayName(), nullValue());
+  }
+
+  @Test
+  public void canReadAnObjectWithoutAnArrayOfObjectsAsASingleDocument() {
+    DocumentReader reader =
+        sut.openReader(toInputStream("{\"name\":\"tap\",\"tags\":[\"a\",\"b\"]}"), "UTF-8");
+
+    List<Map<String, Object>> read = readAll(reader);
+    assertThat(read.size(), is(1));
+    assertThat(read.get(0).get("name"), is("tap"));
+    assertThat(read.get(0).get("tags"), is(asList("a", "b")));
+    assertThat(reader.getArrayName(), nullValue());
+  }
+
+  @Test
+  @ExpectedException(
+      type = MappingException.class,
+      messageStartsWith = "Failed to deserialize, expected an object but found: [VALUE_NUMBER_INT]")
+  public void willThrowIfAnArrayElementIsNotAnObject() {
+    DocumentReader reader = sut.openReader(toInputStream("[{\"a\":1},2]"), "UTF-8");
+
+    assertThat(reader.next(), is(makeMap(makeEntry("a", 1))));
+    reader.next();
+  }
+
+  @Test
+  public void canSkipTheFieldsWhichAreNotSelected() {
+    FieldSelection fields = FieldSelection.of(asList(asList("name"), asList("price")));
+
+    List<Map<String, Object>> deserialized =
+        sut.deserialize(JSON_ARRAY, fields, DocumentFilter.NONE);
+
+    assertThat(
+        deserialized,
+        is(
+            asList(
+                makeMap(makeEntry("name", "tap"), makeEntry("price", 49.99)),
+                makeMap(makeEntry("name", "sink"), makeEntry("price", 99.99)))));
+  }
+
+  @Test
+  public void canSkipTheNestedFieldsWhichAreNotSelected() {
+    FieldSelection fields = FieldSelection.of(asList(asList("a", "b")));
+
+    List<Map<String, Object>> deserialized =
+        sut.deserialize("{\"a\":{\"b\":{\"c\":1},\"d\":2},\"e\":3}", fields, DocumentFilter.NONE);
+
+    // the whole of a selected field is read
+    assertThat(
+        deserialized.get(0),
+        is(makeMap(makeEntry("a", makeMap(makeEntry("b", makeMap(makeEntry("c", 1))))))));
+  }
+
+  @Test
+  public void willRetainASkippedFieldRatherThanLeaveASingleArrayAttribute() {
+    FieldSelection fields = FieldSelection.of(asList(asList("name")));
+
+    List<Map<String, Object>> deserialized =
+        sut.deserialize(
+            "{\"type\":\"catalog\",\"tags\":[{\"name\":\"a\"}]}", fields, DocumentFilter.NONE);
+
+    Map<String, Object> expected = new LinkedHashMap<>();
+    expected.put("tags", asList(makeMap(makeEntry("name", "a"))));
+    expected.put("type", null);
+    assertThat(deserialized.get(0), is(expected));
+  }
+
+  @Test
+  public void canSkipTheFieldsOfArrayAttributeElementsWhichAreNotSelected() {
+    FieldSelection fields = FieldSelection.of(asList(asList("items", "name")));
+
+    List<Map<String, Object>> deserialized =
+        sut.deserialize(
+            toInputStream("{\"items\":[{\"name\":\"tap\",\"price\":49.99}]}"),
+            "UTF-8",
+            fields,
+            DocumentFilter.NONE);
+
+    assertThat(
+        deserialized.get(0),
+        is(makeMap(makeEntry("items", asList(makeMap(makeEntry("name", "tap")))))));
+  }
+
+  @Test
+  public void canReadTheSelectedFieldsOfTheElementsOfAnArrayAttributeOneAtATime() {
+    FieldSelection fields = FieldSelection.of(asList(asList("items", "name")));
+
+    DocumentReader reader =
+        sut.openReader(
+            toInputStream(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE), "UTF-8", fields, DocumentFilter.NONE);
+
+    assertThat(
+        readAll(reader),
+        is(asList(makeMap(makeEntry("name", "tap")), makeMap(makeEntry("name", "sink")))));
+    assertThat(reader.getArrayName(), is("items"));
+  }
+
+  @Test
+  public void canSkipTheDocumentsWhichAreRejectedByAFilter() {
+    DocumentFilter filter = rejecting("name", "tap");
+
+    assertThat(
+        sut.deserialize(JSON_ARRAY, FieldSelection.all(), filter),
+        is(Collections.singletonList(getSinkItemAsMap())));
+
+    DocumentReader reader =
+        sut.openReader(
+            toInputStream(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE), "UTF-8", FieldSelection.all(), filter);
+    assertThat(readAll(reader), is(Collections.singletonList(getSinkItemAsMap())));
+  }
+
+  @Test
+  public void willNotFilterATopLevelObject() {
+    assertThat(
+        sut.deserialize(SIMPLE_JSON, FieldSelection.all(), rejecting("name", "tap")),
+        is(Collections.singletonList(getTapItemAsMap())));
+  }
+
+  @Test
+  public void willReadEverythingIfEveryFieldIsSelected() {
+    DocumentReader reader =
+        sut.openReader(
+            toInputStream(JSON_ARRAY), "UTF-8", FieldSelection.all(), DocumentFilter.NONE);
+
+    assertThat(readAll(reader), is(getExpectedItems()));
+  }
+
+  private DocumentFilter rejecting(String name, Object rejected) {
+    return new DocumentFilter() {
+      @Override
+      public boolean isEmpty() {
+        return false;
+      }
+
+      @Override
+      public boolean tests(String attribute) {
+        return name.equals(attribute);
+      }
+
+      @Override
+      public boolean rejects(String attribute, Object value) {
+        return name.equals(attribute) && rejected.equals(value);
+      }
+
+      @Override
+      public DocumentFilter forArrayElements(String arrayName) {
+        return this;
+      }
+    };
+  }
+
+  @Test
+  public void canReadTheRecordsOfAJsonLinesInputOneAtATime() {
+    DocumentReader reader =
+        sut.openLinesReader(
+            toInputStream(SIMPLE_JSON + "\n\n" + SIMPLE_JSON.replace("tap", "sink") + "\n"),
+            "UTF-8",
+            FieldSelection.all(),
+            DocumentFilter.NONE);
+
+    List<Map<String, Object>> read = readAll(reader);
+    assertThat(read.size(), is(2));
+    assertThat(read.get(0), is(getTapItemAsMap()));
+    assertThat(read.get(1).get("name"), is("sink"));
+    assertThat(reader.getArrayName(), nullValue());
+  }
+
+  @Test
+  public void canDeserializeToLazyDocuments() throws Exception {
+    sut = new JacksonMappingProvider(new ObjectMapper(), true);
+
+    assertSimpleJsonDeserialization(() -> sut.deserialize(SIMPLE_JSON));
+    assertJsonArrayDeserialization(() -> sut.deserialize(toInputStream(JSON_ARRAY), "UTF-8"));
+    assertJsonArrayWithSingleArrayAttributeDeserialization(
+        () -> sut.deserialize(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE));
+    assertThat(sut.deserialize(JSON_ARRAY).get(0), instanceOf(JacksonLazyDocument.class));
+
+    DocumentReader reader =
+        sut.openReader(
+            toInputStream(JSON_WITH_SINGLE_ARRAY_ATTRIBUTE),
+            "UTF-8",
+            FieldSelection.all(),
+            DocumentFilter.NONE);
+    assertThat(readAll(reader), is(asList(getTapItemAsMap(), getSinkItemAsMap())));
+  }
+
+  @Test
+  public void lazyDocumentsBindEachAttributeOnFirstUse() throws Exception {
+    ObjectMapper objectMapper =
+        new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    Map<String, Object> document;
+    try (JsonParser parser =
+        objectMapper
+            .getFactory()
+            .createParser("{\"a\":1.10,\"b\":{\"c\":[1,\"x\"]},\"d\":\"e\\\"f\"}")) {
+      parser.nextToken();
+      document =
+          JacksonLazyDocument.copyOf(
+              parser, objectMapper.getFactory(), objectMapper.readerFor(Object.class));
+    }
+
+    assertThat(document.get("d"), is("e\"f"));
+    assertThat(document.get("a"), is(new BigDecimal("1.10")));
+    assertThat(document.get("missing"), nullValue());
+    assertThat(document.containsKey("b"), is(true));
+    assertThat(document.size(), is(3));
+    assertThat(document.get("b"), is(makeMap(makeEntry("c", asList(1, "x")))));
+
+    document.put("g", true);
+    assertThat(document.keySet(), contains("a", "b", "d", "g"));
+  }
+
+  @Test
+  public void lazyDocumentsOnlyScanAsFarAsIsNeeded() throws Exception {
+    JacksonLazyDocument document = lazyDocument("{\"a\":1,\"b\":[2],\"c\":{\"d\":3}}");
+
+    assertThat(document.isEmpty(), is(false));
+    assertThat(document.getScannedCount(), is(1));
+
+    Iterator<String> keys = document.keySet().iterator();
+    assertThat(keys.next(), is("a"));
+    assertThat(keys.hasNext(), is(true));
+    assertThat(document.getScannedCount(), is(2));
+    assertThat(document.keySet(), contains("a", "b", "c"));
+    assertThat(document.getScannedCount(), is(3));
+
+    assertThat(lazyDocument("{}").isEmpty(), is(true));
+    assertThat(lazyDocument("{}").keySet(), empty());
+  }
+
+  private JacksonLazyDocument lazyDocument(String json) throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper();
+    try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+      parser.nextToken();
+      return JacksonLazyDocument.copyOf(
+          parser, objectMapper.getFactory(), objectMapper.readerFor(Object.class));
+    }
+  }
+
   private ByteArrayInputStream toInputStream(String json) {
     return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
   }
@@ -201,4 +504,15 @@ public class JacksonMappingProviderTest {
     tap.put("owner", null);
     return tap;
   }
+
+  private List<Map<String, Object>> readAll(DocumentReader reader) {
+    List<Map<String, Object>> read = new ArrayList<>();
+    try (DocumentReader documents = reader) {
+      Map<String, Object> document;
+      while ((document = documents.next()) != null) {
+        read.add(document);
+      }
+    }
+    return read;
+  }
 }
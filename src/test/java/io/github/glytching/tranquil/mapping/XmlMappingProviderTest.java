@@ -1,9 +1,14 @@
 package io.github.glytching.tranquil.mapping;
 
+import io.github.glytching.tranquil.Tranquil;
+import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.context.CompiledQuery;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -22,6 +27,8 @@ public class XmlMappingProviderTest {
           + "<item><name>sink</name><price>50.00</price></item>"
           + "</items>";
 
+  private static final String XML_DOCUMENT = "<root><name>x</name><n>1</n></root>";
+
   private XmlMappingProvider sut;
 
   @BeforeEach
@@ -64,6 +71,39 @@ public class XmlMappingProviderTest {
     assertThat(actual, is(source));
   }
 
+  @Test
+  public void canReadXmlWithACompiledQuery() {
+    Configuration configuration = Configuration.builder().mappingProvider(sut).build();
+
+    Map parsed =
+        Tranquil.using(configuration).parse(XML_DOCUMENT).read("name", "n = '1'", Map.class);
+    assertThat(parsed, is(makeMap(makeEntry("name", "x"))));
+
+    CompiledQuery query = Tranquil.using(configuration).compile("name", "n = '1'");
+    assertThat(query.read(XML_DOCUMENT, Map.class), is(parsed));
+    assertThat(query.exists(XML_DOCUMENT), is(true));
+  }
+
+  @Test
+  public void canStreamXml() {
+    Configuration configuration = Configuration.builder().mappingProvider(sut).build();
+
+    List<Map<String, Object>> streamed = new ArrayList<>();
+    Tranquil.using(configuration).stream(toInputStream(XML_DOCUMENT))
+        .read("name", "n = '1'", streamed::add);
+    assertThat(streamed, contains(makeMap(makeEntry("name", "x"))));
+
+    List<Map<String, Object>> compiled = new ArrayList<>();
+    Tranquil.using(configuration)
+        .compile("name", "n = '1'")
+        .read(toInputStream(XML_DOCUMENT), compiled::add);
+    assertThat(compiled, is(streamed));
+  }
+
+  private ByteArrayInputStream toInputStream(String xml) {
+    return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+  }
+
   private void assertMappedResponse(Map<String, Object> mapped) {
     assertThat(mapped.size(), is(1));
 
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql;
+
+import io.github.glytching.tranquil.Tranquil;
+import io.github.glytching.tranquil.cache.CachePolicy;
+import io.github.glytching.tranquil.configuration.Configuration;
+import io.github.glytching.tranquil.configuration.Engine;
+import io.github.glytching.tranquil.ql.compiler.CompilerFactory;
+import io.github.glytching.tranquil.ql.groovy.GroovyFactory;
+import io.github.glytching.tranquil.ql.interpreter.InterpreterFactory;
+import io.github.glytching.tranquil.ql.tiered.TieredFactory;
+import org.junit.jupiter.api.Test;
+
+import static io.github.glytching.tranquil.util.TestData.SIMPLE_JSON;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ExpressionFactoriesTest {
+
+  @Test
+  public void willProvideASharedFactoryPerEngineAndCacheSize() {
+    ExpressionFactory groovy = ExpressionFactories.get(Engine.GROOVY, 10);
+    ExpressionFactory interpreter = ExpressionFactories.get(Engine.INTERPRETER, 10);
+    ExpressionFactory compiler = ExpressionFactories.get(Engine.COMPILER, 10);
+
+    assertThat(groovy, instanceOf(GroovyFactory.class));
+    assertThat(interpreter, instanceOf(InterpreterFactory.class));
+    assertThat(compiler, instanceOf(CompilerFactory.class));
+
+    assertThat(ExpressionFactories.get(Engine.GROOVY, 10), sameInstance(groovy));
+    assertThat(ExpressionFactories.get(Engine.INTERPRETER, 10), sameInstance(interpreter));
+    assertThat(ExpressionFactories.get(Engine.COMPILER, 10), sameInstance(compiler));
+
+    assertThat(ExpressionFactories.get(Engine.GROOVY, 20), not(sameInstance(groovy)));
+  }
+
+  @Test
+  public void willProvideASharedTieredFactoryPerCompilationThreshold() {
+    ExpressionFactory tiered = ExpressionFactories.get(Engine.TIERED, 10, CachePolicy.LRU, 5);
+
+    assertThat(tiered, instanceOf(TieredFactory.class));
+    assertThat(
+        ExpressionFactories.get(Engine.TIERED, 10, CachePolicy.LRU, 5), sameInstance(tiered));
+    assertThat(
+        ExpressionFactories.get(Engine.TIERED, 10, CachePolicy.LRU, 50), not(sameInstance(tiered)));
+
+    // the threshold is irrelevant to the other engines
+    assertThat(
+        ExpressionFactories.get(Engine.COMPILER, 10, CachePolicy.LRU, 50),
+        sameInstance(ExpressionFactories.get(Engine.COMPILER, 10, CachePolicy.LRU, 5)));
+  }
+
+  @Test
+  public void willCompileAnExpressionOnceAcrossParses() {
+    Configuration configuration = Configuration.defaultConfiguration();
+    String where = "name = 'tap' and quantity = 10";
+
+    Tranquil.parse(SIMPLE_JSON).read("name", where);
+    Predicator predicator = ExpressionFactories.get(configuration).createPredicator(where);
+    Projector projector = ExpressionFactories.get(configuration).createProjector("name");
+
+    Tranquil.parse(SIMPLE_JSON).read("name", where);
+    ExpressionFactory factory = ExpressionFactories.get(configuration);
+    assertThat(factory.createPredicator(where), sameInstance(predicator));
+    assertThat(factory.createProjector("name"), sameInstance(projector));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql;
+
+import io.github.glytching.junit.extension.exception.ExpectedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class SingleFlightTest {
+
+  private final SingleFlight sut = new SingleFlight();
+
+  @Test
+  public void concurrentCallersShareOneExecution() throws Exception {
+    int callers = 8;
+    AtomicInteger executions = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    Object result = new Object();
+
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<Object>> futures = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        futures.add(
+            executor.submit(
+                () ->
+                    sut.execute(
+                        "key",
+                        () -> {
+                          executions.incrementAndGet();
+                          await(release);
+                          return result;
+                        })));
+      }
+
+      // hold the first execution open until every other caller has joined it
+      while (sut.getCoalesced() < callers - 1) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+
+      for (Future<Object> future : futures) {
+        assertThat(future.get(10, TimeUnit.SECONDS), sameInstance(result));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(executions.get(), is(1));
+    assertThat(sut.getCoalesced(), is((long) callers - 1));
+  }
+
+  @Test
+  public void sequentialCallersEachExecute() {
+    AtomicInteger executions = new AtomicInteger();
+
+    sut.execute("key", executions::incrementAndGet);
+    sut.execute("key", executions::incrementAndGet);
+
+    assertThat(executions.get(), is(2));
+    assertThat(sut.getCoalesced(), is(0L));
+  }
+
+  @Test
+  @ExpectedException(type = IllegalStateException.class, messageIs = "boom")
+  public void willPropagateTheException() {
+    sut.execute(
+        "key",
+        () -> {
+          throw new IllegalStateException("boom");
+        });
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
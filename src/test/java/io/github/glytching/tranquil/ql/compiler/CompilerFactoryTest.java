@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.compiler;
+
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.Projector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.github.glytching.tranquil.util.MapMaker.makeEntry;
+import static io.github.glytching.tranquil.util.MapMaker.makeMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CompilerFactoryTest {
+
+  private CompilerFactory sut;
+
+  @BeforeEach
+  public void setup() {
+    sut = new CompilerFactory(2);
+  }
+
+  @Test
+  public void canCreateAndCacheAPredicator() {
+    Predicator predicator = sut.createPredicator("a > 1");
+
+    Map<String, Object> incoming = makeMap(makeEntry("a", 5));
+    assertThat(predicator.isMatched(incoming), is(true));
+    assertThat(sut.createPredicator("a > 1"), sameInstance(predicator));
+  }
+
+  @Test
+  public void canCreateAndCacheAProjector() {
+    Projector projector = sut.createProjector("a");
+
+    Map<String, Object> incoming = makeMap(makeEntry("a", 5), makeEntry("b", 10));
+    Map<String, Object> projected = projector.project(incoming);
+    assertThat(projected.size(), is(1));
+    assertThat(projected, hasKey("a"));
+    assertThat(projected.get("a"), is(5));
+
+    assertThat(sut.createProjector("a"), sameInstance(projector));
+  }
+
+  @Test
+  public void canCacheAPredicatorAndAProjectorForTheSameExpression() {
+    Predicator predicator = sut.createPredicator("a");
+    Projector projector = sut.createProjector("a");
+
+    assertThat(sut.createPredicator("a"), sameInstance(predicator));
+    assertThat(sut.createProjector("a"), sameInstance(projector));
+  }
+
+  @Test
+  public void willCacheOnALRUBasis() {
+    Predicator predicator = sut.createPredicator("a > 1");
+
+    assertThat(sut.createPredicator("a > 1"), sameInstance(predicator));
+
+    // create a few more predicators which should have the effect
+    // of expiring our original predicator from the cache
+    sut.createPredicator("b > 1");
+    sut.createPredicator("c > 1");
+
+    assertThat(sut.createPredicator("a > 1"), not(sameInstance(predicator)));
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.compiler;
+
+import io.github.glytching.junit.extension.exception.ExpectedException;
+import io.github.glytching.tranquil.exception.TranquilException;
+import io.github.glytching.tranquil.exception.TranquilParserException;
+import io.github.glytching.tranquil.ql.Parameters;
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.PreparedExpression;
+import io.github.glytching.tranquil.ql.parser.SelectClauseModelParser;
+import io.github.glytching.tranquil.ql.parser.WhereClauseModelParser;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+
+import static io.github.glytching.tranquil.util.MapMaker.makeEntry;
+import static io.github.glytching.tranquil.util.MapMaker.makeMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class CompilerTest {
+
+  private final WhereClauseModelParser whereClauseParser = new WhereClauseModelParser();
+  private final SelectClauseModelParser selectClauseParser = new SelectClauseModelParser();
+
+  private final Map<String, Object> given =
+      makeMap(
+          makeEntry("name", "tap"),
+          makeEntry("quantity", 10),
+          makeEntry("price", 49.99),
+          makeEntry("active", true),
+          makeEntry(
+              "items",
+              Arrays.asList(
+                  makeMap(makeEntry("name", "sink"), makeEntry("quantity", 1)),
+                  makeMap(makeEntry("name", "bath"), makeEntry("quantity", 2)))));
+
+  @Test
+  public void testSimpleOperators() {
+    assertMatched(
+        "name = 'tap' and quantity < 11 and quantity <= 10 and price > 49 and price >= 49.99");
+    assertNotMatched("name = 'sink'");
+    assertNotMatched("quantity > 10");
+    assertMatched("quantity != 8");
+    assertNotMatched("quantity != 10");
+  }
+
+  @Test
+  public void testNumericComparisonsAcrossTypes() {
+    assertMatched("quantity = 10.0");
+    assertMatched("price < 50");
+    assertMatched("quantity between 5 and 10.5");
+    assertNotMatched("quantity not between 5 and 10");
+  }
+
+  @Test
+  public void testInAndNotIn() {
+    assertMatched("name in ('sink', 'tap')");
+    assertNotMatched("name not in ('sink', 'tap')");
+    assertMatched("quantity in (5, 10)");
+    assertMatched("quantity not in (20)");
+  }
+
+  @Test
+  public void testLikeAndNotLike() {
+    assertMatched("name like 'ta'");
+    assertNotMatched("name like 'TA'");
+    assertMatched("name ilike 'TA'");
+    assertMatched("name not like 'ink'");
+    assertNotMatched("owner like 'ta'");
+  }
+
+  @Test
+  public void testNulls() {
+    assertMatched("owner is null");
+    assertMatched("name is not null");
+    assertMatched("missing is null");
+    assertNotMatched("owner > 1");
+  }
+
+  @Test
+  public void testBooleans() {
+    assertMatched("active = true");
+    assertMatched("active");
+    assertNotMatched("not active");
+  }
+
+  @Test
+  public void testConjunctions() {
+    assertMatched("name = 'sink' or quantity = 10");
+    assertMatched("quantity = 10 and (name = 'sink' or price > 45)");
+    assertNotMatched("quantity = 10 and (name = 'sink' or price > 50)");
+    assertNotMatched("not (name = 'tap' and quantity = 10)");
+  }
+
+  @Test
+  public void testArrayAccessors() {
+    assertMatched("items[0].name = 'sink'");
+    assertMatched("items[-1].name = 'bath'");
+    assertMatched("items[*].quantity = 2");
+    assertNotMatched("items[*].quantity = 3");
+    assertMatched("items[*].name like 'ba'");
+  }
+
+  @Test
+  public void testArithmetic() {
+    assertMatched("quantity * 2 = 20");
+    assertMatched("quantity - 12 = -2");
+    assertMatched("quantity / 4 = 2.5");
+    assertMatched("quantity % 3 = 1");
+  }
+
+  @Test
+  public void testNestedAnyElementAccessors() {
+    assertMatched("items[*].name = 'bath' and (items[*].quantity in (5, 1) or name = 'sink')");
+    assertNotMatched("not items[*].name like 'ink'");
+  }
+
+  @Test
+  public void testLargeLiterals() {
+    assertMatched("quantity < 12345678901 and quantity > -1000 and price < 99999999999999999999");
+  }
+
+  @Test
+  public void compiledClassesAreNotDiscoverableByName() {
+    Class<?> compiled = Compiler.toPredicator(whereClauseParser.parse("a = 1")).getClass();
+
+    assertThat(compiled.getPackage().getName(), is(Compiler.class.getPackage().getName()));
+    try {
+      Class.forName(compiled.getName(), false, Compiler.class.getClassLoader());
+      fail("Expected a hidden class but found: " + compiled.getName());
+    } catch (ClassNotFoundException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void anEmptyWhereClauseMatchesEverything() {
+    assertThat(Compiler.toPredicator(whereClauseParser.parse("")).isMatched(given), is(true));
+  }
+
+  @Test
+  @ExpectedException(
+      type = TranquilParserException.class,
+      messageIs = "Failed to parse expression, [upper(name)] is not supported!")
+  public void willThrowForUnsupportedFunctions() {
+    whereClauseParser.parse("upper(name) = 'TAP'");
+  }
+
+  @Test
+  public void testProjections() {
+    Map<String, Object> projected =
+        Compiler.toProjector(
+                selectClauseParser.parse("name, items[1].name as second, quantity * 1.5 as q"))
+            .project(given);
+
+    assertThat(projected.keySet(), contains("name", "second", "q"));
+    assertThat(projected.get("name"), is("tap"));
+    assertThat(projected.get("second"), is("bath"));
+    assertThat(projected.get("q"), is(new BigDecimal("15.0")));
+  }
+
+  @Test
+  public void testProjectionsOfMissingValues() {
+    Map<String, Object> projected =
+        Compiler.toProjector(selectClauseParser.parse("missing, items[5].name as x"))
+            .project(given);
+
+    assertThat(projected.get("missing"), nullValue());
+    assertThat(projected.get("x"), nullValue());
+  }
+
+  @Test
+  public void testSelectStar() {
+    assertThat(Compiler.toProjector(selectClauseParser.parse("*")).project(given), is(given));
+  }
+
+  @Test
+  public void testParameters() {
+    assertMatched("name = ? and quantity > ?", Parameters.of("tap", 5));
+    assertNotMatched("name = ? and quantity > ?", Parameters.of("tap", 10));
+    assertMatched("name = :name or name = :name", Parameters.NONE.with("name", "tap"));
+    assertMatched("quantity in (?, ?) and price < :max", Parameters.of(1, 10).with("max", 50));
+    assertMatched("quantity * ? = 20", Parameters.of(2));
+  }
+
+  @Test
+  public void testParameterisedProjections() {
+    Map<String, Object> projected =
+        Compiler.toPreparedProjector(selectClauseParser.parse("name, quantity * ? as q"))
+            .bind(Parameters.of(3))
+            .project(given);
+
+    assertThat(projected.get("name"), is("tap"));
+    assertThat(projected.get("q"), is(30));
+  }
+
+  @Test
+  public void bindingsShareTheGeneratedClass() {
+    PreparedExpression<Predicator> prepared =
+        Compiler.toPreparedPredicator(whereClauseParser.parse("name = ?"));
+
+    Predicator tap = prepared.bind(Parameters.of("tap"));
+    Predicator sink = prepared.bind(Parameters.of("sink"));
+
+    assertThat(tap.getClass(), sameInstance(sink.getClass()));
+    assertThat(tap.isMatched(given), is(true));
+    assertThat(sink.isMatched(given), is(false));
+  }
+
+  @Test
+  @ExpectedException(
+      type = TranquilException.class,
+      messageIs = "No value has been bound to the parameter: [:name]!")
+  public void willThrowIfANamedParameterIsNotBound() {
+    Compiler.toPreparedPredicator(whereClauseParser.parse("name = :name"))
+        .bind(Parameters.of("tap"));
+  }
+
+  private void assertMatched(String where) {
+    assertThat(
+        where, Compiler.toPredicator(whereClauseParser.parse(where)).isMatched(given), is(true));
+  }
+
+  private void assertNotMatched(String where) {
+    assertThat(
+        where, Compiler.toPredicator(whereClauseParser.parse(where)).isMatched(given), is(false));
+  }
+
+  private void assertMatched(String where, Parameters parameters) {
+    assertThat(
+        where,
+        Compiler.toPreparedPredicator(whereClauseParser.parse(where))
+            .bind(parameters)
+            .isMatched(given),
+        is(true));
+  }
+
+  private void assertNotMatched(String where, Parameters parameters) {
+    assertThat(
+        where,
+        Compiler.toPreparedPredicator(whereClauseParser.parse(where))
+            .bind(parameters)
+            .isMatched(given),
+        is(false));
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.interpreter;
+
+import io.github.glytching.tranquil.ql.model.Condition;
+import io.github.glytching.tranquil.ql.parser.WhereClauseModelParser;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static io.github.glytching.tranquil.util.MapMaker.makeEntry;
+import static io.github.glytching.tranquil.util.MapMaker.makeMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class PredicateIndexTest {
+
+  private final WhereClauseModelParser whereClauseParser = new WhereClauseModelParser();
+
+  @Test
+  public void canMatchOnEqualityInAndRangeTests() {
+    PredicateIndex<String> index =
+        index(
+            "a", "type = 'PushEvent' and actor.id > 10",
+            "b", "type in ('PushEvent', 'DeleteEvent') and actor.id between 5 and 20",
+            "c", "public = true and actor.id <= 5",
+            "d", "actor.id >= 5.5 and actor.id < 7");
+
+    assertThat(index.match(event("PushEvent", 11, true)), contains("a", "b"));
+    assertThat(index.match(event("DeleteEvent", 5, true)), contains("b", "c"));
+    assertThat(index.match(event("DeleteEvent", 6.0, false)), contains("b", "d"));
+    assertThat(index.match(event("WatchEvent", 21L, false)), empty());
+  }
+
+  @Test
+  public void willHoldEachDistinctTestOnce() {
+    PredicateIndex<String> index =
+        index(
+            "a", "type = 'PushEvent' and actor.id > 10",
+            "b", "type = 'PushEvent' and actor.id > 10.0",
+            "c", "actor.id between 5 and 20 and type = 'PushEvent'",
+            "d", "actor.id > 10");
+
+    // type = 'PushEvent', actor.id > 10, actor.id >= 5, actor.id <= 20
+    assertThat(index.getAtomCount(), is(4));
+    assertThat(index.match(event("PushEvent", 12, false)), contains("a", "b", "c", "d"));
+  }
+
+  @Test
+  public void canMatchWhatRemainsOfAWhereClause() {
+    PredicateIndex<String> index =
+        index(
+            "a", "type = 'PushEvent' and name like '^tr'",
+            "b", "type = 'PushEvent' and not (public = true)",
+            "c", "items[*].quantity = 10",
+            "d", "quantity = price");
+
+    Map<String, Object> document =
+        makeMap(
+            makeEntry("type", "PushEvent"),
+            makeEntry("name", "tranquil"),
+            makeEntry("public", true),
+            makeEntry(
+                "items",
+                Arrays.asList(
+                    makeMap(makeEntry("quantity", 5)), makeMap(makeEntry("quantity", 10)))),
+            makeEntry("quantity", 1),
+            makeEntry("price", 1.0));
+    assertThat(index.match(document), contains("a", "c", "d"));
+  }
+
+  @Test
+  public void canMatchAnyMemberOfATopLevelOr() {
+    PredicateIndex<String> index =
+        index(
+            "a",
+            "type = 'PushEvent' or actor.id > 10",
+            "b",
+            "type = 'DeleteEvent' or public = true");
+
+    assertThat(index.match(event("PushEvent", 1, false)), contains("a"));
+    assertThat(index.match(event("WatchEvent", 11, true)), contains("a", "b"));
+    assertThat(index.match(event("WatchEvent", 1, false)), empty());
+  }
+
+  @Test
+  public void willMatchEveryDocumentWhenThereIsNoWhereClause() {
+    Map<String, Condition> conditions = new LinkedHashMap<>();
+    conditions.put("all", null);
+    conditions.put("some", whereClauseParser.parse("public = true"));
+    PredicateIndex<String> index = PredicateIndex.of(conditions);
+
+    assertThat(index.match(event("PushEvent", 1, false)), contains("all"));
+  }
+
+  @Test
+  public void willTestValuesWhichCannotBeLookedUpExactlyInFull() {
+    Map<String, Condition> conditions =
+        conditions(
+            "a", "actor.id = 9007199254740993",
+            "b", "actor.id > 9007199254740992",
+            "c", "type = 'PushEvent'",
+            "d", "type.name = 'PushEvent'");
+    PredicateIndex<String> index = PredicateIndex.of(conditions);
+
+    // a double cannot hold either integer exactly, so the comparison is that of the interpreter
+    assertThat(index.match(event("WatchEvent", 9007199254740993.0, false)), contains("a"));
+    assertThat(index.match(event("WatchEvent", Double.POSITIVE_INFINITY, false)), contains("b"));
+    // reading a property of a list reads it from each element
+    Map<String, Object> document =
+        makeMap(
+            makeEntry(
+                "type",
+                Arrays.asList(
+                    makeMap(makeEntry("name", "PushEvent")),
+                    makeMap(makeEntry("name", "DeleteEvent")))));
+    assertThat(index.match(document), is(matchEach(conditions, document)));
+  }
+
+  @Test
+  public void canMatchAnyOfManyDocuments() {
+    PredicateIndex<String> index = index("a", "actor.id > 10", "b", "actor.id < 5");
+
+    assertThat(
+        index.matchAny(Arrays.asList(event("PushEvent", 1, true), event("PushEvent", 12, true))),
+        contains("a", "b"));
+  }
+
+  @Test
+  public void willAgreeWithTestingEachWhereClauseOnItsOwn() {
+    Random random = new Random(42);
+    String[] types = {"'PushEvent'", "'DeleteEvent'", "'WatchEvent'", "10", "true"};
+    String[] operators = {"=", "!=", ">", ">=", "<", "<="};
+    Map<String, Condition> conditions = new LinkedHashMap<>();
+    for (int i = 0; i < 500; i++) {
+      StringBuilder where = new StringBuilder();
+      int members = 1 + random.nextInt(3);
+      for (int j = 0; j < members; j++) {
+        if (j > 0) {
+          where.append(random.nextInt(4) == 0 ? " or " : " and ");
+        }
+        switch (random.nextInt(5)) {
+          case 0:
+            where.append("type = ").append(types[random.nextInt(types.length)]);
+            break;
+          case 1:
+            where.append("type in (").append(types[random.nextInt(types.length)]);
+            where.append(", ").append(types[random.nextInt(types.length)]).append(")");
+            break;
+          case 2:
+            where.append("actor.id between ").append(random.nextInt(20));
+            where.append(" and ").append(random.nextInt(40));
+            break;
+          case 3:
+            where.append("actor.id ").append(operators[random.nextInt(operators.length)]);
+            where.append(random.nextBoolean() ? " " + random.nextInt(30) : " 12.5");
+            break;
+          default:
+            where.append("public = ").append(random.nextBoolean());
+        }
+      }
+      conditions.put("s" + i, whereClauseParser.parse(where.toString()));
+    }
+    PredicateIndex<String> index = PredicateIndex.of(conditions);
+
+    Object[] ids = {null, 0, 5, 12, 12.5, 13L, 29.0f, new BigDecimal("7.00"), "12", true};
+    Object[] typeValues = {null, "PushEvent", "DeleteEvent", 10, 10.0, true, "true"};
+    for (Object id : ids) {
+      for (Object type : typeValues) {
+        for (Boolean isPublic : Arrays.asList(null, true, false)) {
+          Map<String, Object> document = event(type, id, isPublic);
+          assertThat(index.match(document), is(matchEach(conditions, document)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void willMatchAFloatAsTheInterpreterComparesIt() {
+    Map<String, Condition> conditions =
+        conditions(
+            "a", "actor.id = 0.1",
+            "b", "actor.id in (0.1, 0.5)",
+            "c", "actor.id > 0.1",
+            "d", "actor.id = 0.5",
+            "e", "actor.id <= 0.5");
+    PredicateIndex<String> index = PredicateIndex.of(conditions);
+
+    for (Object id : Arrays.asList(0.1f, 0.5f, 0.1, new BigDecimal("0.1"))) {
+      Map<String, Object> document = event("PushEvent", id, true);
+      assertThat(index.match(document), is(matchEach(conditions, document)));
+    }
+    // 0.1f is 0.10000000149011612 when widened to a double
+    assertThat(index.match(event("PushEvent", 0.1f, true)), contains("c", "e"));
+  }
+
+  private Map<String, Object> event(Object type, Object id, Boolean isPublic) {
+    Map<String, Object> document = new HashMap<>();
+    document.put("type", type);
+    Map<String, Object> actor = new HashMap<>();
+    actor.put("id", id);
+    document.put("actor", actor);
+    document.put("public", isPublic);
+    return document;
+  }
+
+  private PredicateIndex<String> index(String... idsAndWhereClauses) {
+    return PredicateIndex.of(conditions(idsAndWhereClauses));
+  }
+
+  private Map<String, Condition> conditions(String... idsAndWhereClauses) {
+    Map<String, Condition> conditions = new LinkedHashMap<>();
+    for (int i = 0; i < idsAndWhereClauses.length; i += 2) {
+      conditions.put(idsAndWhereClauses[i], whereClauseParser.parse(idsAndWhereClauses[i + 1]));
+    }
+    return conditions;
+  }
+
+  private static Set<String> matchEach(
+      Map<String, Condition> conditions, Map<String, Object> document) {
+    Set<String> matched = new LinkedHashSet<>();
+    for (Map.Entry<String, Condition> entry : conditions.entrySet()) {
+      if (Interpreter.toPredicator(entry.getValue()).isMatched(document)) {
+        matched.add(entry.getKey());
+      }
+    }
+    return matched;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.interpreter;
+
+import io.github.glytching.tranquil.ql.parser.WhereClauseModelParser;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class PrefilterTest {
+
+  private final WhereClauseModelParser whereClauseParser = new WhereClauseModelParser();
+
+  @Test
+  public void canRejectOnEqualityInAndNullTests() {
+    Prefilter prefilter =
+        prefilter("type in ('PushEvent', 'DeleteEvent') and public = true and owner is not null");
+
+    assertThat(prefilter.rejects("type", "PushEvent"), is(false));
+    assertThat(prefilter.rejects("type", "WatchEvent"), is(true));
+    assertThat(prefilter.rejects("public", true), is(false));
+    assertThat(prefilter.rejects("public", false), is(true));
+    assertThat(prefilter.rejects("owner", "bob"), is(false));
+    assertThat(prefilter.rejects("owner", null), is(true));
+  }
+
+  @Test
+  public void canCombineTheTestsOfTheSameAttribute() {
+    Prefilter prefilter = prefilter("quantity != 5 and quantity in (5, 10) and price > 10");
+
+    assertThat(prefilter.rejects("quantity", 10), is(false));
+    assertThat(prefilter.rejects("quantity", 10.0), is(false));
+    assertThat(prefilter.rejects("quantity", 5), is(true));
+    assertThat(prefilter.rejects("quantity", 6L), is(true));
+  }
+
+  @Test
+  public void willNotTestAttributesWhichCannotBeDecidedAlone() {
+    Prefilter prefilter =
+        prefilter("actor.login = 'bob' and price > 10 and name like 'a%' and quantity = price");
+
+    assertThat(prefilter.isEmpty(), is(true));
+    assertThat(prefilter.tests("price"), is(false));
+    assertThat(prefilter.rejects("price", 1), is(false));
+  }
+
+  @Test
+  public void willNotTestTheMembersOfADisjunction() {
+    assertThat(prefilter("name = 'tap' or quantity = 10").isEmpty(), is(true));
+
+    Prefilter prefilter = prefilter("(name = 'tap' or quantity = 10) and active = true");
+    assertThat(prefilter.tests("name"), is(false));
+    assertThat(prefilter.tests("active"), is(true));
+  }
+
+  @Test
+  public void willRejectNothingWhenThereIsNoWhereClause() {
+    assertThat(Prefilter.of(null).isEmpty(), is(true));
+    assertThat(Prefilter.of(null).rejects("name", "tap"), is(false));
+  }
+
+  private Prefilter prefilter(String where) {
+    return Prefilter.of(whereClauseParser.parse(where));
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.parser;
+
+import io.github.glytching.tranquil.ql.Parameters;
+import io.github.glytching.tranquil.ql.model.Parameter;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class LiteralLifterTest {
+
+  @Test
+  public void canLiftStringsAndNumbers() {
+    LiteralLifter.Lifted lifted =
+        LiteralLifter.lift("name = 'tap' and quantity > 10 and price < 49.99");
+
+    assertThat(lifted.getExpression(), is("name = ? and quantity > ? and price < ?"));
+    assertThat(lifted.getParameters().get(Parameter.positional(0)), is("tap"));
+    assertThat(lifted.getParameters().get(Parameter.positional(1)), is(10));
+    assertThat(lifted.getParameters().get(Parameter.positional(2)), is(new BigDecimal("49.99")));
+  }
+
+  @Test
+  public void expressionsWhichDifferOnlyInTheirLiteralsLiftToTheSameExpression() {
+    assertThat(
+        LiteralLifter.lift("name = 'tap'").getExpression(),
+        is(LiteralLifter.lift("name = 'sink'").getExpression()));
+  }
+
+  @Test
+  public void canLiftLiteralsContainingReservedCharacters() {
+    LiteralLifter.Lifted lifted = LiteralLifter.lift("name = 'what? a [tap]' or b in (1, 2)");
+
+    assertThat(lifted.getExpression(), is("name = ? or b in (?, ?)"));
+    assertThat(lifted.getParameters().get(Parameter.positional(0)), is("what? a [tap]"));
+  }
+
+  @Test
+  public void willNotLiftLiteralsWhichTheGrammarRequires() {
+    assertNotLifted("name like 'ta%'");
+    assertNotLifted("items[1].name is null");
+    assertNotLifted("active = true");
+
+    LiteralLifter.Lifted lifted = LiteralLifter.lift("items[0].quantity > 5 and name like 't%'");
+    assertThat(lifted.getExpression(), is("items[0].quantity > ? and name like 't%'"));
+  }
+
+  @Test
+  public void willNotLiftFromAnExpressionWhichAlreadyHasParameters() {
+    assertNotLifted("name = ? and quantity > 10");
+    assertNotLifted("name = :name and quantity > 10");
+  }
+
+  @Test
+  public void willNotLiftFromAnEmptyExpression() {
+    assertNotLifted("");
+    assertNotLifted(null);
+  }
+
+  private void assertNotLifted(String expression) {
+    LiteralLifter.Lifted lifted = LiteralLifter.lift(expression);
+
+    assertThat(lifted.getExpression(), is(expression));
+    assertThat(lifted.getParameters(), sameInstance(Parameters.NONE));
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.glytching.tranquil.ql.tiered;
+
+import io.github.glytching.tranquil.cache.CachePolicy;
+import io.github.glytching.tranquil.cache.CacheProvider;
+import io.github.glytching.tranquil.ql.ExpressionStatistics;
+import io.github.glytching.tranquil.ql.Parameters;
+import io.github.glytching.tranquil.ql.Predicator;
+import io.github.glytching.tranquil.ql.PreparedExpression;
+import io.github.glytching.tranquil.ql.Projector;
+import io.github.glytching.tranquil.ql.parser.SelectClauseModelParser;
+import io.github.glytching.tranquil.ql.parser.WhereClauseModelParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.glytching.tranquil.util.MapMaker.makeEntry;
+import static io.github.glytching.tranquil.util.MapMaker.makeMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TieredFactoryTest {
+
+  // compilations are queued here rather than run on a background thread so that each test decides
+  // when the compiled tier is swapped in
+  private final List<Runnable> pendingCompilations = new ArrayList<>();
+
+  private TieredFactory sut;
+
+  @BeforeEach
+  public void setup() {
+    sut = create(3);
+  }
+
+  @Test
+  public void canCreateAndCacheAPredicator() {
+    Predicator predicator = sut.createPredicator("a > 1");
+
+    Map<String, Object> incoming = makeMap(makeEntry("a", 5));
+    assertThat(predicator.isMatched(incoming), is(true));
+    assertThat(sut.createPredicator("a > 1"), sameInstance(predicator));
+  }
+
+  @Test
+  public void canCreateAndCacheAProjector() {
+    Projector projector = sut.createProjector("a");
+
+    Map<String, Object> incoming = makeMap(makeEntry("a", 5), makeEntry("b", 10));
+    Map<String, Object> projected = projector.project(incoming);
+    assertThat(projected.size(), is(1));
+    assertThat(projected.get("a"), is(5));
+
+    assertThat(sut.createProjector("a"), sameInstance(projector));
+  }
+
+  @Test
+  public void willInterpretUntilTheCompilationThresholdIsReached() {
+    TieredPredicator predicator = (TieredPredicator) sut.createPredicator("a > 1");
+    Map<String, Object> incoming = makeMap(makeEntry("a", 5));
+
+    predicator.isMatched(incoming);
+    predicator.isMatched(incoming);
+    assertThat(pendingCompilations, empty());
+
+    // the third invocation reaches the threshold
+    assertThat(predicator.isMatched(incoming), is(true));
+    assertThat(pendingCompilations.size(), is(1));
+    assertThat(predicator.isCompiled(), is(false));
+
+    // until the compilation completes we continue to interpret, without scheduling another
+    // compilation
+    assertThat(predicator.isMatched(incoming), is(true));
+    assertThat(pendingCompilations.size(), is(1));
+
+    compile();
+    assertThat(predicator.isCompiled(), is(true));
+    assertThat(predicator.isMatched(incoming), is(true));
+    assertThat(predicator.isMatched(makeMap(makeEntry("a", 0))), is(false));
+
+    ExpressionStatistics statistics = sut.getStatistics();
+    assertThat(statistics.getInterpretedInvocations(), is(4L));
+    assertThat(statistics.getCompiledInvocations(), is(2L));
+    assertThat(statistics.getPromotions(), is(1L));
+  }
+
+  @Test
+  public void willPromoteAProjector() {
+    TieredProjector projector = (TieredProjector) sut.createProjector("a, 2 * b as doubleB");
+    Map<String, Object> incoming = makeMap(makeEntry("a", 5), makeEntry("b", 10));
+
+    Map<String, Object> interpreted = null;
+    for (int i = 0; i < 3; i++) {
+      interpreted = projector.project(incoming);
+    }
+    compile();
+    assertThat(projector.isCompiled(), is(true));
+
+    assertThat(projector.project(incoming), is(interpreted));
+    assertThat(sut.getStatistics().getPromotions(), is(1L));
+  }
+
+  @Test
+  public void willCompileImmediatelyIfTheThresholdIsZero() {
+    sut = create(0);
+
+    TieredPredicator predicator = (TieredPredicator) sut.createPredicator("a > 1");
+    assertThat(pendingCompilations.size(), is(1));
+
+    compile();
+    assertThat(predicator.isCompiled(), is(true));
+    assertThat(predicator.isMatched(makeMap(makeEntry("a", 5))), is(true));
+    assertThat(sut.getStatistics().getInterpretedInvocations(), is(0L));
+    assertThat(sut.getStatistics().getCompiledInvocations(), is(1L));
+  }
+
+  @Test
+  public void willCountInvocationsAcrossBindings() {
+    PreparedExpression<Predicator> prepared = sut.preparePredicator("a > ?");
+    Map<String, Object> incoming = makeMap(makeEntry("a", 5));
+
+    // each binding is short lived but together they reach the threshold
+    assertThat(prepared.bind(Parameters.of(1)).isMatched(incoming), is(true));
+    assertThat(prepared.bind(Parameters.of(2)).isMatched(incoming), is(true));
+    assertThat(prepared.bind(Parameters.of(10)).isMatched(incoming), is(false));
+    assertThat(pendingCompilations.size(), is(1));
+
+    compile();
+    TieredPredicator predicator = (TieredPredicator) prepared.bind(Parameters.of(4));
+    assertThat(predicator.isCompiled(), is(true));
+    assertThat(predicator.isMatched(incoming), is(true));
+    assertThat(prepared.bind(Parameters.of(5)).isMatched(incoming), is(false));
+
+    ExpressionStatistics statistics = sut.getStatistics();
+    assertThat(statistics.getInterpretedInvocations(), is(3L));
+    assertThat(statistics.getCompiledInvocations(), is(2L));
+    assertThat(statistics.getPromotions(), is(1L));
+  }
+
+  @Test
+  public void willShareOnePromotionBetweenThePlainAndPreparedForms() {
+    Predicator plain = sut.createPredicator("a > 1");
+    Predicator prepared = sut.preparePredicator("a > 1").bind(Parameters.NONE);
+    Map<String, Object> incoming = makeMap(makeEntry("a", 5));
+
+    assertThat(prepared, sameInstance(plain));
+    plain.isMatched(incoming);
+    prepared.isMatched(incoming);
+    plain.isMatched(incoming);
+    assertThat(pendingCompilations.size(), is(1));
+
+    compile();
+    assertThat(((TieredPredicator) prepared).isCompiled(), is(true));
+    // each form is a cache miss but the plain form is bound from the prepared form
+    assertThat(sut.getStatistics().getCompilations(), is(2L));
+    assertThat(sut.getStatistics().getPromotions(), is(1L));
+  }
+
+  @Test
+  public void willCompileOnTheSharedExecutor() throws InterruptedException {
+    TieredFactory factory = new TieredFactory(10, CachePolicy.LRU, 1);
+
+    TieredPredicator predicator = (TieredPredicator) factory.createPredicator("a > 1");
+    Map<String, Object> incoming = makeMap(makeEntry("a", 5));
+    assertThat(predicator.isMatched(incoming), is(true));
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!predicator.isCompiled() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(predicator.isCompiled(), is(true));
+    assertThat(predicator.isMatched(incoming), is(true));
+  }
+
+  private TieredFactory create(int compilationThreshold) {
+    return new TieredFactory(
+        new SelectClauseModelParser(),
+        new WhereClauseModelParser(),
+        new CacheProvider(2).get(),
+        compilationThreshold,
+        pendingCompilations::add);
+  }
+
+  private void compile() {
+    pendingCompilations.forEach(Runnable::run);
+    pendingCompilations.clear();
+  }
+}